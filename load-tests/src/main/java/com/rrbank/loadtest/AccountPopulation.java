@@ -0,0 +1,65 @@
+package com.rrbank.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fixed set of accounts, each with an owning user, picked with a Zipf distribution: account
+ * rank k is chosen with probability proportional to 1 / k^s. With s around 1 a handful of hot
+ * accounts (merchants, payroll) take a large share of the traffic, as in production.
+ * Ids are derived from the seed so runs against the same database hit the same accounts.
+ */
+public class AccountPopulation {
+
+    private final UUID[] accountIds;
+    private final UUID[] userIds;
+    private final double[] cumulative;
+
+    AccountPopulation(int size, double exponent, long seed) {
+        Random random = new Random(seed);
+        accountIds = new UUID[size];
+        userIds = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            accountIds[i] = new UUID(random.nextLong(), random.nextLong());
+            userIds[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        cumulative = new double[size];
+        double sum = 0;
+        for (int k = 1; k <= size; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    int pick() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    // A second, different account for the other side of a transfer
+    int pickOther(int account) {
+        int other = pick();
+        return other != account ? other : (account + 1) % accountIds.length;
+    }
+
+    UUID accountId(int index) {
+        return accountIds[index];
+    }
+
+    UUID userId(int index) {
+        return userIds[index];
+    }
+
+    /**
+     * Share of picks that land on the top {@code n} accounts.
+     */
+    double shareOfTop(int n) {
+        return cumulative[Math.min(n, cumulative.length) - 1];
+    }
+}
@@ -0,0 +1,120 @@
+package com.rrbank.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the results of a run:
+ * <ul>
+ *   <li>{@code <rate>rps-<operation>.hgrm} - full HdrHistogram percentile distribution per step,
+ *       in milliseconds, loadable in the HdrHistogram plotter</li>
+ *   <li>{@code curve.csv} - one row per step: the throughput-vs-latency curve</li>
+ * </ul>
+ * and compares the curve with a baseline {@code curve.csv} from an earlier run.
+ */
+public class LatencyReport {
+
+    static final String CURVE_HEADER = "target_rps,completed_rps,goodput_rps,ok,shed,client_errors,server_errors,"
+            + "failed,skipped,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,service_p99_ms";
+
+    private static final double MICROS_PER_MS = 1000.0;
+
+    private final Path outputDir;
+
+    LatencyReport(Path outputDir) throws IOException {
+        this.outputDir = outputDir;
+        Files.createDirectories(outputDir);
+    }
+
+    void writeStep(OpenModelGenerator.StepResult step) throws IOException {
+        writeHistogram(step.targetRate + "rps-all.hgrm", step.responseTime);
+        writeHistogram(step.targetRate + "rps-service-time.hgrm", step.serviceTime);
+        for (Map.Entry<String, Histogram> entry : step.responseTimeByOperation.entrySet()) {
+            writeHistogram(step.targetRate + "rps-" + entry.getKey() + ".hgrm", entry.getValue());
+        }
+    }
+
+    Path writeCurve(List<OpenModelGenerator.StepResult> steps) throws IOException {
+        Path curve = outputDir.resolve("curve.csv");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(curve))) {
+            out.println(CURVE_HEADER);
+            for (OpenModelGenerator.StepResult step : steps) {
+                out.println(csvRow(step));
+            }
+        }
+        return curve;
+    }
+
+    static String summary(OpenModelGenerator.StepResult step) {
+        Histogram h = step.responseTime;
+        return String.format(Locale.ROOT,
+                "%6d rps -> goodput %8.1f/s | p50 %8.2fms p99 %8.2fms p99.9 %8.2fms max %9.2fms | shed %d, 4xx %d, 5xx %d, failed %d, skipped %d",
+                step.targetRate, step.goodputPerSecond(), ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()), step.shed.get(), step.clientErrors.get(),
+                step.serverErrors.get(), step.failed.get(), step.skipped.get());
+    }
+
+    /**
+     * Prints p99 and goodput changes per rate present in both runs. Returns true if any step's p99
+     * grew, or its goodput fell, by more than {@code threshold} (0.10 = 10%).
+     */
+    static boolean compareWithBaseline(Path baseline, List<OpenModelGenerator.StepResult> steps, double threshold)
+            throws IOException {
+        Map<Integer, String[]> baselineRows = new HashMap<>();
+        List<String> lines = Files.readAllLines(baseline);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] columns = line.split(",");
+            baselineRows.put(Integer.parseInt(columns[0]), columns);
+        }
+
+        boolean regressed = false;
+        System.out.println();
+        System.out.println("Comparison with baseline " + baseline);
+        for (OpenModelGenerator.StepResult step : steps) {
+            String[] base = baselineRows.get(step.targetRate);
+            if (base == null) {
+                System.out.printf("%6d rps: not in baseline%n", step.targetRate);
+                continue;
+            }
+            double baseGoodput = Double.parseDouble(base[2]);
+            double baseP99 = Double.parseDouble(base[11]);
+            double goodput = step.goodputPerSecond();
+            double p99 = ms(step.responseTime.getValueAtPercentile(99));
+            double goodputChange = baseGoodput > 0 ? (goodput - baseGoodput) / baseGoodput : 0;
+            double p99Change = baseP99 > 0 ? (p99 - baseP99) / baseP99 : 0;
+            boolean stepRegressed = p99Change > threshold || goodputChange < -threshold;
+            regressed |= stepRegressed;
+            System.out.printf(Locale.ROOT, "%6d rps: goodput %8.1f -> %8.1f (%+6.1f%%) | p99 %8.2fms -> %8.2fms (%+6.1f%%)%s%n",
+                    step.targetRate, baseGoodput, goodput, goodputChange * 100, baseP99, p99, p99Change * 100,
+                    stepRegressed ? "  REGRESSION" : "");
+        }
+        return regressed;
+    }
+
+    private void writeHistogram(String fileName, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(fileName)))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MS);
+        }
+    }
+
+    private static String csvRow(OpenModelGenerator.StepResult step) {
+        Histogram h = step.responseTime;
+        return String.format(Locale.ROOT, "%d,%.1f,%.1f,%d,%d,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                step.targetRate, step.completedPerSecond(), step.goodputPerSecond(), step.ok.get(), step.shed.get(),
+                step.clientErrors.get(), step.serverErrors.get(), step.failed.get(), step.skipped.get(),
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()), ms(step.serviceTime.getValueAtPercentile(99)));
+    }
+
+    private static double ms(long micros) {
+        return micros / MICROS_PER_MS;
+    }
+}
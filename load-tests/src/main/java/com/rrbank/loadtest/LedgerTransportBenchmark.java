@@ -0,0 +1,427 @@
+package com.rrbank.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.rrbank.ledger.rpc.LedgerRpcProtocol.*;
+
+/**
+ * Compares the two transports between transaction-service and ledger-service.
+ * <ul>
+ *   <li>{@code --mode=codec} (no services needed) - bytes per call and CPU time to encode and
+ *       decode one credit request and its response: Jackson JSON, as the HTTP path does, against
+ *       the binary RPC frames</li>
+ *   <li>{@code --mode=roundtrip} - closed-loop calls against a running ledger-service over both
+ *       HTTP/JSON and the RPC channel (start it with {@code LEDGER_RPC_ENABLED=true}), reporting
+ *       throughput and HdrHistogram latency percentiles for each</li>
+ * </ul>
+ */
+public class LedgerTransportBenchmark {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double MICROS_PER_MS = 1000.0;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final UUID ENTRY_ID = UUID.randomUUID();
+
+    private String mode = "codec";
+    private String httpUrl = "http://localhost:8085";
+    private String rpcHost = "localhost";
+    private int rpcPort = 9085;
+    private String operation = "balance";
+    private int requests = 50_000;
+    private int warmupRequests = 5_000;
+    private int concurrency = 32;
+    private int connections = 2;
+    private int accounts = 1_000;
+    private int iterations = 1_000_000;
+    private Path outputDir = Path.of("target", "ledger-transport");
+
+    public static void main(String[] args) throws Exception {
+        LedgerTransportBenchmark benchmark = parse(args);
+        switch (benchmark.mode) {
+            case "codec" -> benchmark.runCodec();
+            case "roundtrip" -> benchmark.runRoundTrip();
+            default -> throw new IllegalArgumentException("Unknown --mode: " + benchmark.mode);
+        }
+        System.exit(0);
+    }
+
+    // ------------------------------------------------------------------ codec
+
+    private void runCodec() throws IOException {
+        UUID accountId = UUID.randomUUID();
+        UUID transactionId = UUID.randomUUID();
+        BigDecimal amount = new BigDecimal("1234.56");
+        String description = "Transfer to savings";
+
+        byte[] jsonRequest = jsonRequest(accountId, transactionId, amount, description);
+        byte[] jsonResponse = jsonResponse(accountId, transactionId, amount, description);
+        byte[] rpcRequest = rpcRequest(accountId, transactionId, amount, description);
+        byte[] rpcResponse = rpcResponse();
+
+        System.out.println("Bytes per credit call (request + response):");
+        System.out.printf(Locale.ROOT, "  HTTP/JSON  body %4d + %4d = %4d  (plus HTTP/1.1 request and response headers)%n",
+                jsonRequest.length, jsonResponse.length, jsonRequest.length + jsonResponse.length);
+        System.out.printf(Locale.ROOT, "  RPC        frame %3d + %4d = %4d  (13-byte frame header included)%n",
+                rpcRequest.length, rpcResponse.length, rpcRequest.length + rpcResponse.length);
+
+        long sink = 0;
+        for (int round = 0; round < 2; round++) {
+            boolean measured = round == 1;
+            int count = measured ? iterations : iterations / 5;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                // Client encodes, server decodes and answers, client decodes: one full call's codec work
+                byte[] request = jsonRequest(accountId, transactionId, amount, description);
+                Map<?, ?> decoded = MAPPER.readValue(request, Map.class);
+                byte[] response = jsonResponse(accountId, transactionId, amount, (String) decoded.get("description"));
+                sink += MAPPER.readValue(response, Map.class).size();
+            }
+            long jsonNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                byte[] request = rpcRequest(accountId, transactionId, amount, description);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(request, 13, request.length - 13));
+                readUuid(in);
+                readUuid(in);
+                readDecimal(in);
+                sink += readString(in).length();
+                byte[] response = rpcResponse();
+                in = new DataInputStream(new ByteArrayInputStream(response, 13, response.length - 13));
+                readUuid(in);
+                sink += readDecimal(in).scale();
+            }
+            long rpcNanos = System.nanoTime() - start;
+
+            if (measured) {
+                System.out.println();
+                System.out.println("Codec CPU per credit call over " + count + " iterations:");
+                System.out.printf(Locale.ROOT, "  HTTP/JSON  %8.0f ns%n", jsonNanos / (double) count);
+                System.out.printf(Locale.ROOT, "  RPC        %8.0f ns  (%.1fx less)%n",
+                        rpcNanos / (double) count, jsonNanos / (double) rpcNanos);
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static byte[] jsonRequest(UUID accountId, UUID transactionId, BigDecimal amount, String description)
+            throws IOException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("accountId", accountId);
+        request.put("transactionId", transactionId);
+        request.put("entryType", "CREDIT");
+        request.put("amount", amount);
+        request.put("description", description);
+        return MAPPER.writeValueAsBytes(request);
+    }
+
+    // Shape of ledger-service's LedgerEntryResponse
+    private static byte[] jsonResponse(UUID accountId, UUID transactionId, BigDecimal amount, String description)
+            throws IOException {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", ENTRY_ID.toString());
+        response.put("accountId", accountId.toString());
+        response.put("transactionId", transactionId.toString());
+        response.put("entryType", "CREDIT");
+        response.put("amount", amount);
+        response.put("runningBalance", new BigDecimal("98765.43"));
+        response.put("description", description);
+        response.put("createdAt", LocalDateTime.of(2026, 1, 1, 12, 0).toString());
+        return MAPPER.writeValueAsBytes(response);
+    }
+
+    private static byte[] rpcRequest(UUID accountId, UUID transactionId, BigDecimal amount, String description)
+            throws IOException {
+        return frame(1, OP_CREDIT, out -> {
+            writeUuid(out, accountId);
+            writeUuid(out, transactionId);
+            writeDecimal(out, amount);
+            writeString(out, description);
+        });
+    }
+
+    private static byte[] rpcResponse() throws IOException {
+        return frame(1, STATUS_OK, out -> {
+            writeUuid(out, ENTRY_ID);
+            writeDecimal(out, new BigDecimal("98765.43"));
+        });
+    }
+
+    private static byte[] frame(long requestId, byte code, BodyWriter writer) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(96);
+        writer.write(new DataOutputStream(body));
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(body.size() + 13);
+        DataOutputStream out = new DataOutputStream(frame);
+        out.writeInt(9 + body.size());
+        out.writeLong(requestId);
+        out.writeByte(code);
+        body.writeTo(out);
+        return frame.toByteArray();
+    }
+
+    // -------------------------------------------------------------- round trip
+
+    private void runRoundTrip() throws Exception {
+        UUID[] accountIds = new UUID[accounts];
+        Random random = new Random(42);
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        Files.createDirectories(outputDir);
+        System.out.printf("%s x %d, %d concurrent callers, %d accounts%n", operation, requests, concurrency, accounts);
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Result httpResult = measure("http", accountIds, accountId -> httpCall(http, accountId));
+
+        List<RpcConnection> pool = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            pool.add(new RpcConnection(rpcHost, rpcPort));
+        }
+        AtomicInteger next = new AtomicInteger();
+        Result rpcResult = measure("rpc", accountIds,
+                accountId -> rpcCall(pool.get(Math.floorMod(next.getAndIncrement(), pool.size())), accountId));
+        for (RpcConnection connection : pool) {
+            connection.close();
+        }
+
+        System.out.println();
+        System.out.println(httpResult.summary());
+        System.out.println(rpcResult.summary());
+        System.out.printf(Locale.ROOT, "RPC vs HTTP: throughput %.2fx, p50 %.2fx, p99 %.2fx lower%n",
+                rpcResult.throughput() / httpResult.throughput(),
+                httpResult.latency.getValueAtPercentile(50) / (double) Math.max(1, rpcResult.latency.getValueAtPercentile(50)),
+                httpResult.latency.getValueAtPercentile(99) / (double) Math.max(1, rpcResult.latency.getValueAtPercentile(99)));
+        System.out.println("Wrote latency distributions to " + outputDir);
+    }
+
+    private Result measure(String transport, UUID[] accountIds, Call call) throws Exception {
+        run(accountIds, call, warmupRequests, null, null);
+        Result result = new Result(transport);
+        long start = System.nanoTime();
+        run(accountIds, call, requests, result.latency, result.errors);
+        result.elapsedNanos = System.nanoTime() - start;
+        try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(operation + "-" + transport + ".hgrm")))) {
+            result.latency.outputPercentileDistribution(out, MICROS_PER_MS);
+        }
+        return result;
+    }
+
+    // Closed loop: each caller sends its next request as soon as the previous one answers
+    private void run(UUID[] accountIds, Call call, int total, Histogram latency, AtomicLong errors) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger remaining = new AtomicInteger(total);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            futures.add(callers.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    UUID accountId = accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+                    long sent = System.nanoTime();
+                    try {
+                        call.invoke(accountId);
+                    } catch (Exception e) {
+                        if (errors != null && errors.getAndIncrement() == 0) {
+                            System.out.println("First error: " + e);
+                        }
+                    }
+                    if (latency != null) {
+                        latency.recordValue(Math.min(MAX_TRACKABLE_MICROS,
+                                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent)));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        callers.shutdown();
+    }
+
+    private void httpCall(HttpClient http, UUID accountId) throws Exception {
+        HttpRequest request = "credit".equals(operation)
+                ? HttpRequest.newBuilder(URI.create(httpUrl + "/api/ledger/credit"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(
+                                jsonRequest(accountId, UUID.randomUUID(), BigDecimal.ONE, "transport benchmark")))
+                        .build()
+                : HttpRequest.newBuilder(URI.create(httpUrl + "/api/ledger/balance/" + accountId)).GET().build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 300) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        MAPPER.readValue(response.body(), Map.class);
+    }
+
+    private void rpcCall(RpcConnection connection, UUID accountId) throws Exception {
+        if ("credit".equals(operation)) {
+            connection.call(OP_CREDIT, out -> {
+                writeUuid(out, accountId);
+                writeUuid(out, UUID.randomUUID());
+                writeDecimal(out, BigDecimal.ONE);
+                writeString(out, "transport benchmark");
+            });
+        } else {
+            connection.call(OP_BALANCE, out -> writeUuid(out, accountId));
+        }
+    }
+
+    private static final class Result {
+        final String transport;
+        final Histogram latency = new ConcurrentHistogram(1, MAX_TRACKABLE_MICROS, 3);
+        final AtomicLong errors = new AtomicLong();
+        long elapsedNanos;
+
+        Result(String transport) {
+            this.transport = transport;
+        }
+
+        double throughput() {
+            return latency.getTotalCount() / (elapsedNanos / 1e9);
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT,
+                    "%-4s %9.0f calls/s | p50 %7.3fms p90 %7.3fms p99 %7.3fms p99.9 %7.3fms max %8.3fms | errors %d",
+                    transport, throughput(), ms(latency.getValueAtPercentile(50)), ms(latency.getValueAtPercentile(90)),
+                    ms(latency.getValueAtPercentile(99)), ms(latency.getValueAtPercentile(99.9)),
+                    ms(latency.getMaxValue()), errors.get());
+        }
+
+        private static double ms(long micros) {
+            return micros / MICROS_PER_MS;
+        }
+    }
+
+    /**
+     * Minimal multiplexed connection: many callers share it, responses are matched by request id.
+     */
+    private static final class RpcConnection implements Closeable {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final Map<Long, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+        private final AtomicLong requestIds = new AtomicLong();
+
+        RpcConnection(String host, int port) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 5_000);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.flush();
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unexpected handshake reply; is ledger.rpc.enabled set on ledger-service?");
+            }
+            Thread reader = new Thread(() -> readLoop(in), "ledger-rpc-bench-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        byte[] call(byte op, BodyWriter writer) throws Exception {
+            long requestId = requestIds.incrementAndGet();
+            byte[] frame = frame(requestId, op, writer);
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            pending.put(requestId, future);
+            synchronized (out) {
+                out.write(frame);
+                out.flush();
+            }
+            return future.get(30, TimeUnit.SECONDS);
+        }
+
+        private void readLoop(DataInputStream in) {
+            try {
+                while (true) {
+                    int length = in.readInt();
+                    long requestId = in.readLong();
+                    byte status = in.readByte();
+                    byte[] body = new byte[length - 9];
+                    in.readFully(body);
+                    CompletableFuture<byte[]> future = pending.remove(requestId);
+                    if (future == null) {
+                        continue;
+                    }
+                    if (status == STATUS_OK) {
+                        future.complete(body);
+                    } else {
+                        future.completeExceptionally(new IOException(
+                                readString(new DataInputStream(new ByteArrayInputStream(body)))));
+                    }
+                }
+            } catch (IOException e) {
+                pending.values().forEach(future -> future.completeExceptionally(e));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void invoke(UUID accountId) throws Exception;
+    }
+
+    private static LedgerTransportBenchmark parse(String[] args) {
+        LedgerTransportBenchmark benchmark = new LedgerTransportBenchmark();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "mode" -> benchmark.mode = value;
+                case "http-url" -> benchmark.httpUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "rpc-host" -> benchmark.rpcHost = value;
+                case "rpc-port" -> benchmark.rpcPort = Integer.parseInt(value);
+                case "operation" -> benchmark.operation = value;
+                case "requests" -> benchmark.requests = Integer.parseInt(value);
+                case "warmup-requests" -> benchmark.warmupRequests = Integer.parseInt(value);
+                case "concurrency" -> benchmark.concurrency = Integer.parseInt(value);
+                case "connections" -> benchmark.connections = Integer.parseInt(value);
+                case "accounts" -> benchmark.accounts = Integer.parseInt(value);
+                case "iterations" -> benchmark.iterations = Integer.parseInt(value);
+                case "out" -> benchmark.outputDir = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (!"balance".equals(benchmark.operation) && !"credit".equals(benchmark.operation)) {
+            throw new IllegalArgumentException("--operation must be balance or credit");
+        }
+        return benchmark;
+    }
+}
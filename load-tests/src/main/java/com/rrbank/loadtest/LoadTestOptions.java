@@ -0,0 +1,113 @@
+package com.rrbank.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}. Every option has a default so a bare run
+ * against a local transaction-service works.
+ */
+public class LoadTestOptions {
+
+    String target = "http://localhost:8084";
+    List<Integer> rates = List.of(50, 100, 200, 400);
+    Duration stepDuration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(10);
+    int accounts = 10_000;
+    double zipfExponent = 1.1;
+    long seed = 42;
+    Map<String, Integer> mix = new LinkedHashMap<>(Map.of("deposit", 20, "withdraw", 20, "transfer", 60));
+    int maxInFlight = 20_000;
+    Duration requestTimeout = Duration.ofSeconds(30);
+    boolean startStubs = true;
+    Map<String, StubServices.LatencyModel> stubLatency = new HashMap<>();
+    double stubErrorRate = 0.0;
+    Path outputDir = Path.of("target", "load-results");
+    Path baseline;
+    double regressionThreshold = 0.10;
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "target" -> options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "rates" -> options.rates = parseInts(value);
+                case "step-duration" -> options.stepDuration = parseDuration(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "accounts" -> options.accounts = Integer.parseInt(value);
+                case "zipf" -> options.zipfExponent = Double.parseDouble(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "request-timeout" -> options.requestTimeout = parseDuration(value);
+                case "stubs" -> options.startStubs = Boolean.parseBoolean(value);
+                case "stub-latency" -> options.stubLatency = parseLatencies(value);
+                case "stub-error-rate" -> options.stubErrorRate = Double.parseDouble(value);
+                case "out" -> options.outputDir = Path.of(value);
+                case "baseline" -> options.baseline = Path.of(value);
+                case "regression-threshold" -> options.regressionThreshold = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        return options;
+    }
+
+    StubServices.LatencyModel latencyFor(String stub) {
+        return stubLatency.getOrDefault(stub, StubServices.LatencyModel.DEFAULT);
+    }
+
+    private static List<Integer> parseInts(String value) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            values.add(Integer.parseInt(part.trim()));
+        }
+        return values;
+    }
+
+    // deposit=20,withdraw=20,transfer=60
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.split("=");
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    // ledger=5ms:40ms,fraud=2ms:10ms (median:p99 per stub)
+    private static Map<String, StubServices.LatencyModel> parseLatencies(String value) {
+        Map<String, StubServices.LatencyModel> latencies = new HashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.split("=");
+            String[] bounds = kv[1].split(":");
+            Duration median = parseDuration(bounds[0]);
+            Duration p99 = bounds.length > 1 ? parseDuration(bounds[1]) : median;
+            latencies.put(kv[0].trim(), new StubServices.LatencyModel(median, p99));
+        }
+        return latencies;
+    }
+
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase();
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(v));
+    }
+}
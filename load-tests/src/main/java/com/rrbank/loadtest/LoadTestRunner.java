@@ -0,0 +1,62 @@
+package com.rrbank.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a stepped constant-rate load test against transaction-service's deposit, withdraw and
+ * transfer endpoints. Each rate in {@code --rates} is held for {@code --step-duration}; together the
+ * steps trace the throughput-vs-latency curve.
+ *
+ * Exit code: 0 on success, 2 if a {@code --baseline} was given and the run regressed against it.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        StubServices stubs = options.startStubs ? StubServices.start(options) : null;
+        if (stubs != null) {
+            System.out.println("Point transaction-service at the stubs with:");
+            System.out.println("  SERVICES_LEDGER_URL=http://localhost:" + StubServices.LEDGER_PORT
+                    + " SERVICES_FRAUD_URL=http://localhost:" + StubServices.FRAUD_PORT
+                    + " SERVICES_CUSTOMER_URL=http://localhost:" + StubServices.CUSTOMER_PORT
+                    + " SERVICES_NOTIFICATION_URL=http://localhost:" + StubServices.NOTIFICATION_PORT);
+        }
+
+        boolean regressed;
+        try {
+            AccountPopulation population = new AccountPopulation(options.accounts, options.zipfExponent, options.seed);
+            System.out.printf(Locale.ROOT, "%d accounts, zipf s=%.2f: top 10 accounts get %.1f%% of traffic, top 1%% get %.1f%%%n",
+                    options.accounts, options.zipfExponent, population.shareOfTop(10) * 100,
+                    population.shareOfTop(Math.max(1, options.accounts / 100)) * 100);
+
+            OpenModelGenerator generator = new OpenModelGenerator(options, population);
+            LatencyReport report = new LatencyReport(options.outputDir);
+
+            if (!options.warmup.isZero()) {
+                System.out.println("Warming up at " + options.rates.get(0) + " rps for " + options.warmup.toSeconds() + "s");
+                generator.run(options.rates.get(0), options.warmup);
+            }
+
+            List<OpenModelGenerator.StepResult> steps = new ArrayList<>();
+            for (int rate : options.rates) {
+                OpenModelGenerator.StepResult step = generator.run(rate, options.stepDuration);
+                steps.add(step);
+                report.writeStep(step);
+                System.out.println(LatencyReport.summary(step));
+            }
+            Path curve = report.writeCurve(steps);
+            System.out.println("Wrote " + curve + " and per-step .hgrm files to " + options.outputDir);
+
+            regressed = options.baseline != null
+                    && LatencyReport.compareWithBaseline(options.baseline, steps, options.regressionThreshold);
+        } finally {
+            if (stubs != null) {
+                stubs.close();
+            }
+        }
+        System.exit(regressed ? 2 : 0);
+    }
+}
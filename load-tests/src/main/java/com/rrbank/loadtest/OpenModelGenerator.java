@@ -0,0 +1,182 @@
+package com.rrbank.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests are started on a fixed schedule (one every 1/rate seconds) whether or
+ * not earlier ones have finished, the way independent customers arrive. Latency is measured from
+ * each request's intended start time, not from when it was actually sent, so a stall on either side
+ * shows up in the percentiles instead of being hidden by the generator slowing down (coordinated
+ * omission). Service time (from actual send) is kept separately for comparison.
+ */
+public class OpenModelGenerator {
+
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LoadTestOptions options;
+    private final AccountPopulation population;
+    private final HttpClient client;
+    private final String[] operations;
+
+    OpenModelGenerator(LoadTestOptions options, AccountPopulation population) {
+        this.options = options;
+        this.population = population;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        // Weighted lookup table so picking an operation is one array read
+        List<String> table = new ArrayList<>();
+        options.mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                table.add(operation);
+            }
+        });
+        this.operations = table.toArray(new String[0]);
+    }
+
+    StepResult run(int rate, Duration duration) {
+        StepResult result = new StepResult(rate, duration, options.mix.keySet());
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String operation = operations[ThreadLocalRandom.current().nextInt(operations.length)];
+            result.scheduled.incrementAndGet();
+            if (inFlight.get() >= options.maxInFlight) {
+                // Generator-side saturation; the target is far past capacity
+                result.skipped.incrementAndGet();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long sent = System.nanoTime();
+            client.sendAsync(request(operation), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        inFlight.decrementAndGet();
+                        result.record(operation, response != null ? response.statusCode() : -1,
+                                now - intended, now - sent);
+                    });
+        }
+
+        long drainDeadline = System.nanoTime() + options.requestTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        result.unfinished = inFlight.get();
+        return result;
+    }
+
+    private HttpRequest request(String operation) {
+        int account = population.pick();
+        String amount = BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(100, 50_000), 2)
+                .setScale(2, RoundingMode.UNNECESSARY).toPlainString();
+        String body = switch (operation) {
+            case "deposit" -> "{\"accountId\":\"" + population.accountId(account) + "\",\"amount\":" + amount
+                    + ",\"description\":\"load test deposit\"}";
+            case "withdraw" -> "{\"accountId\":\"" + population.accountId(account) + "\",\"amount\":" + amount
+                    + ",\"description\":\"load test withdrawal\"}";
+            case "transfer" -> "{\"fromAccountId\":\"" + population.accountId(account) + "\",\"toAccountId\":\""
+                    + population.accountId(population.pickOther(account)) + "\",\"amount\":" + amount
+                    + ",\"description\":\"load test transfer\"}";
+            default -> throw new IllegalArgumentException("Unknown operation in mix: " + operation);
+        };
+        return HttpRequest.newBuilder(URI.create(options.target + "/api/transactions/" + operation))
+                .timeout(options.requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("X-User-Id", population.userId(account).toString())
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Outcome of one constant-rate step. Histograms are in microseconds.
+     */
+    static class StepResult {
+        final int targetRate;
+        final Duration duration;
+        final Histogram responseTime = histogram();
+        final Histogram serviceTime = histogram();
+        final Map<String, Histogram> responseTimeByOperation = new LinkedHashMap<>();
+        final AtomicLong scheduled = new AtomicLong();
+        final AtomicLong ok = new AtomicLong();
+        final AtomicLong shed = new AtomicLong();
+        final AtomicLong clientErrors = new AtomicLong();
+        final AtomicLong serverErrors = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        int unfinished;
+
+        StepResult(int targetRate, Duration duration, Iterable<String> operations) {
+            this.targetRate = targetRate;
+            this.duration = duration;
+            for (String operation : operations) {
+                responseTimeByOperation.put(operation, histogram());
+            }
+        }
+
+        void record(String operation, int status, long responseNanos, long serviceNanos) {
+            if (status >= 200 && status < 300) {
+                ok.incrementAndGet();
+            } else if (status == 503) {
+                shed.incrementAndGet();
+            } else if (status >= 400 && status < 500) {
+                clientErrors.incrementAndGet();
+            } else if (status >= 500) {
+                serverErrors.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+            long responseMicros = Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(responseNanos));
+            responseTime.recordValue(responseMicros);
+            responseTimeByOperation.get(operation).recordValue(responseMicros);
+            serviceTime.recordValue(Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(serviceNanos)));
+        }
+
+        double completedPerSecond() {
+            return responseTime.getTotalCount() / (double) duration.toSeconds();
+        }
+
+        // Successful responses per second: the number that should stay flat past saturation
+        double goodputPerSecond() {
+            return ok.get() / (double) duration.toSeconds();
+        }
+
+        private static Histogram histogram() {
+            return new ConcurrentHistogram(1, MAX_TRACKABLE_MICROS, 3);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.rrbank.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-ins for the ledger, fraud, customer and notification services, answering the
+ * calls transaction-service makes with canned success responses after a simulated latency. The
+ * delay is scheduled rather than slept, so a slow stub does not run out of threads.
+ *
+ * Ports: ledger 18085, fraud 18087, customer 18082, notification 18086.
+ */
+public class StubServices implements AutoCloseable {
+
+    static final int LEDGER_PORT = 18085;
+    static final int FRAUD_PORT = 18087;
+    static final int CUSTOMER_PORT = 18082;
+    static final int NOTIFICATION_PORT = 18086;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final ScheduledExecutorService delayer = Executors.newScheduledThreadPool(4);
+    private final double errorRate;
+
+    StubServices(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    static StubServices start(LoadTestOptions options) throws IOException {
+        StubServices stubs = new StubServices(options.stubErrorRate);
+        stubs.serve("ledger", LEDGER_PORT, options.latencyFor("ledger"), exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/api/ledger/balance/")) {
+                return "{\"accountId\":\"" + path.substring(path.lastIndexOf('/') + 1) + "\",\"balance\":1000000000}";
+            }
+            return "{\"entryId\":\"" + UUID.randomUUID() + "\",\"status\":\"POSTED\"}";
+        });
+        stubs.serve("fraud", FRAUD_PORT, options.latencyFor("fraud"),
+                exchange -> "{\"decision\":\"APPROVE\",\"reason\":\"stub\",\"riskScore\":0}");
+        stubs.serve("customer", CUSTOMER_PORT, options.latencyFor("customer"),
+                exchange -> "{\"kycStatus\":\"APPROVED\"}");
+        stubs.serve("notification", NOTIFICATION_PORT, options.latencyFor("notification"),
+                exchange -> "");
+        return stubs;
+    }
+
+    private void serve(String name, int port, LatencyModel latency, Responder responder) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/", exchange -> {
+            drain(exchange.getRequestBody());
+            String body = responder.respond(exchange);
+            boolean fail = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+            delayer.schedule(() -> reply(exchange, fail ? 503 : 200, fail ? "{\"error\":\"stub failure\"}" : body),
+                    latency.sampleMicros(), TimeUnit.MICROSECONDS);
+        });
+        server.start();
+        servers.add(server);
+        System.out.printf("Stub %s listening on :%d (median %dms, p99 %dms)%n",
+                name, port, latency.median().toMillis(), latency.p99().toMillis());
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) {
+        try (exchange) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            // Client gave up; nothing to do
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        try (in) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Override
+    public void close() {
+        servers.forEach(server -> server.stop(0));
+        delayer.shutdownNow();
+    }
+
+    @FunctionalInterface
+    interface Responder {
+        String respond(HttpExchange exchange);
+    }
+
+    /**
+     * Log-normal latency fixed by its median and 99th percentile, which is close to what real
+     * service latencies look like (a tight body with a long right tail).
+     */
+    record LatencyModel(Duration median, Duration p99) {
+
+        static final LatencyModel DEFAULT = new LatencyModel(Duration.ofMillis(5), Duration.ofMillis(25));
+
+        private static final double Z_99 = 2.326;
+
+        long sampleMicros() {
+            double medianMicros = median.toNanos() / 1000.0;
+            if (medianMicros <= 0) {
+                return 0;
+            }
+            double sigma = Math.log(Math.max(1.0, (double) p99.toNanos() / median.toNanos())) / Z_99;
+            return (long) (medianMicros * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+-- RR-Bank UUID primary key insert benchmark: random v4 vs time-ordered v7
+-- Run this with: psql -U postgres -d <scratch_db> -v rows=2000000 -f uuid-insert-locality.sql
+--
+-- Inserts the same number of rows into two tables shaped like the transactions table,
+-- one keyed by gen_random_uuid() and one by a UUIDv7 built the way UuidV7Generator does
+-- (48-bit millisecond timestamp in front). For each table it reports execution time,
+-- buffers read/dirtied, WAL volume including full-page images, and the final primary
+-- key index size. Pick a row count whose index is larger than shared_buffers to see
+-- the cache churn caused by random keys; with pgstattuple installed leaf density is
+-- reported too.
+--
+-- Requires PostgreSQL 13+ (gen_random_uuid, EXPLAIN WAL). Drops its own tables at the end.
+
+\if :{?rows}
+\else
+\set rows 2000000
+\endif
+
+CREATE OR REPLACE FUNCTION bench_uuid_v7() RETURNS uuid AS $$
+DECLARE
+    bytes bytea := uuid_send(gen_random_uuid());
+BEGIN
+    bytes := overlay(bytes PLACING substring(int8send((extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                     FROM 1 FOR 6);
+    bytes := set_byte(bytes, 6, (get_byte(bytes, 6) & 15) | 112);
+    RETURN encode(bytes, 'hex')::uuid;
+END
+$$ LANGUAGE plpgsql VOLATILE;
+
+DROP TABLE IF EXISTS bench_ids_v4;
+DROP TABLE IF EXISTS bench_ids_v7;
+
+CREATE TABLE bench_ids_v4 (
+    id UUID PRIMARY KEY,
+    account_id UUID NOT NULL,
+    amount NUMERIC(19, 4) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+CREATE TABLE bench_ids_v7 (LIKE bench_ids_v4 INCLUDING ALL);
+
+-- v7 keys come from a PL/pgSQL function and cost more to create than v4 keys,
+-- so any gain shown for v7 is net of that overhead.
+
+\echo '=== v4 (random) ==='
+CHECKPOINT;
+EXPLAIN (ANALYZE, BUFFERS, WAL, COSTS OFF)
+INSERT INTO bench_ids_v4 (id, account_id, amount)
+SELECT gen_random_uuid(), gen_random_uuid(), (g % 10000) / 100.0
+FROM generate_series(1, :rows) g;
+
+\echo '=== v7 (time-ordered) ==='
+CHECKPOINT;
+EXPLAIN (ANALYZE, BUFFERS, WAL, COSTS OFF)
+INSERT INTO bench_ids_v7 (id, account_id, amount)
+SELECT bench_uuid_v7(), gen_random_uuid(), (g % 10000) / 100.0
+FROM generate_series(1, :rows) g;
+
+\echo '=== primary key index size ==='
+SELECT c.relname AS index_name,
+       pg_size_pretty(pg_relation_size(c.oid)) AS size,
+       pg_relation_size(c.oid) AS bytes
+FROM pg_class c
+WHERE c.relname IN ('bench_ids_v4_pkey', 'bench_ids_v7_pkey')
+ORDER BY c.relname;
+
+SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pgstattuple') AS has_pgstattuple \gset
+\if :has_pgstattuple
+\echo '=== primary key leaf density ==='
+SELECT 'bench_ids_v4_pkey' AS index_name, avg_leaf_density, leaf_fragmentation FROM pgstatindex('bench_ids_v4_pkey')
+UNION ALL
+SELECT 'bench_ids_v7_pkey', avg_leaf_density, leaf_fragmentation FROM pgstatindex('bench_ids_v7_pkey');
+\endif
+
+DROP TABLE bench_ids_v4;
+DROP TABLE bench_ids_v7;
+DROP FUNCTION bench_uuid_v7();
@@ -2,8 +2,8 @@ package com.rrbank.admin.controller;
 
 import com.rrbank.admin.dto.ManagementDTOs.*;
 import com.rrbank.admin.dto.common.ApiResponse;
-import com.rrbank.admin.dto.common.PageResponse;
 import com.rrbank.admin.entity.AdminAuditLog;
+import com.rrbank.admin.exception.BusinessException;
 import com.rrbank.admin.security.AdminUserDetails;
 import com.rrbank.admin.service.AuditLogService;
 import com.rrbank.admin.service.ServiceClientService;
@@ -27,63 +27,68 @@ import java.util.*;
 @Tag(name = "Fraud Management", description = "Manage fraud alerts and suspicious activities")
 public class FraudManagementController {
 
+    // Risk scores from which an alert counts as high or medium severity
+    private static final int HIGH_RISK = 80;
+    private static final int MEDIUM_RISK = 50;
+
     private final ServiceClientService serviceClient;
     private final AuditLogService auditLogService;
 
+    /**
+     * The fraud review queue, highest risk first. Keyset-paged: pass the returned nextCursor
+     * back, with the same filters, to get the next page.
+     */
     @GetMapping("/alerts")
-    @Operation(summary = "List fraud alerts", description = "Get paginated list of fraud alerts")
-    public ResponseEntity<ApiResponse<PageResponse<FraudAlertResponse>>> getFraudAlerts(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size,
-            @RequestParam(required = false) String status,
-            @RequestParam(required = false) String severity
+    @Operation(summary = "List fraud alerts", description = "Get the fraud review queue, highest risk first")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getFraudAlerts(
+            @RequestParam(defaultValue = "PENDING") String status,
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
     ) {
-        log.info("Admin getting fraud alerts - page: {}, size: {}, status: {}", page, size, status);
-        
-        Map<String, Object> stats = serviceClient.getFraudStats();
-        
-        // For now, return mock alerts based on stats
-        List<FraudAlertResponse> alerts = generateAlertsFromStats(stats);
-        
-        // Filter by status if provided
-        if (status != null && !status.isEmpty()) {
-            alerts = alerts.stream()
-                    .filter(a -> a.getStatus().equalsIgnoreCase(status))
-                    .toList();
-        }
-        
-        // Filter by severity if provided
+        log.info("Admin getting fraud alerts - status: {}, severity: {}, cursor: {}", status, severity, cursor != null);
+
+        Integer minRisk = null;
+        Integer maxRisk = null;
         if (severity != null && !severity.isEmpty()) {
-            alerts = alerts.stream()
-                    .filter(a -> a.getSeverity().equalsIgnoreCase(severity))
-                    .toList();
+            switch (severity.toUpperCase()) {
+                case "HIGH" -> minRisk = HIGH_RISK;
+                case "MEDIUM" -> {
+                    minRisk = MEDIUM_RISK;
+                    maxRisk = HIGH_RISK - 1;
+                }
+                case "LOW" -> maxRisk = MEDIUM_RISK - 1;
+                default -> throw new BusinessException("INVALID_SEVERITY", "Unknown severity: " + severity);
+            }
+        }
+
+        Map<String, Object> response = serviceClient.getFraudDecisions(status.toUpperCase(), minRisk, maxRisk, cursor, size);
+
+        if (response != null && !response.isEmpty()) {
+            Map<String, Object> page = new LinkedHashMap<>(response);
+            page.put("items", toAlertResponses(response.get("items")));
+            return ResponseEntity.ok(ApiResponse.success(page));
         }
 
-        return ResponseEntity.ok(ApiResponse.success(PageResponse.of(alerts, page, size, alerts.size())));
+        return ResponseEntity.ok(ApiResponse.success(Map.of("items", List.of(), "hasMore", false)));
     }
 
     @GetMapping("/alerts/{id}")
     @Operation(summary = "Get fraud alert details", description = "Get detailed information about a fraud alert")
     public ResponseEntity<ApiResponse<FraudAlertResponse>> getFraudAlert(@PathVariable UUID id) {
         log.info("Admin getting fraud alert: {}", id);
-        
-        FraudAlertResponse alert = FraudAlertResponse.builder()
-                .id(id)
-                .alertType("SUSPICIOUS_TRANSACTION")
-                .severity("MEDIUM")
-                .status("PENDING")
-                .description("Suspicious transaction pattern detected")
-                .accountId(UUID.randomUUID())
-                .userId(UUID.randomUUID())
-                .riskScore(65)
-                .createdAt(LocalDateTime.now().minusHours(2))
-                .build();
-        
-        return ResponseEntity.ok(ApiResponse.success(alert));
+
+        Map<String, Object> response = serviceClient.getFraudDecision(id.toString());
+
+        if (response != null && !response.isEmpty()) {
+            return ResponseEntity.ok(ApiResponse.success(toAlertResponse(response)));
+        }
+
+        return ResponseEntity.notFound().build();
     }
 
     @PostMapping("/alerts/{id}/review")
-    @Operation(summary = "Review fraud alert", description = "Mark a fraud alert as reviewed")
+    @Operation(summary = "Review fraud alert", description = "Approve, confirm, dismiss or escalate a fraud alert")
     public ResponseEntity<ApiResponse<FraudAlertResponse>> reviewAlert(
             @PathVariable UUID id,
             @RequestBody ReviewAlertRequest request,
@@ -92,30 +97,34 @@ public class FraudManagementController {
     ) {
         log.info("Admin {} reviewing fraud alert {}: {}", admin.getUsername(), id, request.getDecision());
 
-        // Log the action
+        String decision = request.getDecision() != null ? request.getDecision().toUpperCase() : "";
+        String status = switch (decision) {
+            case "APPROVE" -> "APPROVED";
+            case "CONFIRM" -> "CONFIRMED";
+            case "DISMISS" -> "DISMISSED";
+            case "ESCALATE" -> "ESCALATED";
+            default -> throw new BusinessException("INVALID_REVIEW_DECISION",
+                    "Decision must be APPROVE, CONFIRM, DISMISS or ESCALATE");
+        };
+
+        FraudAlertResponse response = toAlertResponse(
+                serviceClient.reviewFraudDecision(id.toString(), status, admin.getUsername(), request.getNotes()));
+
         auditLogService.logActionSync(
                 admin.getId(),
                 admin.getUsername(),
                 "REVIEW_FRAUD_ALERT",
-                request.getDecision().equalsIgnoreCase("APPROVE") ? 
+                decision.equals("APPROVE") || decision.equals("DISMISS") ?
                         AdminAuditLog.ActionType.APPROVE : AdminAuditLog.ActionType.REJECT,
                 "FRAUD_ALERT",
                 id.toString(),
-                "Fraud alert reviewed: " + request.getDecision() + ". Notes: " + request.getNotes(),
-                "PENDING",
-                request.getDecision().toUpperCase(),
+                "Fraud alert reviewed: " + decision + ". Notes: " + request.getNotes(),
+                null,
+                status,
                 getClientIp(httpRequest),
                 httpRequest.getHeader("User-Agent")
         );
 
-        FraudAlertResponse response = FraudAlertResponse.builder()
-                .id(id)
-                .status(request.getDecision().equalsIgnoreCase("DISMISS") ? "DISMISSED" : "REVIEWED")
-                .reviewedBy(admin.getUsername())
-                .reviewedAt(LocalDateTime.now())
-                .reviewNotes(request.getNotes())
-                .build();
-
         return ResponseEntity.ok(ApiResponse.success("Alert reviewed", response));
     }
 
@@ -158,57 +167,97 @@ public class FraudManagementController {
         return ResponseEntity.ok(ApiResponse.success(limits));
     }
 
-    // Helper methods
-    private List<FraudAlertResponse> generateAlertsFromStats(Map<String, Object> stats) {
-        List<FraudAlertResponse> alerts = new ArrayList<>();
-        
-        long pendingAlerts = stats != null ? getLongValue(stats, "pendingAlerts", 0L) : 0L;
-        
-        // Generate sample alerts based on stats
-        for (int i = 0; i < Math.min(pendingAlerts, 10); i++) {
-            alerts.add(FraudAlertResponse.builder()
-                    .id(UUID.randomUUID())
-                    .alertType(getAlertType(i))
-                    .severity(getSeverity(i))
-                    .status("PENDING")
-                    .description(getAlertDescription(i))
-                    .accountId(UUID.randomUUID())
-                    .userId(UUID.randomUUID())
-                    .riskScore(50 + (i * 5))
-                    .createdAt(LocalDateTime.now().minusHours(i + 1))
-                    .build());
-        }
-        
-        return alerts;
+    @GetMapping("/rules")
+    @Operation(summary = "Get fraud rules", description = "Get the live fraud rule set with per-rule hit counters")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getFraudRules() {
+        log.info("Admin getting fraud rules");
+        return ResponseEntity.ok(ApiResponse.success(serviceClient.getFraudRules()));
     }
 
-    private String getAlertType(int index) {
-        String[] types = {"SUSPICIOUS_TRANSACTION", "VELOCITY_BREACH", "HIGH_RISK_AMOUNT", "UNUSUAL_PATTERN", "GEOGRAPHIC_ANOMALY"};
-        return types[index % types.length];
+    @PostMapping("/rules/validate")
+    @Operation(summary = "Validate fraud rules", description = "Compile a fraud rule set without saving it")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> validateFraudRules(@RequestBody FraudRulesRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(serviceClient.validateFraudRules(request.getSource())));
     }
 
-    private String getSeverity(int index) {
-        String[] severities = {"HIGH", "MEDIUM", "LOW"};
-        return severities[index % severities.length];
+    @PutMapping("/rules")
+    @Operation(summary = "Update fraud rules", description = "Save a new fraud rule set; it goes live on every fraud service instance")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> updateFraudRules(
+            @RequestBody FraudRulesRequest request,
+            @AuthenticationPrincipal AdminUserDetails admin,
+            HttpServletRequest httpRequest
+    ) {
+        log.info("Admin {} updating fraud rules", admin.getUsername());
+        Map<String, Object> rules = serviceClient.updateFraudRules(request.getSource(), admin.getUsername());
+
+        auditLogService.logActionSync(
+                admin.getId(),
+                admin.getUsername(),
+                "UPDATE_FRAUD_RULES",
+                AdminAuditLog.ActionType.UPDATE,
+                "FRAUD_RULES",
+                String.valueOf(rules.get("version")),
+                "Fraud rules updated to version " + rules.get("version"),
+                null,
+                request.getSource(),
+                getClientIp(httpRequest),
+                httpRequest.getHeader("User-Agent")
+        );
+
+        return ResponseEntity.ok(ApiResponse.success("Fraud rules updated", rules));
     }
 
-    private String getAlertDescription(int index) {
-        String[] descriptions = {
-                "Multiple transactions detected in short time",
-                "Transaction amount exceeds normal pattern",
-                "Login from unusual location",
-                "Rapid account activity detected",
-                "Transaction velocity limit approached"
-        };
-        return descriptions[index % descriptions.length];
+    // Helper methods
+    @SuppressWarnings("unchecked")
+    private List<FraudAlertResponse> toAlertResponses(Object items) {
+        if (!(items instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream()
+                .filter(Map.class::isInstance)
+                .map(item -> toAlertResponse((Map<String, Object>) item))
+                .toList();
     }
 
-    private Long getLongValue(Map<String, Object> map, String key, long defaultValue) {
-        Object value = map.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
+    private FraudAlertResponse toAlertResponse(Map<String, Object> data) {
+        int riskScore = data.get("riskScore") instanceof Number number ? number.intValue() : 0;
+        return FraudAlertResponse.builder()
+                .id(getUUID(data, "id"))
+                .alertType("REJECT".equals(data.get("decision")) ? "BLOCKED_TRANSACTION" : "SUSPICIOUS_TRANSACTION")
+                .severity(riskScore >= HIGH_RISK ? "HIGH" : riskScore >= MEDIUM_RISK ? "MEDIUM" : "LOW")
+                .status((String) data.get("status"))
+                .description((String) data.get("reason"))
+                .accountId(getUUID(data, "accountId"))
+                .userId(getUUID(data, "userId"))
+                .riskScore(riskScore)
+                .createdAt(parseDateTime(data.get("createdAt")))
+                .reviewedBy((String) data.get("reviewedBy"))
+                .reviewedAt(parseDateTime(data.get("reviewedAt")))
+                .reviewNotes((String) data.get("reviewNotes"))
+                .build();
+    }
+
+    private UUID getUUID(Map<String, Object> data, String key) {
+        Object value = data.get(key);
+        if (value instanceof String) {
+            try {
+                return UUID.fromString((String) value);
+            } catch (Exception e) {
+                return null;
+            }
         }
-        return defaultValue;
+        return null;
+    }
+
+    private LocalDateTime parseDateTime(Object value) {
+        if (value instanceof String) {
+            try {
+                return LocalDateTime.parse((String) value);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return null;
     }
 
     private String getClientIp(HttpServletRequest request) {
@@ -243,7 +292,14 @@ public class FraudManagementController {
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
     public static class ReviewAlertRequest {
-        private String decision; // APPROVE, DISMISS, ESCALATE
+        private String decision; // APPROVE, CONFIRM, DISMISS, ESCALATE
         private String notes;
     }
+
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class FraudRulesRequest {
+        private String source;
+    }
 }
@@ -59,6 +59,32 @@ public class TransactionManagementController {
         return ResponseEntity.ok(ApiResponse.success(PageResponse.empty(page, size)));
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search transactions", description = "Cursor-paged transaction search; pass nextCursor back to get the following page")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> searchTransactions(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        log.info("Admin searching transactions - status: {}, type: {}, sortBy: {}, cursor: {}", status, type, sortBy, cursor != null);
+
+        Map<String, Object> response = serviceClient.searchTransactions(
+                status, type, startDate, endDate, sortBy, sortDir, cursor, size);
+
+        if (response != null && !response.isEmpty()) {
+            Map<String, Object> page = new LinkedHashMap<>(response);
+            page.put("items", mapToTransactionResponses(Map.of("content", response.getOrDefault("items", List.of()))));
+            return ResponseEntity.ok(ApiResponse.success(page));
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(Map.of("items", List.of(), "hasMore", false)));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get transaction details", description = "Get detailed information about a transaction")
     public ResponseEntity<ApiResponse<TransactionResponse>> getTransaction(@PathVariable UUID id) {
@@ -1,19 +1,29 @@
 package com.rrbank.admin.service;
 
+import com.rrbank.admin.exception.BusinessException;
+import com.rrbank.admin.exception.DuplicateResourceException;
+import com.rrbank.admin.exception.ResourceNotFoundException;
+import com.rrbank.admin.exception.ServiceUnavailableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -118,14 +128,43 @@ public class ServiceClientService {
     // Transaction Service Methods
     @SuppressWarnings("unchecked")
     public Map<String, Object> getTransactions(int page, int size, String status, String type) {
-        StringBuilder url = new StringBuilder(transactionServiceUrl + "/api/transactions?page=" + page + "&size=" + size);
-        if (status != null && !status.isEmpty()) {
-            url.append("&status=").append(status);
-        }
-        if (type != null && !type.isEmpty()) {
-            url.append("&type=").append(type);
-        }
-        return fetchAsMap(url.toString());
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("page", page);
+        params.put("size", size);
+        params.put("status", status);
+        params.put("type", type);
+        return fetchAsMap(uri(transactionServiceUrl, "/api/transactions", params));
+    }
+
+    public Map<String, Object> searchTransactions(String status, String type, String startDate, String endDate,
+                                                  String sortBy, String sortDir, String cursor, int size) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("size", size);
+        params.put("sortBy", sortBy);
+        params.put("sortDir", sortDir);
+        params.put("status", status);
+        params.put("type", type);
+        params.put("startDate", startDate);
+        params.put("endDate", endDate);
+        params.put("cursor", cursor);
+        return fetchAsMap(uri(transactionServiceUrl, "/api/transactions/search", params));
+    }
+
+    /**
+     * Builds a URL with the given query parameters, skipping null and empty ones. Values are
+     * expanded as URI variables, so they are fully encoded: a value cannot add parameters of
+     * its own or change the path.
+     */
+    private static URI uri(String baseUrl, String path, Map<String, Object> params) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(baseUrl).path(path);
+        Map<String, Object> values = new HashMap<>();
+        params.forEach((name, value) -> {
+            if (value != null && !value.toString().isEmpty()) {
+                builder.queryParam(name, "{" + name + "}");
+                values.put(name, value);
+            }
+        });
+        return builder.encode().buildAndExpand(values).toUri();
     }
 
     @SuppressWarnings("unchecked")
@@ -165,6 +204,96 @@ public class ServiceClientService {
         return fetchAsMap(fraudServiceUrl + "/api/fraud/limits/" + userId);
     }
 
+    public Map<String, Object> getFraudRules() {
+        return fetchAsMap(fraudServiceUrl + "/api/fraud/rules");
+    }
+
+    public Map<String, Object> updateFraudRules(String source, String updatedBy) {
+        return sendFraudRules(HttpMethod.PUT, "/api/fraud/rules", source, updatedBy);
+    }
+
+    public Map<String, Object> validateFraudRules(String source) {
+        return sendFraudRules(HttpMethod.POST, "/api/fraud/rules/validate", source, null);
+    }
+
+    public Map<String, Object> getFraudDecisions(String status, Integer minRisk, Integer maxRisk, String cursor, int size) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("size", size);
+        params.put("status", status);
+        params.put("minRisk", minRisk);
+        params.put("maxRisk", maxRisk);
+        params.put("cursor", cursor);
+        return fetchAsMap(uri(fraudServiceUrl, "/api/fraud/decisions", params));
+    }
+
+    public Map<String, Object> getFraudDecision(String decisionId) {
+        return fetchAsMap(fraudServiceUrl + "/api/fraud/decisions/" + decisionId);
+    }
+
+    // Not retried, like rule updates: a review that lost a race has to reach the admin as an error
+    public Map<String, Object> reviewFraudDecision(String decisionId, String status, String reviewedBy, String notes) {
+        Map<String, String> body = new HashMap<>();
+        body.put("status", status);
+        body.put("reviewedBy", reviewedBy);
+        body.put("notes", notes);
+        try {
+            return webClientBuilder.build()
+                    .post()
+                    .uri(fraudServiceUrl + "/api/fraud/decisions/" + decisionId + "/review")
+                    .bodyValue(body)
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .timeout(TIMEOUT)
+                    .block();
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().value() == 404) {
+                throw new ResourceNotFoundException("Fraud alert", decisionId);
+            }
+            Map<?, ?> error = e.getResponseBodyAs(Map.class);
+            String message = error != null && error.get("error") != null ? error.get("error").toString() : e.getMessage();
+            if (e.getStatusCode().value() == 409) {
+                throw new DuplicateResourceException(message);
+            }
+            if (e.getStatusCode().is4xxClientError()) {
+                throw new BusinessException("INVALID_FRAUD_REVIEW", message);
+            }
+            throw new ServiceUnavailableException("Fraud service", e);
+        } catch (Exception e) {
+            log.error("Failed to review fraud decision {}: {}", decisionId, e.getMessage());
+            throw new ServiceUnavailableException("Fraud service", e);
+        }
+    }
+
+    // Not retried: a rejected rule set has to reach the admin as an error, not as an empty result
+    private Map<String, Object> sendFraudRules(HttpMethod method, String path, String source, String updatedBy) {
+        Map<String, String> body = new HashMap<>();
+        body.put("source", source);
+        body.put("updatedBy", updatedBy);
+        try {
+            return webClientBuilder.build()
+                    .method(method)
+                    .uri(fraudServiceUrl + path)
+                    .bodyValue(body)
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .timeout(TIMEOUT)
+                    .block();
+        } catch (WebClientResponseException e) {
+            Map<?, ?> error = e.getResponseBodyAs(Map.class);
+            String message = error != null && error.get("error") != null ? error.get("error").toString() : e.getMessage();
+            if (e.getStatusCode().value() == 409) {
+                throw new DuplicateResourceException(message);
+            }
+            if (e.getStatusCode().is4xxClientError()) {
+                throw new BusinessException("INVALID_FRAUD_RULES", message);
+            }
+            throw new ServiceUnavailableException("Fraud service", e);
+        } catch (Exception e) {
+            log.error("Failed to send fraud rules to {}: {}", path, e.getMessage());
+            throw new ServiceUnavailableException("Fraud service", e);
+        }
+    }
+
     // KYC Management Methods with enhanced retry logic
     @SuppressWarnings("unchecked")
     public Map<String, Object> getPendingKycCustomers(int page, int size) {
@@ -296,11 +425,18 @@ public class ServiceClientService {
     // Generic fetch methods with retry
     @SuppressWarnings("unchecked")
     private Map<String, Object> fetchAsMap(String url) {
+        return fetchAsMap(url, client -> client.get().uri(url));
+    }
+
+    // For URLs that are already encoded, which must not go through URI template encoding again
+    private Map<String, Object> fetchAsMap(URI uri) {
+        return fetchAsMap(uri.toString(), client -> client.get().uri(uri));
+    }
+
+    private Map<String, Object> fetchAsMap(String url, Function<WebClient, WebClient.RequestHeadersSpec<?>> request) {
         try {
             log.debug("Fetching from: {}", url);
-            Map<String, Object> result = webClientBuilder.build()
-                    .get()
-                    .uri(url)
+            Map<String, Object> result = request.apply(webClientBuilder.build())
                     .retrieve()
                     .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
                     .timeout(TIMEOUT)
@@ -12,6 +12,7 @@ import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Configuration
@@ -39,6 +40,8 @@ public class KafkaConfig {
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
         config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        // transaction-events are sent as pre-serialized JSON without type headers
+        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, LinkedHashMap.class);
         
         // OCI Streaming / SASL configuration
         if (securityProtocol != null && !securityProtocol.isEmpty()) {
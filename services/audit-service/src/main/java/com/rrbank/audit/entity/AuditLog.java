@@ -13,7 +13,7 @@ import java.util.UUID;
 @Builder
 public class AuditLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "user_id")
@@ -23,6 +23,12 @@ public class FraudController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/check/batch")
+    public ResponseEntity<BatchFraudCheckResponse> checkBatch(@Valid @RequestBody BatchFraudCheckRequest request) {
+        log.info("Batch fraud check request for {} items", request.getItems().size());
+        return ResponseEntity.ok(fraudCheckService.checkBatch(request.getItems()));
+    }
+
     @GetMapping("/limits/{userId}")
     public ResponseEntity<UserLimitsResponse> getUserLimits(@PathVariable String userId) {
         log.info("Get limits for user: {}", userId);
@@ -0,0 +1,113 @@
+package com.rrbank.fraud.controller;
+
+import com.rrbank.fraud.dto.FraudDTOs.*;
+import com.rrbank.fraud.service.FraudDecisionService;
+import com.rrbank.fraud.service.FraudDecisionService.Decision;
+import com.rrbank.fraud.service.FraudDecisionService.Page;
+import com.rrbank.fraud.service.FraudDecisionService.Status;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Stored REVIEW and REJECT decisions. Listings are keyset-paged: pass the returned nextCursor
+ * back, with the same filters, to get the next page.
+ */
+@RestController
+@RequestMapping("/api/fraud/decisions")
+@RequiredArgsConstructor
+@Slf4j
+public class FraudDecisionController {
+
+    private final FraudDecisionService decisionService;
+
+    /**
+     * The review queue: decisions in one status, highest risk first, oldest first within a score.
+     */
+    @GetMapping
+    public ResponseEntity<?> getQueue(
+            @RequestParam(defaultValue = "PENDING") String status,
+            @RequestParam(required = false) Integer minRisk,
+            @RequestParam(required = false) Integer maxRisk,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("GET fraud decisions - status: {}, risk: {}..{}, cursor: {}", status, minRisk, maxRisk, cursor != null);
+        return page(() -> decisionService.queue(Status.parse(status), minRisk, maxRisk, cursor, size));
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<?> getByUser(@PathVariable UUID userId,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "20") int size) {
+        return page(() -> decisionService.history(userId, null, cursor, size));
+    }
+
+    @GetMapping("/account/{accountId}")
+    public ResponseEntity<?> getByAccount(@PathVariable UUID accountId,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "20") int size) {
+        return page(() -> decisionService.history(null, accountId, cursor, size));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<FraudDecisionResponse> getDecision(@PathVariable UUID id) {
+        return decisionService.get(id)
+                .map(decision -> ResponseEntity.ok(toResponse(decision)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/review")
+    public ResponseEntity<?> review(@PathVariable UUID id, @Valid @RequestBody ReviewDecisionRequest request) {
+        log.info("Review fraud decision {} by {}: {}", id, request.getReviewedBy(), request.getStatus());
+        try {
+            return decisionService.review(id, Status.parse(request.getStatus()), request.getReviewedBy(), request.getNotes())
+                    .<ResponseEntity<?>>map(decision -> ResponseEntity.ok(toResponse(decision)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> page(Supplier<Page> query) {
+        try {
+            Page page = query.get();
+            return ResponseEntity.ok(FraudDecisionPage.builder()
+                    .items(page.rows().stream().map(FraudDecisionController::toResponse).toList())
+                    .nextCursor(page.nextCursor())
+                    .hasMore(page.hasMore())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static FraudDecisionResponse toResponse(Decision decision) {
+        return FraudDecisionResponse.builder()
+                .id(decision.id())
+                .createdAt(decision.createdAt())
+                .decision(decision.decision())
+                .status(decision.status().name())
+                .riskScore(decision.riskScore())
+                .reason(decision.reason())
+                .userId(decision.userId())
+                .accountId(decision.accountId())
+                .counterpartyAccountId(decision.counterpartyAccountId())
+                .transactionType(decision.transactionType())
+                .amount(decision.amount())
+                .itemCount(decision.itemCount())
+                .ruleVersion(decision.ruleVersion())
+                .reviewedBy(decision.reviewedBy())
+                .reviewedAt(decision.reviewedAt())
+                .reviewNotes(decision.reviewNotes())
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.rrbank.fraud.controller;
+
+import com.rrbank.fraud.dto.FraudDTOs.*;
+import com.rrbank.fraud.rules.RuleSyntaxException;
+import com.rrbank.fraud.service.FraudRuleService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/fraud/rules")
+@RequiredArgsConstructor
+@Slf4j
+public class FraudRuleController {
+
+    private final FraudRuleService ruleService;
+
+    @GetMapping
+    public ResponseEntity<RuleSetResponse> getRules() {
+        return ResponseEntity.ok(ruleService.describe(ruleService.current()));
+    }
+
+    @PutMapping
+    public ResponseEntity<?> updateRules(@Valid @RequestBody UpdateRuleSetRequest request) {
+        log.info("Update fraud rules by: {}", request.getUpdatedBy());
+        try {
+            return ResponseEntity.ok(ruleService.describe(ruleService.update(request.getSource(), request.getUpdatedBy())));
+        } catch (RuleSyntaxException e) {
+            return syntaxError(e);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Fraud rules were changed concurrently, reload and try again"));
+        }
+    }
+
+    @PostMapping("/validate")
+    public ResponseEntity<?> validateRules(@Valid @RequestBody UpdateRuleSetRequest request) {
+        try {
+            return ResponseEntity.ok(ruleService.describe(ruleService.validate(request.getSource())));
+        } catch (RuleSyntaxException e) {
+            return syntaxError(e);
+        }
+    }
+
+    private static ResponseEntity<?> syntaxError(RuleSyntaxException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "line", e.getLine()));
+    }
+}
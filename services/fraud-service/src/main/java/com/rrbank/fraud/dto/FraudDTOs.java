@@ -1,8 +1,12 @@
 package com.rrbank.fraud.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class FraudDTOs {
@@ -14,9 +18,14 @@ public class FraudDTOs {
     public static class FraudCheckRequest {
         private UUID accountId;
         private UUID userId;
+        // Receiving account of a transfer
+        private UUID counterpartyAccountId;
         private String transactionType;
         @NotNull
         private BigDecimal amount;
+        // Aggregate checks of bulk transfers: amount is the batch total
+        private Integer itemCount;
+        private BigDecimal maxItemAmount;
     }
 
     @Data
@@ -27,6 +36,28 @@ public class FraudDTOs {
         private String decision;
         private String reason;
         private Integer riskScore;
+        // Id of the stored decision, for REVIEW and REJECT
+        private UUID decisionId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchFraudCheckRequest {
+        // Items of the same user are checked in this order, each seeing the earlier ones
+        @NotEmpty
+        @Size(max = 1000)
+        private List<@Valid FraudCheckRequest> items;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchFraudCheckResponse {
+        // One result per request item, in the same order
+        private List<FraudCheckResponse> results;
     }
 
     @Data
@@ -40,5 +71,103 @@ public class FraudDTOs {
         private BigDecimal remainingDaily;
         private Integer maxWithdrawalsPerHour;
         private Integer withdrawalsThisHour;
+        // Sliding-window totals keyed by window ("1m", "1h", "24h", "30d")
+        private Map<String, WindowUsage> windows;
+        // True when the totals are this instance's local view because Redis is unavailable
+        private Boolean degraded;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class WindowUsage {
+        private Long count;
+        private BigDecimal amount;
+        private Long withdrawals;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class UpdateRuleSetRequest {
+        @NotBlank
+        private String source;
+        private String updatedBy;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RuleSetResponse {
+        // 0 for the built-in default rules
+        private Long version;
+        private String source;
+        private String updatedBy;
+        private LocalDateTime updatedAt;
+        private Integer reviewScore;
+        private Integer rejectScore;
+        // Hit counters start from zero whenever a rule set goes live
+        private Long evaluations;
+        private List<RuleHits> limits;
+        private List<RuleHits> rules;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class RuleHits {
+        private String name;
+        private String action;
+        private Long hits;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FraudDecisionResponse {
+        private UUID id;
+        private LocalDateTime createdAt;
+        private String decision;
+        private String status;
+        private Integer riskScore;
+        private String reason;
+        private UUID userId;
+        private UUID accountId;
+        private UUID counterpartyAccountId;
+        private String transactionType;
+        private BigDecimal amount;
+        private Integer itemCount;
+        private Long ruleVersion;
+        private String reviewedBy;
+        private LocalDateTime reviewedAt;
+        private String reviewNotes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FraudDecisionPage {
+        private List<FraudDecisionResponse> items;
+        // Pass back as cursor, with the same filters, for the next page; null on the last page
+        private String nextCursor;
+        private Boolean hasMore;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ReviewDecisionRequest {
+        // APPROVED, CONFIRMED, DISMISSED or ESCALATED
+        @NotBlank
+        private String status;
+        private String reviewedBy;
+        private String notes;
     }
 }
@@ -0,0 +1,30 @@
+package com.rrbank.fraud.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One saved version of the fraud rules. Versions are never updated; the highest one is live.
+ */
+@Entity
+@Table(name = "fraud_rule_sets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FraudRuleSet {
+
+    @Id
+    private Long version;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String source;
+
+    @Column(name = "updated_by", length = 100)
+    private String updatedBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
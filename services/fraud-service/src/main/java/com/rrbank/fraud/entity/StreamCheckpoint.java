@@ -0,0 +1,29 @@
+package com.rrbank.fraud.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest checkpoint of an in-memory stream processor: its state and the offsets it reflects,
+ * in the processor's own binary format.
+ */
+@Entity
+@Table(name = "fraud_stream_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] state;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
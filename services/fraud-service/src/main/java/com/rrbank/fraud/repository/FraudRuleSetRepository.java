@@ -0,0 +1,29 @@
+package com.rrbank.fraud.repository;
+
+import com.rrbank.fraud.entity.FraudRuleSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface FraudRuleSetRepository extends JpaRepository<FraudRuleSet, Long> {
+
+    @Query("SELECT COALESCE(MAX(r.version), 0) FROM FraudRuleSet r")
+    long findLatestVersion();
+
+    /**
+     * Plain insert rather than save(), which would merge over a version another admin saved
+     * concurrently; here the second writer fails on the primary key instead.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO fraud_rule_sets (version, source, updated_by, created_at) " +
+            "VALUES (:version, :source, :updatedBy, :createdAt)", nativeQuery = true)
+    void insert(@Param("version") long version, @Param("source") String source,
+                @Param("updatedBy") String updatedBy, @Param("createdAt") LocalDateTime createdAt);
+}
@@ -0,0 +1,22 @@
+package com.rrbank.fraud.repository;
+
+import com.rrbank.fraud.entity.StreamCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface StreamCheckpointRepository extends JpaRepository<StreamCheckpoint, String> {
+
+    // Every instance holds the same state, so whichever checkpoints last simply wins
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO fraud_stream_checkpoints (name, state, created_at) VALUES (:name, :state, :createdAt) " +
+            "ON CONFLICT (name) DO UPDATE SET state = EXCLUDED.state, created_at = EXCLUDED.created_at", nativeQuery = true)
+    void upsert(@Param("name") String name, @Param("state") byte[] state, @Param("createdAt") LocalDateTime createdAt);
+}
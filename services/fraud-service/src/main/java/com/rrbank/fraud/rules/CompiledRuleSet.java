@@ -0,0 +1,205 @@
+package com.rrbank.fraud.rules;
+
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+import com.rrbank.fraud.service.FraudCounterStore.WindowLimit;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An immutable, ready-to-run rule set produced by {@link RuleSetCompiler}. Conditions are
+ * trees of small lambdas over the feature array, so evaluating them allocates nothing; the
+ * only mutable state is the hit counters, which belong to this version of the rules and are
+ * dropped with it when the rules are replaced.
+ *
+ * Rules run in declaration order and the first rejecting rule stops evaluation. Rules that
+ * read only request features run before the velocity check, so their score decides whether
+ * the transaction is recorded in the velocity windows; rules over velocity features run
+ * after it, against the totals from before this transaction.
+ */
+public final class CompiledRuleSet {
+
+    public enum Action { REJECT, REVIEW, SCORE }
+
+    @FunctionalInterface
+    interface Condition {
+        boolean test(double[] features);
+    }
+
+    public static final class Rule {
+        private final String name;
+        private final Action action;
+        private final int score;
+        private final String reason;
+        private final Condition condition;
+        private final boolean velocity;
+        private final LongAdder hits = new LongAdder();
+
+        Rule(String name, Action action, int score, String reason, Condition condition, boolean velocity) {
+            this.name = name;
+            this.action = action;
+            this.score = score;
+            this.reason = reason;
+            this.condition = condition;
+            this.velocity = velocity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+    }
+
+    /**
+     * Outcome of running the rules; one instance is carried through both stages of a check.
+     */
+    public static final class Evaluation {
+        private int score;
+        private boolean review;
+        private Rule rejectedBy;
+        private final StringBuilder reasons = new StringBuilder();
+
+        public int getScore() {
+            return score;
+        }
+
+        public boolean isReview() {
+            return review;
+        }
+
+        public Rule getRejectedBy() {
+            return rejectedBy;
+        }
+
+        public String getReasons() {
+            return reasons.toString().trim();
+        }
+    }
+
+    private final long version;
+    private final String source;
+    private final int reviewScore;
+    private final int rejectScore;
+    private final Map<Window, WindowLimit> limits;
+    private final Map<Window, LongAdder> limitHits = new EnumMap<>(Window.class);
+    private final Rule[] requestRules;
+    private final Rule[] velocityRules;
+    private final List<Rule> rules;
+    private final LongAdder evaluations = new LongAdder();
+
+    CompiledRuleSet(long version, String source, int reviewScore, int rejectScore,
+                    Map<Window, WindowLimit> limits, List<Rule> rules) {
+        this.version = version;
+        this.source = source;
+        this.reviewScore = reviewScore;
+        this.rejectScore = rejectScore;
+        this.limits = Collections.unmodifiableMap(new EnumMap<>(limits));
+        this.rules = List.copyOf(rules);
+        this.requestRules = rules.stream().filter(rule -> !rule.velocity).toArray(Rule[]::new);
+        this.velocityRules = rules.stream().filter(rule -> rule.velocity).toArray(Rule[]::new);
+        limits.keySet().forEach(window -> limitHits.put(window, new LongAdder()));
+    }
+
+    /**
+     * Runs the rules over request features, before the velocity check.
+     */
+    public Evaluation evaluateRequest(FeatureVector features) {
+        evaluations.increment();
+        Evaluation evaluation = new Evaluation();
+        run(requestRules, features.values, evaluation);
+        return evaluation;
+    }
+
+    /**
+     * Runs the rules over velocity features, once the window totals are in the vector.
+     */
+    public void evaluateVelocity(FeatureVector features, Evaluation evaluation) {
+        if (evaluation.rejectedBy == null) {
+            run(velocityRules, features.values, evaluation);
+        }
+    }
+
+    private static void run(Rule[] rules, double[] features, Evaluation evaluation) {
+        for (Rule rule : rules) {
+            if (!rule.condition.test(features)) {
+                continue;
+            }
+            rule.hits.increment();
+            if (rule.reason != null) {
+                evaluation.reasons.append(rule.reason).append(' ');
+            }
+            switch (rule.action) {
+                case REJECT -> {
+                    evaluation.rejectedBy = rule;
+                    return;
+                }
+                case REVIEW -> evaluation.review = true;
+                case SCORE -> evaluation.score += rule.score;
+            }
+        }
+    }
+
+    /**
+     * Score to hand to the velocity check: a review flag counts as reaching the review score.
+     */
+    public int riskScore(Evaluation evaluation) {
+        if (evaluation.rejectedBy != null) {
+            return Math.max(evaluation.score, rejectScore);
+        }
+        return evaluation.review ? Math.max(evaluation.score, reviewScore) : evaluation.score;
+    }
+
+    public void recordLimitHit(Window window) {
+        LongAdder hits = limitHits.get(window);
+        if (hits != null) {
+            hits.increment();
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getReviewScore() {
+        return reviewScore;
+    }
+
+    public int getRejectScore() {
+        return rejectScore;
+    }
+
+    public Map<Window, WindowLimit> getLimits() {
+        return limits;
+    }
+
+    public long getLimitHits(Window window) {
+        LongAdder hits = limitHits.get(window);
+        return hits != null ? hits.sum() : 0;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+}
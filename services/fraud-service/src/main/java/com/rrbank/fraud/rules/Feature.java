@@ -0,0 +1,89 @@
+package com.rrbank.fraud.rules;
+
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Slots of the flat feature vector rules are evaluated over. Flags are 1 or 0. The velocity
+ * features hold the sliding-window totals from before the transaction being checked. The
+ * user_ and account_ features are the trailing 24 hours of the transaction stream, as far as
+ * this instance has consumed it, and the graph features come from the transfers in it.
+ * The user_ baseline features compare the transaction with the user's long-running habits
+ * and are 0 until the user has enough history.
+ */
+public enum Feature {
+    AMOUNT,
+    // Largest single item of a bulk transfer, otherwise the amount
+    ITEM_AMOUNT,
+    ITEM_COUNT,
+    WITHDRAWAL,
+    DEPOSIT,
+    TRANSFER,
+    USER_SENT_24H, USER_SENT_COUNT_24H, USER_FAILED_24H, USER_PAYEES_24H,
+    ACCOUNT_SENT_24H, ACCOUNT_SENT_COUNT_24H, ACCOUNT_RECEIVED_24H, ACCOUNT_RECEIVED_COUNT_24H,
+    ACCOUNT_FAILED_24H, ACCOUNT_COUNTERPARTIES_24H,
+    // Distinct senders to and receivers from the account; funnel flags come from the periodic graph scan
+    ACCOUNT_FAN_IN, ACCOUNT_FAN_OUT, ACCOUNT_FUNNEL, PAYEE_FAN_IN, PAYEE_FUNNEL,
+    // Transfers in the shortest loop this one would close (payee back to the account), 0 if none within 4
+    CYCLE_LENGTH,
+    // Completed payments behind the user's baseline
+    USER_HISTORY,
+    // Standard deviations of the log amount from the user's weighted mean
+    USER_AMOUNT_ZSCORE,
+    // Share of the user's payments made in this UTC hour of day
+    USER_HOUR_SHARE,
+    NEW_PAYEE,
+    COUNT_1M(Window.MINUTE), AMOUNT_1M(Window.MINUTE), WITHDRAWALS_1M(Window.MINUTE),
+    COUNT_1H(Window.HOUR), AMOUNT_1H(Window.HOUR), WITHDRAWALS_1H(Window.HOUR),
+    COUNT_24H(Window.DAY), AMOUNT_24H(Window.DAY), WITHDRAWALS_24H(Window.DAY),
+    COUNT_30D(Window.MONTH), AMOUNT_30D(Window.MONTH), WITHDRAWALS_30D(Window.MONTH);
+
+    public static final int COUNT = values().length;
+
+    private static final Map<String, Feature> BY_NAME = new HashMap<>();
+    private static final Feature[][] BY_WINDOW = new Feature[Window.values().length][];
+
+    static {
+        for (Feature feature : values()) {
+            BY_NAME.put(feature.dslName(), feature);
+        }
+        for (Window window : Window.values()) {
+            String suffix = "_" + window.getLabel().toUpperCase(Locale.ROOT);
+            BY_WINDOW[window.ordinal()] = new Feature[] {
+                    valueOf("COUNT" + suffix), valueOf("AMOUNT" + suffix), valueOf("WITHDRAWALS" + suffix)};
+        }
+    }
+
+    private final Window window;
+
+    Feature() {
+        this(null);
+    }
+
+    Feature(Window window) {
+        this.window = window;
+    }
+
+    /**
+     * True for features only known after the velocity check.
+     */
+    public boolean isVelocity() {
+        return window != null;
+    }
+
+    public String dslName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Feature byName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    // Velocity features of one window, in the order count, amount, withdrawals
+    static Feature[] ofWindow(Window window) {
+        return BY_WINDOW[window.ordinal()];
+    }
+}
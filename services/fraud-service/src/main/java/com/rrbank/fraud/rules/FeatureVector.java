@@ -0,0 +1,40 @@
+package com.rrbank.fraud.rules;
+
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+import com.rrbank.fraud.service.FraudCounterStore.WindowTotals;
+
+import java.math.BigDecimal;
+
+/**
+ * The inputs of one fraud check, one double per {@link Feature}. Amounts are compared as
+ * doubles, which is exact to the cent well beyond any limit a rule would use.
+ */
+public final class FeatureVector {
+
+    final double[] values = new double[Feature.COUNT];
+
+    public FeatureVector set(Feature feature, double value) {
+        values[feature.ordinal()] = value;
+        return this;
+    }
+
+    public FeatureVector set(Feature feature, BigDecimal value) {
+        return set(feature, value != null ? value.doubleValue() : 0);
+    }
+
+    public FeatureVector set(Feature feature, boolean value) {
+        return set(feature, value ? 1 : 0);
+    }
+
+    public FeatureVector setTotals(Window window, WindowTotals totals) {
+        Feature[] features = Feature.ofWindow(window);
+        values[features[0].ordinal()] = totals.count();
+        values[features[1].ordinal()] = totals.amount().doubleValue();
+        values[features[2].ordinal()] = totals.withdrawals();
+        return this;
+    }
+
+    public double get(Feature feature) {
+        return values[feature.ordinal()];
+    }
+}
@@ -0,0 +1,362 @@
+package com.rrbank.fraud.rules;
+
+import com.rrbank.fraud.rules.CompiledRuleSet.Action;
+import com.rrbank.fraud.rules.CompiledRuleSet.Condition;
+import com.rrbank.fraud.rules.CompiledRuleSet.Rule;
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+import com.rrbank.fraud.service.FraudCounterStore.WindowLimit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles the fraud rule language into a {@link CompiledRuleSet}.
+ *
+ * <pre>
+ * # Comments run to the end of the line
+ * review at 70                       # score that sends a transaction to review (default 70)
+ * reject at 100                      # score that rejects it (default 100)
+ *
+ * limit 24h amount 100000.00         # hard sliding-window limits, checked atomically in Redis:
+ * limit 1h withdrawals 10 risk 3     #   count, amount, withdrawals, and risk per earlier withdrawal
+ *
+ * rule high_value
+ *   when item_amount > 50000 and not deposit
+ *   then score 30 "High value transaction (over $50000.00)."
+ * </pre>
+ *
+ * A condition combines comparisons ({@code > >= < <= == !=}) between {@link Feature}s and
+ * numbers with {@code and}, {@code or}, {@code not} and parentheses; a bare feature is true
+ * when non-zero. The action is {@code reject}, {@code review} or {@code score N}, each with
+ * an optional quoted reason.
+ */
+public final class RuleSetCompiler {
+
+    public static final int DEFAULT_REVIEW_SCORE = 70;
+    public static final int DEFAULT_REJECT_SCORE = 100;
+
+    private enum TokenType { WORD, NUMBER, STRING, SYMBOL, END }
+
+    private record Token(TokenType type, String text, int line) {
+    }
+
+    private final List<Token> tokens;
+    private int position;
+    private boolean usesVelocity;
+
+    private RuleSetCompiler(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    public static CompiledRuleSet compile(long version, String source) {
+        if (source == null) {
+            throw new RuleSyntaxException(1, "rule set is empty");
+        }
+        return new RuleSetCompiler(tokenize(source)).ruleSet(version, source);
+    }
+
+    private CompiledRuleSet ruleSet(long version, String source) {
+        int reviewScore = DEFAULT_REVIEW_SCORE;
+        int rejectScore = DEFAULT_REJECT_SCORE;
+        Map<Window, WindowLimit> limits = new EnumMap<>(Window.class);
+        List<Rule> rules = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        while (peek().type() != TokenType.END) {
+            Token keyword = next();
+            switch (keyword.text()) {
+                case "review" -> {
+                    expect("at");
+                    reviewScore = integer();
+                }
+                case "reject" -> {
+                    expect("at");
+                    rejectScore = integer();
+                }
+                case "limit" -> {
+                    Window window = window();
+                    if (limits.put(window, limit()) != null) {
+                        throw error(keyword, "duplicate limit for " + window.getLabel());
+                    }
+                }
+                case "rule" -> {
+                    Rule rule = rule();
+                    if (!names.add(rule.getName())) {
+                        throw error(keyword, "duplicate rule name '" + rule.getName() + "'");
+                    }
+                    rules.add(rule);
+                }
+                default -> throw error(keyword, "expected review, reject, limit or rule but found '" + keyword.text() + "'");
+            }
+        }
+        if (reviewScore > rejectScore) {
+            throw new RuleSyntaxException(1, "review score " + reviewScore + " is above reject score " + rejectScore);
+        }
+        return new CompiledRuleSet(version, source, reviewScore, rejectScore, limits, rules);
+    }
+
+    private WindowLimit limit() {
+        Long maxCount = null;
+        BigDecimal maxAmount = null;
+        Integer maxWithdrawals = null;
+        int riskPerWithdrawal = 0;
+        boolean any = false;
+        while (peek().type() == TokenType.WORD
+                && List.of("count", "amount", "withdrawals", "risk").contains(peek().text())) {
+            switch (next().text()) {
+                case "count" -> maxCount = (long) integer();
+                case "amount" -> maxAmount = amount();
+                case "withdrawals" -> maxWithdrawals = integer();
+                default -> riskPerWithdrawal = integer();
+            }
+            any = true;
+        }
+        if (!any) {
+            throw error(peek(), "expected count, amount, withdrawals or risk");
+        }
+        return new WindowLimit(maxCount, maxAmount, maxWithdrawals, riskPerWithdrawal);
+    }
+
+    private Rule rule() {
+        Token name = next();
+        if (name.type() != TokenType.WORD) {
+            throw error(name, "expected a rule name");
+        }
+        expect("when");
+        usesVelocity = false;
+        Condition condition = or();
+        expect("then");
+
+        Token action = next();
+        Action kind;
+        int score = 0;
+        switch (action.text()) {
+            case "reject" -> kind = Action.REJECT;
+            case "review" -> kind = Action.REVIEW;
+            case "score" -> {
+                kind = Action.SCORE;
+                score = integer();
+            }
+            default -> throw error(action, "expected reject, review or score but found '" + action.text() + "'");
+        }
+        String reason = peek().type() == TokenType.STRING ? next().text() : null;
+        if (reason == null && kind == Action.REJECT) {
+            reason = "Rejected by rule " + name.text();
+        }
+        return new Rule(name.text(), kind, score, reason, condition, usesVelocity);
+    }
+
+    private Condition or() {
+        Condition condition = and();
+        while (accept("or")) {
+            Condition left = condition;
+            Condition right = and();
+            condition = features -> left.test(features) || right.test(features);
+        }
+        return condition;
+    }
+
+    private Condition and() {
+        Condition condition = unary();
+        while (accept("and")) {
+            Condition left = condition;
+            Condition right = unary();
+            condition = features -> left.test(features) && right.test(features);
+        }
+        return condition;
+    }
+
+    private Condition unary() {
+        if (accept("not")) {
+            Condition operand = unary();
+            return features -> !operand.test(features);
+        }
+        if (accept("(")) {
+            Condition condition = or();
+            expect(")");
+            return condition;
+        }
+        return comparison();
+    }
+
+    private Condition comparison() {
+        Token leftToken = next();
+        if (peek().type() != TokenType.SYMBOL || peek().text().equals("(") || peek().text().equals(")")) {
+            // A bare feature is a flag
+            int index = feature(leftToken).ordinal();
+            return features -> features[index] != 0;
+        }
+        Token op = next();
+        Token rightToken = next();
+
+        if (leftToken.type() == TokenType.NUMBER && rightToken.type() == TokenType.NUMBER) {
+            throw error(leftToken, "a comparison needs at least one feature");
+        }
+        if (leftToken.type() == TokenType.NUMBER) {
+            return compare(feature(rightToken).ordinal(), flip(op), Double.parseDouble(leftToken.text()));
+        }
+        int left = feature(leftToken).ordinal();
+        if (rightToken.type() == TokenType.NUMBER) {
+            return compare(left, op, Double.parseDouble(rightToken.text()));
+        }
+        int right = feature(rightToken).ordinal();
+        return switch (op.text()) {
+            case ">" -> features -> features[left] > features[right];
+            case ">=" -> features -> features[left] >= features[right];
+            case "<" -> features -> features[left] < features[right];
+            case "<=" -> features -> features[left] <= features[right];
+            case "==" -> features -> features[left] == features[right];
+            case "!=" -> features -> features[left] != features[right];
+            default -> throw error(op, "unknown operator '" + op.text() + "'");
+        };
+    }
+
+    private Condition compare(int index, Token op, double value) {
+        return switch (op.text()) {
+            case ">" -> features -> features[index] > value;
+            case ">=" -> features -> features[index] >= value;
+            case "<" -> features -> features[index] < value;
+            case "<=" -> features -> features[index] <= value;
+            case "==" -> features -> features[index] == value;
+            case "!=" -> features -> features[index] != value;
+            default -> throw error(op, "unknown operator '" + op.text() + "'");
+        };
+    }
+
+    // "100 < amount" is read as "amount > 100"
+    private static Token flip(Token op) {
+        String flipped = switch (op.text()) {
+            case ">" -> "<";
+            case ">=" -> "<=";
+            case "<" -> ">";
+            case "<=" -> ">=";
+            default -> op.text();
+        };
+        return new Token(op.type(), flipped, op.line());
+    }
+
+    private Feature feature(Token token) {
+        Feature feature = token.type() == TokenType.WORD ? Feature.byName(token.text()) : null;
+        if (feature == null) {
+            throw error(token, "unknown feature '" + token.text() + "'");
+        }
+        usesVelocity |= feature.isVelocity();
+        return feature;
+    }
+
+    private Window window() {
+        Token token = next();
+        for (Window window : Window.values()) {
+            if (window.getLabel().equals(token.text())) {
+                return window;
+            }
+        }
+        throw error(token, "unknown window '" + token.text() + "'");
+    }
+
+    private int integer() {
+        Token token = next();
+        try {
+            int value = Integer.parseInt(token.text());
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw error(token, "expected a non-negative whole number but found '" + token.text() + "'");
+    }
+
+    private BigDecimal amount() {
+        Token token = next();
+        if (token.type() != TokenType.NUMBER) {
+            throw error(token, "expected an amount but found '" + token.text() + "'");
+        }
+        return new BigDecimal(token.text());
+    }
+
+    private boolean accept(String text) {
+        if (peek().type() != TokenType.STRING && peek().text().equals(text)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String text) {
+        if (!accept(text)) {
+            throw error(peek(), "expected '" + text + "' but found '" + peek().text() + "'");
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.type() == TokenType.END) {
+            throw error(token, "unexpected end of rules");
+        }
+        position++;
+        return token;
+    }
+
+    private static RuleSyntaxException error(Token token, String message) {
+        return new RuleSyntaxException(token.line(), message);
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int line = 1;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                line++;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '#') {
+                while (i < source.length() && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '"') {
+                int end = source.indexOf('"', i + 1);
+                if (end < 0 || source.substring(i, end).indexOf('\n') >= 0) {
+                    throw new RuleSyntaxException(line, "unterminated string");
+                }
+                tokens.add(new Token(TokenType.STRING, source.substring(i + 1, end), line));
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                int start = i;
+                while (i < source.length()
+                        && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_' || source.charAt(i) == '.')) {
+                    i++;
+                }
+                String word = source.substring(start, i);
+                tokens.add(new Token(word.matches("\\d+(\\.\\d+)?") ? TokenType.NUMBER : TokenType.WORD, word, line));
+            } else if (c == '(' || c == ')') {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), line));
+                i++;
+            } else if ("<>=!".indexOf(c) >= 0) {
+                boolean twoChars = i + 1 < source.length() && source.charAt(i + 1) == '=';
+                String op = source.substring(i, twoChars ? i + 2 : i + 1);
+                if (op.equals("=") || op.equals("!")) {
+                    throw new RuleSyntaxException(line, "unknown operator '" + op + "'");
+                }
+                tokens.add(new Token(TokenType.SYMBOL, op, line));
+                i += op.length();
+            } else {
+                throw new RuleSyntaxException(line, "unexpected character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(TokenType.END, "end of rules", line));
+        return tokens;
+    }
+}
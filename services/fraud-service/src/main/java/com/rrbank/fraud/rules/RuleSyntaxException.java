@@ -0,0 +1,20 @@
+package com.rrbank.fraud.rules;
+
+/**
+ * A rule set that does not compile; {@code line} points at the offending source line.
+ */
+public class RuleSyntaxException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+
+    public RuleSyntaxException(int line, String message) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+}
@@ -1,27 +1,55 @@
 package com.rrbank.fraud.service;
 
 import com.rrbank.fraud.dto.FraudDTOs.*;
+import com.rrbank.fraud.rules.CompiledRuleSet;
+import com.rrbank.fraud.rules.CompiledRuleSet.Evaluation;
+import com.rrbank.fraud.rules.Feature;
+import com.rrbank.fraud.rules.FeatureVector;
+import com.rrbank.fraud.service.FraudCounterStore.Outcome;
+import com.rrbank.fraud.service.FraudCounterStore.Recorded;
+import com.rrbank.fraud.service.FraudCounterStore.VelocityCheck;
+import com.rrbank.fraud.service.FraudCounterStore.VelocityItem;
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+import com.rrbank.fraud.service.FraudCounterStore.WindowLimit;
+import com.rrbank.fraud.service.FraudCounterStore.WindowTotals;
+import com.rrbank.fraud.stream.Activity;
+import com.rrbank.fraud.stream.Baseline;
+import com.rrbank.fraud.stream.BehaviourProfiles;
+import com.rrbank.fraud.stream.TransactionStreamProcessor;
+import com.rrbank.fraud.stream.TransferGraphAnalyzer;
+import com.rrbank.fraud.stream.TransferGraphAnalyzer.AccountGraph;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FraudCheckService {
 
-    private final RedisTemplate<String, String> redisTemplate;
+    private final FraudVelocityService velocityService;
+    private final FraudStatsService statsService;
+    private final FraudDecisionRecorder decisionRecorder;
+    private final FraudRuleService ruleService;
+    private final TransactionStreamProcessor streamProcessor;
+    private final TransferGraphAnalyzer transferGraph;
+    private final BehaviourProfiles behaviourProfiles;
 
-    // Increased limits for realistic banking operations
-    private static final BigDecimal DAILY_LIMIT = new BigDecimal("100000.00");        // $100,000 daily limit
-    private static final BigDecimal SUSPICIOUS_AMOUNT = new BigDecimal("50000.00");   // Flag transactions over $50k
-    private static final BigDecimal PER_TRANSACTION_LIMIT = new BigDecimal("25000.00"); // Max $25k per transaction
-    private static final int MAX_WITHDRAWALS_PER_HOUR = 10;
+    private static final int MAX_CYCLE_LENGTH = 4;
+    // Payments needed before a user's baseline is trusted
+    private static final int MIN_BASELINE_HISTORY = 5;
+    private static final Map<Window, String> TITLES = Map.of(
+            Window.MINUTE, "Per-minute", Window.HOUR, "Hourly", Window.DAY, "Daily", Window.MONTH, "30-day");
+    private static final Map<Window, String> SPANS = Map.of(
+            Window.MINUTE, "minute", Window.HOUR, "hour", Window.DAY, "day", Window.MONTH, "30 days");
 
     public FraudCheckResponse checkTransaction(FraudCheckRequest request) {
         log.info("=== FRAUD CHECK START ===");
@@ -29,149 +57,275 @@ public class FraudCheckService {
                 request.getTransactionType(), request.getAmount(), 
                 request.getAccountId(), request.getUserId());
 
-        int riskScore = 0;
-        StringBuilder reasons = new StringBuilder();
-
-        // Check per-transaction limit
-        if (request.getAmount().compareTo(PER_TRANSACTION_LIMIT) > 0) {
-            log.warn("Transaction exceeds per-transaction limit: {} > {}", 
-                    request.getAmount(), PER_TRANSACTION_LIMIT);
-            return FraudCheckResponse.builder()
-                    .decision("REJECT")
-                    .reason("Transaction exceeds maximum amount of $" + PER_TRANSACTION_LIMIT + " per transaction")
-                    .riskScore(100)
-                    .build();
-        }
-
-        // Flag suspicious high-value transactions (but don't reject)
-        if (request.getAmount().compareTo(SUSPICIOUS_AMOUNT) > 0) {
-            riskScore += 30;
-            reasons.append("High value transaction (over $").append(SUSPICIOUS_AMOUNT).append("). ");
-            log.info("High value transaction flagged: {}", request.getAmount());
-        }
-
-        // Check daily limit
-        if (request.getUserId() != null) {
-            BigDecimal dailyUsed = getDailyUsage(request.getUserId().toString());
-            BigDecimal newTotal = dailyUsed.add(request.getAmount());
-            
-            log.info("Daily usage check: used={}, new={}, limit={}", dailyUsed, newTotal, DAILY_LIMIT);
-            
-            if (newTotal.compareTo(DAILY_LIMIT) > 0) {
-                log.warn("Daily limit would be exceeded for user: {}", request.getUserId());
-                return FraudCheckResponse.builder()
-                        .decision("REJECT")
-                        .reason("Daily transaction limit exceeded. Limit: $" + DAILY_LIMIT + 
-                                ", Already used: $" + dailyUsed + 
-                                ", Requested: $" + request.getAmount())
-                        .riskScore(100)
-                        .build();
+        // One rule set for the whole check, even if an update lands half-way through
+        CompiledRuleSet rules = ruleService.current();
+        ScreenedRequest screened = screen(request, rules);
+        VelocityCheck check = null;
+        // All velocity windows are checked and recorded in one atomic Redis call, within a deadline
+        if (screened.needsVelocity()) {
+            check = checkVelocity(request.getUserId().toString(), screened.velocityItem(), rules);
+            log.info("Velocity check: outcome={}, window={}, totals={}",
+                    check.outcome(), check.window(), check.totals());
+        }
+        FraudCheckResponse response = decide(screened, check, rules);
+        // Only approved transactions count towards the limits
+        if (check != null && check.outcome() == Outcome.RECORDED && !"APPROVE".equals(response.getDecision())) {
+            velocityService.release(Map.of(request.getUserId().toString(),
+                    List.of(new Recorded(screened.velocityItem(), check))));
+        }
+
+        log.info("=== FRAUD CHECK RESULT: decision={}, riskScore={}, reason={} ===", 
+                response.getDecision(), response.getRiskScore(), response.getReason());
+        statsService.recordDecision(response.getDecision(),
+                request.getUserId() != null ? request.getUserId().toString() : null);
+        response.setDecisionId(decisionRecorder.record(request, response, rules.getVersion()));
+        return response;
+    }
+
+    /**
+     * Scores many transactions in one go. Each user's transactions are checked in the given
+     * order, each against that user's window totals including the earlier items of the batch
+     * that passed the limits; the velocity checks of all users go to Redis as one pipeline, and
+     * so do the releases of the items not approved in the end.
+     */
+    public BatchFraudCheckResponse checkBatch(List<FraudCheckRequest> requests) {
+        long started = System.nanoTime();
+        CompiledRuleSet rules = ruleService.current();
+        List<ScreenedRequest> screened = new ArrayList<>(requests.size());
+        Map<String, List<Integer>> indexesByUser = new LinkedHashMap<>();
+        Map<String, List<VelocityItem>> itemsByUser = new LinkedHashMap<>();
+        for (FraudCheckRequest request : requests) {
+            ScreenedRequest item = screen(request, rules);
+            if (item.needsVelocity()) {
+                String userId = request.getUserId().toString();
+                indexesByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(screened.size());
+                itemsByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(item.velocityItem());
             }
+            screened.add(item);
         }
 
-        // Check withdrawal velocity
-        if ("WITHDRAWAL".equals(request.getTransactionType()) && request.getUserId() != null) {
-            int withdrawalsThisHour = getWithdrawalsThisHour(request.getUserId().toString());
-            log.info("Withdrawal velocity check: count={}, max={}", withdrawalsThisHour, MAX_WITHDRAWALS_PER_HOUR);
-            
-            if (withdrawalsThisHour >= MAX_WITHDRAWALS_PER_HOUR) {
-                log.warn("Velocity limit exceeded for user: {}", request.getUserId());
-                return FraudCheckResponse.builder()
-                        .decision("REJECT")
-                        .reason("Maximum withdrawals per hour exceeded. Max: " + MAX_WITHDRAWALS_PER_HOUR)
-                        .riskScore(100)
-                        .build();
+        VelocityCheck[] checks = new VelocityCheck[requests.size()];
+        if (!itemsByUser.isEmpty()) {
+            Map<String, List<VelocityCheck>> checksByUser = checkVelocity(itemsByUser, rules);
+            indexesByUser.forEach((userId, indexes) -> {
+                List<VelocityCheck> userChecks = checksByUser.get(userId);
+                for (int i = 0; i < indexes.size(); i++) {
+                    checks[indexes.get(i)] = userChecks.get(i);
+                }
+            });
+        }
+
+        List<FraudCheckResponse> results = new ArrayList<>(requests.size());
+        Map<String, Integer> decisions = new TreeMap<>();
+        Map<String, List<Recorded>> notApproved = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            FraudCheckResponse response = decide(screened.get(i), checks[i], rules);
+            FraudCheckRequest request = requests.get(i);
+            if (checks[i] != null && checks[i].outcome() == Outcome.RECORDED && !"APPROVE".equals(response.getDecision())) {
+                notApproved.computeIfAbsent(request.getUserId().toString(), id -> new ArrayList<>())
+                        .add(new Recorded(screened.get(i).velocityItem(), checks[i]));
             }
-            riskScore += withdrawalsThisHour * 3; // Lower multiplier
+            statsService.recordDecision(response.getDecision(),
+                    request.getUserId() != null ? request.getUserId().toString() : null);
+            response.setDecisionId(decisionRecorder.record(request, response, rules.getVersion()));
+            decisions.merge(response.getDecision(), 1, Integer::sum);
+            results.add(response);
+        }
+        if (!notApproved.isEmpty()) {
+            velocityService.release(notApproved);
+        }
+
+        log.info("=== BATCH FRAUD CHECK: items={}, users={}, decisions={}, took={}ms ===",
+                requests.size(), itemsByUser.size(), decisions, (System.nanoTime() - started) / 1_000_000);
+        return BatchFraudCheckResponse.builder()
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Runs the rules that need only the request. The result says whether the transaction still
+     * has to go through the velocity check.
+     */
+    private ScreenedRequest screen(FraudCheckRequest request, CompiledRuleSet rules) {
+        // For bulk transfers the per-transaction rules apply to the largest item, the daily limit to the total
+        BigDecimal itemAmount = request.getMaxItemAmount() != null ? request.getMaxItemAmount() : request.getAmount();
+        if (request.getItemCount() != null) {
+            log.info("Bulk transfer check: items={}, maxItem={}", request.getItemCount(), itemAmount);
+        }
+
+        boolean withdrawal = "WITHDRAWAL".equals(request.getTransactionType());
+        FeatureVector features = new FeatureVector()
+                .set(Feature.AMOUNT, request.getAmount())
+                .set(Feature.ITEM_AMOUNT, itemAmount)
+                .set(Feature.ITEM_COUNT, request.getItemCount() != null ? request.getItemCount() : 1)
+                .set(Feature.WITHDRAWAL, withdrawal)
+                .set(Feature.DEPOSIT, "DEPOSIT".equals(request.getTransactionType()))
+                .set(Feature.TRANSFER, "TRANSFER".equals(request.getTransactionType()));
+        setStreamFeatures(features, request);
+
+        Evaluation evaluation = rules.evaluateRequest(features);
+        return new ScreenedRequest(request, features, evaluation, withdrawal, rules.riskScore(evaluation));
+    }
+
+    private void setStreamFeatures(FeatureVector features, FraudCheckRequest request) {
+        Activity user = streamProcessor.userActivity(request.getUserId());
+        Activity account = streamProcessor.accountActivity(request.getAccountId());
+        features.set(Feature.USER_SENT_24H, user.sentCents() / 100.0)
+                .set(Feature.USER_SENT_COUNT_24H, user.sentCount())
+                .set(Feature.USER_FAILED_24H, user.failedCount())
+                .set(Feature.USER_PAYEES_24H, user.counterparties())
+                .set(Feature.ACCOUNT_SENT_24H, account.sentCents() / 100.0)
+                .set(Feature.ACCOUNT_SENT_COUNT_24H, account.sentCount())
+                .set(Feature.ACCOUNT_RECEIVED_24H, account.receivedCents() / 100.0)
+                .set(Feature.ACCOUNT_RECEIVED_COUNT_24H, account.receivedCount())
+                .set(Feature.ACCOUNT_FAILED_24H, account.failedCount())
+                .set(Feature.ACCOUNT_COUNTERPARTIES_24H, account.counterparties());
+
+        AccountGraph accountGraph = transferGraph.account(request.getAccountId());
+        features.set(Feature.ACCOUNT_FAN_IN, accountGraph.fanIn())
+                .set(Feature.ACCOUNT_FAN_OUT, accountGraph.fanOut())
+                .set(Feature.ACCOUNT_FUNNEL, accountGraph.funnel());
+        UUID payee = request.getCounterpartyAccountId();
+        if (payee != null) {
+            AccountGraph payeeGraph = transferGraph.account(payee);
+            int hopsBack = transferGraph.hops(payee, request.getAccountId(), MAX_CYCLE_LENGTH - 1);
+            features.set(Feature.PAYEE_FAN_IN, payeeGraph.fanIn())
+                    .set(Feature.PAYEE_FUNNEL, payeeGraph.funnel())
+                    .set(Feature.CYCLE_LENGTH, hopsBack > 0 ? hopsBack + 1 : 0);
+        }
+
+        Baseline baseline = behaviourProfiles.score(request.getUserId(), System.currentTimeMillis(),
+                features.get(Feature.ITEM_AMOUNT), payee);
+        features.set(Feature.USER_HISTORY, baseline.history());
+        if (baseline.history() >= MIN_BASELINE_HISTORY) {
+            features.set(Feature.USER_AMOUNT_ZSCORE, baseline.amountZScore())
+                    .set(Feature.USER_HOUR_SHARE, baseline.hourShare())
+                    .set(Feature.NEW_PAYEE, baseline.newPayee());
+        }
+    }
+
+    private FraudCheckResponse decide(ScreenedRequest screened, VelocityCheck check, CompiledRuleSet rules) {
+        FraudCheckRequest request = screened.request();
+        Evaluation evaluation = screened.evaluation();
+        if (evaluation.getRejectedBy() != null) {
+            log.warn("Transaction rejected by rule {}: amount={}", evaluation.getRejectedBy().getName(), request.getAmount());
+            return reject(evaluation.getRejectedBy().getReason());
+        }
+
+        int riskScore = screened.riskScore();
+        if (check != null && check.outcome() == Outcome.UNAVAILABLE) {
+            log.warn("Velocity limits unavailable, not approving amount {} for user: {}",
+                    request.getAmount(), request.getUserId());
+            return reject("Transaction limits cannot be verified right now, please try again shortly");
+        }
+        if (check != null) {
+            String limitReason = limitReason(check, rules, request);
+            if (limitReason != null) {
+                rules.recordLimitHit(check.window());
+                log.warn("{} limit for the last {} would be exceeded for user: {}",
+                        check.outcome(), check.window().getLabel(), request.getUserId());
+                return reject(limitReason);
+            }
+
+            // Rules over velocity features see the totals from before this transaction
+            check.totals().forEach(screened.features()::setTotals);
+            int velocityRisk = check.riskScore() - riskScore;
+            rules.evaluateVelocity(screened.features(), evaluation);
+            if (evaluation.getRejectedBy() != null) {
+                log.warn("Transaction rejected by rule {} for user: {}",
+                        evaluation.getRejectedBy().getName(), request.getUserId());
+                return reject(evaluation.getRejectedBy().getReason());
+            }
+            riskScore = rules.riskScore(evaluation) + velocityRisk;
         }
 
         // Determine decision based on risk score
         String decision;
-        if (riskScore >= 100) {
+        if (riskScore >= rules.getRejectScore()) {
             decision = "REJECT";
-        } else if (riskScore >= 70) {
+        } else if (riskScore >= rules.getReviewScore()) {
             decision = "REVIEW";
         } else {
             decision = "APPROVE";
-            
-            // Update tracking only on approval
-            if (request.getUserId() != null) {
-                updateDailyUsage(request.getUserId().toString(), request.getAmount());
-                if ("WITHDRAWAL".equals(request.getTransactionType())) {
-                    incrementWithdrawals(request.getUserId().toString());
-                }
-            }
         }
 
-        String reason = reasons.length() > 0 ? reasons.toString().trim() : "Transaction approved";
-        
-        log.info("=== FRAUD CHECK RESULT: decision={}, riskScore={}, reason={} ===", 
-                decision, riskScore, reason);
-        
+        String reasons = evaluation.getReasons();
         return FraudCheckResponse.builder()
                 .decision(decision)
-                .reason(reason)
+                .reason(!reasons.isEmpty() ? reasons : "Transaction approved")
                 .riskScore(riskScore)
                 .build();
     }
 
+    private static FraudCheckResponse reject(String reason) {
+        return FraudCheckResponse.builder()
+                .decision("REJECT")
+                .reason(reason)
+                .riskScore(100)
+                .build();
+    }
+
+    private static String limitReason(VelocityCheck check, CompiledRuleSet rules, FraudCheckRequest request) {
+        if (check.window() == null) {
+            return null;
+        }
+        WindowLimit limit = rules.getLimits().get(check.window());
+        String span = SPANS.get(check.window());
+        return switch (check.outcome()) {
+            case AMOUNT_LIMIT_EXCEEDED -> TITLES.get(check.window()) + " transaction limit exceeded. Limit: $"
+                    + limit.maxAmount() + ", Already used: $" + check.totals().get(check.window()).amount()
+                    + ", Requested: $" + request.getAmount();
+            case COUNT_LIMIT_EXCEEDED -> "Maximum transactions per " + span + " exceeded. Max: " + limit.maxCount();
+            case WITHDRAWAL_LIMIT_EXCEEDED -> "Maximum withdrawals per " + span + " exceeded. Max: " + limit.maxWithdrawals();
+            default -> null;
+        };
+    }
+
     public UserLimitsResponse getUserLimits(String userId) {
-        BigDecimal dailyUsed = getDailyUsage(userId);
-        int withdrawals = getWithdrawalsThisHour(userId);
+        Map<Window, WindowLimit> limits = ruleService.current().getLimits();
+        Map<Window, WindowTotals> totals = velocityService.getTotals(userId);
+        BigDecimal dailyUsed = totals.get(Window.DAY).amount();
+        WindowLimit daily = limits.get(Window.DAY);
+        WindowLimit hourly = limits.get(Window.HOUR);
+        BigDecimal dailyLimit = daily != null ? daily.maxAmount() : null;
+
+        Map<String, WindowUsage> windows = new LinkedHashMap<>();
+        totals.forEach((window, total) -> windows.put(window.getLabel(), WindowUsage.builder()
+                .count(total.count())
+                .amount(total.amount())
+                .withdrawals(total.withdrawals())
+                .build()));
 
         return UserLimitsResponse.builder()
                 .userId(userId)
-                .dailyLimit(DAILY_LIMIT)
+                .dailyLimit(dailyLimit)
                 .dailyUsed(dailyUsed)
-                .remainingDaily(DAILY_LIMIT.subtract(dailyUsed))
-                .maxWithdrawalsPerHour(MAX_WITHDRAWALS_PER_HOUR)
-                .withdrawalsThisHour(withdrawals)
+                .remainingDaily(dailyLimit != null ? dailyLimit.subtract(dailyUsed) : null)
+                .maxWithdrawalsPerHour(hourly != null ? hourly.maxWithdrawals() : null)
+                .withdrawalsThisHour((int) totals.get(Window.HOUR).withdrawals())
+                .windows(windows)
+                .degraded(velocityService.isDegraded())
                 .build();
     }
 
-    private BigDecimal getDailyUsage(String userId) {
-        try {
-            String key = "fraud:daily:" + userId;
-            String value = redisTemplate.opsForValue().get(key);
-            BigDecimal usage = value != null ? new BigDecimal(value) : BigDecimal.ZERO;
-            log.debug("Daily usage for user {}: {}", userId, usage);
-            return usage;
-        } catch (Exception e) {
-            log.warn("Failed to get daily usage from Redis (returning 0): {}", e.getMessage());
-            return BigDecimal.ZERO;
-        }
+    private VelocityCheck checkVelocity(String userId, VelocityItem item, CompiledRuleSet rules) {
+        return velocityService.checkAndRecord(userId, item, rules.getLimits(), rules.getReviewScore());
     }
 
-    private void updateDailyUsage(String userId, BigDecimal amount) {
-        try {
-            String key = "fraud:daily:" + userId;
-            BigDecimal current = getDailyUsage(userId);
-            BigDecimal newTotal = current.add(amount);
-            redisTemplate.opsForValue().set(key, newTotal.toString(), Duration.ofHours(24));
-            log.debug("Updated daily usage for user {}: {} -> {}", userId, current, newTotal);
-        } catch (Exception e) {
-            log.warn("Failed to update daily usage in Redis: {}", e.getMessage());
-        }
+    private Map<String, List<VelocityCheck>> checkVelocity(Map<String, List<VelocityItem>> itemsByUser,
+                                                           CompiledRuleSet rules) {
+        return velocityService.checkAndRecordAll(itemsByUser, rules.getLimits(), rules.getReviewScore());
     }
 
-    private int getWithdrawalsThisHour(String userId) {
-        try {
-            String key = "fraud:velocity:" + userId;
-            String value = redisTemplate.opsForValue().get(key);
-            return value != null ? Integer.parseInt(value) : 0;
-        } catch (Exception e) {
-            log.warn("Failed to get withdrawal count from Redis: {}", e.getMessage());
-            return 0;
+    private record ScreenedRequest(FraudCheckRequest request, FeatureVector features, Evaluation evaluation,
+                                   boolean withdrawal, int riskScore) {
+
+        boolean needsVelocity() {
+            return evaluation.getRejectedBy() == null && request.getUserId() != null;
         }
-    }
 
-    private void incrementWithdrawals(String userId) {
-        try {
-            String key = "fraud:velocity:" + userId;
-            redisTemplate.opsForValue().increment(key);
-            redisTemplate.expire(key, 1, TimeUnit.HOURS);
-        } catch (Exception e) {
-            log.warn("Failed to increment withdrawal count in Redis: {}", e.getMessage());
+        VelocityItem velocityItem() {
+            return new VelocityItem(request.getAmount(), withdrawal, riskScore);
         }
     }
 }
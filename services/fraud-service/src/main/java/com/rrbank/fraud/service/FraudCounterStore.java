@@ -0,0 +1,298 @@
+package com.rrbank.fraud.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user sliding-window velocity counters in Redis. Every window is a ring of time buckets
+ * in one hash, so totals always cover exactly the last minute, hour, day or 30 days. A check
+ * sums all windows, applies their limits and records a transaction that passes them inside
+ * one server-side script: a single round trip, and concurrent checks for the same user cannot
+ * both pass on stale totals. A recorded transaction that the later rules do not approve is
+ * released again by a second script. Batches run the scripts once per user with all of that
+ * user's transactions, and pipeline the calls for all users.
+ *
+ * Amounts are kept as integer cents. All keys of a user share a hash tag, which keeps them in
+ * one slot on a Redis cluster.
+ */
+@Component
+public class FraudCounterStore {
+
+    private static final long NO_LIMIT = -1;
+    private static final Window[] WINDOWS = Window.values();
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisScript<List<Object>> velocityScript;
+    private final RedisScript<Long> releaseScript;
+
+    public FraudCounterStore(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        DefaultRedisScript<List<Object>> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/fraud-velocity-check.lua")));
+        script.setResultType(listType());
+        this.velocityScript = script;
+        DefaultRedisScript<Long> release = new DefaultRedisScript<>();
+        release.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/fraud-velocity-release.lua")));
+        release.setResultType(Long.class);
+        this.releaseScript = release;
+    }
+
+    /**
+     * Tracked windows and their bucket resolution. The oldest bucket leaves a window whole,
+     * so a total can include up to one bucket's worth of activity older than the window.
+     */
+    public enum Window {
+        MINUTE("1m", Duration.ofSeconds(5), 12),
+        HOUR("1h", Duration.ofMinutes(1), 60),
+        DAY("24h", Duration.ofMinutes(15), 96),
+        MONTH("30d", Duration.ofDays(1), 30);
+
+        private final String label;
+        private final Duration bucket;
+        private final int buckets;
+
+        Window(String label, Duration bucket, int buckets) {
+            this.label = label;
+            this.bucket = bucket;
+            this.buckets = buckets;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public Duration span() {
+            return bucket.multipliedBy(buckets);
+        }
+    }
+
+    public enum Outcome {
+        RECORDED, AMOUNT_LIMIT_EXCEEDED, COUNT_LIMIT_EXCEEDED, WITHDRAWAL_LIMIT_EXCEEDED,
+        // Risk score too high to approve; the counters were left alone
+        NOT_RECORDED,
+        // Not checked: Redis is unavailable and the amount is too large to check locally
+        UNAVAILABLE
+    }
+
+    /**
+     * Limits applied to one window; null means unlimited.
+     *
+     * @param riskPerWithdrawal added to the risk score of a withdrawal for each earlier one in the window
+     */
+    public record WindowLimit(Long maxCount, BigDecimal maxAmount, Integer maxWithdrawals, int riskPerWithdrawal) {
+    }
+
+    public record WindowTotals(long count, BigDecimal amount, long withdrawals) {
+    }
+
+    /**
+     * @param window which window's limit was exceeded, null if none
+     * @param totals per window, before this transaction
+     * @param checkedAt time of the check in ms, which tells the buckets a recorded transaction went into
+     * @param local decided by this instance's local counters rather than by Redis
+     */
+    public record VelocityCheck(Outcome outcome, Window window, int riskScore, Map<Window, WindowTotals> totals,
+                                long checkedAt, boolean local) {
+    }
+
+    /**
+     * One transaction of a user to check; {@code baseRiskScore} comes from the amount-only rules.
+     */
+    public record VelocityItem(BigDecimal amount, boolean withdrawal, int baseRiskScore) {
+    }
+
+    /**
+     * A transaction a check recorded, to be released again.
+     */
+    public record Recorded(VelocityItem item, VelocityCheck check) {
+    }
+
+    /**
+     * Checks every window's limits for several transactions of one user in order, each against
+     * the totals including the earlier ones that were approved, and records those whose
+     * resulting risk score stays below {@code approveBelow} in all windows.
+     */
+    public List<VelocityCheck> checkAndRecord(String userId, List<VelocityItem> items,
+                                              Map<Window, WindowLimit> limits, int approveBelow) {
+        List<Object> result = redisTemplate.execute(velocityScript, keys(userId), args(items, limits, approveBelow, true).toArray());
+        return parse(result, items.size());
+    }
+
+    /**
+     * {@link #checkAndRecord(String, List, Map, int)} for many users at once: one script call
+     * per user, all sent in a single pipeline. Each user's checks are still atomic; checks of
+     * different users never interact.
+     *
+     * @return the checks per user, in the order of the given items
+     */
+    public Map<String, List<VelocityCheck>> checkAndRecordAll(Map<String, List<VelocityItem>> itemsByUser,
+                                                              Map<Window, WindowLimit> limits, int approveBelow) {
+        List<String> users = new ArrayList<>(itemsByUser.keySet());
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisScriptingCommands scripting = connection.scriptingCommands();
+            // Queued ahead of the calls on the same connection, so a restarted Redis cannot answer NOSCRIPT
+            scripting.scriptLoad(serializer.serialize(velocityScript.getScriptAsString()));
+            for (String userId : users) {
+                List<String> keys = keys(userId);
+                List<String> args = args(itemsByUser.get(userId), limits, approveBelow, true);
+                scripting.evalSha(velocityScript.getSha1(), ReturnType.MULTI, keys.size(),
+                        keysAndArgs(serializer, keys, args));
+            }
+            return null;
+        });
+
+        Map<String, List<VelocityCheck>> checks = new LinkedHashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            String userId = users.get(i);
+            checks.put(userId, parse((List<?>) results.get(i + 1), itemsByUser.get(userId).size()));
+        }
+        return checks;
+    }
+
+    /**
+     * Takes transactions that checks recorded back out of the windows of their users, so that
+     * only approved transactions count towards the limits. One script call per user, all sent
+     * in a single pipeline.
+     */
+    public void releaseAll(Map<String, List<Recorded>> recordedByUser) {
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisScriptingCommands scripting = connection.scriptingCommands();
+            scripting.scriptLoad(serializer.serialize(releaseScript.getScriptAsString()));
+            recordedByUser.forEach((userId, recorded) -> {
+                List<String> args = new ArrayList<>(WINDOWS.length + recorded.size() * 3);
+                for (Window window : WINDOWS) {
+                    args.add(Long.toString(window.bucket.toMillis()));
+                }
+                for (Recorded transaction : recorded) {
+                    args.add(Long.toString(transaction.check().checkedAt()));
+                    args.add(Long.toString(toCents(transaction.item().amount())));
+                    args.add(transaction.item().withdrawal() ? "1" : "0");
+                }
+                List<String> keys = keys(userId);
+                scripting.evalSha(releaseScript.getSha1(), ReturnType.INTEGER, keys.size(),
+                        keysAndArgs(serializer, keys, args));
+            });
+            return null;
+        });
+    }
+
+    public Map<Window, WindowTotals> getTotals(String userId) {
+        List<VelocityItem> probe = List.of(new VelocityItem(BigDecimal.ZERO, false, 0));
+        List<Object> result = redisTemplate.execute(velocityScript, keys(userId), args(probe, Map.of(), 0, false).toArray());
+        return parse(result, 1).get(0).totals();
+    }
+
+    private static List<String> keys(String userId) {
+        List<String> keys = new ArrayList<>(WINDOWS.length);
+        for (Window window : WINDOWS) {
+            keys.add(windowKey(userId, window));
+        }
+        return keys;
+    }
+
+    private static byte[][] keysAndArgs(RedisSerializer<String> serializer, List<String> keys, List<String> args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.size()][];
+        int i = 0;
+        for (String value : keys) {
+            keysAndArgs[i++] = serializer.serialize(value);
+        }
+        for (String value : args) {
+            keysAndArgs[i++] = serializer.serialize(value);
+        }
+        return keysAndArgs;
+    }
+
+    private static List<String> args(List<VelocityItem> items, Map<Window, WindowLimit> limits,
+                                     int approveBelow, boolean record) {
+        List<String> args = new ArrayList<>(3 + WINDOWS.length * 6 + items.size() * 3);
+        args.add(Integer.toString(approveBelow));
+        args.add(record ? "1" : "0");
+        args.add(Integer.toString(items.size()));
+        for (Window window : WINDOWS) {
+            WindowLimit limit = limits.get(window);
+            args.add(Long.toString(window.bucket.toMillis()));
+            args.add(Integer.toString(window.buckets));
+            args.add(Long.toString(limit != null && limit.maxCount() != null ? limit.maxCount() : NO_LIMIT));
+            args.add(Long.toString(limit != null && limit.maxAmount() != null ? toCents(limit.maxAmount()) : NO_LIMIT));
+            args.add(Long.toString(limit != null && limit.maxWithdrawals() != null ? limit.maxWithdrawals() : NO_LIMIT));
+            args.add(Integer.toString(limit != null ? limit.riskPerWithdrawal() : 0));
+        }
+        for (VelocityItem item : items) {
+            args.add(Long.toString(toCents(item.amount())));
+            args.add(item.withdrawal() ? "1" : "0");
+            args.add(Integer.toString(item.baseRiskScore()));
+        }
+        return args;
+    }
+
+    private static List<VelocityCheck> parse(List<?> result, int items) {
+        int perItem = 3 + WINDOWS.length * 3;
+        if (result == null || result.size() != items * perItem + 1) {
+            throw new IllegalStateException("Unexpected fraud velocity script result: " + result);
+        }
+        long checkedAt = number(result, items * perItem);
+        List<VelocityCheck> checks = new ArrayList<>(items);
+        for (int item = 0; item < items; item++) {
+            int base = item * perItem;
+            Map<Window, WindowTotals> totals = new EnumMap<>(Window.class);
+            for (int i = 0; i < WINDOWS.length; i++) {
+                totals.put(WINDOWS[i], new WindowTotals(
+                        number(result, base + 3 + i * 3),
+                        fromCents(number(result, base + 4 + i * 3)),
+                        number(result, base + 5 + i * 3)));
+            }
+            int violated = (int) number(result, base + 1);
+            checks.add(new VelocityCheck(
+                    Outcome.values()[(int) number(result, base)],
+                    violated > 0 ? WINDOWS[violated - 1] : null,
+                    (int) number(result, base + 2),
+                    Collections.unmodifiableMap(totals),
+                    checkedAt,
+                    false));
+        }
+        return checks;
+    }
+
+    // The script answers a multi-bulk reply of integers
+    @SuppressWarnings("unchecked")
+    private static Class<List<Object>> listType() {
+        return (Class<List<Object>>) (Class<?>) List.class;
+    }
+
+    static String windowKey(String userId, Window window) {
+        return "fraud:{" + userId + "}:w:" + window.label;
+    }
+
+    private static long number(List<?> result, int index) {
+        return ((Number) result.get(index)).longValue();
+    }
+
+    // Fractions of a cent count as a whole cent against the limit
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,189 @@
+package com.rrbank.fraud.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Owns the fraud_decisions table: range-partitioned by month on created_at, with partitions
+ * created a few months ahead and, when a retention period is set, expired ones detached into
+ * an archive schema. The table is created here rather than by Hibernate, which cannot
+ * declare partitioning.
+ *
+ * Indexes are declared on the parent, so every partition gets them:
+ * <ul>
+ *   <li>(status, -risk_score, created_at, id) serves the review queue, highest risk and then
+ *       oldest first, as a single range scan per page;</li>
+ *   <li>(user_id, created_at, id) and (account_id, created_at, id) serve the history of a
+ *       user or account, newest first.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class FraudDecisionPartitionManager {
+
+    public static final String TABLE = "fraud_decisions";
+    private static final long MAINTENANCE_LOCK_ID = 0x7278626B66646563L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+            "id uuid NOT NULL, " +
+            "created_at timestamp NOT NULL, " +
+            "decision varchar(10) NOT NULL, " +
+            "status varchar(20) NOT NULL, " +
+            "risk_score integer NOT NULL, " +
+            "reason text, " +
+            "user_id uuid, " +
+            "account_id uuid, " +
+            "counterparty_account_id uuid, " +
+            "transaction_type varchar(30), " +
+            "amount numeric(19,2), " +
+            "item_count integer, " +
+            "rule_version bigint, " +
+            "reviewed_by varchar(100), " +
+            "reviewed_at timestamp, " +
+            "review_notes text, " +
+            "PRIMARY KEY (id, created_at)" +
+            ") PARTITION BY RANGE (created_at)",
+            "CREATE INDEX IF NOT EXISTS idx_fraud_decisions_queue ON " + TABLE + " (status, (-risk_score), created_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_fraud_decisions_user ON " + TABLE + " (user_id, created_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_fraud_decisions_account ON " + TABLE + " (account_id, created_at, id)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final String archiveSchema;
+    private final AtomicInteger monthsAhead = new AtomicInteger(-1);
+
+    public FraudDecisionPartitionManager(JdbcTemplate jdbcTemplate,
+                                         TransactionTemplate transactionTemplate,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${fraud.decisions.premake-months:3}") int premakeMonths,
+                                         @Value("${fraud.decisions.retention-months:0}") int retentionMonths,
+                                         @Value("${fraud.decisions.archive-schema:fraud_decisions_archive}") String archiveSchema) {
+        if (!IDENTIFIER.matcher(archiveSchema).matches()) {
+            throw new IllegalStateException("fraud.decisions.archive-schema must be a lower-case SQL identifier: " + archiveSchema);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+
+        Gauge.builder("fraud.decisions.partitions.months.ahead", monthsAhead, AtomicInteger::get)
+                .description("Future months that already have a fraud_decisions partition")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            // Called on this bean directly, so the advisory lock needs a transaction of its own
+            transactionTemplate.executeWithoutResult(status -> maintain());
+            log.info("=== Fraud decision store ready: {} partitioned by month, {} months ahead ===",
+                    TABLE, monthsAhead.get());
+        } catch (Exception e) {
+            // Decisions queue up in the recorder meanwhile; the scheduled run tries again
+            log.error("Failed to prepare the {} table: {}", TABLE, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${fraud.decisions.maintenance-cron:0 40 2 * * *}")
+    @Transactional
+    public void maintain() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_ID))) {
+            log.debug("Another instance is maintaining fraud decision partitions");
+            return;
+        }
+        SCHEMA.forEach(jdbcTemplate::execute);
+        createUpcomingPartitions();
+        if (retentionMonths > 0) {
+            archiveExpiredPartitions();
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        LocalDateTime covered = partitions().stream()
+                .map(Partition::upperBound)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (covered != null && !end.isAfter(covered)) {
+                continue;
+            }
+            if (covered != null && covered.isAfter(start)) {
+                start = covered;
+            }
+            String name = TABLE + "_p" + month.format(PARTITION_SUFFIX);
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + start.format(BOUND_FORMAT) + "') TO ('" + end.format(BOUND_FORMAT) + "')");
+            covered = end;
+            log.info("Created fraud decisions partition {} for [{}, {})", name, start, end);
+        }
+
+        monthsAhead.set(covered != null ? (int) ChronoUnit.MONTHS.between(current.plusMonths(1), YearMonth.from(covered)) : 0);
+    }
+
+    private void archiveExpiredPartitions() {
+        LocalDateTime cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        for (Partition partition : partitions()) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name());
+            jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA " + archiveSchema);
+            log.info("Archived fraud decisions partition {} (before {}) to schema {}",
+                    partition.name(), partition.upperBound(), archiveSchema);
+        }
+    }
+
+    private List<Partition> partitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = '" + TABLE + "'::regclass",
+                (rs, rowNum) -> new Partition(rs.getString(1), upperBound(rs.getString(2))));
+    }
+
+    // Null for a DEFAULT partition or an open-ended (MAXVALUE) bound
+    private static LocalDateTime upperBound(String boundExpression) {
+        Matcher matcher = UPPER_BOUND.matcher(boundExpression);
+        if (!matcher.find()) {
+            return null;
+        }
+        return LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+    }
+
+    private record Partition(String name, LocalDateTime upperBound) {
+    }
+}
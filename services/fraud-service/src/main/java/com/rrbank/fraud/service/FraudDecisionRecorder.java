@@ -0,0 +1,135 @@
+package com.rrbank.fraud.service;
+
+import com.rrbank.fraud.dto.FraudDTOs.FraudCheckRequest;
+import com.rrbank.fraud.dto.FraudDTOs.FraudCheckResponse;
+import com.rrbank.fraud.service.FraudDecisionService.Decision;
+import com.rrbank.fraud.service.FraudDecisionService.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stores REVIEW and REJECT decisions without slowing the fraud check down. A check only
+ * offers the decision to a bounded in-memory queue; a scheduled flush drains it in batches of
+ * up to {@value #BATCH_SIZE} rows, each one JDBC batch insert. A failed batch goes back on the
+ * queue for the next flush, and when the queue is full new decisions are dropped and counted
+ * rather than made to wait.
+ */
+@Service
+@Slf4j
+public class FraudDecisionRecorder {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String INSERT =
+            "INSERT INTO fraud_decisions (id, created_at, decision, status, risk_score, reason, user_id, account_id, " +
+            "counterparty_account_id, transaction_type, amount, item_count, rule_version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            // A retried batch may have been partly written before it failed
+            "ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<Decision> queue;
+    private final Counter written;
+    private final Counter dropped;
+
+    public FraudDecisionRecorder(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry registry,
+                                 @Value("${fraud.decisions.queue-capacity:50000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("fraud.decisions.pending", queue, BlockingQueue::size)
+                .description("Fraud decisions waiting to be written to the database")
+                .register(registry);
+        this.written = Counter.builder("fraud.decisions.written")
+                .description("Fraud decisions written to the database")
+                .register(registry);
+        this.dropped = Counter.builder("fraud.decisions.dropped")
+                .description("Fraud decisions not stored because the write queue was full")
+                .register(registry);
+    }
+
+    /**
+     * Queues a REVIEW or REJECT decision for storage and returns the id it will be stored
+     * under; APPROVE decisions are not stored and return null.
+     */
+    public UUID record(FraudCheckRequest request, FraudCheckResponse response, long ruleVersion) {
+        Status status = switch (response.getDecision()) {
+            case "REVIEW" -> Status.PENDING;
+            case "REJECT" -> Status.BLOCKED;
+            default -> null;
+        };
+        if (status == null) {
+            return null;
+        }
+        Decision decision = new Decision(UUID.randomUUID(), LocalDateTime.now(), response.getDecision(), status,
+                response.getRiskScore() != null ? response.getRiskScore() : 0, response.getReason(),
+                request.getUserId(), request.getAccountId(), request.getCounterpartyAccountId(),
+                request.getTransactionType(), request.getAmount(), request.getItemCount(), ruleVersion,
+                null, null, null);
+        if (!queue.offer(decision)) {
+            dropped.increment();
+            return null;
+        }
+        return decision.id();
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.decisions.flush-interval-ms:200}")
+    public void flush() {
+        List<Decision> batch = new ArrayList<>(BATCH_SIZE);
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, decision) -> {
+                    ps.setObject(1, decision.id());
+                    ps.setTimestamp(2, Timestamp.valueOf(decision.createdAt()));
+                    ps.setString(3, decision.decision());
+                    ps.setString(4, decision.status().name());
+                    ps.setInt(5, decision.riskScore());
+                    ps.setString(6, decision.reason());
+                    ps.setObject(7, decision.userId());
+                    ps.setObject(8, decision.accountId());
+                    ps.setObject(9, decision.counterpartyAccountId());
+                    ps.setString(10, decision.transactionType());
+                    ps.setBigDecimal(11, decision.amount());
+                    ps.setObject(12, decision.itemCount());
+                    ps.setLong(13, decision.ruleVersion());
+                });
+                written.increment(batch.size());
+            } catch (Exception e) {
+                log.warn("Failed to write {} fraud decisions, retrying on the next flush: {}",
+                        batch.size(), e.getMessage());
+                batch.forEach(this::requeue);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!queue.isEmpty()) {
+            log.warn("{} fraud decisions were not written before shutdown", queue.size());
+        }
+    }
+
+    private void requeue(Decision decision) {
+        if (!queue.offer(decision)) {
+            dropped.increment();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.rrbank.fraud.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reads and reviews the stored REVIEW and REJECT decisions. Pages are keyset-based, like the
+ * transaction search: the cursor carries the sort values and id of the last row, so every
+ * page is one range scan of the matching index however deep the analyst has paged.
+ */
+@Service
+@Slf4j
+public class FraudDecisionService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Above this the pending count is reported as "at least"
+    private static final long COUNT_LIMIT = 100_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private volatile long pendingCount = -1;
+
+    public FraudDecisionService(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Where a stored decision stands. REVIEW decisions start PENDING and REJECT decisions
+     * BLOCKED; an analyst moves either to one of the final states, or to ESCALATED.
+     */
+    public enum Status {
+        PENDING, BLOCKED, ESCALATED, APPROVED, CONFIRMED, DISMISSED;
+
+        public static Status parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown decision status: " + value);
+            }
+        }
+    }
+
+    public record Decision(UUID id, LocalDateTime createdAt, String decision, Status status, int riskScore,
+                           String reason, UUID userId, UUID accountId, UUID counterpartyAccountId,
+                           String transactionType, BigDecimal amount, Integer itemCount, Long ruleVersion,
+                           String reviewedBy, LocalDateTime reviewedAt, String reviewNotes) {
+    }
+
+    public record Page(List<Decision> rows, String nextCursor, boolean hasMore) {
+    }
+
+    /**
+     * Decisions in one status, highest risk first and oldest first within a risk score.
+     * {@code minRisk} and {@code maxRisk} narrow the range of risk scores, both inclusive.
+     */
+    public Page queue(Status status, Integer minRisk, Integer maxRisk, String cursor, int size) {
+        int limit = pageSize(size);
+        MapSqlParameterSource params = new MapSqlParameterSource("status", status.name());
+        // The negated score keeps the index and the row comparison in one direction
+        StringBuilder sql = new StringBuilder("SELECT * FROM fraud_decisions WHERE status = :status");
+        if (minRisk != null) {
+            sql.append(" AND -risk_score <= :negMinRisk");
+            params.addValue("negMinRisk", -minRisk);
+        }
+        if (maxRisk != null) {
+            sql.append(" AND -risk_score >= :negMaxRisk");
+            params.addValue("negMaxRisk", -maxRisk);
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            Cursor position = Cursor.decode(cursor, "queue");
+            sql.append(" AND (-risk_score, created_at, id) > (:negRisk, :cursorTime, :cursorId)");
+            params.addValue("negRisk", -position.riskScore());
+            params.addValue("cursorTime", position.createdAt());
+            params.addValue("cursorId", position.id());
+        }
+        sql.append(" ORDER BY -risk_score, created_at, id LIMIT :limit");
+        return page(sql.toString(), params, limit, "queue");
+    }
+
+    /**
+     * Decisions for one user or one account, newest first.
+     */
+    public Page history(UUID userId, UUID accountId, String cursor, int size) {
+        if ((userId == null) == (accountId == null)) {
+            throw new IllegalArgumentException("Give either a userId or an accountId");
+        }
+        int limit = pageSize(size);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT * FROM fraud_decisions WHERE ");
+        if (userId != null) {
+            sql.append("user_id = :userId");
+            params.addValue("userId", userId);
+        } else {
+            sql.append("account_id = :accountId");
+            params.addValue("accountId", accountId);
+        }
+        if (cursor != null && !cursor.isEmpty()) {
+            Cursor position = Cursor.decode(cursor, "history");
+            sql.append(" AND (created_at, id) < (:cursorTime, :cursorId)");
+            params.addValue("cursorTime", position.createdAt());
+            params.addValue("cursorId", position.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        return page(sql.toString(), params, limit, "history");
+    }
+
+    public Optional<Decision> get(UUID id) {
+        return jdbcTemplate.query("SELECT * FROM fraud_decisions WHERE id = :id",
+                new MapSqlParameterSource("id", id), ROW_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Moves an open decision to {@code status}. Returns empty when there is no such decision
+     * and throws {@link IllegalStateException} when it was already closed, including by a
+     * concurrent review.
+     */
+    public Optional<Decision> review(UUID id, Status status, String reviewedBy, String notes) {
+        if (status == Status.PENDING || status == Status.BLOCKED) {
+            throw new IllegalArgumentException("A review cannot set status " + status);
+        }
+        int updated = jdbcTemplate.update(
+                "UPDATE fraud_decisions SET status = :status, reviewed_by = :reviewedBy, reviewed_at = :reviewedAt, " +
+                "review_notes = :notes WHERE id = :id AND status IN ('PENDING', 'BLOCKED', 'ESCALATED')",
+                new MapSqlParameterSource("status", status.name())
+                        .addValue("reviewedBy", reviewedBy)
+                        .addValue("reviewedAt", LocalDateTime.now())
+                        .addValue("notes", notes)
+                        .addValue("id", id));
+        Optional<Decision> decision = get(id);
+        if (updated == 0 && decision.isPresent()) {
+            throw new IllegalStateException("Decision " + id + " was already reviewed: " + decision.get().status());
+        }
+        return decision;
+    }
+
+    /**
+     * Decisions waiting for review, as of the last count; -1 until the first count succeeds.
+     */
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.decisions.count-interval-ms:30000}")
+    public void refreshPendingCount() {
+        try {
+            // Index-only scan of the PENDING prefix of the queue index, capped
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM (SELECT 1 FROM fraud_decisions WHERE status = 'PENDING' LIMIT "
+                            + COUNT_LIMIT + ") c",
+                    new MapSqlParameterSource(), Long.class);
+            pendingCount = count != null ? count : 0;
+        } catch (Exception e) {
+            log.warn("Failed to count pending fraud decisions: {}", e.getMessage());
+        }
+    }
+
+    private Page page(String sql, MapSqlParameterSource params, int limit, String order) {
+        // One extra row tells whether another page exists
+        params.addValue("limit", limit + 1);
+        List<Decision> rows = jdbcTemplate.query(sql, params, ROW_MAPPER);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        return new Page(rows, hasMore ? Cursor.encode(order, rows.get(rows.size() - 1)) : null, hasMore);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static final RowMapper<Decision> ROW_MAPPER = (rs, rowNum) -> new Decision(
+            rs.getObject("id", UUID.class),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getString("decision"),
+            Status.valueOf(rs.getString("status")),
+            rs.getInt("risk_score"),
+            rs.getString("reason"),
+            rs.getObject("user_id", UUID.class),
+            rs.getObject("account_id", UUID.class),
+            rs.getObject("counterparty_account_id", UUID.class),
+            rs.getString("transaction_type"),
+            rs.getBigDecimal("amount"),
+            rs.getObject("item_count", Integer.class),
+            rs.getObject("rule_version", Long.class),
+            rs.getString("reviewed_by"),
+            rs.getObject("reviewed_at", LocalDateTime.class),
+            rs.getString("review_notes"));
+
+    /**
+     * Opaque position in a listing: which listing it belongs to, and the last row's risk
+     * score, creation time and id.
+     */
+    private record Cursor(int riskScore, LocalDateTime createdAt, UUID id) {
+
+        static String encode(String order, Decision last) {
+            String raw = order + "|" + last.riskScore() + "|" + last.createdAt() + "|" + last.id();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, String order) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid decision cursor: " + cursor, e);
+            }
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid decision cursor: " + cursor);
+            }
+            if (!parts[0].equals(order)) {
+                throw new IllegalArgumentException("Cursor was issued for a different listing; start again without it");
+            }
+            try {
+                return new Cursor(Integer.parseInt(parts[1]), LocalDateTime.parse(parts[2]), UUID.fromString(parts[3]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid decision cursor: " + cursor, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.rrbank.fraud.service;
+
+import com.rrbank.fraud.dto.FraudDTOs.RuleHits;
+import com.rrbank.fraud.dto.FraudDTOs.RuleSetResponse;
+import com.rrbank.fraud.entity.FraudRuleSet;
+import com.rrbank.fraud.repository.FraudRuleSetRepository;
+import com.rrbank.fraud.rules.CompiledRuleSet;
+import com.rrbank.fraud.rules.RuleSetCompiler;
+import com.rrbank.fraud.service.FraudCounterStore.WindowLimit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Owns the live fraud rule set. Rules are compiled once when they change and swapped in with
+ * a single volatile write, so a check always runs against one complete version. Saved
+ * versions live in the database; every instance polls for a newer one, so an update reaches
+ * the whole fleet within one refresh interval. Until anything is saved the rules bundled in
+ * rules/default.rules apply.
+ */
+@Service
+@Slf4j
+public class FraudRuleService {
+
+    private static final String DEFAULT_RULES = "rules/default.rules";
+
+    private final FraudRuleSetRepository repository;
+    private volatile CompiledRuleSet current;
+
+    public FraudRuleService(FraudRuleSetRepository repository) {
+        this.repository = repository;
+        this.current = RuleSetCompiler.compile(0, loadDefaultRules());
+    }
+
+    public CompiledRuleSet current() {
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.rules.refresh-interval-ms:10000}")
+    public void refresh() {
+        try {
+            long latest = repository.findLatestVersion();
+            if (latest > current.getVersion()) {
+                repository.findById(latest).ifPresent(saved ->
+                        install(RuleSetCompiler.compile(saved.getVersion(), saved.getSource())));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh fraud rules (keeping version {}): {}", current.getVersion(), e.getMessage());
+        }
+    }
+
+    /**
+     * Compiles and saves a new version and makes it live on this instance right away.
+     *
+     * @throws com.rrbank.fraud.rules.RuleSyntaxException if the rules do not compile
+     * @throws org.springframework.dao.DataIntegrityViolationException if another update took the same version
+     */
+    public CompiledRuleSet update(String source, String updatedBy) {
+        long version = Math.max(repository.findLatestVersion(), current.getVersion()) + 1;
+        CompiledRuleSet compiled = RuleSetCompiler.compile(version, source);
+        repository.insert(version, source, updatedBy, LocalDateTime.now());
+        install(compiled);
+        return compiled;
+    }
+
+    public CompiledRuleSet validate(String source) {
+        return RuleSetCompiler.compile(current.getVersion(), source);
+    }
+
+    public RuleSetResponse describe(CompiledRuleSet rules) {
+        Optional<FraudRuleSet> saved = rules.getVersion() > 0 ? repository.findById(rules.getVersion()) : Optional.empty();
+
+        List<RuleHits> limits = new ArrayList<>();
+        rules.getLimits().forEach((window, limit) -> limits.add(RuleHits.builder()
+                .name(window.getLabel())
+                .action(describe(limit))
+                .hits(rules.getLimitHits(window))
+                .build()));
+        List<RuleHits> ruleHits = rules.getRules().stream()
+                .map(rule -> RuleHits.builder()
+                        .name(rule.getName())
+                        .action(rule.getAction().name())
+                        .hits(rule.getHits())
+                        .build())
+                .toList();
+
+        return RuleSetResponse.builder()
+                .version(rules.getVersion())
+                .source(rules.getSource())
+                .updatedBy(saved.map(FraudRuleSet::getUpdatedBy).orElse(null))
+                .updatedAt(saved.map(FraudRuleSet::getCreatedAt).orElse(null))
+                .reviewScore(rules.getReviewScore())
+                .rejectScore(rules.getRejectScore())
+                .evaluations(rules.getEvaluations())
+                .limits(limits)
+                .rules(ruleHits)
+                .build();
+    }
+
+    private synchronized void install(CompiledRuleSet rules) {
+        // A slow poll must not put back a version an update on this instance already replaced
+        if (rules.getVersion() > current.getVersion()) {
+            log.info("=== Fraud rules version {} is live ({} rules, {} limits) ===",
+                    rules.getVersion(), rules.getRules().size(), rules.getLimits().size());
+            current = rules;
+        }
+    }
+
+    private static String describe(WindowLimit limit) {
+        List<String> parts = new ArrayList<>();
+        if (limit.maxCount() != null) {
+            parts.add("count " + limit.maxCount());
+        }
+        if (limit.maxAmount() != null) {
+            parts.add("amount " + limit.maxAmount().toPlainString());
+        }
+        if (limit.maxWithdrawals() != null) {
+            parts.add("withdrawals " + limit.maxWithdrawals());
+        }
+        if (limit.riskPerWithdrawal() > 0) {
+            parts.add("risk " + limit.riskPerWithdrawal());
+        }
+        return String.join(" ", parts);
+    }
+
+    private static String loadDefaultRules() {
+        try {
+            return new String(new ClassPathResource(DEFAULT_RULES).getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + DEFAULT_RULES, e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.rrbank.fraud.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Maintains fraud statistics incrementally.
+ *
+ * Decisions are counted in memory and flushed to per-day Redis hashes, and the users behind
+ * them to per-day and per-hour HyperLogLogs, in one pipelined round trip per flush. The stats
+ * snapshot is rebuilt on a schedule from at most 30 daily hashes and three HyperLogLogs, and
+ * the stats endpoint only ever reads the snapshot, so dashboard polling costs Redis nothing
+ * and fraud checks never wait behind it.
+ */
+@Service
+@Slf4j
+public class FraudStatsService {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    private static final Duration DAY_RETENTION = Duration.ofDays(35);
+    private static final Duration HOUR_RETENTION = Duration.ofHours(3);
+    private static final int MONTH_DAYS = 30;
+    private static final int WEEK_DAYS = 7;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final FraudDecisionService decisionService;
+
+    private final ConcurrentHashMap<DecisionKey, AtomicLong> pendingDecisions = new ConcurrentHashMap<>();
+    // HyperLogLog key -> users seen since the last flush
+    private final ConcurrentHashMap<String, Set<String>> pendingDayUsers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> pendingHourUsers = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Object> snapshot = Collections.emptyMap();
+
+    public FraudStatsService(RedisTemplate<String, String> redisTemplate, FraudDecisionService decisionService) {
+        this.redisTemplate = redisTemplate;
+        this.decisionService = decisionService;
+    }
+
+    public void recordDecision(String decision, String userId) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        pendingDecisions.computeIfAbsent(new DecisionKey(now.format(DAY), decision), key -> new AtomicLong())
+                .incrementAndGet();
+        if (userId != null) {
+            pendingDayUsers.computeIfAbsent(dayUsersKey(now.format(DAY)), key -> ConcurrentHashMap.newKeySet()).add(userId);
+            pendingHourUsers.computeIfAbsent(hourUsersKey(now.format(HOUR)), key -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            refreshSnapshot();
+        } catch (Exception e) {
+            log.warn("Failed to load initial fraud stats snapshot: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.stats.refresh-interval-ms:5000}")
+    public void flushAndRefresh() {
+        try {
+            flush();
+            refreshSnapshot();
+        } catch (Exception e) {
+            log.warn("Failed to flush fraud stats (will retry): {}", e.getMessage());
+        }
+    }
+
+    void flush() {
+        Map<DecisionKey, Long> decisions = new HashMap<>();
+        String today = LocalDateTime.now(ZoneOffset.UTC).format(DAY);
+        pendingDecisions.forEach((key, count) -> {
+            long taken = count.getAndSet(0);
+            if (taken > 0) {
+                decisions.put(key, taken);
+            } else if (!key.day().equals(today)) {
+                pendingDecisions.remove(key, count);
+            }
+        });
+        Map<String, Set<String>> dayUsers = takeAll(pendingDayUsers);
+        Map<String, Set<String>> hourUsers = takeAll(pendingHourUsers);
+        if (decisions.isEmpty() && dayUsers.isEmpty() && hourUsers.isEmpty()) {
+            return;
+        }
+
+        try {
+            pipelined(operations -> {
+                decisions.forEach((key, count) -> {
+                    operations.opsForHash().increment(decisionsKey(key.day()), key.decision(), count);
+                    operations.expire(decisionsKey(key.day()), DAY_RETENTION);
+                });
+                dayUsers.forEach((key, ids) -> {
+                    operations.opsForHyperLogLog().add(key, ids.toArray(new String[0]));
+                    operations.expire(key, DAY_RETENTION);
+                });
+                hourUsers.forEach((key, ids) -> {
+                    operations.opsForHyperLogLog().add(key, ids.toArray(new String[0]));
+                    operations.expire(key, HOUR_RETENTION);
+                });
+            });
+        } catch (RuntimeException e) {
+            // Put everything back so it is retried on the next flush
+            decisions.forEach((key, count) ->
+                    pendingDecisions.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(count));
+            dayUsers.forEach((key, ids) -> pendingDayUsers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).addAll(ids));
+            hourUsers.forEach((key, ids) -> pendingHourUsers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).addAll(ids));
+            throw e;
+        }
+    }
+
+    void refreshSnapshot() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDate today = now.toLocalDate();
+
+        List<String> week = new ArrayList<>(WEEK_DAYS);
+        for (int i = 0; i < WEEK_DAYS; i++) {
+            week.add(dayUsersKey(today.minusDays(i).format(DAY)));
+        }
+        List<Object> results = pipelined(operations -> {
+            for (int i = 0; i < MONTH_DAYS; i++) {
+                operations.opsForHash().entries(decisionsKey(today.minusDays(i).format(DAY)));
+            }
+            operations.opsForHyperLogLog().size(hourUsersKey(now.format(HOUR)));
+            operations.opsForHyperLogLog().size(dayUsersKey(today.format(DAY)));
+            // PFCOUNT over several keys counts the union without storing it
+            operations.opsForHyperLogLog().size(week.toArray(new String[0]));
+        });
+
+        long[] approved = new long[MONTH_DAYS];
+        long[] reviews = new long[MONTH_DAYS];
+        long[] rejects = new long[MONTH_DAYS];
+        for (int i = 0; i < MONTH_DAYS; i++) {
+            Map<?, ?> counts = (Map<?, ?>) results.get(i);
+            approved[i] = count(counts, "APPROVE");
+            reviews[i] = count(counts, "REVIEW");
+            rejects[i] = count(counts, "REJECT");
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        // Open review queue entries; today's REVIEW decisions until the queue has been counted
+        long pending = decisionService.getPendingCount();
+        stats.put("pendingAlerts", pending >= 0 ? pending : reviews[0]);
+        stats.put("reviewRequired", reviews[0]);
+        stats.put("blockedTransactions", rejects[0]);
+        stats.put("approvedToday", approved[0]);
+        stats.put("alertsToday", reviews[0] + rejects[0]);
+        stats.put("alertsThisWeek", sum(reviews, WEEK_DAYS) + sum(rejects, WEEK_DAYS));
+        stats.put("alertsThisMonth", sum(reviews, MONTH_DAYS) + sum(rejects, MONTH_DAYS));
+        stats.put("checksToday", approved[0] + reviews[0] + rejects[0]);
+        stats.put("activeUsersThisHour", results.get(MONTH_DAYS));
+        stats.put("activeUsersToday", results.get(MONTH_DAYS + 1));
+        stats.put("activeUsersThisWeek", results.get(MONTH_DAYS + 2));
+        stats.put("lastUpdated", now.toString());
+        this.snapshot = Collections.unmodifiableMap(stats);
+    }
+
+    private List<Object> pipelined(Consumer<RedisOperations<String, String>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                // The operations are those of redisTemplate, whose keys and values are strings
+                commands.accept((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
+
+    private static Map<String, Set<String>> takeAll(ConcurrentHashMap<String, Set<String>> pending) {
+        Map<String, Set<String>> taken = new HashMap<>();
+        for (String key : new ArrayList<>(pending.keySet())) {
+            Set<String> ids = pending.remove(key);
+            if (ids != null && !ids.isEmpty()) {
+                taken.put(key, ids);
+            }
+        }
+        return taken;
+    }
+
+    // All stats keys share one hash tag so multi-key PFCOUNT works on a Redis cluster
+    private static String decisionsKey(String day) {
+        return "fraud:{stats}:decisions:" + day;
+    }
+
+    private static String dayUsersKey(String day) {
+        return "fraud:{stats}:users:" + day;
+    }
+
+    private static String hourUsersKey(String hour) {
+        return "fraud:{stats}:users:" + hour;
+    }
+
+    private static long count(Map<?, ?> counts, String decision) {
+        Object value = counts != null ? counts.get(decision) : null;
+        return value != null ? Long.parseLong(value.toString()) : 0;
+    }
+
+    private static long sum(long[] values, int days) {
+        long total = 0;
+        for (int i = 0; i < days; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    private record DecisionKey(String day, String decision) {
+    }
+}
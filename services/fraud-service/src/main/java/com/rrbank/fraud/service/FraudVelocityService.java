@@ -0,0 +1,334 @@
+package com.rrbank.fraud.service;
+
+import com.rrbank.fraud.service.FraudCounterStore.Outcome;
+import com.rrbank.fraud.service.FraudCounterStore.Recorded;
+import com.rrbank.fraud.service.FraudCounterStore.VelocityCheck;
+import com.rrbank.fraud.service.FraudCounterStore.VelocityItem;
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+import com.rrbank.fraud.service.FraudCounterStore.WindowLimit;
+import com.rrbank.fraud.service.FraudCounterStore.WindowTotals;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Velocity checks with a latency budget. Redis stays the source of truth, since only it sees
+ * every instance's traffic, but each call has a hard deadline. When a call times out or fails,
+ * the service is degraded for a retry interval and checks follow a fixed policy instead of
+ * waiting on Redis:
+ * <ul>
+ *   <li>transactions of at least {@code fraud.redis.fail-closed-amount} are not approved
+ *       ({@link Outcome#UNAVAILABLE});</li>
+ *   <li>smaller ones are checked against {@link LocalVelocityCounters}, the last totals Redis
+ *       returned plus what this instance approved since, and replayed to Redis once it is
+ *       back.</li>
+ * </ul>
+ * Transactions from a call that failed are not replayed, since the call may still have
+ * recorded them. A call that finds the Redis worker pool full is shed: only that check
+ * follows the policy, and its transactions are replayed since it never reached Redis. A busy
+ * pool says nothing about Redis, so it does not degrade the service.
+ *
+ * A check records a transaction as soon as it passes the limits; when the rules applied after
+ * it do not approve the transaction, {@link #release} takes it back out.
+ */
+@Service
+@Slf4j
+public class FraudVelocityService {
+
+    private static final int REPLAY_BATCH = 500;
+
+    private final FraudCounterStore counterStore;
+    private final LocalVelocityCounters localCounters;
+    private final ThreadPoolExecutor redisExecutor;
+    private final long timeoutMs;
+    private final long batchTimeoutMs;
+    private final long retryAfterMs;
+    private final BigDecimal failClosedAmount;
+    private final BlockingQueue<Replay> replayQueue;
+    private volatile long degradedUntil;
+    private volatile boolean degraded;
+
+    private final Counter localChecks;
+    private final Counter failClosedChecks;
+    private final Counter timeouts;
+    private final Counter errors;
+    private final Counter shed;
+    private final Counter replayDropped;
+    private final Counter releaseFailed;
+    private final Timer redisLatency;
+
+    private record Replay(String userId, VelocityItem item) {
+    }
+
+    public FraudVelocityService(FraudCounterStore counterStore,
+                                MeterRegistry registry,
+                                @Value("${fraud.redis.timeout-ms:50}") long timeoutMs,
+                                @Value("${fraud.redis.batch-timeout-ms:500}") long batchTimeoutMs,
+                                @Value("${fraud.redis.retry-after-ms:1000}") long retryAfterMs,
+                                @Value("${fraud.redis.fail-closed-amount:5000}") BigDecimal failClosedAmount,
+                                @Value("${fraud.redis.threads:16}") int threads,
+                                @Value("${fraud.redis.local-max-users:200000}") int localMaxUsers,
+                                @Value("${fraud.redis.replay-capacity:100000}") int replayCapacity) {
+        this.counterStore = counterStore;
+        this.localCounters = new LocalVelocityCounters(localMaxUsers);
+        this.timeoutMs = timeoutMs;
+        this.batchTimeoutMs = batchTimeoutMs;
+        this.retryAfterMs = retryAfterMs;
+        this.failClosedAmount = failClosedAmount;
+        this.replayQueue = new ArrayBlockingQueue<>(replayCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // A small queue: calls waiting behind a stuck Redis would miss their deadline anyway
+        this.redisExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "fraud-redis-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("fraud.velocity.degraded", this, service -> service.degraded ? 1 : 0)
+                .description("1 while velocity checks run in degraded mode without Redis")
+                .register(registry);
+        Gauge.builder("fraud.velocity.replay.pending", replayQueue, BlockingQueue::size)
+                .description("Locally approved transactions waiting to be recorded in Redis")
+                .register(registry);
+        this.localChecks = fallbackCounter(registry, "local");
+        this.failClosedChecks = fallbackCounter(registry, "fail_closed");
+        this.timeouts = failureCounter(registry, "timeout");
+        this.errors = failureCounter(registry, "error");
+        this.shed = Counter.builder("fraud.redis.shed")
+                .description("Velocity calls not sent to Redis because the worker pool was full")
+                .register(registry);
+        this.replayDropped = Counter.builder("fraud.velocity.replay.dropped")
+                .description("Locally approved transactions not replayed because the queue was full")
+                .register(registry);
+        this.releaseFailed = Counter.builder("fraud.velocity.release.failed")
+                .description("Transactions not approved in the end that stayed counted in Redis")
+                .register(registry);
+        this.redisLatency = Timer.builder("fraud.redis.latency")
+                .description("Velocity calls to Redis that finished within the deadline")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public boolean isDegraded() {
+        return System.currentTimeMillis() < degradedUntil;
+    }
+
+    public VelocityCheck checkAndRecord(String userId, VelocityItem item, Map<Window, WindowLimit> limits,
+                                        int approveBelow) {
+        Future<List<VelocityCheck>> call = isDegraded() ? null
+                : submit(() -> counterStore.checkAndRecord(userId, List.of(item), limits, approveBelow));
+        List<VelocityCheck> checks = call != null ? await(call, timeoutMs) : null;
+        if (checks != null) {
+            localCounters.remember(userId, checks.get(0), item, System.currentTimeMillis());
+            return checks.get(0);
+        }
+        // Only a call that never reached Redis is replayed
+        return checkLocally(userId, List.of(item), limits, approveBelow, call == null).get(0);
+    }
+
+    /**
+     * {@link #checkAndRecord} for many users, as one pipelined Redis call with the batch deadline.
+     */
+    public Map<String, List<VelocityCheck>> checkAndRecordAll(Map<String, List<VelocityItem>> itemsByUser,
+                                                              Map<Window, WindowLimit> limits, int approveBelow) {
+        Future<Map<String, List<VelocityCheck>>> call = isDegraded() ? null
+                : submit(() -> counterStore.checkAndRecordAll(itemsByUser, limits, approveBelow));
+        Map<String, List<VelocityCheck>> checks = call != null ? await(call, batchTimeoutMs) : null;
+        if (checks != null) {
+            long now = System.currentTimeMillis();
+            checks.forEach((userId, userChecks) -> {
+                List<VelocityItem> items = itemsByUser.get(userId);
+                for (int i = 0; i < items.size(); i++) {
+                    localCounters.remember(userId, userChecks.get(i), items.get(i), now);
+                }
+            });
+            return checks;
+        }
+        Map<String, List<VelocityCheck>> local = new LinkedHashMap<>();
+        itemsByUser.forEach((userId, items) -> local.put(userId, checkLocally(userId, items, limits, approveBelow, call == null)));
+        return local;
+    }
+
+    /**
+     * Takes transactions that checks recorded, but that were not approved in the end, back out
+     * of the windows. Those recorded locally leave the local counters and the replay queue;
+     * those recorded in Redis are released there. A release that fails only leaves the limits
+     * stricter than they should be. The local snapshot of a Redis-recorded transaction keeps
+     * counting it until the next Redis check replaces the snapshot, which errs the same way.
+     */
+    public void release(Map<String, List<Recorded>> recordedByUser) {
+        Map<String, List<Recorded>> inRedis = new LinkedHashMap<>();
+        recordedByUser.forEach((userId, recorded) -> {
+            for (Recorded transaction : recorded) {
+                if (transaction.check().local()) {
+                    VelocityItem item = transaction.item();
+                    localCounters.release(userId, item, transaction.check().checkedAt());
+                    replayQueue.remove(new Replay(userId, new VelocityItem(item.amount(), item.withdrawal(), 0)));
+                } else {
+                    inRedis.computeIfAbsent(userId, id -> new ArrayList<>()).add(transaction);
+                }
+            }
+        });
+        if (inRedis.isEmpty()) {
+            return;
+        }
+        boolean released = !isDegraded() && callRedis(() -> {
+            counterStore.releaseAll(inRedis);
+            return Boolean.TRUE;
+        }, inRedis.size() > 1 ? batchTimeoutMs : timeoutMs) != null;
+        if (!released) {
+            int count = inRedis.values().stream().mapToInt(List::size).sum();
+            releaseFailed.increment(count);
+            log.warn("Could not release {} transactions not approved from the Redis velocity windows", count);
+        }
+    }
+
+    /**
+     * Current totals; this instance's local view while degraded.
+     */
+    public Map<Window, WindowTotals> getTotals(String userId) {
+        Map<Window, WindowTotals> totals = isDegraded() ? null : callRedis(() -> counterStore.getTotals(userId), timeoutMs);
+        return totals != null ? totals : localCounters.getTotals(userId, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.redis.replay-interval-ms:1000}")
+    public void replay() {
+        if (replayQueue.isEmpty() || isDegraded()) {
+            return;
+        }
+        List<Replay> drained = new ArrayList<>(REPLAY_BATCH);
+        replayQueue.drainTo(drained, REPLAY_BATCH);
+        Map<String, List<VelocityItem>> itemsByUser = new LinkedHashMap<>();
+        drained.forEach(replay -> itemsByUser.computeIfAbsent(replay.userId(), id -> new ArrayList<>()).add(replay.item()));
+        // No limits and no risk cut-off: the transactions were already approved, they only need counting
+        if (callRedis(() -> counterStore.checkAndRecordAll(itemsByUser, Map.of(), Integer.MAX_VALUE), batchTimeoutMs) != null) {
+            log.info("Replayed {} locally approved transactions to Redis, {} pending", drained.size(), replayQueue.size());
+        } else {
+            // Counting one twice only makes the limits stricter; losing one would loosen them
+            drained.forEach(this::enqueueReplay);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.redis.local-purge-interval-ms:3600000}")
+    public void purgeLocalCounters() {
+        localCounters.purge(Window.DAY.span().toMillis(), System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        redisExecutor.shutdownNow();
+    }
+
+    private List<VelocityCheck> checkLocally(String userId, List<VelocityItem> items, Map<Window, WindowLimit> limits,
+                                             int approveBelow, boolean replay) {
+        long now = System.currentTimeMillis();
+        List<VelocityCheck> checks = new ArrayList<>(items.size());
+        for (VelocityItem item : items) {
+            if (item.amount().compareTo(failClosedAmount) >= 0) {
+                failClosedChecks.increment();
+                checks.add(new VelocityCheck(Outcome.UNAVAILABLE, null, 100, localCounters.getTotals(userId, now), now, true));
+                continue;
+            }
+            localChecks.increment();
+            VelocityCheck check = localCounters.checkAndRecord(userId, item, limits, approveBelow, now);
+            if (replay && check.outcome() == Outcome.RECORDED) {
+                enqueueReplay(new Replay(userId, new VelocityItem(item.amount(), item.withdrawal(), 0)));
+            }
+            checks.add(check);
+        }
+        return checks;
+    }
+
+    private void enqueueReplay(Replay replay) {
+        if (!replayQueue.offer(replay)) {
+            replayDropped.increment();
+        }
+    }
+
+    private <T> T callRedis(Callable<T> call, long deadlineMs) {
+        Future<T> future = submit(call);
+        return future != null ? await(future, deadlineMs) : null;
+    }
+
+    // Null when the worker pool is full; the call is shed without degrading the service
+    private <T> Future<T> submit(Callable<T> call) {
+        try {
+            return redisExecutor.submit(call);
+        } catch (RejectedExecutionException e) {
+            shed.increment();
+            return null;
+        }
+    }
+
+    private <T> T await(Future<T> future, long deadlineMs) {
+        long started = System.nanoTime();
+        try {
+            T result = future.get(deadlineMs, TimeUnit.MILLISECONDS);
+            redisLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (degraded) {
+                degraded = false;
+                log.info("=== Redis is back, fraud velocity checks use it again ({} replays pending) ===",
+                        replayQueue.size());
+            }
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            markFailure(timeouts, "no reply within " + deadlineMs + " ms");
+        } catch (ExecutionException e) {
+            markFailure(errors, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            markFailure(errors, "interrupted");
+        }
+        return null;
+    }
+
+    private void markFailure(Counter cause, String message) {
+        cause.increment();
+        degradedUntil = System.currentTimeMillis() + retryAfterMs;
+        if (!degraded) {
+            degraded = true;
+            log.warn("=== Redis velocity call failed ({}), checks degraded: local counters below {}, "
+                    + "fail closed from there ===", message, failClosedAmount.toPlainString());
+        }
+    }
+
+    private static Counter fallbackCounter(MeterRegistry registry, String policy) {
+        return Counter.builder("fraud.velocity.fallback")
+                .description("Velocity checks decided without Redis")
+                .tag("policy", policy)
+                .register(registry);
+    }
+
+    private static Counter failureCounter(MeterRegistry registry, String cause) {
+        return Counter.builder("fraud.redis.failures")
+                .description("Velocity calls to Redis that missed the deadline or failed")
+                .tag("cause", cause)
+                .register(registry);
+    }
+}
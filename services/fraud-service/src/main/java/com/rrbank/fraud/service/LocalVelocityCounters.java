@@ -0,0 +1,243 @@
+package com.rrbank.fraud.service;
+
+import com.rrbank.fraud.service.FraudCounterStore.Outcome;
+import com.rrbank.fraud.service.FraudCounterStore.VelocityCheck;
+import com.rrbank.fraud.service.FraudCounterStore.VelocityItem;
+import com.rrbank.fraud.service.FraudCounterStore.Window;
+import com.rrbank.fraud.service.FraudCounterStore.WindowLimit;
+import com.rrbank.fraud.service.FraudCounterStore.WindowTotals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This instance's fallback view of the velocity windows, used while Redis is unavailable.
+ * For every user it keeps the totals of the last successful Redis check and the transactions
+ * approved locally since then, and applies the limits to their sum exactly as the Redis
+ * script would. Each user has its own lock, so users never contend with each other.
+ *
+ * The view is conservative: a snapshot total counts in full until its whole window has passed
+ * since it was taken, as nothing tells when within the window that activity happened. What it
+ * cannot see is traffic approved by other instances during the outage.
+ *
+ * At the bound on users the least recently touched ones are forgotten to make room, so every
+ * user that is checked has counters. A forgotten user's local approvals still reach Redis
+ * through the replay queue.
+ */
+class LocalVelocityCounters {
+
+    private static final Window[] WINDOWS = Window.values();
+    // Locally approved transactions kept per user; older ones are still in the replay queue
+    private static final int MAX_LOCAL_ITEMS = 1000;
+
+    private final int maxUsers;
+    private final Map<String, UserCounters> users = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+
+    LocalVelocityCounters(int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    private static final class UserCounters {
+        // Per window: count, amount in cents, withdrawals
+        final long[][] snapshot = new long[WINDOWS.length][3];
+        long snapshotTime;
+        final List<long[]> local = new ArrayList<>();
+        long touched;
+    }
+
+    /**
+     * Replaces a user's snapshot with the totals Redis returned, plus the transaction itself
+     * when Redis recorded it.
+     */
+    void remember(String userId, VelocityCheck check, VelocityItem item, long nowMillis) {
+        UserCounters counters = counters(userId, nowMillis);
+        synchronized (counters) {
+            for (int i = 0; i < WINDOWS.length; i++) {
+                WindowTotals totals = check.totals().get(WINDOWS[i]);
+                counters.snapshot[i][0] = totals.count();
+                counters.snapshot[i][1] = toCents(totals.amount());
+                counters.snapshot[i][2] = totals.withdrawals();
+                if (check.outcome() == Outcome.RECORDED) {
+                    counters.snapshot[i][0]++;
+                    counters.snapshot[i][1] += toCents(item.amount());
+                    counters.snapshot[i][2] += item.withdrawal() ? 1 : 0;
+                }
+            }
+            counters.local.clear();
+            counters.snapshotTime = nowMillis;
+            counters.touched = nowMillis;
+        }
+    }
+
+    /**
+     * The same check as the Redis script, against the local view; approved transactions are
+     * added to it.
+     */
+    VelocityCheck checkAndRecord(String userId, VelocityItem item, Map<Window, WindowLimit> limits,
+                                 int approveBelow, long nowMillis) {
+        UserCounters counters = counters(userId, nowMillis);
+        synchronized (counters) {
+            long[][] totals = totals(counters, nowMillis);
+            long amount = toCents(item.amount());
+            int risk = item.baseRiskScore();
+            Outcome outcome = Outcome.RECORDED;
+            Window violated = null;
+            for (int i = 0; i < WINDOWS.length; i++) {
+                WindowLimit limit = limits.get(WINDOWS[i]);
+                if (limit != null) {
+                    if (limit.maxAmount() != null && totals[i][1] + amount > toCents(limit.maxAmount())) {
+                        outcome = Outcome.AMOUNT_LIMIT_EXCEEDED;
+                    } else if (limit.maxCount() != null && totals[i][0] + 1 > limit.maxCount()) {
+                        outcome = Outcome.COUNT_LIMIT_EXCEEDED;
+                    } else if (item.withdrawal() && limit.maxWithdrawals() != null
+                            && totals[i][2] >= limit.maxWithdrawals()) {
+                        outcome = Outcome.WITHDRAWAL_LIMIT_EXCEEDED;
+                    }
+                    if (outcome != Outcome.RECORDED) {
+                        violated = WINDOWS[i];
+                        risk = 100;
+                        break;
+                    }
+                    if (item.withdrawal()) {
+                        risk += (int) totals[i][2] * limit.riskPerWithdrawal();
+                    }
+                }
+            }
+            if (outcome == Outcome.RECORDED && risk >= approveBelow) {
+                outcome = Outcome.NOT_RECORDED;
+            }
+            if (outcome == Outcome.RECORDED) {
+                if (counters.local.size() == MAX_LOCAL_ITEMS) {
+                    counters.local.remove(0);
+                }
+                counters.local.add(new long[] {nowMillis, amount, item.withdrawal() ? 1 : 0});
+            }
+            return new VelocityCheck(outcome, violated, risk, toTotals(totals), nowMillis, true);
+        }
+    }
+
+    /**
+     * Takes back a transaction {@link #checkAndRecord} recorded at {@code checkedAt}, whose
+     * final decision was not an approval.
+     */
+    void release(String userId, VelocityItem item, long checkedAt) {
+        UserCounters counters = users.get(userId);
+        if (counters == null) {
+            return;
+        }
+        long amount = toCents(item.amount());
+        long withdrawal = item.withdrawal() ? 1 : 0;
+        synchronized (counters) {
+            for (int i = counters.local.size() - 1; i >= 0; i--) {
+                long[] local = counters.local.get(i);
+                if (local[0] == checkedAt && local[1] == amount && local[2] == withdrawal) {
+                    counters.local.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+
+    Map<Window, WindowTotals> getTotals(String userId, long nowMillis) {
+        UserCounters counters = users.get(userId);
+        if (counters == null) {
+            return toTotals(new long[WINDOWS.length][3]);
+        }
+        synchronized (counters) {
+            return toTotals(totals(counters, nowMillis));
+        }
+    }
+
+    /**
+     * Forgets users not seen for {@code idleMillis}.
+     */
+    void purge(long idleMillis, long nowMillis) {
+        users.values().removeIf(counters -> {
+            synchronized (counters) {
+                return nowMillis - counters.touched > idleMillis;
+            }
+        });
+    }
+
+    private UserCounters counters(String userId, long nowMillis) {
+        UserCounters counters = users.get(userId);
+        if (counters == null) {
+            if (users.size() >= maxUsers) {
+                evictLeastRecentlyTouched();
+            }
+            counters = users.computeIfAbsent(userId, id -> new UserCounters());
+        }
+        synchronized (counters) {
+            counters.touched = nowMillis;
+        }
+        return counters;
+    }
+
+    /**
+     * Forgets the least recently touched hundredth of the bound, so the scan over all users is
+     * paid once per that many new users rather than for each.
+     */
+    private void evictLeastRecentlyTouched() {
+        synchronized (evictionLock) {
+            if (users.size() < maxUsers) {
+                return;
+            }
+            int evict = Math.max(1, maxUsers / 100);
+            // The most recent of the oldest touch times seen so far on top
+            PriorityQueue<Long> oldest = new PriorityQueue<>(evict + 1, Comparator.reverseOrder());
+            for (UserCounters counters : users.values()) {
+                synchronized (counters) {
+                    oldest.add(counters.touched);
+                }
+                if (oldest.size() > evict) {
+                    oldest.poll();
+                }
+            }
+            Long cutoff = oldest.peek();
+            if (cutoff == null) {
+                return;
+            }
+            users.values().removeIf(counters -> {
+                synchronized (counters) {
+                    return counters.touched <= cutoff;
+                }
+            });
+        }
+    }
+
+    private static long[][] totals(UserCounters counters, long nowMillis) {
+        long[][] totals = new long[WINDOWS.length][];
+        for (int i = 0; i < WINDOWS.length; i++) {
+            long from = nowMillis - WINDOWS[i].span().toMillis();
+            totals[i] = counters.snapshotTime > from ? counters.snapshot[i].clone() : new long[3];
+            for (long[] local : counters.local) {
+                if (local[0] > from) {
+                    totals[i][0]++;
+                    totals[i][1] += local[1];
+                    totals[i][2] += local[2];
+                }
+            }
+        }
+        return totals;
+    }
+
+    private static Map<Window, WindowTotals> toTotals(long[][] totals) {
+        Map<Window, WindowTotals> map = new EnumMap<>(Window.class);
+        for (int i = 0; i < WINDOWS.length; i++) {
+            map.put(WINDOWS[i], new WindowTotals(totals[i][0], BigDecimal.valueOf(totals[i][1], 2), totals[i][2]));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return FraudCounterStore.toCents(amount);
+    }
+}
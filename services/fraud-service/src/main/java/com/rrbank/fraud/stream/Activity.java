@@ -0,0 +1,12 @@
+package com.rrbank.fraud.stream;
+
+/**
+ * Trailing-window totals for one user or account, amounts in cents. {@code counterparties}
+ * is an estimate from a 64-bit sketch: within about 10% up to fifty or so, coarser above
+ * that and saturating at 266.
+ */
+public record Activity(long sentCount, long sentCents, long receivedCount, long receivedCents,
+                       long failedCount, long counterparties) {
+
+    public static final Activity NONE = new Activity(0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,12 @@
+package com.rrbank.fraud.stream;
+
+/**
+ * How a prospective transaction compares with the user's spending history.
+ * {@code amountZScore} is in standard deviations of the log amount, {@code hourShare} the
+ * fraction of past transactions made in the same UTC hour of day, and {@code newPayee} true
+ * when the payee was not paid before (rarely a false "seen" from the Bloom filter).
+ */
+public record Baseline(long history, double amountZScore, double hourShare, boolean newPayee) {
+
+    public static final Baseline NONE = new Baseline(0, 0, 0, false);
+}
@@ -0,0 +1,253 @@
+package com.rrbank.fraud.stream;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Long-running spending profile per user, in flat primitive arrays indexed through an
+ * open-addressing table: an exponentially weighted mean and variance of the log amount, a
+ * decaying histogram of the UTC hour of day, and a 256-bit Bloom filter of payee accounts.
+ * About 120 bytes and no objects per user; every update is O(1).
+ *
+ * Not thread-safe; {@link BehaviourProfiles} guards it.
+ */
+final class BehaviourProfileStore {
+
+    static final int HOURS = 24;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    // Hour counts are halved when one reaches this, so old habits fade
+    private static final int HOUR_CAP = 1 << 14;
+    private static final int BLOOM_WORDS = 4;
+    private static final int BLOOM_BITS = BLOOM_WORDS * 64;
+    private static final int BLOOM_HASHES = 3;
+    // Half the bits set means roughly 80 payees; the filter starts over rather than saturate
+    private static final int BLOOM_MAX_BITS = BLOOM_BITS / 2;
+    // Floor on the deviation so users who always send the same amount are not flagged for cents
+    private static final double MIN_DEVIATION = 0.25;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final double alpha;
+
+    private long[] keyHigh;
+    private long[] keyLow;
+    private boolean[] used;
+    private int[] counts;
+    private double[] means;
+    private double[] variances;
+    private short[] hours;
+    private long[] payees;
+    private int size;
+
+    BehaviourProfileStore(double alpha) {
+        this.alpha = alpha;
+        allocate(MIN_CAPACITY);
+    }
+
+    void record(UUID user, long timeMillis, double amount, UUID payee) {
+        int slot = find(user);
+        if (slot < 0) {
+            if ((size + 1) * 2 > used.length) {
+                grow();
+            }
+            slot = insert(user.getMostSignificantBits(), user.getLeastSignificantBits());
+        }
+
+        double x = Math.log1p(Math.max(amount, 0));
+        if (counts[slot] == 0) {
+            means[slot] = x;
+        } else {
+            // Exponentially weighted mean and variance (West's incremental form)
+            double diff = x - means[slot];
+            double increment = alpha * diff;
+            means[slot] += increment;
+            variances[slot] = (1 - alpha) * (variances[slot] + diff * increment);
+        }
+        if (counts[slot] < Integer.MAX_VALUE) {
+            counts[slot]++;
+        }
+
+        int base = slot * HOURS;
+        int hour = hourOf(timeMillis);
+        if (++hours[base + hour] >= HOUR_CAP) {
+            for (int h = 0; h < HOURS; h++) {
+                hours[base + h] >>= 1;
+            }
+        }
+
+        if (payee != null) {
+            int bitCount = 0;
+            for (int w = 0; w < BLOOM_WORDS; w++) {
+                bitCount += Long.bitCount(payees[slot * BLOOM_WORDS + w]);
+            }
+            if (bitCount >= BLOOM_MAX_BITS) {
+                Arrays.fill(payees, slot * BLOOM_WORDS, (slot + 1) * BLOOM_WORDS, 0);
+            }
+            long hash = mix(payee.getMostSignificantBits() ^ mix(payee.getLeastSignificantBits()));
+            for (int k = 0; k < BLOOM_HASHES; k++) {
+                int bit = (int) (hash >>> (k * 8)) & (BLOOM_BITS - 1);
+                payees[slot * BLOOM_WORDS + (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * How a prospective transaction compares with the user's history so far.
+     */
+    Baseline score(UUID user, long timeMillis, double amount, UUID payee) {
+        int slot = find(user);
+        if (slot < 0) {
+            return Baseline.NONE;
+        }
+        double deviation = Math.max(Math.sqrt(variances[slot]), MIN_DEVIATION);
+        double zScore = (Math.log1p(Math.max(amount, 0)) - means[slot]) / deviation;
+
+        int base = slot * HOURS;
+        long total = 0;
+        for (int h = 0; h < HOURS; h++) {
+            total += hours[base + h];
+        }
+        double hourShare = total > 0 ? (double) hours[base + hourOf(timeMillis)] / total : 0;
+
+        boolean newPayee = false;
+        if (payee != null) {
+            long hash = mix(payee.getMostSignificantBits() ^ mix(payee.getLeastSignificantBits()));
+            for (int k = 0; k < BLOOM_HASHES && !newPayee; k++) {
+                int bit = (int) (hash >>> (k * 8)) & (BLOOM_BITS - 1);
+                newPayee = (payees[slot * BLOOM_WORDS + (bit >>> 6)] & (1L << bit)) == 0;
+            }
+        }
+        return new Baseline(counts[slot], zScore, hourShare, newPayee);
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < used.length; slot++) {
+            if (!used[slot]) {
+                continue;
+            }
+            out.writeLong(keyHigh[slot]);
+            out.writeLong(keyLow[slot]);
+            out.writeInt(counts[slot]);
+            out.writeDouble(means[slot]);
+            out.writeDouble(variances[slot]);
+            for (int h = 0; h < HOURS; h++) {
+                out.writeShort(hours[slot * HOURS + h]);
+            }
+            for (int w = 0; w < BLOOM_WORDS; w++) {
+                out.writeLong(payees[slot * BLOOM_WORDS + w]);
+            }
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        int entries = in.readInt();
+        allocate(capacityFor(entries));
+        for (int i = 0; i < entries; i++) {
+            int slot = insert(in.readLong(), in.readLong());
+            counts[slot] = in.readInt();
+            means[slot] = in.readDouble();
+            variances[slot] = in.readDouble();
+            for (int h = 0; h < HOURS; h++) {
+                hours[slot * HOURS + h] = in.readShort();
+            }
+            for (int w = 0; w < BLOOM_WORDS; w++) {
+                payees[slot * BLOOM_WORDS + w] = in.readLong();
+            }
+        }
+    }
+
+    private int find(UUID key) {
+        long high = key.getMostSignificantBits();
+        long low = key.getLeastSignificantBits();
+        int mask = used.length - 1;
+        for (int slot = (int) mix(high ^ mix(low)) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keyHigh[slot] == high && keyLow[slot] == low) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(long high, long low) {
+        int mask = used.length - 1;
+        int slot = (int) mix(high ^ mix(low)) & mask;
+        while (used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keyHigh[slot] = high;
+        keyLow[slot] = low;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        boolean[] oldUsed = used;
+        int[] oldCounts = counts;
+        double[] oldMeans = means;
+        double[] oldVariances = variances;
+        short[] oldHours = hours;
+        long[] oldPayees = payees;
+
+        allocate(oldUsed.length * 2);
+        for (int old = 0; old < oldUsed.length; old++) {
+            if (!oldUsed[old]) {
+                continue;
+            }
+            int slot = insert(oldHigh[old], oldLow[old]);
+            counts[slot] = oldCounts[old];
+            means[slot] = oldMeans[old];
+            variances[slot] = oldVariances[old];
+            System.arraycopy(oldHours, old * HOURS, hours, slot * HOURS, HOURS);
+            System.arraycopy(oldPayees, old * BLOOM_WORDS, payees, slot * BLOOM_WORDS, BLOOM_WORDS);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        used = new boolean[capacity];
+        counts = new int[capacity];
+        means = new double[capacity];
+        variances = new double[capacity];
+        hours = new short[capacity * HOURS];
+        payees = new long[capacity * BLOOM_WORDS];
+        size = 0;
+    }
+
+    // Power of two that keeps the table at most half full
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hourOf(long timeMillis) {
+        return (int) Math.floorMod(Math.floorDiv(timeMillis, HOUR_MILLIS), (long) HOURS);
+    }
+
+    // Finalizer of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb3fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,85 @@
+package com.rrbank.fraud.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-user behavioural baselines learned from the completed payments in the transaction
+ * stream, so fraud checks can score how unusual a transaction is for this user without any
+ * I/O. {@link TransactionStreamProcessor} feeds it and checkpoints it with the rest of the
+ * stream state.
+ */
+@Component
+public class BehaviourProfiles {
+
+    private final BehaviourProfileStore store;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BehaviourProfiles(@Value("${fraud.profile.alpha:0.05}") double alpha) {
+        this.store = new BehaviourProfileStore(alpha);
+    }
+
+    public Baseline score(UUID userId, long timeMillis, double amount, UUID payee) {
+        if (userId == null) {
+            return Baseline.NONE;
+        }
+        lock.readLock().lock();
+        try {
+            return store.score(userId, timeMillis, amount, payee);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void record(UUID userId, long timeMillis, double amount, UUID payee) {
+        lock.writeLock().lock();
+        try {
+            store.record(userId, timeMillis, amount, payee);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            store.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            store.writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        lock.writeLock().lock();
+        try {
+            store.readFrom(in);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
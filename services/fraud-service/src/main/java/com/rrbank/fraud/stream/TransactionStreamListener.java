@@ -0,0 +1,61 @@
+package com.rrbank.fraud.stream;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds {@link TransactionStreamProcessor}. The group id is unique per instance so every
+ * instance is assigned every partition; on assignment each partition is positioned from the
+ * checkpoint, or one window back in time when the checkpoint does not cover it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
+public class TransactionStreamListener implements ConsumerSeekAware {
+
+    private final TransactionStreamProcessor processor;
+
+    @KafkaListener(topics = {TransactionStreamProcessor.TRANSACTION_EVENTS_TOPIC, TransactionStreamProcessor.LEDGER_EVENTS_TOPIC},
+            groupId = "fraud-service-stream-${random.uuid}")
+    public void onEvent(ConsumerRecord<String, Map<String, Object>> record) {
+        if (record.value() == null) {
+            return;
+        }
+        try {
+            processor.apply(record.topic(), record.partition(), record.offset(), record.timestamp(), record.value());
+        } catch (Exception e) {
+            log.warn("Skipping {} event at {}-{}@{}: {}", record.value().get("eventType"),
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        List<TopicPartition> uncovered = new ArrayList<>();
+        assignments.keySet().forEach(partition -> {
+            Long position = processor.position(partition);
+            if (position != null) {
+                callback.seek(partition.topic(), partition.partition(), position);
+            } else {
+                uncovered.add(partition);
+            }
+        });
+        if (!uncovered.isEmpty()) {
+            callback.seekToTimestamp(uncovered,
+                    System.currentTimeMillis() - TransactionStreamProcessor.WINDOW.toMillis());
+        }
+        log.info("Transaction stream assigned {} partitions, {} replaying the last {}",
+                assignments.size(), uncovered.size(), TransactionStreamProcessor.WINDOW);
+    }
+}
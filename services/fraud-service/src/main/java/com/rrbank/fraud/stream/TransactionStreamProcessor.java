@@ -0,0 +1,267 @@
+package com.rrbank.fraud.stream;
+
+import com.rrbank.fraud.repository.StreamCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Folds the transaction-events and ledger-events topics into trailing 24-hour activity per
+ * user and per account, held in memory so fraud checks can use it without any I/O. Completed
+ * transfers also feed the {@link TransferGraphAnalyzer}, and completed payments the users'
+ * {@link BehaviourProfiles}.
+ *
+ * Every instance consumes every partition, so each holds the full picture. The state and the
+ * offsets it reflects are checkpointed together to the database; a restarting instance loads
+ * the latest checkpoint and resumes from its offsets, or replays the last 24 hours when there
+ * is none.
+ */
+@Component
+@Slf4j
+public class TransactionStreamProcessor {
+
+    public static final String TRANSACTION_EVENTS_TOPIC = "transaction-events";
+    public static final String LEDGER_EVENTS_TOPIC = "ledger-events";
+    public static final Duration WINDOW = Duration.ofHours(24);
+    private static final int BUCKETS = 12;
+    private static final String CHECKPOINT_NAME = "transaction-stream";
+    private static final int CHECKPOINT_FORMAT = 3;
+
+    private final StreamCheckpointRepository checkpointRepository;
+    private final TransferGraphAnalyzer graph;
+    private final BehaviourProfiles profiles;
+    private final WindowedAggregateStore users = new WindowedAggregateStore(BUCKETS, WINDOW.toMillis() / BUCKETS);
+    private final WindowedAggregateStore accounts = new WindowedAggregateStore(BUCKETS, WINDOW.toMillis() / BUCKETS);
+    // Next offset to read per partition; checkpointed with the state it produced
+    private final Map<TopicPartition, Long> positions = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long lastEventTime;
+
+    public TransactionStreamProcessor(StreamCheckpointRepository checkpointRepository, TransferGraphAnalyzer graph,
+                                      BehaviourProfiles profiles) {
+        this.checkpointRepository = checkpointRepository;
+        this.graph = graph;
+        this.profiles = profiles;
+        restore();
+    }
+
+    public Activity userActivity(UUID userId) {
+        return read(users, userId);
+    }
+
+    public Activity accountActivity(UUID accountId) {
+        return read(accounts, accountId);
+    }
+
+    public long getLastEventTime() {
+        return lastEventTime;
+    }
+
+    /**
+     * Where to resume a partition; null when the checkpoint does not cover it.
+     */
+    public Long position(TopicPartition partition) {
+        lock.readLock().lock();
+        try {
+            return positions.get(partition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void apply(String topic, int partition, long offset, long timestamp, Map<String, Object> event) {
+        lock.writeLock().lock();
+        try {
+            TopicPartition key = new TopicPartition(topic, partition);
+            Long position = positions.get(key);
+            if (position != null && offset < position) {
+                // Already in the state, e.g. redelivered after a rebalance
+                return;
+            }
+            if (TRANSACTION_EVENTS_TOPIC.equals(topic)) {
+                applyTransactionEvent(timestamp, event);
+            } else if (LEDGER_EVENTS_TOPIC.equals(topic)) {
+                applyLedgerEvent(timestamp, event);
+            }
+            positions.put(key, offset + 1);
+            lastEventTime = Math.max(lastEventTime, timestamp);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Users: completed payments out, failures and payees. Accounts: counterparties and failures;
+    // their money movements come from the ledger, which also sees credits from outside
+    private void applyTransactionEvent(long timestamp, Map<String, Object> event) {
+        String eventType = (String) event.get("eventType");
+        UUID user = uuid(event.get("initiatedBy"));
+        UUID from = uuid(event.get("fromAccountId"));
+        UUID to = uuid(event.get("toAccountId"));
+
+        if ("TRANSACTION_COMPLETED".equals(eventType)) {
+            if (user != null && from != null) {
+                long amountCents = cents(event.get("amount"));
+                users.add(user, timestamp, WindowedAggregateStore.SENT, amountCents);
+                if (to != null) {
+                    users.addCounterparty(user, timestamp, to);
+                }
+                profiles.record(user, timestamp, amountCents / 100.0, to);
+            }
+            if (from != null && to != null) {
+                accounts.addCounterparty(from, timestamp, to);
+                accounts.addCounterparty(to, timestamp, from);
+                graph.addTransfer(from, to, timestamp, cents(event.get("amount")));
+            }
+        } else if ("TRANSACTION_FAILED".equals(eventType)) {
+            if (user != null) {
+                users.add(user, timestamp, WindowedAggregateStore.FAILED, 0);
+            }
+            if (from != null) {
+                accounts.add(from, timestamp, WindowedAggregateStore.FAILED, 0);
+            }
+        }
+    }
+
+    private void applyLedgerEvent(long timestamp, Map<String, Object> event) {
+        UUID account = uuid(event.get("accountId"));
+        if (account == null || !"LEDGER_ENTRY_CREATED".equals(event.get("eventType"))) {
+            return;
+        }
+        Object entryType = event.get("entryType");
+        if ("DEBIT".equals(entryType)) {
+            accounts.add(account, timestamp, WindowedAggregateStore.SENT, cents(event.get("amount")));
+        } else if ("CREDIT".equals(entryType)) {
+            accounts.add(account, timestamp, WindowedAggregateStore.RECEIVED, cents(event.get("amount")));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.stream.checkpoint-interval-ms:60000}",
+            initialDelayString = "${fraud.stream.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        byte[] state;
+        int userCount;
+        int accountCount;
+        lock.readLock().lock();
+        try {
+            if (positions.isEmpty()) {
+                return;
+            }
+            state = serialize();
+            userCount = users.size();
+            accountCount = accounts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            checkpointRepository.upsert(CHECKPOINT_NAME, state, LocalDateTime.now());
+            log.info("Checkpointed transaction stream: {} users, {} accounts, {} KB",
+                    userCount, accountCount, state.length / 1024);
+        } catch (Exception e) {
+            log.warn("Failed to checkpoint transaction stream (will retry): {}", e.getMessage());
+        }
+    }
+
+    private void restore() {
+        try {
+            checkpointRepository.findById(CHECKPOINT_NAME).ifPresent(checkpoint -> {
+                deserialize(checkpoint.getState());
+                log.info("=== Restored transaction stream checkpoint from {}: {} users, {} accounts, {} partitions ===",
+                        checkpoint.getCreatedAt(), users.size(), accounts.size(), positions.size());
+            });
+        } catch (Exception e) {
+            // Not fatal: the listener replays the window instead
+            log.warn("Failed to restore transaction stream checkpoint, starting empty: {}", e.getMessage());
+            positions.clear();
+            users.clear();
+            accounts.clear();
+            graph.clear();
+            profiles.clear();
+        }
+    }
+
+    private Activity read(WindowedAggregateStore store, UUID key) {
+        if (key == null) {
+            return Activity.NONE;
+        }
+        lock.readLock().lock();
+        try {
+            return store.read(key, System.currentTimeMillis());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(CHECKPOINT_FORMAT);
+            out.writeInt(positions.size());
+            for (Map.Entry<TopicPartition, Long> position : positions.entrySet()) {
+                out.writeUTF(position.getKey().topic());
+                out.writeInt(position.getKey().partition());
+                out.writeLong(position.getValue());
+            }
+            users.writeTo(out);
+            accounts.writeTo(out);
+            graph.writeTo(out);
+            profiles.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void deserialize(byte[] state) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(state)))) {
+            if (in.readInt() != CHECKPOINT_FORMAT) {
+                throw new IOException("Unknown checkpoint format");
+            }
+            int partitions = in.readInt();
+            for (int i = 0; i < partitions; i++) {
+                positions.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+            }
+            users.readFrom(in);
+            accounts.readFrom(in);
+            graph.readFrom(in);
+            profiles.readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UUID uuid(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long cents(Object amount) {
+        if (amount == null) {
+            return 0;
+        }
+        return new BigDecimal(amount.toString()).movePointRight(2).longValue();
+    }
+}
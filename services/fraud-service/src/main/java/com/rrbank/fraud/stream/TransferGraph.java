@@ -0,0 +1,466 @@
+package com.rrbank.fraud.stream;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Recent account-to-account transfers as an adjacency structure in flat primitive arrays.
+ * Accounts are interned to dense int ids. Edges live in a fixed-size ring, 32 bytes each, and
+ * are threaded into a newest-first out-list and in-list per account through int links; the
+ * oldest edge is overwritten when the ring is full and edges older than the window are
+ * expired from the tail, so memory is bounded by the edge budget no matter how the traffic
+ * is shaped. Per-account transfer counts and amounts are maintained incrementally.
+ *
+ * Traversals look at a bounded number of the newest edges of each account, so a hub with
+ * millions of edges costs the same as any other account.
+ *
+ * Not thread-safe; {@link TransferGraphAnalyzer} guards it.
+ */
+final class TransferGraph {
+
+    // Newest edges followed per account when expanding a path search
+    static final int PATH_EDGES_PER_ACCOUNT = 64;
+    // Accounts a single path search may visit
+    static final int PATH_MAX_VISITED = 1024;
+    // Newest edges looked at when counting distinct senders or receivers
+    static final int DISTINCT_SCAN_LIMIT = 4096;
+    private static final int MIN_NODES = 1024;
+
+    /**
+     * An account that collects from many senders and passes most of it on to few receivers.
+     */
+    record Funnel(UUID account, int senders, int receivers, long inCents, long outCents) {
+    }
+
+    private final int capacity;
+    private final long windowMillis;
+
+    // Edge ring; the edge with sequence number s is in slot s % capacity, live ones are tail..head-1
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] nextOut;
+    private final int[] nextIn;
+    private final long[] edgeTime;
+    private final long[] edgeCents;
+    private long head;
+    private long tail;
+
+    // Per account id
+    private long[] nodeHigh;
+    private long[] nodeLow;
+    private int[] headOut;
+    private int[] headIn;
+    private int[] outCount;
+    private int[] inCount;
+    private long[] outCents;
+    private long[] inCents;
+    private int nodeCount;
+    // Open-addressing index from account to id + 1, 0 when empty
+    private int[] table;
+
+    TransferGraph(int capacity, long windowMillis) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.edgeFrom = new int[capacity];
+        this.edgeTo = new int[capacity];
+        this.nextOut = new int[capacity];
+        this.nextIn = new int[capacity];
+        this.edgeTime = new long[capacity];
+        this.edgeCents = new long[capacity];
+        allocateNodes(MIN_NODES);
+    }
+
+    void add(UUID from, UUID to, long timeMillis, long amountCents) {
+        if (from.equals(to)) {
+            return;
+        }
+        expire(timeMillis);
+        // Interning may renumber accounts, so make room for both before taking either id
+        ensureNodeRoom(2);
+        link(intern(from), intern(to), timeMillis, amountCents);
+    }
+
+    /**
+     * Drops edges that have left the window as of {@code nowMillis}.
+     */
+    void expire(long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        while (tail < head && edgeTime[slot(tail)] < cutoff) {
+            removeOldest();
+        }
+    }
+
+    int edgeCount() {
+        return (int) (head - tail);
+    }
+
+    int accountCount() {
+        return nodeCount;
+    }
+
+    long inCents(UUID account) {
+        int node = find(account);
+        return node < 0 ? 0 : inCents[node];
+    }
+
+    long outCents(UUID account) {
+        int node = find(account);
+        return node < 0 ? 0 : outCents[node];
+    }
+
+    /**
+     * Distinct accounts that sent to this one, among its newest {@link #DISTINCT_SCAN_LIMIT} incoming transfers.
+     */
+    int senders(UUID account) {
+        int node = find(account);
+        return node < 0 ? 0 : distinct(node, true);
+    }
+
+    /**
+     * Distinct accounts this one sent to, among its newest {@link #DISTINCT_SCAN_LIMIT} outgoing transfers.
+     */
+    int receivers(UUID account) {
+        int node = find(account);
+        return node < 0 ? 0 : distinct(node, false);
+    }
+
+    /**
+     * Fewest transfers leading from one account to the other, or -1 when there is no such path
+     * of at most {@code maxHops} within the bounds of the search.
+     */
+    int hops(UUID from, UUID to, int maxHops) {
+        int source = find(from);
+        int target = find(to);
+        if (source < 0 || target < 0) {
+            return -1;
+        }
+        if (source == target) {
+            return 0;
+        }
+        int[] visited = new int[Integer.highestOneBit(PATH_MAX_VISITED * 2 - 1) << 1];
+        int visitedCount = 1;
+        addToSet(visited, source);
+        int[] frontier = {source};
+        int frontierSize = 1;
+        for (int hop = 1; hop <= maxHops && frontierSize > 0; hop++) {
+            int[] next = new int[Math.min(frontierSize * PATH_EDGES_PER_ACCOUNT, PATH_MAX_VISITED)];
+            int nextSize = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                long limit = head;
+                int taken = 0;
+                for (int e = headOut[frontier[i]]; e >= 0 && taken < PATH_EDGES_PER_ACCOUNT; e = nextOut[e], taken++) {
+                    long seq = sequence(e);
+                    if (seq >= limit || seq < tail) {
+                        break;
+                    }
+                    limit = seq;
+                    int node = edgeTo[e];
+                    if (node == target) {
+                        return hop;
+                    }
+                    if (visitedCount < PATH_MAX_VISITED && nextSize < next.length && addToSet(visited, node)) {
+                        visitedCount++;
+                        next[nextSize++] = node;
+                    }
+                }
+            }
+            frontier = next;
+            frontierSize = nextSize;
+        }
+        return -1;
+    }
+
+    /**
+     * Scans every account in parallel for funnel behaviour: at least {@code minSenders}
+     * distinct senders, at most {@code maxReceivers} distinct receivers and at least
+     * {@code passThrough} of the inflow sent on.
+     */
+    List<Funnel> findFunnels(int minSenders, int maxReceivers, double passThrough) {
+        return IntStream.range(0, nodeCount).parallel()
+                // Cheap checks on the maintained counters first; the list walks only for candidates
+                .filter(node -> inCount[node] >= minSenders && outCount[node] > 0
+                        && outCents[node] >= passThrough * inCents[node])
+                .mapToObj(node -> {
+                    int senders = distinct(node, true);
+                    int receivers = distinct(node, false);
+                    return senders >= minSenders && receivers <= maxReceivers
+                            ? new Funnel(new UUID(nodeHigh[node], nodeLow[node]), senders, receivers,
+                                    inCents[node], outCents[node])
+                            : null;
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    void clear() {
+        head = 0;
+        tail = 0;
+        allocateNodes(MIN_NODES);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        // Accounts without live edges are left out, so the ids are renumbered
+        int[] renumbered = new int[nodeCount];
+        int live = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            renumbered[node] = inCount[node] + outCount[node] > 0 ? live++ : -1;
+        }
+        out.writeInt(live);
+        for (int node = 0; node < nodeCount; node++) {
+            if (renumbered[node] >= 0) {
+                out.writeLong(nodeHigh[node]);
+                out.writeLong(nodeLow[node]);
+            }
+        }
+        out.writeInt(edgeCount());
+        for (long seq = tail; seq < head; seq++) {
+            int e = slot(seq);
+            out.writeInt(renumbered[edgeFrom[e]]);
+            out.writeInt(renumbered[edgeTo[e]]);
+            out.writeLong(edgeTime[e]);
+            out.writeLong(edgeCents[e]);
+        }
+    }
+
+    /**
+     * Replaces the contents with a checkpoint written by {@link #writeTo}. If the checkpoint
+     * holds more edges than the ring, the oldest are dropped.
+     */
+    void readFrom(DataInputStream in) throws IOException {
+        int nodes = in.readInt();
+        head = 0;
+        tail = 0;
+        allocateNodes(Math.max(MIN_NODES, Integer.highestOneBit(Math.max(nodes, 1) * 2 - 1) << 1));
+        for (int i = 0; i < nodes; i++) {
+            intern(new UUID(in.readLong(), in.readLong()));
+        }
+        int edges = in.readInt();
+        for (int i = 0; i < edges; i++) {
+            int from = in.readInt();
+            int to = in.readInt();
+            if (from < 0 || from >= nodes || to < 0 || to >= nodes) {
+                throw new IOException("Checkpoint edge refers to an unknown account");
+            }
+            link(from, to, in.readLong(), in.readLong());
+        }
+    }
+
+    private void link(int from, int to, long timeMillis, long amountCents) {
+        if (head - tail == capacity) {
+            removeOldest();
+        }
+        int e = slot(head);
+        edgeFrom[e] = from;
+        edgeTo[e] = to;
+        edgeTime[e] = timeMillis;
+        edgeCents[e] = amountCents;
+        nextOut[e] = headOut[from];
+        nextIn[e] = headIn[to];
+        headOut[from] = e;
+        headIn[to] = e;
+        outCount[from]++;
+        outCents[from] += amountCents;
+        inCount[to]++;
+        inCents[to] += amountCents;
+        head++;
+    }
+
+    private void removeOldest() {
+        int e = slot(tail);
+        int from = edgeFrom[e];
+        int to = edgeTo[e];
+        outCount[from]--;
+        outCents[from] -= edgeCents[e];
+        inCount[to]--;
+        inCents[to] -= edgeCents[e];
+        // The oldest edge of the ring is the last of its lists; it is only a list head when it is the only entry
+        if (headOut[from] == e) {
+            headOut[from] = -1;
+        }
+        if (headIn[to] == e) {
+            headIn[to] = -1;
+        }
+        tail++;
+    }
+
+    private int distinct(int node, boolean incoming) {
+        int[] seen = new int[Integer.highestOneBit(DISTINCT_SCAN_LIMIT * 2 - 1) << 1];
+        int count = 0;
+        long limit = head;
+        int taken = 0;
+        for (int e = incoming ? headIn[node] : headOut[node]; e >= 0 && taken < DISTINCT_SCAN_LIMIT;
+             e = incoming ? nextIn[e] : nextOut[e], taken++) {
+            long seq = sequence(e);
+            if (seq >= limit || seq < tail) {
+                break;
+            }
+            limit = seq;
+            if (addToSet(seen, incoming ? edgeFrom[e] : edgeTo[e])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Sequence number of the newest edge written to a slot; a link is stale unless this is older
+    // than the edge holding the link and not before the tail
+    private long sequence(int slot) {
+        return head - 1 - Math.floorMod(head - 1 - slot, (long) capacity);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private int find(UUID account) {
+        long high = account.getMostSignificantBits();
+        long low = account.getLeastSignificantBits();
+        int mask = table.length - 1;
+        for (int i = hash(high, low) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int node = table[i] - 1;
+            if (nodeHigh[node] == high && nodeLow[node] == low) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private int intern(UUID account) {
+        int existing = find(account);
+        if (existing >= 0) {
+            return existing;
+        }
+        int node = nodeCount++;
+        nodeHigh[node] = account.getMostSignificantBits();
+        nodeLow[node] = account.getLeastSignificantBits();
+        headOut[node] = -1;
+        headIn[node] = -1;
+        outCount[node] = 0;
+        inCount[node] = 0;
+        outCents[node] = 0;
+        inCents[node] = 0;
+        index(node);
+        return node;
+    }
+
+    private void index(int node) {
+        int mask = table.length - 1;
+        int i = hash(nodeHigh[node], nodeLow[node]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = node + 1;
+    }
+
+    // Drops accounts without live edges when they make up most of the table, otherwise grows it
+    private void ensureNodeRoom(int extra) {
+        if (nodeCount + extra <= nodeHigh.length) {
+            return;
+        }
+        int live = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (inCount[node] + outCount[node] > 0) {
+                live++;
+            }
+        }
+        if ((live + extra) * 2 > nodeHigh.length) {
+            growNodes(nodeHigh.length * 2);
+        } else {
+            compactNodes();
+        }
+    }
+
+    private void compactNodes() {
+        int[] renumbered = new int[nodeCount];
+        int live = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (inCount[node] + outCount[node] == 0) {
+                renumbered[node] = -1;
+                continue;
+            }
+            renumbered[node] = live;
+            // Ids only move down, so copying in place is safe
+            nodeHigh[live] = nodeHigh[node];
+            nodeLow[live] = nodeLow[node];
+            headOut[live] = headOut[node];
+            headIn[live] = headIn[node];
+            outCount[live] = outCount[node];
+            inCount[live] = inCount[node];
+            outCents[live] = outCents[node];
+            inCents[live] = inCents[node];
+            live++;
+        }
+        for (long seq = tail; seq < head; seq++) {
+            int e = slot(seq);
+            edgeFrom[e] = renumbered[edgeFrom[e]];
+            edgeTo[e] = renumbered[edgeTo[e]];
+        }
+        nodeCount = live;
+        Arrays.fill(table, 0);
+        for (int node = 0; node < nodeCount; node++) {
+            index(node);
+        }
+    }
+
+    private void growNodes(int size) {
+        nodeHigh = Arrays.copyOf(nodeHigh, size);
+        nodeLow = Arrays.copyOf(nodeLow, size);
+        headOut = Arrays.copyOf(headOut, size);
+        headIn = Arrays.copyOf(headIn, size);
+        outCount = Arrays.copyOf(outCount, size);
+        inCount = Arrays.copyOf(inCount, size);
+        outCents = Arrays.copyOf(outCents, size);
+        inCents = Arrays.copyOf(inCents, size);
+        table = new int[size * 2];
+        for (int node = 0; node < nodeCount; node++) {
+            index(node);
+        }
+    }
+
+    private void allocateNodes(int size) {
+        nodeCount = 0;
+        nodeHigh = new long[size];
+        nodeLow = new long[size];
+        headOut = new int[size];
+        headIn = new int[size];
+        outCount = new int[size];
+        inCount = new int[size];
+        outCents = new long[size];
+        inCents = new long[size];
+        table = new int[size * 2];
+    }
+
+    // Open-addressing set of non-negative ints stored as value + 1
+    private static boolean addToSet(int[] set, int value) {
+        int mask = set.length - 1;
+        int i = (int) mix(value) & mask;
+        while (set[i] != 0) {
+            if (set[i] == value + 1) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        set[i] = value + 1;
+        return true;
+    }
+
+    private static int hash(long high, long low) {
+        return (int) mix(high ^ mix(low));
+    }
+
+    // Finalizer of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb3fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,166 @@
+package com.rrbank.fraud.stream;
+
+import com.rrbank.fraud.stream.TransferGraph.Funnel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Graph view of the completed transfers in the transaction stream, for mule-account
+ * detection. Fraud checks query it for fan-in, fan-out and paths; a scheduled scan flags
+ * funnel accounts, which collect from many senders and quickly pass the money on to few.
+ * {@link TransactionStreamProcessor} feeds it and checkpoints it with the rest of the stream
+ * state.
+ */
+@Component
+@Slf4j
+public class TransferGraphAnalyzer {
+
+    /**
+     * Graph features of one account. Fan-in and fan-out are distinct counterparties.
+     */
+    public record AccountGraph(int fanIn, int fanOut, BigDecimal inflow, BigDecimal outflow, boolean funnel) {
+
+        public static final AccountGraph NONE = new AccountGraph(0, 0, BigDecimal.ZERO, BigDecimal.ZERO, false);
+    }
+
+    public record FunnelAccount(UUID accountId, int senders, int receivers, BigDecimal inflow, BigDecimal outflow) {
+    }
+
+    private final TransferGraph graph;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int minSenders;
+    private final int maxReceivers;
+    private final double passThrough;
+    private volatile Map<UUID, FunnelAccount> funnels = Map.of();
+
+    public TransferGraphAnalyzer(@Value("${fraud.graph.max-edges:1000000}") int maxEdges,
+                                 @Value("${fraud.graph.funnel.min-senders:10}") int minSenders,
+                                 @Value("${fraud.graph.funnel.max-receivers:3}") int maxReceivers,
+                                 @Value("${fraud.graph.funnel.pass-through:0.8}") double passThrough) {
+        this.graph = new TransferGraph(maxEdges, TransactionStreamProcessor.WINDOW.toMillis());
+        this.minSenders = minSenders;
+        this.maxReceivers = maxReceivers;
+        this.passThrough = passThrough;
+    }
+
+    public AccountGraph account(UUID accountId) {
+        if (accountId == null) {
+            return AccountGraph.NONE;
+        }
+        lock.readLock().lock();
+        try {
+            return new AccountGraph(graph.senders(accountId), graph.receivers(accountId),
+                    money(graph.inCents(accountId)), money(graph.outCents(accountId)),
+                    funnels.containsKey(accountId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fewest transfers from one account to the other in the window, or -1 when there is no
+     * path of at most {@code maxHops}.
+     */
+    public int hops(UUID from, UUID to, int maxHops) {
+        if (from == null || to == null) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            return graph.hops(from, to, maxHops);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<FunnelAccount> getFunnels() {
+        return funnels.values().stream()
+                .sorted(Comparator.comparingInt(FunnelAccount::senders).reversed())
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.graph.scan-interval-ms:60000}")
+    public void scan() {
+        long started = System.currentTimeMillis();
+        int edges;
+        int accounts;
+        List<Funnel> found;
+        lock.writeLock().lock();
+        try {
+            graph.expire(started);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lock.readLock().lock();
+        try {
+            edges = graph.edgeCount();
+            accounts = graph.accountCount();
+            found = graph.findFunnels(minSenders, maxReceivers, passThrough);
+        } finally {
+            lock.readLock().unlock();
+        }
+        funnels = found.stream()
+                .map(funnel -> new FunnelAccount(funnel.account(), funnel.senders(), funnel.receivers(),
+                        money(funnel.inCents()), money(funnel.outCents())))
+                .collect(Collectors.toUnmodifiableMap(FunnelAccount::accountId, Function.identity()));
+        if (!found.isEmpty()) {
+            log.info("Transfer graph scan: {} funnel accounts among {} accounts, {} transfers ({} ms)",
+                    found.size(), accounts, edges, System.currentTimeMillis() - started);
+        }
+    }
+
+    void addTransfer(UUID from, UUID to, long timeMillis, long amountCents) {
+        lock.writeLock().lock();
+        try {
+            graph.add(from, to, timeMillis, amountCents);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            graph.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            graph.writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        lock.writeLock().lock();
+        try {
+            graph.readFrom(in);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,278 @@
+package com.rrbank.fraud.stream;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Trailing-window activity per UUID key, held in flat primitive arrays: an open-addressing
+ * table keyed by the two halves of the UUID, and for every key a ring of time buckets with
+ * counts, amounts in cents and a 64-bit linear-counting sketch of counterparties. A key costs
+ * about 40 bytes per bucket and no objects, so hundreds of thousands of keys stay cheap for
+ * the heap and the garbage collector. Keys with nothing left in the window are dropped when
+ * the table is rebuilt.
+ *
+ * Not thread-safe; {@link TransactionStreamProcessor} guards it.
+ */
+final class WindowedAggregateStore {
+
+    static final int SENT = 0;
+    static final int RECEIVED = 1;
+    static final int FAILED = 2;
+    private static final int COUNTS = 3;
+    private static final int AMOUNTS = 2;
+    private static final int SKETCH_BITS = 64;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final int buckets;
+    private final long bucketMillis;
+
+    private long[] keyHigh;
+    private long[] keyLow;
+    private boolean[] used;
+    // The newest bucket written per slot, to drop keys whose window has passed
+    private int[] newest;
+    // Per slot and bucket
+    private int[] epochs;
+    private int[] counts;
+    private long[] cents;
+    private long[] sketches;
+    private int size;
+
+    WindowedAggregateStore(int buckets, long bucketMillis) {
+        this.buckets = buckets;
+        this.bucketMillis = bucketMillis;
+        allocate(MIN_CAPACITY);
+    }
+
+    void add(UUID key, long timeMillis, int metric, long amountCents) {
+        int cell = cell(key, timeMillis);
+        if (cell < 0) {
+            return;
+        }
+        counts[cell * COUNTS + metric]++;
+        if (metric != FAILED) {
+            cents[cell * AMOUNTS + metric] += amountCents;
+        }
+    }
+
+    void addCounterparty(UUID key, long timeMillis, UUID counterparty) {
+        int cell = cell(key, timeMillis);
+        if (cell >= 0) {
+            long hash = mix(counterparty.getMostSignificantBits() ^ mix(counterparty.getLeastSignificantBits()));
+            sketches[cell] |= 1L << (hash >>> 58);
+        }
+    }
+
+    Activity read(UUID key, long nowMillis) {
+        int slot = find(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        if (slot < 0) {
+            return Activity.NONE;
+        }
+        int current = bucketOf(nowMillis);
+        long[] totals = new long[COUNTS + AMOUNTS];
+        long sketch = 0;
+        for (int b = 0; b < buckets; b++) {
+            int cell = slot * buckets + b;
+            if (current - epochs[cell] >= buckets || epochs[cell] > current) {
+                continue;
+            }
+            for (int m = 0; m < COUNTS; m++) {
+                totals[m] += counts[cell * COUNTS + m];
+            }
+            totals[COUNTS + SENT] += cents[cell * AMOUNTS + SENT];
+            totals[COUNTS + RECEIVED] += cents[cell * AMOUNTS + RECEIVED];
+            sketch |= sketches[cell];
+        }
+        return new Activity(totals[SENT], totals[COUNTS + SENT], totals[RECEIVED], totals[COUNTS + RECEIVED],
+                totals[FAILED], estimateDistinct(sketch));
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(buckets);
+        out.writeLong(bucketMillis);
+        out.writeInt(size);
+        for (int slot = 0; slot < used.length; slot++) {
+            if (!used[slot]) {
+                continue;
+            }
+            out.writeLong(keyHigh[slot]);
+            out.writeLong(keyLow[slot]);
+            out.writeInt(newest[slot]);
+            for (int b = 0; b < buckets; b++) {
+                int cell = slot * buckets + b;
+                out.writeInt(epochs[cell]);
+                for (int m = 0; m < COUNTS; m++) {
+                    out.writeInt(counts[cell * COUNTS + m]);
+                }
+                out.writeLong(cents[cell * AMOUNTS + SENT]);
+                out.writeLong(cents[cell * AMOUNTS + RECEIVED]);
+                out.writeLong(sketches[cell]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents with a checkpoint written by {@link #writeTo}, with the same layout.
+     */
+    void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != buckets || in.readLong() != bucketMillis) {
+            throw new IOException("Checkpoint was written with a different bucket layout");
+        }
+        int entries = in.readInt();
+        allocate(capacityFor(entries));
+        for (int i = 0; i < entries; i++) {
+            int slot = insert(in.readLong(), in.readLong());
+            newest[slot] = in.readInt();
+            for (int b = 0; b < buckets; b++) {
+                int cell = slot * buckets + b;
+                epochs[cell] = in.readInt();
+                for (int m = 0; m < COUNTS; m++) {
+                    counts[cell * COUNTS + m] = in.readInt();
+                }
+                cents[cell * AMOUNTS + SENT] = in.readLong();
+                cents[cell * AMOUNTS + RECEIVED] = in.readLong();
+                sketches[cell] = in.readLong();
+            }
+        }
+    }
+
+    // The cell of the key's bucket for the given time, reset if it last held an older bucket; -1 if too old
+    private int cell(UUID key, long timeMillis) {
+        int bucket = bucketOf(timeMillis);
+        int slot = find(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        if (slot >= 0 && newest[slot] - bucket >= buckets) {
+            return -1;
+        }
+        if (slot < 0) {
+            if ((size + 1) * 2 > used.length) {
+                rebuild(bucket);
+            }
+            slot = insert(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            newest[slot] = bucket;
+            Arrays.fill(epochs, slot * buckets, (slot + 1) * buckets, Integer.MIN_VALUE);
+        }
+        newest[slot] = Math.max(newest[slot], bucket);
+
+        int cell = slot * buckets + Math.floorMod(bucket, buckets);
+        if (epochs[cell] != bucket) {
+            if (epochs[cell] > bucket) {
+                // The ring slot already moved on to a newer bucket
+                return -1;
+            }
+            epochs[cell] = bucket;
+            Arrays.fill(counts, cell * COUNTS, (cell + 1) * COUNTS, 0);
+            cents[cell * AMOUNTS + SENT] = 0;
+            cents[cell * AMOUNTS + RECEIVED] = 0;
+            sketches[cell] = 0;
+        }
+        return cell;
+    }
+
+    // Drops keys whose window has passed, and grows the table if it is still half full
+    private void rebuild(int currentBucket) {
+        int live = 0;
+        for (int slot = 0; slot < used.length; slot++) {
+            if (used[slot] && currentBucket - newest[slot] < buckets) {
+                live++;
+            }
+        }
+        long[] oldHigh = keyHigh;
+        long[] oldLow = keyLow;
+        boolean[] oldUsed = used;
+        int[] oldNewest = newest;
+        int[] oldEpochs = epochs;
+        int[] oldCounts = counts;
+        long[] oldCents = cents;
+        long[] oldSketches = sketches;
+
+        allocate(capacityFor(live + 1));
+        for (int old = 0; old < oldUsed.length; old++) {
+            if (!oldUsed[old] || currentBucket - oldNewest[old] >= buckets) {
+                continue;
+            }
+            int slot = insert(oldHigh[old], oldLow[old]);
+            newest[slot] = oldNewest[old];
+            System.arraycopy(oldEpochs, old * buckets, epochs, slot * buckets, buckets);
+            System.arraycopy(oldCounts, old * buckets * COUNTS, counts, slot * buckets * COUNTS, buckets * COUNTS);
+            System.arraycopy(oldCents, old * buckets * AMOUNTS, cents, slot * buckets * AMOUNTS, buckets * AMOUNTS);
+            System.arraycopy(oldSketches, old * buckets, sketches, slot * buckets, buckets);
+        }
+    }
+
+    private int find(long high, long low) {
+        int mask = used.length - 1;
+        for (int slot = (int) mix(high ^ mix(low)) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keyHigh[slot] == high && keyLow[slot] == low) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(long high, long low) {
+        int mask = used.length - 1;
+        int slot = (int) mix(high ^ mix(low)) & mask;
+        while (used[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keyHigh[slot] = high;
+        keyLow[slot] = low;
+        size++;
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        used = new boolean[capacity];
+        newest = new int[capacity];
+        epochs = new int[capacity * buckets];
+        counts = new int[capacity * buckets * COUNTS];
+        cents = new long[capacity * buckets * AMOUNTS];
+        sketches = new long[capacity * buckets];
+        size = 0;
+    }
+
+    // Power of two that keeps the table at most half full
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private int bucketOf(long timeMillis) {
+        return (int) Math.floorDiv(timeMillis, bucketMillis);
+    }
+
+    private static long estimateDistinct(long sketch) {
+        int empty = SKETCH_BITS - Long.bitCount(sketch);
+        if (empty == 0) {
+            empty = 1;
+        }
+        return Math.round(-SKETCH_BITS * Math.log((double) empty / SKETCH_BITS));
+    }
+
+    // Finalizer of MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb3fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
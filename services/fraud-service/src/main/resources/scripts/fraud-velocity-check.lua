@@ -0,0 +1,136 @@
+-- Sliding-window velocity check for one user. Each window is a ring of time buckets kept in a
+-- hash: field = absolute bucket number, value = "count,amountCents,withdrawals". Buckets that
+-- have slid out of a window are ignored and deleted on the next write, so totals always cover
+-- exactly the last N buckets rather than a window that restarts when a TTL runs out.
+--
+-- All windows are read once, then the user's transactions are checked in order: each one is
+-- held against the limits with every earlier approved transaction of the call already added,
+-- and when approved it is added to the current bucket of every window - atomically.
+--
+-- KEYS[i]  ring hash of window i
+-- ARGV[1]  risk score at which a transaction is no longer approved
+-- ARGV[2]  1 to record approved transactions, 0 to only read the totals
+-- ARGV[3]  number of transactions
+-- then per window, 6 values: bucket ms, bucket count, max count, max amount in cents,
+--          max withdrawals (-1 = no limit), risk added per earlier withdrawal in the window
+-- then per transaction, 3 values: amount in cents, 1 for a withdrawal, risk score from the
+--          amount-only rules
+--
+-- Returns per transaction {outcome, window index (0 if none), risk score, then per window:
+-- count, amount, withdrawals} with totals from before that transaction, then the server time
+-- in ms, which fraud-velocity-release.lua needs to find the buckets a transaction went into.
+-- outcome: 0 recorded, 1 amount limit exceeded, 2 count limit exceeded,
+--          3 withdrawal limit exceeded, 4 not recorded (risk too high or read only)
+
+local WINDOW_ARGS = 6
+local ITEM_ARGS = 3
+-- Needed before Redis 5 to write after reading the (non-deterministic) server time
+redis.replicate_commands()
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local approveBelow = tonumber(ARGV[1])
+local record = ARGV[2] == '1'
+local items = tonumber(ARGV[3])
+
+local windows = {}
+for i = 1, #KEYS do
+    local base = 3 + (i - 1) * WINDOW_ARGS
+    local bucketMs = tonumber(ARGV[base + 1])
+    local current = math.floor(now / bucketMs)
+    local oldest = current - tonumber(ARGV[base + 2]) + 1
+    local window = {
+        ttl = bucketMs * tonumber(ARGV[base + 2]),
+        current = current,
+        maxCount = tonumber(ARGV[base + 3]),
+        maxAmount = tonumber(ARGV[base + 4]),
+        maxWithdrawals = tonumber(ARGV[base + 5]),
+        withdrawalRisk = tonumber(ARGV[base + 6]),
+        count = 0, amount = 0, withdrawals = 0,
+        stale = {}, currentValue = {0, 0, 0}, dirty = false
+    }
+    local fields = redis.call('HGETALL', KEYS[i])
+    for j = 1, #fields, 2 do
+        local bucket = tonumber(fields[j])
+        if bucket < oldest then
+            window.stale[#window.stale + 1] = fields[j]
+        else
+            local n, a, w = string.match(fields[j + 1], '^(%d+),(%d+),(%d+)$')
+            window.count = window.count + tonumber(n)
+            window.amount = window.amount + tonumber(a)
+            window.withdrawals = window.withdrawals + tonumber(w)
+            if bucket == current then
+                window.currentValue = {tonumber(n), tonumber(a), tonumber(w)}
+            end
+        end
+    end
+    windows[i] = window
+end
+
+local result = {}
+local itemBase = 3 + #KEYS * WINDOW_ARGS
+for item = 1, items do
+    local base = itemBase + (item - 1) * ITEM_ARGS
+    local amount = tonumber(ARGV[base + 1])
+    local isWithdrawal = ARGV[base + 2] == '1'
+    local risk = tonumber(ARGV[base + 3])
+    local outcome, violated = 0, 0
+
+    for i, window in ipairs(windows) do
+        if window.maxAmount >= 0 and window.amount + amount > window.maxAmount then
+            outcome, violated = 1, i
+        elseif window.maxCount >= 0 and window.count + 1 > window.maxCount then
+            outcome, violated = 2, i
+        elseif isWithdrawal and window.maxWithdrawals >= 0 and window.withdrawals >= window.maxWithdrawals then
+            outcome, violated = 3, i
+        end
+        if outcome > 0 then
+            risk = 100
+            break
+        end
+        if isWithdrawal then
+            risk = risk + window.withdrawals * window.withdrawalRisk
+        end
+    end
+    if outcome == 0 and (not record or risk >= approveBelow) then
+        outcome = 4
+    end
+
+    result[#result + 1] = outcome
+    result[#result + 1] = violated
+    result[#result + 1] = risk
+    for _, window in ipairs(windows) do
+        result[#result + 1] = window.count
+        result[#result + 1] = window.amount
+        result[#result + 1] = window.withdrawals
+    end
+
+    if outcome == 0 then
+        local withdrawals = isWithdrawal and 1 or 0
+        for _, window in ipairs(windows) do
+            window.count = window.count + 1
+            window.amount = window.amount + amount
+            window.withdrawals = window.withdrawals + withdrawals
+            window.currentValue[1] = window.currentValue[1] + 1
+            window.currentValue[2] = window.currentValue[2] + amount
+            window.currentValue[3] = window.currentValue[3] + withdrawals
+            window.dirty = true
+        end
+    end
+end
+
+for i, window in ipairs(windows) do
+    if window.dirty then
+        local value = window.currentValue
+        -- %.0f writes whole numbers without the exponent plain number-to-string conversion can use
+        redis.call('HSET', KEYS[i], string.format('%.0f', window.current),
+            string.format('%.0f,%.0f,%.0f', value[1], value[2], value[3]))
+        if #window.stale > 0 then
+            redis.call('HDEL', KEYS[i], unpack(window.stale))
+        end
+        redis.call('PEXPIRE', KEYS[i], window.ttl)
+    end
+end
+
+result[#result + 1] = now
+return result
@@ -0,0 +1,50 @@
+-- Takes transactions a velocity check recorded back out of one user's windows, for checks
+-- whose final decision was not an approval. Each transaction is subtracted from the bucket of
+-- every window it was recorded in, found from the time of its check; a bucket that has been
+-- deleted since is left alone, and no value goes below zero.
+--
+-- KEYS[i]  ring hash of window i
+-- ARGV[i]  bucket ms of window i
+-- then per transaction, 3 values: time of the check in ms (the server time the check script
+--          returned), amount in cents, 1 for a withdrawal
+--
+-- Returns the number of buckets changed.
+
+local ITEM_ARGS = 3
+local items = (#ARGV - #KEYS) / ITEM_ARGS
+local changed = 0
+
+for i = 1, #KEYS do
+    local bucketMs = tonumber(ARGV[i])
+    -- Transactions recorded together share a bucket: subtract them in one write
+    local deltas = {}
+    for item = 1, items do
+        local base = #KEYS + (item - 1) * ITEM_ARGS
+        local bucket = string.format('%.0f', math.floor(tonumber(ARGV[base + 1]) / bucketMs))
+        local delta = deltas[bucket]
+        if not delta then
+            delta = {0, 0, 0}
+            deltas[bucket] = delta
+        end
+        delta[1] = delta[1] + 1
+        delta[2] = delta[2] + tonumber(ARGV[base + 2])
+        delta[3] = delta[3] + (ARGV[base + 3] == '1' and 1 or 0)
+    end
+    for bucket, delta in pairs(deltas) do
+        local value = redis.call('HGET', KEYS[i], bucket)
+        if value then
+            local n, a, w = string.match(value, '^(%d+),(%d+),(%d+)$')
+            n = math.max(tonumber(n) - delta[1], 0)
+            a = math.max(tonumber(a) - delta[2], 0)
+            w = math.max(tonumber(w) - delta[3], 0)
+            if n == 0 then
+                redis.call('HDEL', KEYS[i], bucket)
+            else
+                redis.call('HSET', KEYS[i], bucket, string.format('%.0f,%.0f,%.0f', n, a, w))
+            end
+            changed = changed + 1
+        end
+    end
+end
+
+return changed
@@ -39,6 +39,12 @@ public class LedgerController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/postings/batch")
+    public ResponseEntity<MultiLegPostingResponse> postMultiLeg(@Valid @RequestBody MultiLegPostingRequest request) {
+        log.info("POST multi-leg posting from {} with {} legs", request.getDebitAccountId(), request.getLegs().size());
+        return ResponseEntity.ok(ledgerService.postMultiLeg(request));
+    }
+
     @GetMapping("/balance/{accountId}")
     public ResponseEntity<BalanceResponse> getBalance(@PathVariable UUID accountId) {
         log.info("GET balance for account: {}", accountId);
@@ -1,10 +1,12 @@
 package com.rrbank.ledger.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public class LedgerDTOs {
@@ -73,4 +75,51 @@ public class LedgerDTOs {
         
         private String description;
     }
+
+    /**
+     * One payer debited against many payees in a single atomic posting.
+     * Every leg produces a DEBIT on the payer and a CREDIT on the payee,
+     * both linked to the leg's transaction.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class MultiLegPostingRequest {
+        @NotNull
+        private UUID debitAccountId;
+        
+        @NotEmpty
+        @Size(max = 1000)
+        @Valid
+        private List<PostingLeg> legs;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PostingLeg {
+        @NotNull
+        private UUID transactionId;
+        
+        @NotNull
+        private UUID creditAccountId;
+        
+        @NotNull
+        @DecimalMin(value = "0.01")
+        private BigDecimal amount;
+        
+        private String description;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class MultiLegPostingResponse {
+        private int legsPosted;
+        private BigDecimal totalAmount;
+        private BigDecimal debitBalance;
+    }
 }
@@ -13,7 +13,10 @@ import java.util.UUID;
  * Balance = SUM(CREDIT) - SUM(DEBIT) from ledger_entries
  */
 @Entity
-@Table(name = "ledger_entries", indexes = {
+@Table(name = "ledger_entries", uniqueConstraints = {
+    // One entry per transaction, account and side: a retried posting cannot be booked twice
+    @UniqueConstraint(name = "uk_ledger_transaction_account_type", columnNames = {"transaction_id", "account_id", "entry_type"})
+}, indexes = {
     @Index(name = "idx_ledger_account", columnList = "account_id"),
     @Index(name = "idx_ledger_transaction", columnList = "transaction_id"),
     @Index(name = "idx_ledger_created", columnList = "created_at")
@@ -25,7 +28,7 @@ import java.util.UUID;
 public class LedgerEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "account_id", nullable = false)
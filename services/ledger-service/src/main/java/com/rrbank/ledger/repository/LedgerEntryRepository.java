@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,6 +34,26 @@ public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID>
                    "FROM ledger_entries WHERE account_id = :accountId", nativeQuery = true)
     BigDecimal calculateBalanceNative(@Param("accountId") UUID accountId);
     
+    /**
+     * Balances for several accounts in one grouped query
+     */
+    @Query(value = "SELECT account_id, COALESCE(SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE 0 END), 0) - " +
+                   "COALESCE(SUM(CASE WHEN entry_type = 'DEBIT' THEN amount ELSE 0 END), 0) " +
+                   "FROM ledger_entries WHERE account_id IN (:accountIds) GROUP BY account_id", nativeQuery = true)
+    List<Object[]> calculateBalancesNative(@Param("accountIds") Collection<UUID> accountIds);
+    
+    /**
+     * Which of the given transactions already have an entry of this type on the account
+     */
+    @Query("SELECT e.transactionId FROM LedgerEntry e WHERE e.accountId = :accountId " +
+           "AND e.entryType = :entryType AND e.transactionId IN :transactionIds")
+    List<UUID> findPostedTransactionIds(@Param("accountId") UUID accountId,
+                                        @Param("entryType") LedgerEntry.EntryType entryType,
+                                        @Param("transactionIds") Collection<UUID> transactionIds);
+    
+    Optional<LedgerEntry> findFirstByTransactionIdAndAccountIdAndEntryType(UUID transactionId, UUID accountId,
+                                                                           LedgerEntry.EntryType entryType);
+    
     Page<LedgerEntry> findByAccountIdOrderByCreatedAtDesc(UUID accountId, Pageable pageable);
     
     Optional<LedgerEntry> findTopByAccountIdOrderByCreatedAtDesc(UUID accountId);
@@ -0,0 +1,241 @@
+package com.rrbank.ledger.rpc;
+
+import com.rrbank.ledger.dto.LedgerDTOs.*;
+import com.rrbank.ledger.service.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rrbank.ledger.rpc.LedgerRpcProtocol.*;
+
+/**
+ * Binary RPC endpoint for ledger postings and balance reads, used by transaction-service in
+ * place of the JSON API when enabled. Connections are long-lived; each one has a reader thread
+ * that hands requests to a shared worker pool, so pipelined requests on a connection run
+ * concurrently and their responses are written back as they finish. The HTTP API is unchanged.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.rpc.enabled", havingValue = "true")
+@Slf4j
+public class LedgerRpcServer implements SmartLifecycle {
+
+    private final LedgerService ledgerService;
+    private final String bindAddress;
+    private final int port;
+    private final ThreadPoolExecutor workers;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public LedgerRpcServer(LedgerService ledgerService,
+                           @Value("${ledger.rpc.bind-address:0.0.0.0}") String bindAddress,
+                           @Value("${ledger.rpc.port:9085}") int port,
+                           @Value("${ledger.rpc.worker-threads:32}") int workerThreads,
+                           @Value("${ledger.rpc.queue-capacity:1000}") int queueCapacity) {
+        this.ledgerService = ledgerService;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("LedgerRpc-worker-"));
+    }
+
+    @Override
+    public void start() {
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), port), 256);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start ledger RPC server on port " + port, e);
+        }
+        running = true;
+        daemonThreads("LedgerRpc-accept").newThread(this::acceptLoop).start();
+        log.info("=== Ledger RPC server listening on {}:{} ===", bindAddress, port);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        connections.forEach(this::closeQuietly);
+        workers.shutdown();
+        log.info("Ledger RPC server stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                connections.add(socket);
+                daemonThreads("LedgerRpc-conn-" + connectionIds.incrementAndGet() + "-")
+                        .newThread(() -> serve(socket)).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Ledger RPC accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Rejected ledger RPC connection from {}: bad handshake", socket.getRemoteSocketAddress());
+                return;
+            }
+            out.writeInt(MAGIC);
+            out.flush();
+            log.info("Ledger RPC client connected: {}", socket.getRemoteSocketAddress());
+
+            while (running) {
+                int length = in.readInt();
+                if (length < 9 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Bad frame length: " + length);
+                }
+                long requestId = in.readLong();
+                byte op = in.readByte();
+                byte[] body = new byte[length - 9];
+                in.readFully(body);
+                try {
+                    workers.execute(() -> respond(out, requestId, handle(op, body)));
+                } catch (RejectedExecutionException e) {
+                    respond(out, requestId, error(STATUS_ERROR, "Ledger RPC server busy"));
+                }
+            }
+        } catch (EOFException e) {
+            log.info("Ledger RPC client disconnected: {}", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (running) {
+                log.warn("Ledger RPC connection {} closed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private Reply handle(byte op, byte[] body) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(buffer);
+            switch (op) {
+                case OP_CREDIT, OP_DEBIT -> {
+                    CreateEntryRequest request = CreateEntryRequest.builder()
+                            .accountId(readUuid(in))
+                            .transactionId(readUuid(in))
+                            .entryType(op == OP_CREDIT ? "CREDIT" : "DEBIT")
+                            .amount(readDecimal(in))
+                            .description(readString(in))
+                            .build();
+                    LedgerEntryResponse entry = op == OP_CREDIT
+                            ? ledgerService.credit(request)
+                            : ledgerService.debit(request);
+                    writeUuid(out, java.util.UUID.fromString(entry.getId()));
+                    writeDecimal(out, entry.getRunningBalance());
+                }
+                case OP_BALANCE -> writeDecimal(out, ledgerService.getBalance(readUuid(in)).getBalance());
+                case OP_MULTI_LEG -> {
+                    java.util.UUID debitAccountId = readUuid(in);
+                    int count = in.readInt();
+                    List<PostingLeg> legs = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        legs.add(PostingLeg.builder()
+                                .transactionId(readUuid(in))
+                                .creditAccountId(readUuid(in))
+                                .amount(readDecimal(in))
+                                .description(readString(in))
+                                .build());
+                    }
+                    MultiLegPostingResponse response = ledgerService.postMultiLeg(MultiLegPostingRequest.builder()
+                            .debitAccountId(debitAccountId)
+                            .legs(legs)
+                            .build());
+                    out.writeInt(response.getLegsPosted());
+                    writeDecimal(out, response.getTotalAmount());
+                    writeDecimal(out, response.getDebitBalance());
+                }
+                default -> {
+                    return error(STATUS_ERROR, "Unknown ledger RPC operation: " + op);
+                }
+            }
+            out.flush();
+            return new Reply(STATUS_OK, buffer.toByteArray());
+        } catch (IllegalArgumentException e) {
+            return error(STATUS_REJECTED, e.getMessage());
+        } catch (Exception e) {
+            // LedgerService signals business rejections such as insufficient balance with RuntimeException
+            log.warn("Ledger RPC operation {} failed: {}", op, e.getMessage());
+            return error(e instanceof RuntimeException ? STATUS_REJECTED : STATUS_ERROR, e.getMessage());
+        }
+    }
+
+    private void respond(DataOutputStream out, long requestId, Reply reply) {
+        try {
+            synchronized (out) {
+                out.writeInt(9 + reply.body().length);
+                out.writeLong(requestId);
+                out.writeByte(reply.status());
+                out.write(reply.body());
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write ledger RPC response {}: {}", requestId, e.getMessage());
+        }
+    }
+
+    private static Reply error(byte status, String message) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeString(new DataOutputStream(buffer), message != null ? message : "Ledger error");
+            return new Reply(status, buffer.toByteArray());
+        } catch (IOException e) {
+            return new Reply(status, new byte[0]);
+        }
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Reply(byte status, byte[] body) {
+    }
+}
@@ -15,6 +15,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -35,6 +42,12 @@ public class LedgerService {
                 request.getAccountId(), request.getAmount(), request.getTransactionId());
         
         try {
+            Optional<LedgerEntry> posted = findPosted(request, LedgerEntry.EntryType.CREDIT);
+            if (posted.isPresent()) {
+                log.info("=== CREDIT ALREADY POSTED: entry={}, txn={} ===", posted.get().getId(), request.getTransactionId());
+                return toResponse(posted.get());
+            }
+            
             LedgerEntry entry = createEntry(request.getAccountId(), request.getTransactionId(),
                     LedgerEntry.EntryType.CREDIT, request.getAmount(), request.getDescription());
             
@@ -63,6 +76,12 @@ public class LedgerService {
                 request.getAccountId(), request.getAmount(), request.getTransactionId());
         
         try {
+            Optional<LedgerEntry> posted = findPosted(request, LedgerEntry.EntryType.DEBIT);
+            if (posted.isPresent()) {
+                log.info("=== DEBIT ALREADY POSTED: entry={}, txn={} ===", posted.get().getId(), request.getTransactionId());
+                return toResponse(posted.get());
+            }
+            
             // Check balance first
             BigDecimal currentBalance = getBalanceInternal(request.getAccountId());
             log.info("Current balance for account {}: {}", request.getAccountId(), currentBalance);
@@ -122,6 +141,113 @@ public class LedgerService {
         log.info("=== TRANSFER SUCCESS ===");
     }
 
+    /**
+     * Multi-leg posting: one payer, many payees, one database transaction.
+     * The payer balance is checked once against the total and all payee balances are
+     * read with a single grouped query, so a chunk of N legs costs one round trip
+     * from the caller instead of 2N debit/credit calls.
+     *
+     * Legs whose transaction is already debited from the payer are skipped, so a chunk that
+     * is re-driven after a timeout or a restart only posts what is still missing.
+     */
+    @Transactional
+    public MultiLegPostingResponse postMultiLeg(MultiLegPostingRequest request) {
+        UUID debitAccountId = request.getDebitAccountId();
+        log.info("=== MULTI-LEG POSTING REQUEST: debitAccount={}, legs={} ===", 
+                debitAccountId, request.getLegs().size());
+        
+        Set<UUID> transactionIds = new HashSet<>();
+        for (PostingLeg leg : request.getLegs()) {
+            if (debitAccountId.equals(leg.getCreditAccountId())) {
+                throw new IllegalArgumentException("Posting leg cannot credit the debited account: " + debitAccountId);
+            }
+            if (leg.getTransactionId() == null || !transactionIds.add(leg.getTransactionId())) {
+                throw new IllegalArgumentException("Every posting leg needs its own transactionId");
+            }
+        }
+        
+        Set<UUID> alreadyPosted = new HashSet<>(ledgerEntryRepository.findPostedTransactionIds(
+                debitAccountId, LedgerEntry.EntryType.DEBIT, transactionIds));
+        List<PostingLeg> legs = request.getLegs().stream()
+                .filter(leg -> !alreadyPosted.contains(leg.getTransactionId()))
+                .toList();
+        if (!alreadyPosted.isEmpty()) {
+            log.info("Skipping {} multi-leg postings already booked for account {}", alreadyPosted.size(), debitAccountId);
+        }
+        
+        BigDecimal total = BigDecimal.ZERO;
+        Set<UUID> creditAccounts = new HashSet<>();
+        for (PostingLeg leg : legs) {
+            total = total.add(leg.getAmount());
+            creditAccounts.add(leg.getCreditAccountId());
+        }
+        
+        BigDecimal debitBalance = getBalanceInternal(debitAccountId);
+        if (debitBalance.compareTo(total) < 0) {
+            String msg = "Insufficient balance. Current: " + debitBalance + ", Required: " + total;
+            log.error("=== MULTI-LEG POSTING FAILED: {} ===", msg);
+            throw new RuntimeException(msg);
+        }
+        
+        if (legs.isEmpty()) {
+            return MultiLegPostingResponse.builder()
+                    .legsPosted(request.getLegs().size())
+                    .totalAmount(total)
+                    .debitBalance(debitBalance)
+                    .build();
+        }
+        
+        Map<UUID, BigDecimal> creditBalances = new HashMap<>();
+        for (Object[] row : ledgerEntryRepository.calculateBalancesNative(creditAccounts)) {
+            creditBalances.put((UUID) row[0], (BigDecimal) row[1]);
+        }
+        
+        List<LedgerEntry> entries = new ArrayList<>(legs.size() * 2);
+        BigDecimal runningDebit = debitBalance;
+        for (PostingLeg leg : legs) {
+            runningDebit = runningDebit.subtract(leg.getAmount());
+            entries.add(LedgerEntry.builder()
+                    .accountId(debitAccountId)
+                    .transactionId(leg.getTransactionId())
+                    .entryType(LedgerEntry.EntryType.DEBIT)
+                    .amount(leg.getAmount())
+                    .runningBalance(runningDebit)
+                    .description(leg.getDescription() != null ? leg.getDescription() : "Transfer to " + leg.getCreditAccountId())
+                    .build());
+            
+            BigDecimal runningCredit = creditBalances.merge(leg.getCreditAccountId(), leg.getAmount(), BigDecimal::add);
+            entries.add(LedgerEntry.builder()
+                    .accountId(leg.getCreditAccountId())
+                    .transactionId(leg.getTransactionId())
+                    .entryType(LedgerEntry.EntryType.CREDIT)
+                    .amount(leg.getAmount())
+                    .runningBalance(runningCredit)
+                    .description("Transfer from " + debitAccountId)
+                    .build());
+        }
+        entries = ledgerEntryRepository.saveAll(entries);
+        
+        updateBalanceCache(debitAccountId, runningDebit);
+        creditBalances.forEach(this::updateBalanceCache);
+        
+        try {
+            entries.forEach(eventProducer::publishLedgerEntryCreated);
+            eventProducer.publishBalanceUpdated(debitAccountId, runningDebit);
+            creditBalances.forEach(eventProducer::publishBalanceUpdated);
+        } catch (Exception e) {
+            log.warn("Failed to publish multi-leg ledger events (non-fatal): {}", e.getMessage());
+        }
+        
+        log.info("=== MULTI-LEG POSTING SUCCESS: legs={}, total={}, debitBalance={} ===", 
+                legs.size(), total, runningDebit);
+        // Legs booked by an earlier attempt count as posted: the whole request is now in the ledger
+        return MultiLegPostingResponse.builder()
+                .legsPosted(request.getLegs().size())
+                .totalAmount(total)
+                .debitBalance(runningDebit)
+                .build();
+    }
+
     /**
      * Get account balance - SOURCE OF TRUTH calculation
      */
@@ -161,6 +287,14 @@ public class LedgerService {
         balanceCacheRepository.save(cache);
     }
 
+    private Optional<LedgerEntry> findPosted(CreateEntryRequest request, LedgerEntry.EntryType entryType) {
+        if (request.getTransactionId() == null) {
+            return Optional.empty();
+        }
+        return ledgerEntryRepository.findFirstByTransactionIdAndAccountIdAndEntryType(
+                request.getTransactionId(), request.getAccountId(), entryType);
+    }
+
     private LedgerEntry createEntry(UUID accountId, UUID transactionId, 
                                      LedgerEntry.EntryType entryType, 
                                      BigDecimal amount, String description) {
@@ -16,7 +16,8 @@ public class AsyncConfig {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
+        // Room for a few full notification batches from transaction-service
+        executor.setQueueCapacity(1000);
         executor.setThreadNamePrefix("EmailAsync-");
         executor.initialize();
         return executor;
@@ -5,6 +5,7 @@ import com.rrbank.notification.entity.Notification;
 import com.rrbank.notification.service.EmailService;
 import com.rrbank.notification.service.NotificationService;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -12,6 +13,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -24,6 +26,7 @@ public class NotificationController {
 
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final Validator validator;
 
     @GetMapping
     public ResponseEntity<Page<Notification>> getNotifications(@RequestHeader("X-User-Id") String userId, Pageable pageable) {
@@ -73,79 +76,59 @@ public class NotificationController {
     @PostMapping("/email/transaction")
     public ResponseEntity<Void> sendTransactionEmail(@Valid @RequestBody TransactionEmailRequest request) {
         log.info("Sending transaction email to: {} for type: {}", request.getEmail(), request.getTransactionType());
-        
-        emailService.sendTransactionEmail(
-            request.getEmail(),
-            request.getFirstName(),
-            request.getTransactionType(),
-            request.getAmount(),
-            request.getAccountNumber(),
-            request.getDescription(),
-            request.getNewBalance(),
-            request.getTransactionRef()
-        );
-        
-        // Create in-app notification
-        String title = getTransactionNotificationTitle(request.getTransactionType(), request.getAmount());
-        notificationService.createNotification(
-            UUID.fromString(request.getUserId()),
-            title,
-            request.getDescription() + " - Ref: " + request.getTransactionRef(),
-            Notification.NotificationType.TRANSACTION
-        );
-        
+        deliver(List.of(transactionNotification(request)));
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/email/transfer-received")
     public ResponseEntity<Void> sendTransferReceivedEmail(@Valid @RequestBody TransferReceivedEmailRequest request) {
         log.info("Sending transfer received email to: {}", request.getEmail());
-        
-        emailService.sendTransferReceivedEmail(
-            request.getEmail(),
-            request.getFirstName(),
-            request.getAmount(),
-            request.getFromAccount(),
-            request.getToAccountNumber(),
-            request.getNewBalance(),
-            request.getTransactionRef()
-        );
-        
-        // Create in-app notification
-        notificationService.createNotification(
-            UUID.fromString(request.getUserId()),
-            "💰 Money Received: $" + request.getAmount(),
-            "Transfer from " + (request.getFromAccount() != null ? request.getFromAccount() : "external account"),
-            Notification.NotificationType.TRANSACTION
-        );
-        
+        deliver(List.of(transferReceivedNotification(request)));
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/email/security-alert")
     public ResponseEntity<Void> sendSecurityAlert(@Valid @RequestBody SecurityAlertRequest request) {
         log.info("Sending security alert to: {} for type: {}", request.getEmail(), request.getAlertType());
-        
-        emailService.sendSecurityAlert(
-            request.getEmail(),
-            request.getFirstName(),
-            request.getAlertType(),
-            request.getDeviceInfo(),
-            request.getIpAddress(),
-            request.getLocation()
-        );
-        
-        // Create in-app notification
-        notificationService.createNotification(
-            UUID.fromString(request.getUserId()),
-            "🔐 Security Alert: " + request.getAlertType(),
-            "From " + request.getIpAddress() + " - " + (request.getLocation() != null ? request.getLocation() : "Unknown location"),
-            Notification.NotificationType.SECURITY
-        );
-        
+        deliver(List.of(securityAlertNotification(request)));
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Bulk form of the transaction, transfer-received and security-alert endpoints, used by
+     * transaction-service's notification dispatcher. The in-app notifications of the whole
+     * batch are inserted in one transaction, and emails go out only once it has committed.
+     * Items carry an idempotency key, so a batch the sender re-delivers after a failed or
+     * timed-out call stores and emails nothing twice.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchNotificationResponse> sendBatch(@Valid @RequestBody BatchNotificationRequest request) {
+        List<PendingNotification> pending = new ArrayList<>(request.getNotifications().size());
+        int failed = 0;
+        for (BatchNotificationItem item : request.getNotifications()) {
+            try {
+                PendingNotification notification = switch (String.valueOf(validated(item).getType())) {
+                    case "TRANSACTION" -> transactionNotification(validated(item.getTransaction()));
+                    case "TRANSFER_RECEIVED" -> transferReceivedNotification(validated(item.getTransferReceived()));
+                    case "SECURITY_ALERT" -> securityAlertNotification(validated(item.getSecurityAlert()));
+                    default -> throw new IllegalArgumentException("Unknown notification type: " + item.getType());
+                };
+                notification.inApp().setIdempotencyKey(item.getIdempotencyKey());
+                pending.add(notification);
+            } catch (Exception e) {
+                failed++;
+                log.warn("Skipping batch notification of type {}: {}", item.getType(), e.getMessage());
+            }
+        }
+        int delivered = deliver(pending);
+        log.info("Processed notification batch: {} accepted ({} already delivered), {} failed",
+                pending.size(), pending.size() - delivered, failed);
+        return ResponseEntity.ok(BatchNotificationResponse.builder()
+                .accepted(pending.size())
+                .failed(failed)
+                .build());
+    }
+
     @PostMapping("/email/password-reset")
     public ResponseEntity<Void> sendPasswordResetEmail(@Valid @RequestBody PasswordResetEmailRequest request) {
         log.info("Sending password reset email to: {}", request.getEmail());
@@ -203,6 +186,106 @@ public class NotificationController {
         return ResponseEntity.ok("Notification Service is healthy");
     }
 
+    /**
+     * Stores the in-app notifications, then sends the emails of those that were stored. The
+     * store commits before this returns, so a failed insert never leaves an email behind.
+     */
+    private int deliver(List<PendingNotification> pending) {
+        notificationService.createNotifications(pending.stream().map(PendingNotification::inApp).toList());
+        int delivered = 0;
+        for (PendingNotification notification : pending) {
+            // Saved notifications have an id; skipped duplicates do not
+            if (notification.inApp().getId() != null) {
+                notification.email().run();
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    // The in-app notification, not yet saved, and the email to send once it is
+    private PendingNotification transactionNotification(TransactionEmailRequest request) {
+        Runnable email = () -> emailService.sendTransactionEmail(
+            request.getEmail(),
+            request.getFirstName(),
+            request.getTransactionType(),
+            request.getAmount(),
+            request.getAccountNumber(),
+            request.getDescription(),
+            request.getNewBalance(),
+            request.getTransactionRef()
+        );
+        
+        String title = getTransactionNotificationTitle(request.getTransactionType(), request.getAmount());
+        return new PendingNotification(inAppNotification(
+            request.getUserId(),
+            title,
+            request.getDescription() + " - Ref: " + request.getTransactionRef(),
+            Notification.NotificationType.TRANSACTION
+        ), email);
+    }
+
+    private PendingNotification transferReceivedNotification(TransferReceivedEmailRequest request) {
+        Runnable email = () -> emailService.sendTransferReceivedEmail(
+            request.getEmail(),
+            request.getFirstName(),
+            request.getAmount(),
+            request.getFromAccount(),
+            request.getToAccountNumber(),
+            request.getNewBalance(),
+            request.getTransactionRef()
+        );
+        
+        return new PendingNotification(inAppNotification(
+            request.getUserId(),
+            "💰 Money Received: $" + request.getAmount(),
+            "Transfer from " + (request.getFromAccount() != null ? request.getFromAccount() : "external account"),
+            Notification.NotificationType.TRANSACTION
+        ), email);
+    }
+
+    private PendingNotification securityAlertNotification(SecurityAlertRequest request) {
+        Runnable email = () -> emailService.sendSecurityAlert(
+            request.getEmail(),
+            request.getFirstName(),
+            request.getAlertType(),
+            request.getDeviceInfo(),
+            request.getIpAddress(),
+            request.getLocation()
+        );
+        
+        return new PendingNotification(inAppNotification(
+            request.getUserId(),
+            "🔐 Security Alert: " + request.getAlertType(),
+            "From " + request.getIpAddress() + " - " + (request.getLocation() != null ? request.getLocation() : "Unknown location"),
+            Notification.NotificationType.SECURITY
+        ), email);
+    }
+
+    private Notification inAppNotification(String userId, String title, String message, Notification.NotificationType type) {
+        return Notification.builder()
+                .userId(UUID.fromString(userId))
+                .title(title)
+                .message(message)
+                .type(type)
+                .build();
+    }
+
+    private <T> T validated(T payload) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Missing payload for notification type");
+        }
+        var violations = validator.validate(payload);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getPropertyPath() + " "
+                    + violations.iterator().next().getMessage());
+        }
+        return payload;
+    }
+
+    private record PendingNotification(Notification inApp, Runnable email) {
+    }
+
     private String getTransactionNotificationTitle(String type, java.math.BigDecimal amount) {
         return switch (type.toUpperCase()) {
             case "DEPOSIT" -> "✅ Deposit: +$" + amount;
@@ -3,12 +3,14 @@ package com.rrbank.notification.dto;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public class NotificationDTOs {
 
@@ -214,4 +216,48 @@ public class NotificationDTOs {
         @NotNull
         private BigDecimal totalDebits;
     }
+
+    /**
+     * Many notifications in one call. Items are validated and processed one by one, so a bad
+     * item is counted as failed without failing the rest.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchNotificationRequest {
+        @NotNull
+        @Size(max = 1000)
+        private List<BatchNotificationItem> notifications;
+    }
+
+    /**
+     * One batch entry: {@code type} says which of the payload fields is set.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchNotificationItem {
+        private String type; // TRANSACTION, TRANSFER_RECEIVED or SECURITY_ALERT
+        
+        // Set by the sender; an item whose key was already stored is skipped, email included
+        @Size(max = 64)
+        private String idempotencyKey;
+        
+        private TransactionEmailRequest transaction;
+        
+        private TransferReceivedEmailRequest transferReceived;
+        
+        private SecurityAlertRequest securityAlert;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchNotificationResponse {
+        private int accepted;
+        private int failed;
+    }
 }
@@ -6,14 +6,16 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_notifications_idempotency_key", columnNames = "idempotency_key")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "user_id", nullable = false)
@@ -30,6 +32,10 @@ public class Notification {
     @Builder.Default
     private NotificationType type = NotificationType.INFO;
 
+    // Only batch deliveries carry one; a redelivered batch item is recognised by it
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
     @Column(name = "is_read")
     @Builder.Default
     private Boolean isRead = false;
@@ -10,7 +10,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -31,6 +35,34 @@ public class NotificationService {
         return notificationRepository.save(notification);
     }
 
+    /**
+     * Saves many in-app notifications in one transaction, using JDBC batch inserts. A
+     * notification whose idempotency key is already stored, or repeated within the list, is
+     * skipped; only the notifications actually saved are returned.
+     */
+    @Transactional
+    public List<Notification> createNotifications(List<Notification> notifications) {
+        Set<String> seen = new HashSet<>();
+        List<String> keys = notifications.stream()
+                .map(Notification::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!keys.isEmpty()) {
+            seen.addAll(notificationRepository.findExistingIdempotencyKeys(keys));
+        }
+        List<Notification> fresh = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String key = notification.getIdempotencyKey();
+            if (key == null || seen.add(key)) {
+                fresh.add(notification);
+            }
+        }
+        if (fresh.size() < notifications.size()) {
+            log.info("Skipped {} notifications already delivered", notifications.size() - fresh.size());
+        }
+        return notificationRepository.saveAll(fresh);
+    }
+
     @Transactional(readOnly = true)
     public Page<Notification> getNotifications(UUID userId, Pageable pageable) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
@@ -0,0 +1,175 @@
+package com.rrbank.transaction.admission;
+
+import com.rrbank.transaction.admission.AdmissionControlled.Priority;
+import com.rrbank.transaction.config.AdmissionControlProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient-style adaptive concurrency limit. Request latencies are averaged per sample window and
+ * compared with a slowly moving baseline: while latency stays within {@code rttTolerance} of the
+ * baseline the limit grows by about sqrt(limit) per window, and as queueing pushes latency up the
+ * limit shrinks in proportion (never by more than half per window). Windows containing server errors
+ * or timeouts back the limit off multiplicatively. Requests over the limit are rejected immediately
+ * instead of waiting on Tomcat threads for downstream timeouts.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final AdmissionControlProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+    private final long sampleWindowNanos;
+
+    private volatile double limit;
+
+    // Current sample window, guarded by this
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+    private double baselineRtt;
+
+    public AdaptiveConcurrencyLimiter(AdmissionControlProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+        this.sampleWindowNanos = properties.getSampleWindow().toNanos();
+
+        Gauge.builder("transaction.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("transaction.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("Admitted requests currently running")
+                .register(registry);
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, Counter.builder("transaction.admission.rejected")
+                    .description("Requests shed by the concurrency limiter")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Admits a request if capacity for its priority remains; returns null when it must be shed.
+     */
+    public Permit tryAcquire(Priority priority) {
+        double current = limit;
+        int capacity = priority == Priority.BULK
+                ? (int) Math.max(1, current * properties.getBulkShare())
+                : (int) current;
+        while (true) {
+            int running = inFlight.get();
+            if (running >= capacity) {
+                rejected.get(priority).increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                return new Permit(running + 1);
+            }
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        windowDropped |= dropped;
+
+        long now = System.nanoTime();
+        if (now - windowStart < sampleWindowNanos || windowSamples < properties.getMinWindowSamples()) {
+            return;
+        }
+        updateLimit((double) windowRttSum / windowSamples);
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private void updateLimit(double shortRtt) {
+        double current = limit;
+        double next;
+        if (windowDropped) {
+            next = current * properties.getBackoffRatio();
+        } else {
+            if (baselineRtt == 0) {
+                baselineRtt = shortRtt;
+            } else {
+                baselineRtt += (shortRtt - baselineRtt) / properties.getBaselineWindows();
+                // Let the baseline recover quickly after a sustained slowdown ends
+                if (baselineRtt > shortRtt * 2) {
+                    baselineRtt *= 0.95;
+                }
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * baselineRtt / shortRtt));
+            double estimate = current * gradient + Math.sqrt(current);
+            // Do not grow the limit while traffic is too light to have tested it
+            if (estimate > current && windowMaxInFlight < current / 2) {
+                estimate = current;
+            }
+            next = current * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        }
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), next));
+        if ((int) limit != (int) current) {
+            log.debug("Admission limit {} -> {} (rtt={}ms, baseline={}ms, dropped={})", (int) current, (int) limit,
+                    String.format("%.1f", shortRtt / 1_000_000), String.format("%.1f", baselineRtt / 1_000_000), windowDropped);
+        }
+    }
+
+    /**
+     * One admitted request. Exactly one of the release methods must be called when it finishes.
+     */
+    public final class Permit {
+        private final long start = System.nanoTime();
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        // Completed normally; its latency feeds the limit
+        public void success() {
+            release(true, false);
+        }
+
+        // Failed because the service or a downstream was struggling (5xx, timeout)
+        public void dropped() {
+            release(true, true);
+        }
+
+        // Finished without telling anything about load, e.g. rejected by validation
+        public void ignore() {
+            release(false, false);
+        }
+
+        private void release(boolean sample, boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            if (sample) {
+                onSample(System.nanoTime() - start, inFlightAtStart, dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rrbank.transaction.admission;
+
+import com.rrbank.transaction.admission.AdmissionControlled.Priority;
+import com.rrbank.transaction.config.AdmissionControlProperties;
+import com.rrbank.transaction.exception.ServiceOverloadedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Sheds load on endpoints annotated with {@link AdmissionControlled}. Callers can lower their own
+ * priority with {@code X-Request-Priority: bulk}; they cannot raise it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    static final String PRIORITY_HEADER = "X-Request-Priority";
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final AdmissionControlProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        AdmissionControlled annotation = handlerMethod.getMethodAnnotation(AdmissionControlled.class);
+        if (annotation == null) {
+            annotation = handlerMethod.getBeanType().getAnnotation(AdmissionControlled.class);
+        }
+        if (annotation == null) {
+            return true;
+        }
+
+        Priority priority = annotation.value();
+        if ("bulk".equalsIgnoreCase(request.getHeader(PRIORITY_HEADER))) {
+            priority = Priority.BULK;
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire(priority);
+        if (permit == null) {
+            log.debug("Shedding {} request {} (inFlight={}, limit={})",
+                    priority, request.getRequestURI(), limiter.getInFlight(), (int) limiter.getLimit());
+            throw new ServiceOverloadedException(
+                    priority == Priority.BULK ? properties.getBulkRetryAfter() : properties.getRetryAfter());
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object attribute = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (!(attribute instanceof AdaptiveConcurrencyLimiter.Permit permit)) {
+            return;
+        }
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        int status = response.getStatus();
+        if (ex != null || status >= 500) {
+            permit.dropped();
+        } else if (status >= 400) {
+            permit.ignore();
+        } else {
+            permit.success();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.rrbank.transaction.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint whose requests must pass the adaptive concurrency limiter.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionControlled {
+
+    Priority value() default Priority.INTERACTIVE;
+
+    enum Priority {
+        // Customer-facing requests; may use the whole limit
+        INTERACTIVE,
+        // Batch and API-client traffic; only admitted while in-flight work is below the bulk share of the limit
+        BULK
+    }
+}
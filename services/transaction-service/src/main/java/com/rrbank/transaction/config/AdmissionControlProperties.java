@@ -0,0 +1,33 @@
+package com.rrbank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tuning of the adaptive concurrency limiter in front of money-movement endpoints.
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+    // Fraction of the limit that BULK requests may occupy
+    private double bulkShare = 0.5;
+    // Latency growth over the no-load baseline accepted before the limit starts shrinking
+    private double rttTolerance = 1.5;
+    // Weight of each new limit estimate
+    private double smoothing = 0.2;
+    // Multiplicative decrease applied when a window saw server errors or timeouts
+    private double backoffRatio = 0.9;
+    private Duration sampleWindow = Duration.ofMillis(250);
+    private int minWindowSamples = 10;
+    // Number of windows averaged into the long-term (baseline) latency
+    private int baselineWindows = 100;
+    private Duration retryAfter = Duration.ofSeconds(1);
+    private Duration bulkRetryAfter = Duration.ofSeconds(5);
+}
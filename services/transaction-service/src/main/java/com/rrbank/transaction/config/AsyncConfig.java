@@ -0,0 +1,79 @@
+package com.rrbank.transaction.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Runs Spring MVC async requests, such as streaming exports. Declaring the executors below
+     * stops Boot from creating its own applicationTaskExecutor, and without one MVC would fall
+     * back to an unbounded thread per request, so a bounded one is declared under that name.
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(
+            @Value("${spring.task.execution.pool.core-size:8}") int poolSize,
+            @Value("${spring.task.execution.pool.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("task-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs bulk transfer batches, one thread per batch in progress.
+     */
+    @Bean(name = "batchTransferExecutor")
+    public Executor batchTransferExecutor(
+            @Value("${transaction.batch.max-concurrent-batches:4}") int maxConcurrentBatches) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentBatches);
+        executor.setMaxPoolSize(maxConcurrentBatches);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("BatchTransfer-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Carries the in-flight ledger posting of a batch chunk while the next chunk is prepared.
+     * Kept separate from batchTransferExecutor so batch threads never wait on their own pool.
+     */
+    @Bean(name = "batchPipelineExecutor")
+    public ThreadPoolTaskExecutor batchPipelineExecutor(
+            @Value("${transaction.batch.max-concurrent-batches:4}") int maxConcurrentBatches) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentBatches);
+        executor.setMaxPoolSize(maxConcurrentBatches);
+        executor.setQueueCapacity(maxConcurrentBatches);
+        executor.setThreadNamePrefix("BatchPipeline-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs due scheduled transfers. ScheduleEngine never submits more than the configured
+     * concurrency, so the queue only absorbs hand-off jitter.
+     */
+    @Bean(name = "scheduleExecutor")
+    public ThreadPoolTaskExecutor scheduleExecutor(
+            @Value("${transaction.schedule.concurrency:16}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(concurrency);
+        executor.setThreadNamePrefix("ScheduledTransfer-");
+        executor.initialize();
+        return executor;
+    }
+}
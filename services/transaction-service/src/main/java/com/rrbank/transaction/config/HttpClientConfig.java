@@ -0,0 +1,97 @@
+package com.rrbank.transaction.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One WebClient per downstream service, each on its own Reactor Netty connection pool,
+ * so a slow downstream can only exhaust its own connections. Pool metrics are published
+ * under reactor.netty.connection.provider.* tagged with the downstream name.
+ */
+@Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, NotificationDispatchProperties.class})
+@Slf4j
+public class HttpClientConfig implements DisposableBean {
+
+    private final HttpClientProperties properties;
+    private final List<ConnectionProvider> providers = new CopyOnWriteArrayList<>();
+
+    public HttpClientConfig(HttpClientProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public WebClient ledgerWebClient(WebClient.Builder builder,
+                                     @Value("${services.ledger-url:http://localhost:8085}") String ledgerUrl) {
+        return build(builder, "ledger", ledgerUrl);
+    }
+
+    @Bean
+    public WebClient fraudWebClient(WebClient.Builder builder,
+                                    @Value("${services.fraud-url:http://localhost:8087}") String fraudUrl) {
+        return build(builder, "fraud", fraudUrl);
+    }
+
+    @Bean
+    public WebClient customerWebClient(WebClient.Builder builder,
+                                       @Value("${services.customer-url:http://localhost:8082}") String customerUrl) {
+        return build(builder, "customer", customerUrl);
+    }
+
+    @Bean
+    public WebClient notificationWebClient(WebClient.Builder builder,
+                                           @Value("${services.notification-url:http://localhost:8086}") String notificationUrl) {
+        return build(builder, "notification", notificationUrl);
+    }
+
+    @Override
+    public void destroy() {
+        providers.forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient build(WebClient.Builder builder, String name, String baseUrl) {
+        HttpClientProperties.Pool pool = properties.forDownstream(name);
+        log.info("Initializing {} WebClient with URL: {}, maxConnections={}, h2c={}",
+                name, baseUrl, pool.getMaxConnections(), pool.isH2c());
+
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictInBackground())
+                .metrics(true)
+                .build();
+        providers.add(provider);
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) pool.getConnectTimeout().toMillis());
+        if (pool.isH2c()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+
+        // Clone so the Boot-configured codecs and observation settings are kept without sharing state
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
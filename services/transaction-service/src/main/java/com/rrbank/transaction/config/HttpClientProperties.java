@@ -0,0 +1,37 @@
+package com.rrbank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connection pool settings per downstream service, keyed by downstream name
+ * (ledger, fraud, customer, notification).
+ */
+@Data
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+
+    private Map<String, Pool> downstreams = new HashMap<>();
+
+    public Pool forDownstream(String name) {
+        return downstreams.getOrDefault(name, new Pool());
+    }
+
+    @Data
+    public static class Pool {
+        private int maxConnections = 50;
+        // Callers queued for a connection before new requests are rejected
+        private int pendingAcquireMaxCount = 100;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        // Cleartext HTTP/2, negotiated by upgrade with HTTP/1.1 fallback
+        private boolean h2c = false;
+    }
+}
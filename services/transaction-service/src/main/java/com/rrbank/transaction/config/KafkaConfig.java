@@ -1,6 +1,7 @@
 package com.rrbank.transaction.config;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -9,7 +10,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -30,17 +30,40 @@ public class KafkaConfig {
     @Value("${spring.kafka.properties.sasl.jaas.config:#{null}}")
     private String saslJaasConfig;
 
+    @Value("${transaction.events.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${transaction.events.idempotence:true}")
+    private boolean idempotence;
+
+    @Value("${transaction.events.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${transaction.events.batch-size-bytes:65536}")
+    private int batchSizeBytes;
+
+    /**
+     * Values are already-serialized events from the outbox, so they are sent as raw bytes.
+     */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         
-        // Producer reliability settings
+        // Producer reliability settings; idempotence keeps retried batches from duplicating or reordering
         config.put(ProducerConfig.ACKS_CONFIG, "all");
-        config.put(ProducerConfig.RETRIES_CONFIG, 3);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
         config.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 30000);
+        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10000);
+        
+        // Throughput: the outbox relay sends events in bursts, let them share compressed batches
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSizeBytes);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
         
         // OCI Streaming / SASL configuration
         if (securityProtocol != null && !securityProtocol.isEmpty()) {
@@ -57,7 +80,7 @@ public class KafkaConfig {
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 }
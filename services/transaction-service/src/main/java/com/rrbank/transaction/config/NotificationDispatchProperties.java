@@ -0,0 +1,30 @@
+package com.rrbank.transaction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the in-memory queue that decouples notification delivery from request threads.
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.notifications")
+public class NotificationDispatchProperties {
+
+    private int queueCapacity = 10_000;
+    // Threads posting batches; also the most notification calls ever in flight
+    private int workers = 2;
+    private int batchSize = 100;
+    private Duration sendTimeout = Duration.ofSeconds(10);
+    private OverflowPolicy overflow = OverflowPolicy.SPILL;
+    // Where notifications go when the queue is full or notification-service is down
+    private String spillDir = System.getProperty("java.io.tmpdir") + "/rrbank-notifications";
+    private long maxSpillBytes = 64L * 1024 * 1024;
+
+    public enum OverflowPolicy {
+        // Append to a local file and re-queue once there is room again
+        SPILL,
+        DROP
+    }
+}
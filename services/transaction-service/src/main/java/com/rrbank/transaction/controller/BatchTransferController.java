@@ -0,0 +1,66 @@
+package com.rrbank.transaction.controller;
+
+import com.rrbank.transaction.admission.AdmissionControlled;
+import com.rrbank.transaction.admission.AdmissionControlled.Priority;
+import com.rrbank.transaction.dto.TransactionDTOs.*;
+import com.rrbank.transaction.service.BatchTransferService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/transactions/batch-transfers")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:3002", "http://localhost:5173"})
+public class BatchTransferController {
+
+    private static final int MAX_ITEMS_PAGE_SIZE = 500;
+
+    private final BatchTransferService batchTransferService;
+
+    /**
+     * Accepts the batch and returns immediately; poll GET /{batchId} for progress.
+     */
+    @AdmissionControlled(Priority.BULK)
+    @PostMapping
+    public ResponseEntity<BatchTransferResponse> submit(
+            @Valid @RequestBody BatchTransferRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        
+        log.info("POST batch transfer from {} with {} items", request.getFromAccountId(), request.getItems().size());
+        
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        
+        UUID userUuid = userId != null ? UUID.fromString(userId) : null;
+        BatchTransferResponse response = batchTransferService.submit(request, userUuid);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/{batchId}")
+    public ResponseEntity<BatchTransferResponse> getBatch(@PathVariable UUID batchId) {
+        log.info("GET batch transfer: {}", batchId);
+        return ResponseEntity.ok(batchTransferService.getBatch(batchId));
+    }
+
+    @GetMapping("/{batchId}/items")
+    public ResponseEntity<Page<BatchTransferItemResponse>> getBatchItems(
+            @PathVariable UUID batchId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        
+        log.info("GET items of batch transfer: {}, page: {}", batchId, page);
+        PageRequest pageable = PageRequest.of(page, Math.max(1, Math.min(size, MAX_ITEMS_PAGE_SIZE)));
+        return ResponseEntity.ok(batchTransferService.getBatchItems(batchId, pageable));
+    }
+}
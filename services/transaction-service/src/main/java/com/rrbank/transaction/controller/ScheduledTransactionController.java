@@ -0,0 +1,73 @@
+package com.rrbank.transaction.controller;
+
+import com.rrbank.transaction.dto.TransactionDTOs.*;
+import com.rrbank.transaction.service.ScheduledTransactionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/transactions/schedules")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:3002", "http://localhost:5173"})
+public class ScheduledTransactionController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ScheduledTransactionService scheduledTransactionService;
+
+    @PostMapping
+    public ResponseEntity<ScheduledTransactionResponse> create(
+            @Valid @RequestBody ScheduledTransferRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        
+        log.info("POST scheduled transfer from {} to {}", request.getFromAccountId(), request.getToAccountId());
+        
+        UUID userUuid = userId != null ? UUID.fromString(userId) : null;
+        ScheduledTransactionResponse response = scheduledTransactionService.create(request, userUuid);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @GetMapping("/{scheduleId}")
+    public ResponseEntity<ScheduledTransactionResponse> getSchedule(@PathVariable UUID scheduleId) {
+        log.info("GET scheduled transfer: {}", scheduleId);
+        return ResponseEntity.ok(scheduledTransactionService.getSchedule(scheduleId));
+    }
+
+    @GetMapping("/account/{accountId}")
+    public ResponseEntity<Page<ScheduledTransactionResponse>> getSchedulesByAccount(
+            @PathVariable UUID accountId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.info("GET scheduled transfers for account: {}", accountId);
+        PageRequest pageable = PageRequest.of(page, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return ResponseEntity.ok(scheduledTransactionService.getSchedulesByAccount(accountId, pageable));
+    }
+
+    @PostMapping("/{scheduleId}/pause")
+    public ResponseEntity<ScheduledTransactionResponse> pause(@PathVariable UUID scheduleId) {
+        log.info("POST pause scheduled transfer: {}", scheduleId);
+        return ResponseEntity.ok(scheduledTransactionService.pause(scheduleId));
+    }
+
+    @PostMapping("/{scheduleId}/resume")
+    public ResponseEntity<ScheduledTransactionResponse> resume(@PathVariable UUID scheduleId) {
+        log.info("POST resume scheduled transfer: {}", scheduleId);
+        return ResponseEntity.ok(scheduledTransactionService.resume(scheduleId));
+    }
+
+    @DeleteMapping("/{scheduleId}")
+    public ResponseEntity<ScheduledTransactionResponse> cancel(@PathVariable UUID scheduleId) {
+        log.info("DELETE scheduled transfer: {}", scheduleId);
+        return ResponseEntity.ok(scheduledTransactionService.cancel(scheduleId));
+    }
+}
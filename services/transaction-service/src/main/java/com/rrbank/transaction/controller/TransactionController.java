@@ -1,8 +1,11 @@
 package com.rrbank.transaction.controller;
 
+import com.rrbank.transaction.admission.AdmissionControlled;
 import com.rrbank.transaction.dto.TransactionDTOs.*;
 import com.rrbank.transaction.entity.Transaction;
 import com.rrbank.transaction.repository.TransactionRepository;
+import com.rrbank.transaction.service.TransactionExportService;
+import com.rrbank.transaction.service.TransactionSearchService;
 import com.rrbank.transaction.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -17,10 +20,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
@@ -31,8 +38,11 @@ import java.util.UUID;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final TransactionSearchService transactionSearchService;
     private final TransactionRepository transactionRepository;
 
+    @AdmissionControlled
     @PostMapping("/deposit")
     public ResponseEntity<TransactionResponse> deposit(
             @Valid @RequestBody DepositRequest request,
@@ -50,6 +60,7 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    @AdmissionControlled
     @PostMapping("/withdraw")
     public ResponseEntity<TransactionResponse> withdraw(
             @Valid @RequestBody WithdrawRequest request,
@@ -67,6 +78,7 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    @AdmissionControlled
     @PostMapping("/transfer")
     public ResponseEntity<TransactionResponse> transfer(
             @Valid @RequestBody TransferRequest request,
@@ -97,16 +109,21 @@ public class TransactionController {
     ) {
         log.info("GET all transactions - page: {}, size: {}, status: {}, type: {}", page, size, status, type);
         
+        String property = TransactionSearchService.SortField.fromProperty(sortBy).getProperty();
         Sort sort = sortDir.equalsIgnoreCase("asc") 
-                ? Sort.by(sortBy).ascending() 
-                : Sort.by(sortBy).descending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+                ? Sort.by(property).ascending().and(Sort.by("id").ascending())
+                : Sort.by(property).descending().and(Sort.by("id").descending());
+        Pageable pageable = PageRequest.of(page, Math.min(size, TransactionSearchService.MAX_PAGE_SIZE), sort);
         
+        Transaction.TransactionStatus statusFilter = parseEnum(Transaction.TransactionStatus.class, status, "status");
+        Transaction.TransactionType typeFilter = parseEnum(Transaction.TransactionType.class, type, "type");
         Page<Transaction> transactions;
-        if (status != null && !status.isEmpty()) {
-            transactions = transactionRepository.findByStatusString(status, pageable);
-        } else if (type != null && !type.isEmpty()) {
-            transactions = transactionRepository.findByTypeString(type, pageable);
+        if (statusFilter != null && typeFilter != null) {
+            transactions = transactionRepository.findByStatusAndTransactionType(statusFilter, typeFilter, pageable);
+        } else if (statusFilter != null) {
+            transactions = transactionRepository.findByStatus(statusFilter, pageable);
+        } else if (typeFilter != null) {
+            transactions = transactionRepository.findByTransactionType(typeFilter, pageable);
         } else {
             transactions = transactionRepository.findAll(pageable);
         }
@@ -115,6 +132,41 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Admin search with keyset paging. Pass the returned nextCursor back, with the same filters
+     * and sort, to get the next page; the total is only returned on the first page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<TransactionSearchPage> searchTransactions(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.info("GET transaction search - status: {}, type: {}, from: {}, to: {}, sort: {} {}",
+                status, type, startDate, endDate, sortBy, sortDir);
+        
+        TransactionSearchService.Criteria criteria = new TransactionSearchService.Criteria(
+                parseEnum(Transaction.TransactionStatus.class, status, "status"),
+                parseEnum(Transaction.TransactionType.class, type, "type"),
+                startDate,
+                endDate);
+        TransactionSearchService.Result result = transactionSearchService.search(criteria,
+                TransactionSearchService.SortField.fromProperty(sortBy), sortDir.equalsIgnoreCase("asc"), cursor, size);
+        
+        return ResponseEntity.ok(TransactionSearchPage.builder()
+                .items(result.rows().stream().map(this::toTransactionResponse).toList())
+                .nextCursor(result.nextCursor())
+                .hasMore(result.hasMore())
+                .total(result.totalEstimate())
+                .totalExact(result.totalExact())
+                .build());
+    }
+
     @GetMapping("/{transactionId}")
     public ResponseEntity<TransactionResponse> getTransaction(@PathVariable UUID transactionId) {
         log.info("GET transaction: {}", transactionId);
@@ -149,48 +201,59 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getTransactionsByAccount(accountId, pageable));
     }
 
+    @GetMapping("/account/{accountId}/history")
+    public ResponseEntity<TransactionHistoryPage> getHistory(
+            @PathVariable UUID accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        log.info("GET history for account: {}, startDate: {}, endDate: {}, type: {}", 
+                accountId, startDate, endDate, type);
+        
+        return ResponseEntity.ok(transactionService.getTransactionHistory(
+                accountId, startDate, endDate, type, cursor, size));
+    }
+
     @GetMapping(value = "/account/{accountId}/export", produces = "text/csv")
-    public ResponseEntity<byte[]> exportTransactions(
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
             @PathVariable UUID accountId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         
         log.info("EXPORT transactions for account: {}, startDate: {}, endDate: {}", accountId, startDate, endDate);
         
-        try {
-            List<TransactionResponse> transactions = transactionService.exportTransactions(accountId, startDate, endDate);
-            
-            // Generate CSV
-            StringBuilder csv = new StringBuilder();
-            csv.append("Date,Type,Description,Amount,Status,Reference\n");
-            
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            
-            for (TransactionResponse tx : transactions) {
-                csv.append(tx.getCreatedAt() != null ? tx.getCreatedAt().format(formatter) : "").append(",");
-                csv.append(tx.getTransactionType()).append(",");
-                csv.append("\"").append(tx.getDescription() != null ? tx.getDescription().replace("\"", "\"\"") : "").append("\",");
-                csv.append(tx.getAmount()).append(",");
-                csv.append(tx.getStatus()).append(",");
-                csv.append(tx.getTransactionReference() != null ? tx.getTransactionReference() : "").append("\n");
-            }
-            
-            String filename = "transactions_" + accountId.toString().substring(0, 8) + "_" + 
-                    LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".csv";
-            
-            byte[] csvBytes = csv.toString().getBytes("UTF-8");
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
-            headers.setContentDispositionFormData("attachment", filename);
-            headers.setContentLength(csvBytes.length);
-            headers.add("Access-Control-Expose-Headers", "Content-Disposition");
-            
-            return new ResponseEntity<>(csvBytes, headers, HttpStatus.OK);
-        } catch (Exception e) {
-            log.error("Error exporting transactions for account: {}", accountId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String filename = "transactions_" + accountId.toString().substring(0, 8) + "_" + 
+                LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".csv";
+        
+        // No Content-Length: the body is streamed with chunked transfer encoding
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.add("Access-Control-Expose-Headers", "Content-Disposition");
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        
+        StreamingResponseBody body = out -> {
+            try {
+                transactionExportService.writeCsv(accountId, startDate, endDate, gzip, out);
+            } catch (IOException e) {
+                log.warn("Export for account {} aborted: {}", accountId, e.getMessage());
+                throw e;
+            } catch (Exception e) {
+                // Headers are already committed, so the client sees a truncated download
+                log.error("Error exporting transactions for account: {}", accountId, e);
+                throw e;
+            }
+        };
+        
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @GetMapping("/health")
@@ -198,6 +261,55 @@ public class TransactionController {
         return ResponseEntity.ok("Transaction Service is healthy");
     }
 
+    /**
+     * Whether the Accept-Encoding header allows a gzip body: gzip, or failing that "*", has to be
+     * listed with a q-value above zero. "gzip;q=0" refuses gzip even when "*" is accepted.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] params = element.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // An unreadable weight does not count as consent
+                        quality = 0.0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + name + " '" + value + "'. Allowed: "
+                    + Arrays.toString(type.getEnumConstants()));
+        }
+    }
+
     private TransactionResponse toTransactionResponse(Transaction tx) {
         return TransactionResponse.builder()
                 .id(tx.getId() != null ? tx.getId().toString() : null)
@@ -1,10 +1,13 @@
 package com.rrbank.transaction.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public class TransactionDTOs {
@@ -79,6 +82,139 @@ public class TransactionDTOs {
         private LocalDateTime completedAt;
     }
 
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchTransferRequest {
+        @NotNull
+        private UUID fromAccountId;
+        
+        @NotEmpty
+        @Size(max = 5000)
+        @Valid
+        private List<BatchTransferItem> items;
+        
+        private String description;
+        private String idempotencyKey;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchTransferItem {
+        @NotNull
+        private UUID toAccountId;
+        
+        @NotNull
+        @DecimalMin(value = "0.01")
+        private BigDecimal amount;
+        
+        private String description;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchTransferResponse {
+        private String batchId;
+        private String fromAccountId;
+        private String status;
+        private int totalItems;
+        private int completedItems;
+        private int failedItems;
+        private BigDecimal totalAmount;
+        private String failureReason;
+        private LocalDateTime createdAt;
+        private LocalDateTime completedAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BatchTransferItemResponse {
+        private int sequenceNo;
+        private String toAccountId;
+        private BigDecimal amount;
+        private String status;
+        private String transactionId;
+        private String failureReason;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ScheduledTransferRequest {
+        @NotNull
+        private UUID fromAccountId;
+        
+        @NotNull
+        private UUID toAccountId;
+        
+        @NotNull
+        @DecimalMin(value = "0.01")
+        private BigDecimal amount;
+        
+        @NotNull
+        private String frequency;
+        
+        @NotNull
+        @Future
+        private LocalDateTime firstRunAt;
+        
+        private LocalDate endDate;
+        private String description;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ScheduledTransactionResponse {
+        private String scheduleId;
+        private String fromAccountId;
+        private String toAccountId;
+        private BigDecimal amount;
+        private String description;
+        private String frequency;
+        private String status;
+        private LocalDateTime nextRunAt;
+        private LocalDate endDate;
+        private int runCount;
+        private LocalDateTime lastRunAt;
+        private String lastRunStatus;
+        private String lastTransactionId;
+        private String lastFailureReason;
+        private LocalDateTime createdAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class TransactionHistoryPage {
+        private List<TransactionResponse> items;
+        private String nextCursor;
+        private boolean hasMore;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class TransactionSearchPage {
+        private List<TransactionResponse> items;
+        private String nextCursor;
+        private boolean hasMore;
+        // First page only: planner estimate, or an exact count when totalExact is true
+        private Long total;
+        private boolean totalExact;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -86,8 +222,13 @@ public class TransactionDTOs {
     public static class FraudCheckRequest {
         private UUID accountId;
         private UUID userId;
+        // Receiving account of a transfer
+        private UUID counterpartyAccountId;
         private String transactionType;
         private BigDecimal amount;
+        // Set for aggregate checks of bulk transfers
+        private Integer itemCount;
+        private BigDecimal maxItemAmount;
     }
 
     @Data
@@ -0,0 +1,60 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * AccountTransaction - per-account index of transactions.
+ * This is a PROJECTION written alongside each transaction, one row per participating
+ * account, so account history is a single index range scan on (account_id, created_at, id)
+ * instead of an OR over from_account_id / to_account_id plus a sort.
+ */
+@Entity
+@Table(name = "account_transactions", indexes = {
+    @Index(name = "idx_acct_tx_type", columnList = "account_id, transaction_type, created_at, transaction_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountTransaction {
+
+    @EmbeddedId
+    private Key key;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false, length = 30)
+    private Transaction.TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Direction direction;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "account_id", nullable = false)
+        private UUID accountId;
+
+        @Column(name = "created_at", nullable = false)
+        private LocalDateTime createdAt;
+
+        @Column(name = "transaction_id", nullable = false)
+        private UUID transactionId;
+    }
+
+    public enum Direction {
+        DEBIT, CREDIT
+    }
+}
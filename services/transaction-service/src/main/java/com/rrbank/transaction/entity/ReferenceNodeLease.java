@@ -0,0 +1,29 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ReferenceNodeLease - which running instance holds a transaction reference node id, and until when.
+ * A lease that is not renewed before lease_until can be taken by another instance.
+ */
+@Entity
+@Table(name = "reference_node_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReferenceNodeLease {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "owner_id", nullable = false, length = 100)
+    private String ownerId;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,25 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ScheduleNode - heartbeat of a running scheduler node, used to size each node's fair share of partitions.
+ */
+@Entity
+@Table(name = "schedule_nodes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduleNode {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+}
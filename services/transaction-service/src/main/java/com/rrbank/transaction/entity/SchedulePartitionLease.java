@@ -0,0 +1,31 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * SchedulePartitionLease - which node currently runs the schedules of a partition, and until when.
+ * A lease that is not renewed before lease_until can be taken over by another node.
+ */
+@Entity
+@Table(name = "schedule_partition_leases", indexes = {
+    @Index(name = "idx_sched_lease_owner", columnList = "owner_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulePartitionLease {
+
+    @Id
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    @Column(name = "owner_id", nullable = false, length = 100)
+    private String ownerId;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
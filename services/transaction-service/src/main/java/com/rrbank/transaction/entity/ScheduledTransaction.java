@@ -0,0 +1,144 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * ScheduledTransaction - a one-off or recurring transfer (standing order).
+ * Each run creates a normal TRANSFER transaction; the schedule only tracks when the next run is due.
+ */
+@Entity
+@Table(name = "scheduled_transactions", indexes = {
+    @Index(name = "idx_sched_partition_due", columnList = "partition_no, status, next_run_at"),
+    @Index(name = "idx_sched_updated", columnList = "updated_at"),
+    @Index(name = "idx_sched_from_account", columnList = "from_account_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduledTransaction {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "from_account_id", nullable = false)
+    private UUID fromAccountId;
+
+    @Column(name = "to_account_id", nullable = false)
+    private UUID toAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "initiated_by")
+    private UUID initiatedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Frequency frequency;
+
+    // Day of month for MONTHLY schedules; clamped to the last day in shorter months
+    @Column(name = "anchor_day")
+    private Integer anchorDay;
+
+    @Column(name = "next_run_at")
+    private LocalDateTime nextRunAt;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private ScheduleStatus status = ScheduleStatus.ACTIVE;
+
+    // Fixed at creation; decides which node's lease covers this schedule
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "run_count", nullable = false)
+    @Builder.Default
+    private int runCount = 0;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "last_transaction_id")
+    private UUID lastTransactionId;
+
+    @Column(name = "last_run_status", length = 20)
+    private String lastRunStatus;
+
+    @Column(name = "last_failure_reason", columnDefinition = "TEXT")
+    private String lastFailureReason;
+
+    @Version
+    private long version;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Records a run that was due at {@code runAt} and moves the schedule to its next occurrence.
+     */
+    public void recordRun(LocalDateTime runAt, UUID transactionId, String runStatus, String failureReason) {
+        runCount++;
+        lastRunAt = runAt;
+        lastTransactionId = transactionId;
+        lastRunStatus = runStatus;
+        lastFailureReason = failureReason;
+
+        LocalDateTime next = nextOccurrenceAfter(runAt);
+        if (next == null || (endDate != null && next.toLocalDate().isAfter(endDate))) {
+            nextRunAt = null;
+            status = ScheduleStatus.COMPLETED;
+        } else {
+            nextRunAt = next;
+        }
+    }
+
+    public LocalDateTime nextOccurrenceAfter(LocalDateTime runAt) {
+        return switch (frequency) {
+            case ONCE -> null;
+            case DAILY -> runAt.plusDays(1);
+            case WEEKLY -> runAt.plusWeeks(1);
+            case MONTHLY -> {
+                LocalDate month = runAt.toLocalDate().withDayOfMonth(1).plusMonths(1);
+                int day = Math.min(anchorDay != null ? anchorDay : runAt.getDayOfMonth(), month.lengthOfMonth());
+                yield month.withDayOfMonth(day).atTime(runAt.toLocalTime());
+            }
+        };
+    }
+
+    public enum Frequency {
+        ONCE, DAILY, WEEKLY, MONTHLY
+    }
+
+    public enum ScheduleStatus {
+        ACTIVE, PAUSED, COMPLETED, CANCELLED
+    }
+}
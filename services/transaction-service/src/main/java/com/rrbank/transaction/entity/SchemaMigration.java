@@ -0,0 +1,25 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker for one-time data migrations that have already been applied.
+ */
+@Entity
+@Table(name = "schema_migrations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchemaMigration {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -2,18 +2,33 @@ package com.rrbank.transaction.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * Stored in monthly range partitions on created_at (see TransactionPartitionManager). Uniqueness
+ * of idempotency keys is enforced by transaction_idempotency_keys, since a partitioned table
+ * can only enforce uniqueness that includes created_at.
+ */
 @Entity
 @Table(name = "transactions", indexes = {
-    @Index(name = "idx_tx_reference", columnList = "transaction_reference"),
+    // The partition key has to be part of a unique index; transaction_references makes the reference alone unique
+    @Index(name = "uk_tx_reference_created", columnList = "transaction_reference, created_at", unique = true),
     @Index(name = "idx_tx_from_account", columnList = "from_account_id"),
     @Index(name = "idx_tx_to_account", columnList = "to_account_id"),
     @Index(name = "idx_tx_status", columnList = "status"),
-    @Index(name = "idx_tx_idempotency", columnList = "idempotency_key")
+    // Admin search: equality filters first, then the sort key and id for keyset pages
+    @Index(name = "idx_tx_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_tx_status_created_id", columnList = "status, created_at, id"),
+    @Index(name = "idx_tx_type_created_id", columnList = "transaction_type, created_at, id"),
+    @Index(name = "idx_tx_status_type_created_id", columnList = "status, transaction_type, created_at, id"),
+    @Index(name = "idx_tx_amount_id", columnList = "amount, id"),
+    @Index(name = "idx_tx_status_amount_id", columnList = "status, amount, id"),
+    @Index(name = "idx_tx_type_amount_id", columnList = "transaction_type, amount, id"),
+    @Index(name = "idx_tx_status_type_amount_id", columnList = "status, transaction_type, amount, id")
 })
 @Data
 @NoArgsConstructor
@@ -22,10 +37,10 @@ import java.util.UUID;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
-    @Column(name = "transaction_reference", nullable = false, unique = true, length = 50)
+    @Column(name = "transaction_reference", nullable = false, length = 50)
     private String transactionReference;
 
     @Column(name = "from_account_id")
@@ -53,7 +68,7 @@ public class Transaction {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @Column(name = "idempotency_key", unique = true, length = 100)
+    @Column(name = "idempotency_key", length = 100)
     private String idempotencyKey;
 
     @Column(name = "failure_reason", columnDefinition = "TEXT")
@@ -62,6 +77,8 @@ public class Transaction {
     @Column(name = "initiated_by")
     private UUID initiatedBy;
 
+    // Added to update and delete statements so they only touch the row's partition
+    @PartitionKey
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -76,7 +93,7 @@ public class Transaction {
         createdAt = LocalDateTime.now();
         updatedAt = createdAt;
         if (transactionReference == null) {
-            transactionReference = "TXN" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            transactionReference = TransactionReferenceGenerator.next();
         }
     }
 
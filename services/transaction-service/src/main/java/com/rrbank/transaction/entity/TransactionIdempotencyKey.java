@@ -0,0 +1,32 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claims an idempotency key for one transaction. Holds the transaction's created_at too,
+ * so a lookup by key reads a single partition of the transactions table.
+ */
+@Entity
+@Table(name = "transaction_idempotency_keys", indexes = {
+    @Index(name = "idx_tx_idem_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionIdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "transaction_id", nullable = false)
+    private UUID transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claims a transaction reference for one transaction. The partitioned transactions table can
+ * only enforce uniqueness of (transaction_reference, created_at); this unpartitioned table
+ * makes the reference alone unique.
+ */
+@Entity
+@Table(name = "transaction_references", indexes = {
+    @Index(name = "idx_tx_ref_created", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionReference {
+
+    @Id
+    @Column(name = "reference", length = 50)
+    private String reference;
+
+    @Column(name = "transaction_id", nullable = false)
+    private UUID transactionId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,116 @@
+package com.rrbank.transaction.entity;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style transaction references: "TXN" followed by 13 Crockford base32 characters
+ * encoding 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a 12-bit sequence.
+ *
+ * References are fixed width and the alphabet is in ASCII order, so they sort by creation
+ * time. They are unique as long as every running instance has its own node id (0-1023):
+ * either configured explicitly or leased from the database at startup, see
+ * {@link com.rrbank.transaction.service.ReferenceNodeIdLease}. Until a node id is held, or
+ * once a lease can no longer be trusted, {@link #next()} refuses to issue references.
+ */
+public final class TransactionReferenceGenerator {
+
+    private static final String PREFIX = "TXN";
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final AtomicLong LAST = new AtomicLong();
+    private static volatile NodeId nodeId;
+
+    private TransactionReferenceGenerator() {
+    }
+
+    /**
+     * Uses a node id that was configured for this instance and is never taken away.
+     */
+    public static void assignNodeId(int id) {
+        nodeId = new NodeId(checkNodeId(id), true, 0);
+    }
+
+    /**
+     * Uses a leased node id until {@code validUntilNanos} on the {@link System#nanoTime()}
+     * clock; renewing the lease calls this again with a later deadline.
+     */
+    public static void leaseNodeId(int id, long validUntilNanos) {
+        nodeId = new NodeId(checkNodeId(id), false, validUntilNanos);
+    }
+
+    public static void releaseNodeId() {
+        nodeId = null;
+    }
+
+    public static String next() {
+        NodeId current = nodeId;
+        if (current == null || (!current.permanent() && System.nanoTime() - current.validUntilNanos() >= 0)) {
+            throw new IllegalStateException("No transaction reference node id is held by this instance");
+        }
+
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << 12;
+        long prev;
+        long next;
+        do {
+            prev = LAST.get();
+            next = Math.max(now, prev + 1);
+        } while (!LAST.compareAndSet(prev, next));
+
+        long millis = next >>> 12;
+        long sequence = next & 0xFFFL;
+        long value = (millis << 22) | ((long) current.id() << 12) | sequence;
+
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (value & 0x1F)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Creation time encoded in a reference. Also understands the older "TXN" + epoch millis
+     * + 8 random characters format. Empty for anything else.
+     */
+    public static Optional<Instant> timestampOf(String reference) {
+        if (reference == null || !reference.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        if (reference.length() == PREFIX.length() + ENCODED_LENGTH) {
+            long value = 0;
+            for (int i = PREFIX.length(); i < reference.length(); i++) {
+                int digit = Arrays.binarySearch(ALPHABET, reference.charAt(i));
+                if (digit < 0) {
+                    return Optional.empty();
+                }
+                value = (value << 5) | digit;
+            }
+            return Optional.of(Instant.ofEpochMilli((value >>> 22) + EPOCH_MILLIS));
+        }
+        if (reference.length() == PREFIX.length() + 13 + 8) {
+            try {
+                return Optional.of(Instant.ofEpochMilli(Long.parseLong(reference.substring(PREFIX.length(), PREFIX.length() + 13))));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static int checkNodeId(int id) {
+        if (id < 0 || id > MAX_NODE_ID) {
+            throw new IllegalStateException("Transaction reference node id must be between 0 and " + MAX_NODE_ID + ": " + id);
+        }
+        return id;
+    }
+
+    private record NodeId(int id, boolean permanent, long validUntilNanos) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * TransactionStatsRollup - bucketed transaction counters per type and status.
+ * This is a PROJECTION maintained incrementally by TransactionStatsService,
+ * so stats reads never have to aggregate over the transactions table.
+ */
+@Entity
+@Table(name = "transaction_stats_rollup", indexes = {
+    @Index(name = "idx_tx_stats_bucket", columnList = "granularity, bucket_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionStatsRollup {
+
+    @EmbeddedId
+    private BucketKey key;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal volume;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BucketKey implements Serializable {
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 10)
+        private Granularity granularity;
+
+        @Column(name = "bucket_start", nullable = false)
+        private LocalDateTime bucketStart;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "transaction_type", nullable = false, length = 30)
+        private Transaction.TransactionType transactionType;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false, length = 20)
+        private Transaction.TransactionStatus status;
+    }
+
+    public enum Granularity {
+        MINUTE, HOUR, DAY, TOTAL;
+
+        private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+        public LocalDateTime bucketStart(LocalDateTime time) {
+            return switch (this) {
+                case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case TOTAL -> EPOCH;
+            };
+        }
+    }
+}
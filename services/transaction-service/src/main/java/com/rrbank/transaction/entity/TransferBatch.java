@@ -0,0 +1,101 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * TransferBatch - a bulk transfer (e.g. payroll) from one payer account to many payees.
+ * Per-payee progress is tracked in {@link TransferBatchItem}.
+ */
+@Entity
+@Table(name = "transfer_batches", indexes = {
+    @Index(name = "idx_batch_from_account", columnList = "from_account_id"),
+    @Index(name = "idx_batch_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferBatch {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "from_account_id", nullable = false)
+    private UUID fromAccountId;
+
+    @Column(name = "initiated_by")
+    private UUID initiatedBy;
+
+    @Column(name = "total_items", nullable = false)
+    private int totalItems;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalAmount;
+
+    @Column(name = "completed_items", nullable = false)
+    @Builder.Default
+    private int completedItems = 0;
+
+    @Column(name = "failed_items", nullable = false)
+    @Builder.Default
+    private int failedItems = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private BatchStatus status = BatchStatus.PENDING;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "idempotency_key", unique = true, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "failure_reason", columnDefinition = "TEXT")
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void markProcessing() {
+        this.status = BatchStatus.PROCESSING;
+    }
+
+    public void markFinished() {
+        if (failedItems == 0) {
+            status = BatchStatus.COMPLETED;
+        } else if (completedItems == 0) {
+            status = BatchStatus.FAILED;
+        } else {
+            status = BatchStatus.PARTIALLY_COMPLETED;
+        }
+        completedAt = LocalDateTime.now();
+    }
+
+    public enum BatchStatus {
+        PENDING, PROCESSING, COMPLETED, PARTIALLY_COMPLETED, FAILED
+    }
+}
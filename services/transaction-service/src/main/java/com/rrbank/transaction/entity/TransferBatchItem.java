@@ -0,0 +1,66 @@
+package com.rrbank.transaction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * TransferBatchItem - one payee of a {@link TransferBatch}.
+ * Once executed, the item points at the TRANSFER transaction created for it.
+ */
+@Entity
+@Table(name = "transfer_batch_items", indexes = {
+    @Index(name = "idx_batch_item_batch_seq", columnList = "batch_id, sequence_no")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferBatchItem {
+
+    @Id
+    @UuidV7
+    private UUID id;
+
+    @Column(name = "batch_id", nullable = false)
+    private UUID batchId;
+
+    @Column(name = "sequence_no", nullable = false)
+    private int sequenceNo;
+
+    @Column(name = "to_account_id", nullable = false)
+    private UUID toAccountId;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private ItemStatus status = ItemStatus.PENDING;
+
+    @Column(name = "transaction_id")
+    private UUID transactionId;
+
+    @Column(name = "failure_reason", columnDefinition = "TEXT")
+    private String failureReason;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum ItemStatus {
+        PENDING, PROCESSING, COMPLETED, FAILED
+    }
+}
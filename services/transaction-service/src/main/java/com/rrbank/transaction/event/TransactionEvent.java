@@ -0,0 +1,43 @@
+package com.rrbank.transaction.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Payload of the transaction-events topic. Field names match the map-based events published
+ * before this class existed, so existing consumers keep working; null fields are left out.
+ * Bump {@link #SCHEMA_VERSION} when a field changes meaning or is removed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionEvent {
+
+    public static final int SCHEMA_VERSION = 1;
+
+    @Builder.Default
+    private int schemaVersion = SCHEMA_VERSION;
+    private String eventId;
+    private EventType eventType;
+    private String transactionId;
+    private String transactionReference;
+    private String transactionType;
+    private String fromAccountId;
+    private String toAccountId;
+    private BigDecimal amount;
+    private String currency;
+    private String status;
+    private String failureReason;
+    private String description;
+    private String initiatedBy;
+    private LocalDateTime timestamp;
+
+    public enum EventType {
+        TRANSACTION_INITIATED, TRANSACTION_COMPLETED, TRANSACTION_FAILED
+    }
+}
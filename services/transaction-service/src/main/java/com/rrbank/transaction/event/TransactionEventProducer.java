@@ -1,66 +1,82 @@
 package com.rrbank.transaction.event;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.entity.TransactionOutbox;
+import com.rrbank.transaction.entity.UuidV7Generator;
+import com.rrbank.transaction.event.TransactionEvent.EventType;
+import com.rrbank.transaction.repository.TransactionOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
+/**
+ * Records transaction events in the outbox, inside the caller's database transaction.
+ * {@link TransactionOutboxRelay} ships them to Kafka in batches after commit.
+ */
 @Component
 @Slf4j
 public class TransactionEventProducer {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionOutboxRepository outboxRepository;
+    private final ObjectWriter eventWriter;
+    private final boolean kafkaEnabled;
 
-    private static final String TRANSACTION_EVENTS_TOPIC = "transaction-events";
-
-    @Autowired(required = false)
-    public TransactionEventProducer(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public TransactionEventProducer(TransactionOutboxRepository outboxRepository,
+                                    ObjectMapper objectMapper,
+                                    @Value("${spring.kafka.enabled:false}") boolean kafkaEnabled) {
+        this.outboxRepository = outboxRepository;
+        this.eventWriter = objectMapper.writerFor(TransactionEvent.class);
+        this.kafkaEnabled = kafkaEnabled;
     }
 
     public void publishTransactionInitiated(Transaction tx) {
-        publishEvent(tx, "TRANSACTION_INITIATED");
+        publishEvent(tx, EventType.TRANSACTION_INITIATED);
     }
 
     public void publishTransactionCompleted(Transaction tx) {
-        publishEvent(tx, "TRANSACTION_COMPLETED");
+        publishEvent(tx, EventType.TRANSACTION_COMPLETED);
     }
 
     public void publishTransactionFailed(Transaction tx) {
-        publishEvent(tx, "TRANSACTION_FAILED");
+        publishEvent(tx, EventType.TRANSACTION_FAILED);
     }
 
-    private void publishEvent(Transaction tx, String eventType) {
-        if (kafkaTemplate == null) {
+    private void publishEvent(Transaction tx, EventType eventType) {
+        if (!kafkaEnabled) {
             log.debug("Kafka disabled - skipping {} event for transaction: {}", eventType, tx.getId());
             return;
         }
         
         try {
-            Map<String, Object> event = new HashMap<>();
-            event.put("eventType", eventType);
-            event.put("transactionId", tx.getId().toString());
-            event.put("transactionReference", tx.getTransactionReference());
-            event.put("transactionType", tx.getTransactionType().name());
-            event.put("fromAccountId", tx.getFromAccountId() != null ? tx.getFromAccountId().toString() : null);
-            event.put("toAccountId", tx.getToAccountId() != null ? tx.getToAccountId().toString() : null);
-            event.put("amount", tx.getAmount());
-            event.put("currency", tx.getCurrency());
-            event.put("status", tx.getStatus().name());
-            event.put("failureReason", tx.getFailureReason());
-            event.put("description", tx.getDescription());
-            event.put("initiatedBy", tx.getInitiatedBy() != null ? tx.getInitiatedBy().toString() : null);
-            event.put("timestamp", LocalDateTime.now().toString());
+            TransactionEvent event = TransactionEvent.builder()
+                    .eventId(UuidV7Generator.next().toString())
+                    .eventType(eventType)
+                    .transactionId(tx.getId().toString())
+                    .transactionReference(tx.getTransactionReference())
+                    .transactionType(tx.getTransactionType().name())
+                    .fromAccountId(tx.getFromAccountId() != null ? tx.getFromAccountId().toString() : null)
+                    .toAccountId(tx.getToAccountId() != null ? tx.getToAccountId().toString() : null)
+                    .amount(tx.getAmount())
+                    .currency(tx.getCurrency())
+                    .status(tx.getStatus().name())
+                    .failureReason(tx.getFailureReason())
+                    .description(tx.getDescription())
+                    .initiatedBy(tx.getInitiatedBy() != null ? tx.getInitiatedBy().toString() : null)
+                    .timestamp(LocalDateTime.now())
+                    .build();
 
-            kafkaTemplate.send(TRANSACTION_EVENTS_TOPIC, tx.getId().toString(), event);
-            log.info("Published {} event for transaction: {}", eventType, tx.getId());
+            outboxRepository.save(TransactionOutbox.builder()
+                    .eventKey(event.getTransactionId())
+                    .eventType(eventType.name())
+                    .payload(eventWriter.writeValueAsBytes(event))
+                    .build());
+            log.debug("Queued {} event for transaction: {}", eventType, tx.getId());
         } catch (Exception e) {
-            log.error("Failed to publish {} event: {}", eventType, e.getMessage());
+            log.error("Failed to queue {} event: {}", eventType, e.getMessage());
         }
     }
 }
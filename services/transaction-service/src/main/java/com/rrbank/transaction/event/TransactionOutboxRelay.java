@@ -0,0 +1,121 @@
+package com.rrbank.transaction.event;
+
+import com.rrbank.transaction.entity.TransactionOutbox;
+import com.rrbank.transaction.repository.TransactionOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves outbox events to Kafka. Each round sends up to {@code relay-batch-size} events without
+ * waiting between them, so the producer packs them into a few compressed batches, then deletes
+ * the events Kafka acknowledged. Only the acknowledged prefix (in outbox order) is deleted: an
+ * event after a failed one is resent on the next round rather than overtaking it, which makes
+ * delivery at-least-once and in order per transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@Slf4j
+public class TransactionOutboxRelay {
+
+    static final String TRANSACTION_EVENTS_TOPIC = "transaction-events";
+    private static final long RELAY_LOCK_ID = 0x7278626B6F757462L;
+
+    private final TransactionOutboxRepository outboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Timer deliveryLag;
+
+    public TransactionOutboxRelay(TransactionOutboxRepository outboxRepository,
+                                  KafkaTemplate<String, byte[]> kafkaTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry registry,
+                                  @Value("${transaction.events.relay-batch-size:500}") int batchSize,
+                                  @Value("${transaction.events.send-timeout:30s}") Duration sendTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.delivered = Counter.builder("transaction.events.delivered")
+                .description("Transaction events acknowledged by Kafka")
+                .register(registry);
+        this.failed = Counter.builder("transaction.events.failed")
+                .description("Transaction event sends that failed and will be retried")
+                .register(registry);
+        this.deliveryLag = Timer.builder("transaction.events.delivery.lag")
+                .description("Time from writing an event to the outbox until Kafka acknowledged it")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.events.relay-interval-ms:100}")
+    public void relay() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        if (!outboxRepository.tryAcquireRelayLock(RELAY_LOCK_ID)) {
+            return 0;
+        }
+        List<TransactionOutbox> events = outboxRepository.findOldest(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(events.size());
+        for (TransactionOutbox event : events) {
+            LocalDateTime createdAt = event.getCreatedAt();
+            sends.add(kafkaTemplate.send(new ProducerRecord<>(TRANSACTION_EVENTS_TOPIC, event.getEventKey(), event.getPayload()))
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            delivered.increment();
+                            deliveryLag.record(Duration.between(createdAt, LocalDateTime.now()));
+                        } else {
+                            failed.increment();
+                        }
+                    }));
+        }
+        kafkaTemplate.flush();
+
+        List<Long> acknowledged = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                acknowledged.add(events.get(i).getId());
+            } catch (Exception e) {
+                log.warn("Failed to publish outbox event {} ({}), will retry: {}",
+                        events.get(i).getId(), events.get(i).getEventType(), e.getMessage());
+                break;
+            }
+        }
+        if (!acknowledged.isEmpty()) {
+            outboxRepository.deleteByIdIn(acknowledged);
+        }
+        log.debug("Relayed {}/{} transaction events", acknowledged.size(), events.size());
+        return acknowledged.size() == events.size() ? events.size() : 0;
+    }
+}
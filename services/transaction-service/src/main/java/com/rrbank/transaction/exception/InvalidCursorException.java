@@ -0,0 +1,16 @@
+package com.rrbank.transaction.exception;
+
+/**
+ * Thrown when a page cursor sent by a client cannot be decoded or was issued for a
+ * different query; the client has to start again from the first page.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.rrbank.transaction.exception;
+
+/**
+ * The ledger answered a posting with an error, so nothing of it was posted. Any other
+ * failure of a posting call leaves its outcome unknown.
+ */
+public class LedgerRejectedException extends RuntimeException {
+
+    public LedgerRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
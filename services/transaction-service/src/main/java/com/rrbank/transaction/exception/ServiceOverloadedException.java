@@ -0,0 +1,24 @@
+package com.rrbank.transaction.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is shed because the service is at its concurrency limit.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public ServiceOverloadedException(Duration retryAfter) {
+        super("Service is busy. Please retry shortly.");
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rrbank.transaction.migration;
+
+import com.rrbank.transaction.entity.SchemaMigration;
+import com.rrbank.transaction.repository.AccountTransactionRepository;
+import com.rrbank.transaction.repository.SchemaMigrationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * One-time backfill of the account_transactions projection for transactions
+ * created before the projection existed.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class AccountTransactionBackfill implements CommandLineRunner {
+
+    private static final String MIGRATION_NAME = "account-transactions-backfill";
+
+    private final SchemaMigrationRepository migrationRepository;
+    private final AccountTransactionRepository accountTransactionRepository;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        migrationRepository.acquireAdvisoryLock(TransactionStatsBackfill.MIGRATION_LOCK_ID);
+        
+        if (migrationRepository.existsById(MIGRATION_NAME)) {
+            log.info("Account transactions projection already initialized, skipping backfill");
+            return;
+        }
+        
+        log.info("Starting account transactions projection backfill...");
+        int rows = accountTransactionRepository.backfillFromTransactions();
+        migrationRepository.save(new SchemaMigration(MIGRATION_NAME, LocalDateTime.now()));
+        log.info("Account transactions projection backfill completed. {} rows written.", rows);
+    }
+}
@@ -0,0 +1,98 @@
+package com.rrbank.transaction.migration;
+
+import com.rrbank.transaction.entity.SchemaMigration;
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.repository.SchemaMigrationRepository;
+import com.rrbank.transaction.repository.TransactionIdempotencyKeyRepository;
+import com.rrbank.transaction.service.TransactionPartitionManager;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One-time conversion of the transactions table into a table range-partitioned by month on
+ * created_at. The existing table is renamed and attached as a single partition holding
+ * everything up to the end of the current month, so no rows are copied; attaching only
+ * builds its (id, created_at) key index. Later months get their own partitions from
+ * {@link TransactionPartitionManager}, which also runs on every startup.
+ *
+ * Hibernate creates the table unpartitioned on a fresh database, so this also runs there,
+ * on an empty table.
+ *
+ * Runs once all singletons exist but before the context finishes refreshing, so before the
+ * web server, the outbox relay, the Kafka listeners and the scheduled jobs start: nothing
+ * writes to the table while it is renamed and swapped, and startup waits for the migration.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitioningMigration implements SmartInitializingSingleton {
+
+    private static final String MIGRATION_NAME = "transactions-monthly-partitions";
+    private static final String LEGACY_TABLE = "transactions_legacy";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SchemaMigrationRepository migrationRepository;
+    private final TransactionIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionPartitionManager partitionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> migrate());
+    }
+
+    private void migrate() {
+        migrationRepository.acquireAdvisoryLock(TransactionStatsBackfill.MIGRATION_LOCK_ID);
+
+        if (!migrationRepository.existsById(MIGRATION_NAME)) {
+            if (partitionManager.isPartitioned()) {
+                log.info("Transactions table is already partitioned");
+            } else {
+                partition();
+            }
+            int keys = idempotencyKeyRepository.backfillFromTransactions();
+            migrationRepository.save(new SchemaMigration(MIGRATION_NAME, LocalDateTime.now()));
+            log.info("Transactions partitioning completed, {} idempotency keys claimed", keys);
+        }
+
+        partitionManager.maintain();
+    }
+
+    private void partition() {
+        LocalDateTime legacyEnd = YearMonth.now().plusMonths(1).atDay(1).atStartOfDay();
+        Index[] indexes = Transaction.class.getAnnotation(Table.class).indexes();
+        log.info("Partitioning transactions table; existing rows stay in {} up to {}", LEGACY_TABLE, legacyEnd);
+
+        // Idempotency keys are now looked up through transaction_idempotency_keys
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_tx_idempotency");
+        jdbcTemplate.execute("ALTER TABLE transactions RENAME TO " + LEGACY_TABLE);
+        // Index names are schema-wide; the legacy ones are attached under the parent's indexes below
+        for (Index index : indexes) {
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS " + index.name() + " RENAME TO " + index.name() + "_legacy");
+        }
+
+        jdbcTemplate.execute("CREATE TABLE transactions (LIKE " + LEGACY_TABLE
+                + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) PARTITION BY RANGE (created_at)");
+        // Every unique key of a partitioned table has to include the partition column
+        jdbcTemplate.execute("ALTER TABLE transactions ADD CONSTRAINT transactions_id_created_pkey PRIMARY KEY (id, created_at)");
+        for (Index index : indexes) {
+            jdbcTemplate.execute("CREATE " + (index.unique() ? "UNIQUE " : "") + "INDEX " + index.name()
+                    + " ON transactions (" + index.columnList() + ")");
+        }
+
+        jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + LEGACY_TABLE
+                + " FOR VALUES FROM (MINVALUE) TO ('" + legacyEnd.format(BOUND_FORMAT) + "')");
+    }
+}
@@ -0,0 +1,45 @@
+package com.rrbank.transaction.migration;
+
+import com.rrbank.transaction.entity.SchemaMigration;
+import com.rrbank.transaction.repository.SchemaMigrationRepository;
+import com.rrbank.transaction.repository.TransactionReferenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * One-time backfill of transaction_references for transactions created before
+ * references were claimed there.
+ */
+@Component
+@Order(3)
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionReferenceBackfill implements CommandLineRunner {
+
+    private static final String MIGRATION_NAME = "transaction-references-backfill";
+
+    private final SchemaMigrationRepository migrationRepository;
+    private final TransactionReferenceRepository referenceRepository;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        migrationRepository.acquireAdvisoryLock(TransactionStatsBackfill.MIGRATION_LOCK_ID);
+
+        if (migrationRepository.existsById(MIGRATION_NAME)) {
+            log.info("Transaction references already initialized, skipping backfill");
+            return;
+        }
+
+        log.info("Starting transaction references backfill...");
+        int rows = referenceRepository.backfillFromTransactions();
+        migrationRepository.save(new SchemaMigration(MIGRATION_NAME, LocalDateTime.now()));
+        log.info("Transaction references backfill completed. {} rows written.", rows);
+    }
+}
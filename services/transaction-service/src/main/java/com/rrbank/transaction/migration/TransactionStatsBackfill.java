@@ -0,0 +1,58 @@
+package com.rrbank.transaction.migration;
+
+import com.rrbank.transaction.entity.SchemaMigration;
+import com.rrbank.transaction.entity.TransactionStatsRollup.Granularity;
+import com.rrbank.transaction.repository.SchemaMigrationRepository;
+import com.rrbank.transaction.repository.TransactionStatsRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * One-time backfill of the transaction_stats_rollup table from existing transactions.
+ * 
+ * Runs on startup and records itself in schema_migrations, so it only ever scans the
+ * transactions table once. An advisory lock keeps concurrently starting instances
+ * from backfilling twice.
+ */
+@Component
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionStatsBackfill implements CommandLineRunner {
+
+    static final String MIGRATION_NAME = "transaction-stats-rollup-backfill";
+    static final long MIGRATION_LOCK_ID = 0x7278626B6D696772L;
+
+    private final SchemaMigrationRepository migrationRepository;
+    private final TransactionStatsRollupRepository rollupRepository;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        migrationRepository.acquireAdvisoryLock(MIGRATION_LOCK_ID);
+        
+        if (migrationRepository.existsById(MIGRATION_NAME)) {
+            log.info("Transaction stats rollup already initialized, skipping backfill");
+            return;
+        }
+        
+        log.info("Starting transaction stats rollup backfill...");
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime beginning = LocalDateTime.of(1970, 1, 1, 0, 0);
+        
+        int total = rollupRepository.backfill(Granularity.TOTAL.name(), beginning);
+        int days = rollupRepository.backfill(Granularity.DAY.name(), beginning);
+        int hours = rollupRepository.backfill(Granularity.HOUR.name(), Granularity.HOUR.bucketStart(now.minusDays(35)));
+        int minutes = rollupRepository.backfill(Granularity.MINUTE.name(), Granularity.MINUTE.bucketStart(now.minusDays(2)));
+        
+        migrationRepository.save(new SchemaMigration(MIGRATION_NAME, now));
+        log.info("Transaction stats rollup backfill completed: total={}, day={}, hour={}, minute={} buckets",
+                total, days, hours, minutes);
+    }
+}
@@ -0,0 +1,87 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.AccountTransaction;
+import com.rrbank.transaction.entity.Transaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AccountTransactionRepository extends JpaRepository<AccountTransaction, AccountTransaction.Key> {
+
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO account_transactions (account_id, created_at, transaction_id, transaction_type, direction, amount) " +
+            "VALUES (:accountId, :createdAt, :transactionId, :type, :direction, :amount) ON CONFLICT DO NOTHING")
+    int insert(@Param("accountId") UUID accountId,
+               @Param("createdAt") LocalDateTime createdAt,
+               @Param("transactionId") UUID transactionId,
+               @Param("type") String type,
+               @Param("direction") String direction,
+               @Param("amount") BigDecimal amount);
+
+    // Keyset pagination - (created_at, transaction_id) row comparison is a single index range scan
+    @Query(nativeQuery = true, value =
+            "SELECT * FROM account_transactions WHERE account_id = :accountId " +
+            "AND created_at >= :startDate AND (created_at, transaction_id) < (:cursorTime, :cursorId) " +
+            "ORDER BY created_at DESC, transaction_id DESC LIMIT :limit")
+    List<AccountTransaction> findPageBefore(@Param("accountId") UUID accountId,
+                                            @Param("startDate") LocalDateTime startDate,
+                                            @Param("cursorTime") LocalDateTime cursorTime,
+                                            @Param("cursorId") UUID cursorId,
+                                            @Param("limit") int limit);
+
+    @Query(nativeQuery = true, value =
+            "SELECT * FROM account_transactions WHERE account_id = :accountId AND transaction_type = :type " +
+            "AND created_at >= :startDate AND (created_at, transaction_id) < (:cursorTime, :cursorId) " +
+            "ORDER BY created_at DESC, transaction_id DESC LIMIT :limit")
+    List<AccountTransaction> findPageBeforeByType(@Param("accountId") UUID accountId,
+                                                  @Param("type") String type,
+                                                  @Param("startDate") LocalDateTime startDate,
+                                                  @Param("cursorTime") LocalDateTime cursorTime,
+                                                  @Param("cursorId") UUID cursorId,
+                                                  @Param("limit") int limit);
+
+    // Offset pagination kept for existing clients; still served by the (account_id, created_at, id) key
+    @Query(value = "SELECT a FROM AccountTransaction a WHERE a.key.accountId = :accountId " +
+                   "AND a.key.createdAt >= :startDate AND a.key.createdAt <= :endDate " +
+                   "ORDER BY a.key.createdAt DESC, a.key.transactionId DESC",
+           countQuery = "SELECT COUNT(a) FROM AccountTransaction a WHERE a.key.accountId = :accountId " +
+                        "AND a.key.createdAt >= :startDate AND a.key.createdAt <= :endDate")
+    Page<AccountTransaction> findByAccountIdAndDateRange(@Param("accountId") UUID accountId,
+                                                         @Param("startDate") LocalDateTime startDate,
+                                                         @Param("endDate") LocalDateTime endDate,
+                                                         Pageable pageable);
+
+    @Query(value = "SELECT a FROM AccountTransaction a WHERE a.key.accountId = :accountId " +
+                   "AND a.transactionType = :type AND a.key.createdAt >= :startDate AND a.key.createdAt <= :endDate " +
+                   "ORDER BY a.key.createdAt DESC, a.key.transactionId DESC",
+           countQuery = "SELECT COUNT(a) FROM AccountTransaction a WHERE a.key.accountId = :accountId " +
+                        "AND a.transactionType = :type AND a.key.createdAt >= :startDate AND a.key.createdAt <= :endDate")
+    Page<AccountTransaction> findByAccountIdAndDateRangeAndType(@Param("accountId") UUID accountId,
+                                                                @Param("startDate") LocalDateTime startDate,
+                                                                @Param("endDate") LocalDateTime endDate,
+                                                                @Param("type") Transaction.TransactionType type,
+                                                                Pageable pageable);
+
+    // One-time backfill from the transactions table, one row per participating account
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO account_transactions (account_id, created_at, transaction_id, transaction_type, direction, amount) " +
+            "SELECT t.from_account_id, t.created_at, t.id, t.transaction_type, 'DEBIT', t.amount " +
+            "FROM transactions t WHERE t.from_account_id IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT t.to_account_id, t.created_at, t.id, t.transaction_type, 'CREDIT', t.amount " +
+            "FROM transactions t WHERE t.to_account_id IS NOT NULL " +
+            "ON CONFLICT DO NOTHING")
+    int backfillFromTransactions();
+}
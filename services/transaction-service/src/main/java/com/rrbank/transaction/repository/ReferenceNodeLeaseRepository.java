@@ -0,0 +1,42 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.ReferenceNodeLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lease times are computed with the database clock (LOCALTIMESTAMP), as for schedule partition leases.
+ */
+@Repository
+public interface ReferenceNodeLeaseRepository extends JpaRepository<ReferenceNodeLease, Integer> {
+    
+    // Takes the node id if it is free, expired, or already ours; returns 1 when the lease is held
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO reference_node_leases (node_id, owner_id, lease_until) " +
+                   "VALUES (:nodeId, :ownerId, LOCALTIMESTAMP + make_interval(secs => :ttlSeconds)) " +
+                   "ON CONFLICT (node_id) DO UPDATE SET owner_id = EXCLUDED.owner_id, lease_until = EXCLUDED.lease_until " +
+                   "WHERE reference_node_leases.lease_until < LOCALTIMESTAMP " +
+                   "OR reference_node_leases.owner_id = EXCLUDED.owner_id", nativeQuery = true)
+    int tryAcquire(@Param("nodeId") int nodeId,
+                   @Param("ownerId") String ownerId,
+                   @Param("ttlSeconds") int ttlSeconds);
+    
+    // Returns 0 once the lease has lapsed, even if nobody has taken it yet
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE reference_node_leases SET lease_until = LOCALTIMESTAMP + make_interval(secs => :ttlSeconds) " +
+                   "WHERE node_id = :nodeId AND owner_id = :ownerId AND lease_until > LOCALTIMESTAMP", nativeQuery = true)
+    int renew(@Param("nodeId") int nodeId,
+              @Param("ownerId") String ownerId,
+              @Param("ttlSeconds") int ttlSeconds);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM reference_node_leases WHERE node_id = :nodeId AND owner_id = :ownerId", nativeQuery = true)
+    int release(@Param("nodeId") int nodeId, @Param("ownerId") String ownerId);
+}
@@ -0,0 +1,29 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.ScheduleNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ScheduleNodeRepository extends JpaRepository<ScheduleNode, String> {
+    
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO schedule_nodes (node_id, last_seen_at) VALUES (:nodeId, LOCALTIMESTAMP) " +
+                   "ON CONFLICT (node_id) DO UPDATE SET last_seen_at = LOCALTIMESTAMP", nativeQuery = true)
+    int heartbeat(@Param("nodeId") String nodeId);
+    
+    @Query(value = "SELECT COUNT(*) FROM schedule_nodes " +
+                   "WHERE last_seen_at > LOCALTIMESTAMP - make_interval(secs => :ttlSeconds)", nativeQuery = true)
+    long countLive(@Param("ttlSeconds") int ttlSeconds);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM schedule_nodes " +
+                   "WHERE last_seen_at < LOCALTIMESTAMP - make_interval(secs => :ttlSeconds)", nativeQuery = true)
+    int deleteStale(@Param("ttlSeconds") int ttlSeconds);
+}
@@ -0,0 +1,52 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.SchedulePartitionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lease times are computed with the database clock (LOCALTIMESTAMP) so nodes never compare
+ * their own clocks against each other's.
+ */
+@Repository
+public interface SchedulePartitionLeaseRepository extends JpaRepository<SchedulePartitionLease, Integer> {
+    
+    // Takes the partition if it is free, expired, or already ours; returns 1 when the lease is held
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO schedule_partition_leases (partition_no, owner_id, lease_until) " +
+                   "VALUES (:partitionNo, :ownerId, LOCALTIMESTAMP + make_interval(secs => :ttlSeconds)) " +
+                   "ON CONFLICT (partition_no) DO UPDATE SET owner_id = EXCLUDED.owner_id, lease_until = EXCLUDED.lease_until " +
+                   "WHERE schedule_partition_leases.lease_until < LOCALTIMESTAMP " +
+                   "OR schedule_partition_leases.owner_id = EXCLUDED.owner_id", nativeQuery = true)
+    int tryAcquire(@Param("partitionNo") int partitionNo,
+                   @Param("ownerId") String ownerId,
+                   @Param("ttlSeconds") int ttlSeconds);
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE schedule_partition_leases SET lease_until = LOCALTIMESTAMP + make_interval(secs => :ttlSeconds) " +
+                   "WHERE owner_id = :ownerId", nativeQuery = true)
+    int renewAll(@Param("ownerId") String ownerId, @Param("ttlSeconds") int ttlSeconds);
+    
+    @Query(value = "SELECT partition_no FROM schedule_partition_leases " +
+                   "WHERE owner_id = :ownerId AND lease_until > LOCALTIMESTAMP", nativeQuery = true)
+    List<Integer> findHeldPartitions(@Param("ownerId") String ownerId);
+    
+    @Query(value = "SELECT partition_no FROM schedule_partition_leases " +
+                   "WHERE lease_until > LOCALTIMESTAMP", nativeQuery = true)
+    List<Integer> findLeasedPartitions();
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE schedule_partition_leases SET lease_until = LOCALTIMESTAMP - INTERVAL '1 second' " +
+                   "WHERE owner_id = :ownerId AND partition_no IN (:partitions)", nativeQuery = true)
+    int release(@Param("ownerId") String ownerId, @Param("partitions") Collection<Integer> partitions);
+}
@@ -0,0 +1,45 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.ScheduledTransaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ScheduledTransactionRepository extends JpaRepository<ScheduledTransaction, UUID> {
+    
+    Page<ScheduledTransaction> findByFromAccountIdOrderByCreatedAtDesc(UUID fromAccountId, Pageable pageable);
+    
+    /**
+     * Active schedules due in [from, to) for the given partitions, keyset-paged on (next_run_at, id).
+     * Returns [id, nextRunAt, partitionNo] rows so a 24h window can be loaded without materializing entities.
+     */
+    @Query("SELECT s.id, s.nextRunAt, s.partitionNo FROM ScheduledTransaction s " +
+           "WHERE s.partitionNo IN :partitions " +
+           "AND s.status = com.rrbank.transaction.entity.ScheduledTransaction.ScheduleStatus.ACTIVE " +
+           "AND s.nextRunAt >= :from AND s.nextRunAt < :to " +
+           "AND (s.nextRunAt > :afterRunAt OR (s.nextRunAt = :afterRunAt AND s.id > :afterId)) " +
+           "ORDER BY s.nextRunAt, s.id")
+    List<Object[]> findDueSlots(@Param("partitions") Collection<Integer> partitions,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                @Param("afterRunAt") LocalDateTime afterRunAt,
+                                @Param("afterId") UUID afterId,
+                                Pageable pageable);
+    
+    /**
+     * Schedules of the given partitions changed after {@code since}: [id, nextRunAt, partitionNo, status] rows.
+     */
+    @Query("SELECT s.id, s.nextRunAt, s.partitionNo, s.status FROM ScheduledTransaction s " +
+           "WHERE s.partitionNo IN :partitions AND s.updatedAt > :since")
+    List<Object[]> findChangedSince(@Param("partitions") Collection<Integer> partitions,
+                                    @Param("since") LocalDateTime since);
+}
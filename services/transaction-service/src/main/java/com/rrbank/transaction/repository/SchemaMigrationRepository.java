@@ -0,0 +1,15 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.SchemaMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SchemaMigrationRepository extends JpaRepository<SchemaMigration, String> {
+
+    // Serializes one-time migrations across instances starting at the same time
+    @Query(nativeQuery = true, value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:lockId)) l")
+    Integer acquireAdvisoryLock(@Param("lockId") long lockId);
+}
@@ -0,0 +1,36 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.TransactionIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface TransactionIdempotencyKeyRepository extends JpaRepository<TransactionIdempotencyKey, String> {
+
+    // Fails with a unique violation when the key is already taken, rolling back the new transaction
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO transaction_idempotency_keys (idempotency_key, transaction_id, created_at) " +
+            "VALUES (:key, :transactionId, :createdAt)")
+    int claim(@Param("key") String key,
+              @Param("transactionId") UUID transactionId,
+              @Param("createdAt") LocalDateTime createdAt);
+
+    // One-time backfill for transactions written before keys were claimed here
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO transaction_idempotency_keys (idempotency_key, transaction_id, created_at) " +
+            "SELECT t.idempotency_key, t.id, t.created_at FROM transactions t " +
+            "WHERE t.idempotency_key IS NOT NULL ON CONFLICT DO NOTHING")
+    int backfillFromTransactions();
+
+    @Modifying
+    @Query("DELETE FROM TransactionIdempotencyKey k WHERE k.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,26 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.TransactionOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransactionOutboxRepository extends JpaRepository<TransactionOutbox, Long> {
+    
+    // Only one relay may run at a time so events of the same transaction are never sent out of order
+    @Query(nativeQuery = true, value = "SELECT pg_try_advisory_xact_lock(:lockId)")
+    boolean tryAcquireRelayLock(@Param("lockId") long lockId);
+    
+    @Query(nativeQuery = true, value = "SELECT * FROM transaction_outbox ORDER BY id LIMIT :limit")
+    List<TransactionOutbox> findOldest(@Param("limit") int limit);
+    
+    @Modifying
+    @Query("DELETE FROM TransactionOutbox o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,35 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.TransactionReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface TransactionReferenceRepository extends JpaRepository<TransactionReference, String> {
+
+    // Fails with a unique violation when the reference is already taken, rolling back the new transaction
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO transaction_references (reference, transaction_id, created_at) " +
+            "VALUES (:reference, :transactionId, :createdAt)")
+    int claim(@Param("reference") String reference,
+              @Param("transactionId") UUID transactionId,
+              @Param("createdAt") LocalDateTime createdAt);
+
+    // One-time backfill for transactions written before references were claimed here
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO transaction_references (reference, transaction_id, created_at) " +
+            "SELECT t.transaction_reference, t.id, t.created_at FROM transactions t ON CONFLICT DO NOTHING")
+    int backfillFromTransactions();
+
+    @Modifying
+    @Query("DELETE FROM TransactionReference r WHERE r.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
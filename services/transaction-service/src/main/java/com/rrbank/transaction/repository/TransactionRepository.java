@@ -1,15 +1,21 @@
 package com.rrbank.transaction.repository;
 
 import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.entity.TransactionReferenceGenerator;
+import com.rrbank.transaction.entity.UuidV7Generator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,60 +23,88 @@ import java.util.UUID;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
     
-    // Stats queries
-    long countByStatus(Transaction.TransactionStatus status);
-    long countByTransactionType(Transaction.TransactionType type);
+    // Paginated queries for admin; typed parameters keep the status/type indexes usable
+    Page<Transaction> findByStatus(Transaction.TransactionStatus status, Pageable pageable);
     
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.createdAt >= :since")
-    long countCreatedSince(@Param("since") LocalDateTime since);
+    Page<Transaction> findByTransactionType(Transaction.TransactionType type, Pageable pageable);
     
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.transactionType = :type AND t.status = 'COMPLETED'")
-    BigDecimal sumAmountByType(@Param("type") Transaction.TransactionType type);
+    Page<Transaction> findByStatusAndTransactionType(Transaction.TransactionStatus status,
+                                                     Transaction.TransactionType type,
+                                                     Pageable pageable);
     
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.createdAt >= :since AND t.status = 'COMPLETED'")
-    BigDecimal sumAmountSince(@Param("since") LocalDateTime since);
+    /*
+     * The table is partitioned by month on created_at. Lookups by id or reference bound
+     * created_at by the time embedded in the id or reference, so they read only one or two
+     * partitions instead of probing every partition's index. The margin allows for
+     * instances whose clocks or time zones differ.
+     *
+     * Updates and deletes of an entity carry created_at through @PartitionKey. The inherited
+     * findById and findAllById are not pruned, so they serve only as the fallback for ids
+     * without a timestamp. The sagas save() transactions that are already managed by the
+     * current persistence context, which merges without selecting them again.
+     */
+    Duration CREATION_TIME_MARGIN = Duration.ofDays(2);
     
-    // Paginated queries for admin
-    @Query("SELECT t FROM Transaction t WHERE CAST(t.status AS string) = :status")
-    Page<Transaction> findByStatusString(@Param("status") String status, Pageable pageable);
+    default Optional<Transaction> findByIdPruned(UUID id) {
+        return UuidV7Generator.timestampOf(id)
+                .map(at -> findByIdAndCreatedAtBetween(id, lowerBound(at), upperBound(at)))
+                .orElseGet(() -> findById(id));
+    }
     
-    @Query("SELECT t FROM Transaction t WHERE CAST(t.transactionType AS string) = :type")
-    Page<Transaction> findByTypeString(@Param("type") String type, Pageable pageable);
+    default Optional<Transaction> findByTransactionReference(String reference) {
+        return TransactionReferenceGenerator.timestampOf(reference)
+                .map(at -> findByTransactionReferenceAndCreatedAtBetween(reference, lowerBound(at), upperBound(at)))
+                .orElseGet(() -> findFirstByTransactionReference(reference));
+    }
     
-    Optional<Transaction> findByTransactionReference(String reference);
+    default List<Transaction> findAllByIdPruned(Collection<UUID> ids) {
+        List<Instant> times = ids.stream()
+                .map(UuidV7Generator::timestampOf)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+        if (times.isEmpty() || times.size() < ids.size()) {
+            return findAllById(ids);
+        }
+        return findByIdInAndCreatedAtBetween(ids, lowerBound(times.get(0)), upperBound(times.get(times.size() - 1)));
+    }
     
-    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+    Optional<Transaction> findByIdAndCreatedAtBetween(UUID id, LocalDateTime from, LocalDateTime to);
     
-    Page<Transaction> findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(
-            UUID fromAccountId, UUID toAccountId, Pageable pageable);
+    Optional<Transaction> findByTransactionReferenceAndCreatedAtBetween(String reference,
+                                                                        LocalDateTime from,
+                                                                        LocalDateTime to);
+    
+    Optional<Transaction> findFirstByTransactionReference(String reference);
+    
+    // Callers that already know each row's created_at pass its range, e.g. from account_transactions
+    List<Transaction> findByIdInAndCreatedAtBetween(Collection<UUID> ids, LocalDateTime from, LocalDateTime to);
+    
+    // The key row carries created_at, so only that partition is probed
+    @Query("SELECT t FROM Transaction t, TransactionIdempotencyKey k " +
+           "WHERE k.idempotencyKey = :key AND t.id = k.transactionId AND t.createdAt = k.createdAt")
+    Optional<Transaction> findByIdempotencyKey(@Param("key") String idempotencyKey);
     
     Page<Transaction> findByInitiatedByOrderByCreatedAtDesc(UUID userId, Pageable pageable);
     
-    // Date range filtering
-    @Query("SELECT t FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
-           "AND t.createdAt >= :startDate AND t.createdAt <= :endDate ORDER BY t.createdAt DESC")
-    Page<Transaction> findByAccountIdAndDateRange(
-            @Param("accountId") UUID accountId,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            Pageable pageable);
-    
-    // Date range filtering with transaction type
-    @Query("SELECT t FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
-           "AND t.createdAt >= :startDate AND t.createdAt <= :endDate " +
-           "AND (:type IS NULL OR t.transactionType = :type) ORDER BY t.createdAt DESC")
-    Page<Transaction> findByAccountIdAndDateRangeAndType(
-            @Param("accountId") UUID accountId,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate,
-            @Param("type") Transaction.TransactionType type,
-            Pageable pageable);
-    
-    // For export - get all transactions without pagination
-    @Query("SELECT t FROM Transaction t WHERE (t.fromAccountId = :accountId OR t.toAccountId = :accountId) " +
-           "AND t.createdAt >= :startDate AND t.createdAt <= :endDate ORDER BY t.createdAt DESC")
-    List<Transaction> findAllByAccountIdAndDateRange(
-            @Param("accountId") UUID accountId,
-            @Param("startDate") LocalDateTime startDate,
-            @Param("endDate") LocalDateTime endDate);
+    // Settles every transaction of a batch chunk in one statement; the chunk's created_at range prunes partitions
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :status, t.failureReason = :failureReason, " +
+           "t.completedAt = :completedAt, t.updatedAt = :updatedAt " +
+           "WHERE t.id IN :ids AND t.createdAt BETWEEN :createdFrom AND :createdTo")
+    int settleAll(@Param("ids") Collection<UUID> ids,
+                  @Param("createdFrom") LocalDateTime createdFrom,
+                  @Param("createdTo") LocalDateTime createdTo,
+                  @Param("status") Transaction.TransactionStatus status,
+                  @Param("failureReason") String failureReason,
+                  @Param("completedAt") LocalDateTime completedAt,
+                  @Param("updatedAt") LocalDateTime updatedAt);
+    
+    private static LocalDateTime lowerBound(Instant at) {
+        return LocalDateTime.ofInstant(at.minus(CREATION_TIME_MARGIN), ZoneId.systemDefault());
+    }
+    
+    private static LocalDateTime upperBound(Instant at) {
+        return LocalDateTime.ofInstant(at.plus(CREATION_TIME_MARGIN), ZoneId.systemDefault());
+    }
 }
@@ -0,0 +1,64 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.TransactionStatsRollup;
+import com.rrbank.transaction.entity.TransactionStatsRollup.BucketKey;
+import com.rrbank.transaction.entity.TransactionStatsRollup.Granularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionStatsRollupRepository extends JpaRepository<TransactionStatsRollup, BucketKey> {
+
+    @Query("SELECT r FROM TransactionStatsRollup r WHERE r.key.granularity = :granularity AND r.key.bucketStart >= :since")
+    List<TransactionStatsRollup> findBuckets(@Param("granularity") Granularity granularity,
+                                             @Param("since") LocalDateTime since);
+
+    @Query("SELECT r FROM TransactionStatsRollup r WHERE r.key.granularity = :granularity " +
+           "AND r.key.bucketStart >= :from AND r.key.bucketStart < :to")
+    List<TransactionStatsRollup> findBucketsBetween(@Param("granularity") Granularity granularity,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to);
+
+    // Additive upsert so every node can flush its own deltas concurrently
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value =
+            "INSERT INTO transaction_stats_rollup (granularity, bucket_start, transaction_type, status, tx_count, volume, updated_at) " +
+            "VALUES (:granularity, :bucketStart, :type, :status, :count, :volume, now()) " +
+            "ON CONFLICT (granularity, bucket_start, transaction_type, status) DO UPDATE SET " +
+            "tx_count = transaction_stats_rollup.tx_count + EXCLUDED.tx_count, " +
+            "volume = transaction_stats_rollup.volume + EXCLUDED.volume, " +
+            "updated_at = now()")
+    int addDelta(@Param("granularity") String granularity,
+                 @Param("bucketStart") LocalDateTime bucketStart,
+                 @Param("type") String type,
+                 @Param("status") String status,
+                 @Param("count") long count,
+                 @Param("volume") BigDecimal volume);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TransactionStatsRollup r WHERE r.key.granularity = :granularity AND r.key.bucketStart < :before")
+    int deleteOlderThan(@Param("granularity") Granularity granularity, @Param("before") LocalDateTime before);
+
+    // One-time backfill from the transactions table. In-flight statuses are folded into PENDING.
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO transaction_stats_rollup (granularity, bucket_start, transaction_type, status, tx_count, volume, updated_at) " +
+            "SELECT :granularity, CASE WHEN :granularity = 'TOTAL' THEN TIMESTAMP '1970-01-01 00:00:00' " +
+            "ELSE date_trunc(lower(:granularity), t.created_at) END, t.transaction_type, " +
+            "CASE WHEN t.status IN ('PENDING', 'PROCESSING') THEN 'PENDING' ELSE t.status END, " +
+            "COUNT(*), COALESCE(SUM(t.amount), 0), now() " +
+            "FROM transactions t WHERE t.created_at >= :since GROUP BY 2, 3, 4 " +
+            "ON CONFLICT (granularity, bucket_start, transaction_type, status) DO UPDATE SET " +
+            "tx_count = EXCLUDED.tx_count, volume = EXCLUDED.volume, updated_at = now()")
+    int backfill(@Param("granularity") String granularity, @Param("since") LocalDateTime since);
+}
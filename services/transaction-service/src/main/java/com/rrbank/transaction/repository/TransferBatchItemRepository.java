@@ -0,0 +1,58 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.TransferBatchItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TransferBatchItemRepository extends JpaRepository<TransferBatchItem, UUID> {
+    
+    Page<TransferBatchItem> findByBatchIdOrderBySequenceNo(UUID batchId, Pageable pageable);
+    
+    // Next chunk of work, read in sequence order
+    @Query("SELECT i FROM TransferBatchItem i WHERE i.batchId = :batchId AND i.sequenceNo > :afterSequence " +
+           "AND i.status = com.rrbank.transaction.entity.TransferBatchItem.ItemStatus.PENDING ORDER BY i.sequenceNo")
+    List<TransferBatchItem> findPendingChunk(@Param("batchId") UUID batchId,
+                                             @Param("afterSequence") int afterSequence,
+                                             Pageable pageable);
+    
+    // Items whose posting was sent but never settled, e.g. because the instance stopped mid-chunk
+    @Query("SELECT i FROM TransferBatchItem i WHERE i.batchId = :batchId " +
+           "AND i.status = com.rrbank.transaction.entity.TransferBatchItem.ItemStatus.PROCESSING ORDER BY i.sequenceNo")
+    List<TransferBatchItem> findInFlight(@Param("batchId") UUID batchId);
+    
+    boolean existsByBatchIdAndStatusNot(UUID batchId, TransferBatchItem.ItemStatus status);
+    
+    @Query("SELECT MAX(i.amount) FROM TransferBatchItem i WHERE i.batchId = :batchId")
+    BigDecimal findMaxAmount(@Param("batchId") UUID batchId);
+    
+    // Settles the in-flight items of one chunk in one statement
+    @Modifying
+    @Query("UPDATE TransferBatchItem i SET i.status = :status, i.failureReason = :failureReason, i.updatedAt = :updatedAt " +
+           "WHERE i.batchId = :batchId AND i.sequenceNo BETWEEN :fromSequence AND :toSequence " +
+           "AND i.status = com.rrbank.transaction.entity.TransferBatchItem.ItemStatus.PROCESSING")
+    int settleChunk(@Param("batchId") UUID batchId,
+                    @Param("fromSequence") int fromSequence,
+                    @Param("toSequence") int toSequence,
+                    @Param("status") TransferBatchItem.ItemStatus status,
+                    @Param("failureReason") String failureReason,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Modifying
+    @Query("UPDATE TransferBatchItem i SET i.status = com.rrbank.transaction.entity.TransferBatchItem.ItemStatus.FAILED, " +
+           "i.failureReason = :failureReason, i.updatedAt = :updatedAt WHERE i.batchId = :batchId " +
+           "AND i.status = com.rrbank.transaction.entity.TransferBatchItem.ItemStatus.PENDING")
+    int failPending(@Param("batchId") UUID batchId,
+                    @Param("failureReason") String failureReason,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+}
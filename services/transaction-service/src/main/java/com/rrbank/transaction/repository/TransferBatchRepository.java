@@ -0,0 +1,44 @@
+package com.rrbank.transaction.repository;
+
+import com.rrbank.transaction.entity.TransferBatch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TransferBatchRepository extends JpaRepository<TransferBatch, UUID> {
+    
+    Optional<TransferBatch> findByIdempotencyKey(String idempotencyKey);
+    
+    // Batches still open but untouched since staleBefore: their executor died or never started
+    @Query("SELECT b.id FROM TransferBatch b WHERE b.status IN :statuses AND b.updatedAt < :staleBefore ORDER BY b.updatedAt")
+    List<UUID> findStale(@Param("statuses") Collection<TransferBatch.BatchStatus> statuses,
+                         @Param("staleBefore") LocalDateTime staleBefore,
+                         Pageable pageable);
+    
+    // Only one instance wins the claim: it moves updatedAt forward past staleBefore
+    @Modifying
+    @Query("UPDATE TransferBatch b SET b.updatedAt = :now WHERE b.id = :batchId " +
+           "AND b.status IN :statuses AND b.updatedAt < :staleBefore")
+    int claimStale(@Param("batchId") UUID batchId,
+                   @Param("statuses") Collection<TransferBatch.BatchStatus> statuses,
+                   @Param("staleBefore") LocalDateTime staleBefore,
+                   @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE TransferBatch b SET b.completedItems = b.completedItems + :completed, " +
+           "b.failedItems = b.failedItems + :failed, b.updatedAt = :updatedAt WHERE b.id = :batchId")
+    int addProgress(@Param("batchId") UUID batchId,
+                    @Param("completed") int completed,
+                    @Param("failed") int failed,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,320 @@
+package com.rrbank.transaction.rpc;
+
+import com.rrbank.transaction.service.LedgerServiceClient.PostingLeg;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.rrbank.transaction.rpc.LedgerRpcProtocol.*;
+
+/**
+ * Client side of the binary ledger RPC channel. Keeps a few persistent connections to
+ * ledger-service and spreads requests over them round-robin; each connection carries many
+ * requests at once, matched to their responses by request id, so no call waits for a socket.
+ *
+ * Connections are opened lazily. After a failed connect the slot is not retried for
+ * {@code ledger.rpc.reconnect-backoff}, and calls in the meantime fail fast with
+ * {@link LedgerRpcUnavailableException}.
+ */
+@Component
+@ConditionalOnProperty(name = "ledger.rpc.enabled", havingValue = "true")
+@Slf4j
+public class LedgerRpcClient implements DisposableBean {
+
+    private final String host;
+    private final int port;
+    private final Duration timeout;
+    private final int connectTimeoutMs;
+    private final long reconnectBackoffNanos;
+    private final Slot[] slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicLong requestIds = new AtomicLong();
+
+    public LedgerRpcClient(@Value("${ledger.rpc.host:localhost}") String host,
+                           @Value("${ledger.rpc.port:9085}") int port,
+                           @Value("${ledger.rpc.connections:2}") int connections,
+                           @Value("${ledger.rpc.timeout:10s}") Duration timeout,
+                           @Value("${ledger.rpc.connect-timeout:1s}") Duration connectTimeout,
+                           @Value("${ledger.rpc.reconnect-backoff:5s}") Duration reconnectBackoff) {
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+        this.connectTimeoutMs = (int) connectTimeout.toMillis();
+        this.reconnectBackoffNanos = reconnectBackoff.toNanos();
+        this.slots = new Slot[Math.max(1, connections)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot(i);
+        }
+        log.info("=== Ledger RPC client targeting {}:{} with {} connections ===", host, port, slots.length);
+    }
+
+    /**
+     * Returns the account's running balance after the credit.
+     */
+    public BigDecimal credit(UUID accountId, UUID transactionId, BigDecimal amount, String description) {
+        return post(OP_CREDIT, accountId, transactionId, amount, description);
+    }
+
+    /**
+     * Returns the account's running balance after the debit.
+     */
+    public BigDecimal debit(UUID accountId, UUID transactionId, BigDecimal amount, String description) {
+        return post(OP_DEBIT, accountId, transactionId, amount, description);
+    }
+
+    public BigDecimal getBalance(UUID accountId) {
+        try {
+            DataInputStream in = call(OP_BALANCE, out -> writeUuid(out, accountId), timeout);
+            return readDecimal(in);
+        } catch (IOException e) {
+            throw new LedgerRpcException("Malformed ledger RPC response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the number of legs posted.
+     */
+    public int postMultiLeg(UUID debitAccountId, List<PostingLeg> legs, Duration timeout) {
+        try {
+            DataInputStream in = call(OP_MULTI_LEG, out -> {
+                writeUuid(out, debitAccountId);
+                out.writeInt(legs.size());
+                for (PostingLeg leg : legs) {
+                    writeUuid(out, leg.transactionId);
+                    writeUuid(out, leg.creditAccountId);
+                    writeDecimal(out, leg.amount);
+                    writeString(out, leg.description);
+                }
+            }, timeout);
+            return in.readInt();
+        } catch (IOException e) {
+            throw new LedgerRpcException("Malformed ledger RPC response: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Slot slot : slots) {
+            slot.close();
+        }
+    }
+
+    private BigDecimal post(byte op, UUID accountId, UUID transactionId, BigDecimal amount, String description) {
+        try {
+            DataInputStream in = call(op, out -> {
+                writeUuid(out, accountId);
+                writeUuid(out, transactionId);
+                writeDecimal(out, amount);
+                writeString(out, description);
+            }, timeout);
+            readUuid(in); // entry id
+            return readDecimal(in);
+        } catch (IOException e) {
+            throw new LedgerRpcException("Malformed ledger RPC response: " + e.getMessage(), e);
+        }
+    }
+
+    private DataInputStream call(byte op, BodyWriter writer, Duration timeout) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(96);
+        writer.write(new DataOutputStream(buffer));
+        byte[] body = buffer.toByteArray();
+
+        Slot slot = slots[Math.floorMod(nextSlot.getAndIncrement(), slots.length)];
+        Channel channel = slot.acquire();
+        long requestId = requestIds.incrementAndGet();
+        CompletableFuture<Response> future = channel.send(requestId, op, body);
+
+        Response response;
+        try {
+            response = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            channel.pending.remove(requestId);
+            throw new LedgerRpcTransportException("No ledger RPC response within " + timeout.toMillis() + "ms", e);
+        } catch (InterruptedException e) {
+            channel.pending.remove(requestId);
+            Thread.currentThread().interrupt();
+            throw new LedgerRpcTransportException("Interrupted waiting for ledger RPC response", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof LedgerRpcException rpc
+                    ? rpc
+                    : new LedgerRpcTransportException(e.getCause().getMessage(), e.getCause());
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(response.body()));
+        if (response.status() == STATUS_REJECTED) {
+            throw new LedgerRpcRejectedException(readString(in));
+        }
+        if (response.status() != STATUS_OK) {
+            throw new LedgerRpcException(readString(in));
+        }
+        return in;
+    }
+
+    private Channel connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+            socket.setSoTimeout(connectTimeoutMs);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.flush();
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unexpected handshake reply from " + host + ":" + port);
+            }
+            socket.setSoTimeout(0);
+            return new Channel(socket, in, out);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * One of the pool's connection positions; reconnects when its channel is gone.
+     */
+    private final class Slot {
+        private final int index;
+        private Channel channel;
+        private long retryAt;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        synchronized Channel acquire() {
+            if (channel != null && !channel.closed) {
+                return channel;
+            }
+            if (retryAt != 0 && System.nanoTime() - retryAt < 0) {
+                throw new LedgerRpcUnavailableException("Ledger RPC connection " + index + " is backing off", null);
+            }
+            try {
+                channel = connect();
+                retryAt = 0;
+                Thread reader = new Thread(channel::readLoop, "LedgerRpc-reader-" + index);
+                reader.setDaemon(true);
+                reader.start();
+                log.info("Ledger RPC connection {} established to {}:{}", index, host, port);
+                return channel;
+            } catch (IOException e) {
+                retryAt = System.nanoTime() + reconnectBackoffNanos;
+                log.warn("Ledger RPC connection {} to {}:{} failed: {}", index, host, port, e.getMessage());
+                throw new LedgerRpcUnavailableException("Ledger RPC connect failed: " + e.getMessage(), e);
+            }
+        }
+
+        synchronized void close() {
+            if (channel != null) {
+                channel.close(new IOException("Ledger RPC client shut down"));
+            }
+        }
+    }
+
+    /**
+     * A single open socket and the requests in flight on it.
+     */
+    private static final class Channel {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Map<Long, CompletableFuture<Response>> pending = new ConcurrentHashMap<>();
+        private volatile boolean closed;
+
+        Channel(Socket socket, DataInputStream in, DataOutputStream out) {
+            this.socket = socket;
+            this.in = in;
+            this.out = out;
+        }
+
+        CompletableFuture<Response> send(long requestId, byte op, byte[] body) {
+            CompletableFuture<Response> future = new CompletableFuture<>();
+            synchronized (out) {
+                if (closed) {
+                    throw new LedgerRpcUnavailableException("Ledger RPC connection closed", null);
+                }
+                pending.put(requestId, future);
+                try {
+                    out.writeInt(9 + body.length);
+                    out.writeLong(requestId);
+                    out.writeByte(op);
+                    out.write(body);
+                    out.flush();
+                } catch (IOException e) {
+                    // Part of the frame may already be on the wire
+                    pending.remove(requestId);
+                    close(e);
+                    throw new LedgerRpcTransportException("Ledger RPC send failed: " + e.getMessage(), e);
+                }
+            }
+            if (closed && pending.remove(requestId) != null) {
+                throw new LedgerRpcTransportException("Ledger RPC connection lost before response", null);
+            }
+            return future;
+        }
+
+        void readLoop() {
+            try {
+                while (true) {
+                    int length = in.readInt();
+                    if (length < 9 || length > MAX_FRAME_BYTES) {
+                        throw new IOException("Bad frame length: " + length);
+                    }
+                    long requestId = in.readLong();
+                    byte status = in.readByte();
+                    byte[] body = new byte[length - 9];
+                    in.readFully(body);
+                    CompletableFuture<Response> future = pending.remove(requestId);
+                    if (future != null) {
+                        future.complete(new Response(status, body));
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("Ledger RPC connection lost: {}", e instanceof EOFException ? "closed by ledger-service" : e.getMessage());
+                }
+                close(e);
+            }
+        }
+
+        void close(IOException cause) {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            for (Long requestId : pending.keySet()) {
+                CompletableFuture<Response> future = pending.remove(requestId);
+                if (future != null) {
+                    future.completeExceptionally(
+                            new LedgerRpcTransportException("Ledger RPC connection lost before response", cause));
+                }
+            }
+        }
+    }
+
+    private record Response(byte status, byte[] body) {
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,15 @@
+package com.rrbank.transaction.rpc;
+
+/**
+ * The ledger answered a binary RPC request with a rejection or an error. Nothing was posted.
+ */
+public class LedgerRpcException extends RuntimeException {
+
+    public LedgerRpcException(String message) {
+        super(message);
+    }
+
+    public LedgerRpcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
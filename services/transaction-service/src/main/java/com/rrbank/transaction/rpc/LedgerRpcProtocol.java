@@ -0,0 +1,101 @@
+package com.rrbank.transaction.rpc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Wire format of the internal ledger RPC channel. ledger-service owns the definition; this is a
+ * copy because the image is built from this service's directory alone. LedgerRpcProtocolTest
+ * fails while it differs from ledger-service's file, so change both together and bump
+ * {@link #VERSION} whenever the format changes.
+ *
+ * <pre>
+ * handshake  client -> server: int MAGIC, int VERSION      server -> client: int MAGIC
+ * frame      int length (of what follows), long requestId, byte code, body
+ *            code is an OP_* in requests and a STATUS_* in responses
+ *
+ * OP_CREDIT / OP_DEBIT   uuid accountId, uuid transactionId, decimal amount, string description
+ *                        -> uuid entryId, decimal runningBalance
+ * OP_BALANCE             uuid accountId -> decimal balance
+ * OP_MULTI_LEG           uuid debitAccountId, int legs, legs x (uuid transactionId, uuid creditAccountId,
+ *                        decimal amount, string description) -> int legsPosted, decimal total, decimal debitBalance
+ * STATUS_REJECTED / STATUS_ERROR   string message
+ *
+ * uuid    = long msb, long lsb
+ * decimal = int scale, byte n, n bytes of the two's-complement unscaled value
+ * string  = int n (-1 for null), n bytes of UTF-8
+ * </pre>
+ *
+ * Responses may come back in any order; requestId matches them to requests, so a client can keep
+ * many requests in flight on one connection.
+ */
+public final class LedgerRpcProtocol {
+
+    public static final int MAGIC = 0x52524C31; // "RRL1"
+    public static final int VERSION = 1;
+    public static final int MAX_FRAME_BYTES = 4 * 1024 * 1024;
+
+    public static final byte OP_CREDIT = 1;
+    public static final byte OP_DEBIT = 2;
+    public static final byte OP_BALANCE = 3;
+    public static final byte OP_MULTI_LEG = 4;
+
+    public static final byte STATUS_OK = 0;
+    // The ledger refused the posting (e.g. insufficient balance); nothing was written
+    public static final byte STATUS_REJECTED = 1;
+    public static final byte STATUS_ERROR = 2;
+
+    private LedgerRpcProtocol() {
+    }
+
+    public static void writeUuid(DataOutput out, UUID value) throws IOException {
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    public static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    public static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    public static BigDecimal readDecimal(DataInput in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_FRAME_BYTES) {
+            throw new IOException("String length out of range: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,12 @@
+package com.rrbank.transaction.rpc;
+
+/**
+ * The ledger handled a binary RPC request and refused it, e.g. for insufficient funds.
+ * Nothing was posted, and sending the same request again would be refused the same way.
+ */
+public class LedgerRpcRejectedException extends LedgerRpcException {
+
+    public LedgerRpcRejectedException(String message) {
+        super(message);
+    }
+}
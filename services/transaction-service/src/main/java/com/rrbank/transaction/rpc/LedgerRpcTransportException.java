@@ -0,0 +1,15 @@
+package com.rrbank.transaction.rpc;
+
+/**
+ * The request may have reached the ledger but no answer came back (timeout or connection lost).
+ * The ledger books a transaction at most once per account and side, so posting it again later is
+ * safe, which is how batch recovery settles these. It is not resent over HTTP straight away: the
+ * ledger does not serialise duplicate postings, so a resend racing the original would fail on the
+ * unique entry constraint and come back as if the ledger had rejected it.
+ */
+public class LedgerRpcTransportException extends LedgerRpcException {
+
+    public LedgerRpcTransportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.rrbank.transaction.rpc;
+
+/**
+ * No RPC connection to the ledger could be used and the request was never sent, so it is safe
+ * to send it over HTTP instead.
+ */
+public class LedgerRpcUnavailableException extends LedgerRpcTransportException {
+
+    public LedgerRpcUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,458 @@
+package com.rrbank.transaction.saga;
+
+import com.rrbank.transaction.dto.TransactionDTOs.*;
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.entity.TransferBatch;
+import com.rrbank.transaction.entity.TransferBatchItem;
+import com.rrbank.transaction.event.TransactionEventProducer;
+import com.rrbank.transaction.exception.LedgerRejectedException;
+import com.rrbank.transaction.repository.TransactionIdempotencyKeyRepository;
+import com.rrbank.transaction.repository.TransactionReferenceRepository;
+import com.rrbank.transaction.repository.TransactionRepository;
+import com.rrbank.transaction.repository.TransferBatchItemRepository;
+import com.rrbank.transaction.repository.TransferBatchRepository;
+import com.rrbank.transaction.service.AccountTransactionIndexer;
+import com.rrbank.transaction.service.FraudServiceClient;
+import com.rrbank.transaction.service.LedgerServiceClient;
+import com.rrbank.transaction.service.LedgerServiceClient.PostingLeg;
+import com.rrbank.transaction.service.TransactionStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Executes a bulk transfer batch in chunks.
+ *
+ * The payer is fraud-checked once for the whole batch. Each chunk becomes one multi-leg
+ * ledger posting, and the next chunk's transactions are written while the current
+ * posting is still in flight, so database work and ledger round trips overlap.
+ * Postings themselves stay strictly sequential, so the payer balance is consumed in
+ * item order.
+ *
+ * A chunk is failed only when the ledger rejects its posting, and no chunk after it is
+ * submitted: the batch finishes with the items before the rejected chunk posted and the rest
+ * failed. When a posting's outcome is unknown, e.g. after a timeout, its items are left
+ * PROCESSING and the run stops; {@link BatchTransferRecovery} picks the batch up once it is
+ * stale and posts them again, which the ledger books at most once per transaction.
+ */
+@Component
+@Slf4j
+public class BatchTransferOrchestrator {
+
+    public static final String SAGA_TYPE = "BATCH_TRANSFER";
+
+    private final TransferBatchRepository batchRepository;
+    private final TransferBatchItemRepository itemRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionReferenceRepository referenceRepository;
+    private final AccountTransactionIndexer accountTransactionIndexer;
+    private final LedgerServiceClient ledgerClient;
+    private final FraudServiceClient fraudClient;
+    private final TransactionEventProducer eventProducer;
+    private final TransactionStatsService statsService;
+    private final SagaMetrics sagaMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor pipelineExecutor;
+    private final int chunkSize;
+
+    public BatchTransferOrchestrator(TransferBatchRepository batchRepository,
+                                     TransferBatchItemRepository itemRepository,
+                                     TransactionRepository transactionRepository,
+                                     TransactionIdempotencyKeyRepository idempotencyKeyRepository,
+                                     TransactionReferenceRepository referenceRepository,
+                                     AccountTransactionIndexer accountTransactionIndexer,
+                                     LedgerServiceClient ledgerClient,
+                                     FraudServiceClient fraudClient,
+                                     TransactionEventProducer eventProducer,
+                                     TransactionStatsService statsService,
+                                     SagaMetrics sagaMetrics,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("batchPipelineExecutor") Executor pipelineExecutor,
+                                     @Value("${transaction.batch.chunk-size:100}") int chunkSize) {
+        this.batchRepository = batchRepository;
+        this.itemRepository = itemRepository;
+        this.transactionRepository = transactionRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.referenceRepository = referenceRepository;
+        this.accountTransactionIndexer = accountTransactionIndexer;
+        this.ledgerClient = ledgerClient;
+        this.fraudClient = fraudClient;
+        this.eventProducer = eventProducer;
+        this.statsService = statsService;
+        this.sagaMetrics = sagaMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pipelineExecutor = pipelineExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    @Async("batchTransferExecutor")
+    public void execute(UUID batchId) {
+        log.info("=== Starting BATCH TRANSFER for batch: {} ===", batchId);
+        run(batchId, false);
+    }
+
+    /**
+     * Picks up a batch whose executor went away, e.g. with the instance that ran it. The
+     * chunk that was at the ledger is posted again, which the ledger books at most once per
+     * transaction, and settled; the remaining pending items then run as usual.
+     */
+    @Async("batchTransferExecutor")
+    public void resume(UUID batchId) {
+        log.info("=== Resuming BATCH TRANSFER for batch: {} ===", batchId);
+        run(batchId, true);
+    }
+
+    private void run(UUID batchId, boolean resuming) {
+        TransferBatch batch = transactionTemplate.execute(status -> start(batchId, resuming));
+        if (batch == null) {
+            log.info("Batch {} is not {}, skipping", batchId, resuming ? "open" : "pending");
+            return;
+        }
+
+        SagaMetrics.SagaTrace trace = sagaMetrics.begin(SAGA_TYPE);
+        boolean completed = false;
+        try {
+            // Step 1: One aggregate fraud check for the payer, unless a resumed batch already passed it
+            if (!resuming || !itemRepository.existsByBatchIdAndStatusNot(batchId, TransferBatchItem.ItemStatus.PENDING)) {
+                log.info("Step 1: Performing aggregate fraud check for {} items, total {}",
+                        batch.getTotalItems(), batch.getTotalAmount());
+                trace.step("fraud_check");
+                FraudCheckResponse fraudResponse = fraudClient.checkTransaction(
+                        FraudCheckRequest.builder()
+                                .accountId(batch.getFromAccountId())
+                                .userId(batch.getInitiatedBy())
+                                .transactionType(SAGA_TYPE)
+                                .amount(batch.getTotalAmount())
+                                .itemCount(batch.getTotalItems())
+                                .maxItemAmount(itemRepository.findMaxAmount(batchId))
+                                .build()
+                );
+                trace.endStep();
+                log.info("Fraud check response: decision={}, reason={}",
+                        fraudResponse.getDecision(), fraudResponse.getReason());
+
+                if ("REJECT".equals(fraudResponse.getDecision())) {
+                    abort(batchId, "Batch rejected by fraud check: " + fraudResponse.getReason());
+                    return;
+                }
+            }
+
+            Posting outcome = resuming ? redriveInFlight(batch) : Posting.POSTED;
+
+            // Step 2: Post chunks, preparing chunk n+1 while chunk n is at the ledger
+            if (outcome.result() == Result.POSTED) {
+                log.info("Step 2: Posting items in chunks of {}", chunkSize);
+                Chunk current = prepareChunkTimed(batch, 0);
+                while (current != null) {
+                    Chunk posting = current;
+                    CompletableFuture<Void> inFlight = CompletableFuture.runAsync(
+                            () -> sagaMetrics.timeStep(SAGA_TYPE, "ledger_multi_leg",
+                                    () -> ledgerClient.postMultiLeg(batch.getFromAccountId(), posting.legs())),
+                            pipelineExecutor);
+
+                    Chunk next = null;
+                    RuntimeException prepareFailure = null;
+                    try {
+                        next = prepareChunkTimed(batch, posting.lastSequence());
+                    } catch (RuntimeException e) {
+                        prepareFailure = e;
+                    }
+
+                    outcome = await(inFlight, posting);
+                    if (outcome.result() == Result.UNKNOWN) {
+                        break;
+                    }
+                    settleChunkTimed(batchId, posting, outcome.failureReason());
+                    if (outcome.result() == Result.REJECTED) {
+                        if (next != null) {
+                            // Written already but never submitted
+                            settleChunkTimed(batchId, next, outcome.failureReason());
+                        }
+                        break;
+                    }
+                    if (prepareFailure != null) {
+                        throw prepareFailure;
+                    }
+                    current = next;
+                }
+            }
+
+            if (outcome.result() == Result.UNKNOWN) {
+                log.warn("=== BATCH TRANSFER {} left open: {}; in-flight items are posted again on recovery ===",
+                        batchId, outcome.failureReason());
+                return;
+            }
+
+            // Step 3: Mark batch finished
+            trace.step("mark_finished");
+            String stopReason = outcome.failureReason();
+            TransferBatch finished = transactionTemplate.execute(status -> finish(batchId, stopReason));
+            completed = true;
+            log.info("=== BATCH TRANSFER finished for {}: status={}, completed={}, failed={} ===",
+                    batchId, finished.getStatus(), finished.getCompletedItems(), finished.getFailedItems());
+
+        } catch (Exception e) {
+            log.error("=== BATCH TRANSFER FAILED for: {} ===", batchId);
+            log.error("Error details: {}", e.getMessage(), e);
+            trace.failStep();
+            try {
+                abort(batchId, e.getMessage());
+            } catch (Exception ae) {
+                log.error("Failed to mark batch {} as failed: {}", batchId, ae.getMessage());
+            }
+        } finally {
+            trace.end(completed);
+        }
+    }
+
+    private TransferBatch start(UUID batchId, boolean resuming) {
+        TransferBatch batch = batchRepository.findById(batchId).orElse(null);
+        if (batch == null) {
+            return null;
+        }
+        if (batch.getStatus() == TransferBatch.BatchStatus.PENDING) {
+            batch.markProcessing();
+            return batchRepository.save(batch);
+        }
+        return resuming && batch.getStatus() == TransferBatch.BatchStatus.PROCESSING ? batch : null;
+    }
+
+    /**
+     * Posts and settles the items a stopped executor left PROCESSING, chunk by chunk. Their
+     * transactions already exist, so the legs carry the same transaction ids as before. Each
+     * of them may have been posted already, so a rejected chunk does not stop the ones after
+     * it from being posted again, but does stop the pending items from being submitted.
+     */
+    private Posting redriveInFlight(TransferBatch batch) {
+        List<TransferBatchItem> inFlight = itemRepository.findInFlight(batch.getId());
+        if (!inFlight.isEmpty()) {
+            log.info("Re-driving {} in-flight items of batch {}", inFlight.size(), batch.getId());
+        }
+        Posting outcome = Posting.POSTED;
+        for (int from = 0; from < inFlight.size(); from += chunkSize) {
+            Chunk chunk = inFlightChunk(inFlight.subList(from, Math.min(from + chunkSize, inFlight.size())));
+            Posting posting = post(batch, chunk);
+            if (posting.result() == Result.UNKNOWN) {
+                return posting;
+            }
+            settleChunkTimed(batch.getId(), chunk, posting.failureReason());
+            if (outcome.result() == Result.POSTED) {
+                outcome = posting;
+            }
+        }
+        return outcome;
+    }
+
+    private Posting post(TransferBatch batch, Chunk chunk) {
+        try {
+            sagaMetrics.timeStep(SAGA_TYPE, "ledger_multi_leg",
+                    () -> ledgerClient.postMultiLeg(batch.getFromAccountId(), chunk.legs()));
+            return Posting.POSTED;
+        } catch (RuntimeException e) {
+            return failed(e, chunk);
+        }
+    }
+
+    private Chunk inFlightChunk(List<TransferBatchItem> items) {
+        Map<UUID, Transaction> byId = new HashMap<>();
+        transactionRepository.findAllByIdPruned(items.stream().map(TransferBatchItem::getTransactionId).toList())
+                .forEach(transaction -> byId.put(transaction.getId(), transaction));
+
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        List<PostingLeg> legs = new ArrayList<>(items.size());
+        for (TransferBatchItem item : items) {
+            Transaction transaction = byId.get(item.getTransactionId());
+            if (transaction == null) {
+                throw new IllegalStateException("Transaction " + item.getTransactionId()
+                        + " of batch item " + item.getId() + " not found");
+            }
+            transactions.add(transaction);
+            legs.add(new PostingLeg(transaction.getId(), item.getToAccountId(),
+                    transaction.getAmount(), transaction.getDescription()));
+        }
+        return new Chunk(items.get(0).getSequenceNo(), items.get(items.size() - 1).getSequenceNo(),
+                transactions, legs);
+    }
+
+    private Chunk prepareChunkTimed(TransferBatch batch, int afterSequence) {
+        return sagaMetrics.timeStep(SAGA_TYPE, "prepare_chunk",
+                () -> transactionTemplate.execute(status -> prepareChunk(batch, afterSequence)));
+    }
+
+    private Chunk prepareChunk(TransferBatch batch, int afterSequence) {
+        List<TransferBatchItem> items = itemRepository.findPendingChunk(
+                batch.getId(), afterSequence, PageRequest.of(0, chunkSize));
+        if (items.isEmpty()) {
+            return null;
+        }
+
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        for (TransferBatchItem item : items) {
+            Transaction transaction = Transaction.builder()
+                    .fromAccountId(batch.getFromAccountId())
+                    .toAccountId(item.getToAccountId())
+                    .transactionType(Transaction.TransactionType.TRANSFER)
+                    .amount(item.getAmount())
+                    .description(describe(batch, item))
+                    .idempotencyKey("batch:" + batch.getId() + ":" + item.getSequenceNo())
+                    .initiatedBy(batch.getInitiatedBy())
+                    .build();
+            transaction.markProcessing();
+            transactions.add(transaction);
+        }
+        transactions = transactionRepository.saveAll(transactions);
+
+        List<PostingLeg> legs = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            TransferBatchItem item = items.get(i);
+            referenceRepository.claim(transaction.getTransactionReference(), transaction.getId(), transaction.getCreatedAt());
+            idempotencyKeyRepository.claim(transaction.getIdempotencyKey(), transaction.getId(), transaction.getCreatedAt());
+            accountTransactionIndexer.index(transaction);
+            statsService.recordInitiated(transaction);
+            item.setStatus(TransferBatchItem.ItemStatus.PROCESSING);
+            item.setTransactionId(transaction.getId());
+            legs.add(new PostingLeg(transaction.getId(), item.getToAccountId(),
+                    transaction.getAmount(), transaction.getDescription()));
+        }
+
+        for (Transaction transaction : transactions) {
+            try {
+                eventProducer.publishTransactionInitiated(transaction);
+            } catch (Exception e) {
+                log.warn("Failed to publish transaction initiated event (non-fatal): {}", e.getMessage());
+            }
+        }
+
+        return new Chunk(items.get(0).getSequenceNo(), items.get(items.size() - 1).getSequenceNo(),
+                transactions, legs);
+    }
+
+    private void settleChunkTimed(UUID batchId, Chunk chunk, String failureReason) {
+        sagaMetrics.timeStep(SAGA_TYPE, "settle_chunk", () ->
+                transactionTemplate.executeWithoutResult(status -> settleChunk(batchId, chunk, failureReason)));
+    }
+
+    private void settleChunk(UUID batchId, Chunk chunk, String failureReason) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean success = failureReason == null;
+        List<UUID> ids = chunk.transactions().stream().map(Transaction::getId).toList();
+        LocalDateTime createdFrom = chunk.transactions().stream().map(Transaction::getCreatedAt).min(Comparator.naturalOrder()).get();
+        LocalDateTime createdTo = chunk.transactions().stream().map(Transaction::getCreatedAt).max(Comparator.naturalOrder()).get();
+
+        int settled = itemRepository.settleChunk(batchId, chunk.firstSequence(), chunk.lastSequence(),
+                success ? TransferBatchItem.ItemStatus.COMPLETED : TransferBatchItem.ItemStatus.FAILED,
+                failureReason, now);
+        if (settled == 0) {
+            // Settled already by an executor that turned out to be slow rather than gone
+            log.info("Batch {} chunk {}-{} was already settled", batchId, chunk.firstSequence(), chunk.lastSequence());
+            return;
+        }
+        for (Transaction transaction : chunk.transactions()) {
+            if (success) {
+                transaction.markCompleted();
+            } else {
+                transaction.markFailed(failureReason);
+            }
+        }
+        transactionRepository.settleAll(ids, createdFrom, createdTo,
+                success ? Transaction.TransactionStatus.COMPLETED : Transaction.TransactionStatus.FAILED,
+                failureReason, success ? now : null, now);
+        batchRepository.addProgress(batchId, success ? settled : 0, success ? 0 : settled, now);
+
+        for (Transaction transaction : chunk.transactions()) {
+            statsService.recordOutcome(transaction);
+            try {
+                if (success) {
+                    eventProducer.publishTransactionCompleted(transaction);
+                } else {
+                    eventProducer.publishTransactionFailed(transaction);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to publish transaction outcome event (non-fatal): {}", e.getMessage());
+            }
+        }
+
+        log.info("Batch {} chunk {}-{} settled: {}", batchId, chunk.firstSequence(), chunk.lastSequence(),
+                success ? "COMPLETED" : "FAILED - " + failureReason);
+    }
+
+    /**
+     * Fails every item that has not been posted yet and closes the batch.
+     */
+    private void abort(UUID batchId, String reason) {
+        log.info("Aborting batch {}: {}", batchId, reason);
+        TransferBatch batch = transactionTemplate.execute(status -> finish(batchId, reason));
+        log.info("=== BATCH TRANSFER aborted for {}: status={}, completed={}, failed={} ===",
+                batchId, batch.getStatus(), batch.getCompletedItems(), batch.getFailedItems());
+    }
+
+    private TransferBatch finish(UUID batchId, String failureReason) {
+        LocalDateTime now = LocalDateTime.now();
+        if (failureReason != null) {
+            int failed = itemRepository.failPending(batchId, failureReason, now);
+            batchRepository.addProgress(batchId, 0, failed, now);
+        }
+        // Progress counters were updated in bulk, so read them back before deciding the status
+        TransferBatch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new RuntimeException("Transfer batch not found: " + batchId));
+        batch.setFailureReason(failureReason);
+        batch.markFinished();
+        return batchRepository.save(batch);
+    }
+
+    private Posting await(CompletableFuture<Void> posting, Chunk chunk) {
+        try {
+            posting.join();
+            return Posting.POSTED;
+        } catch (CompletionException e) {
+            return failed(e.getCause() != null ? e.getCause() : e, chunk);
+        }
+    }
+
+    private static Posting failed(Throwable failure, Chunk chunk) {
+        if (failure instanceof LedgerRejectedException) {
+            log.error("Ledger rejected items {}-{}: {}", chunk.firstSequence(), chunk.lastSequence(), failure.getMessage());
+            return new Posting(Result.REJECTED, "Ledger rejected items " + chunk.firstSequence() + "-"
+                    + chunk.lastSequence() + ", later items were not submitted: " + failure.getMessage());
+        }
+        log.error("Ledger multi-leg posting of items {}-{} has an unknown outcome: {}",
+                chunk.firstSequence(), chunk.lastSequence(), failure.getMessage());
+        return new Posting(Result.UNKNOWN, failure.getMessage());
+    }
+
+    private static String describe(TransferBatch batch, TransferBatchItem item) {
+        if (item.getDescription() != null) {
+            return item.getDescription();
+        }
+        return batch.getDescription() != null ? batch.getDescription() : "Batch transfer";
+    }
+
+    private record Chunk(int firstSequence, int lastSequence, List<Transaction> transactions, List<PostingLeg> legs) {
+    }
+
+    private enum Result {
+        POSTED, REJECTED, UNKNOWN
+    }
+
+    private record Posting(Result result, String failureReason) {
+        static final Posting POSTED = new Posting(Result.POSTED, null);
+    }
+}
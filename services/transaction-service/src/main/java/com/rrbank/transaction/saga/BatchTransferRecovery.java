@@ -0,0 +1,72 @@
+package com.rrbank.transaction.saga;
+
+import com.rrbank.transaction.entity.TransferBatch.BatchStatus;
+import com.rrbank.transaction.repository.TransferBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Re-drives transfer batches that stopped moving. A batch is started from an after-commit
+ * hook on an in-memory executor, so a restart, a crash or a rejected task can leave it
+ * PENDING or PROCESSING with nobody working on it. A running batch touches its updatedAt on
+ * every settled chunk; one left untouched for longer than the stale threshold is claimed
+ * by moving updatedAt forward, so only one instance resumes it, and handed to
+ * {@link BatchTransferOrchestrator#resume}.
+ */
+@Component
+@Slf4j
+public class BatchTransferRecovery {
+
+    private static final List<BatchStatus> OPEN = List.of(BatchStatus.PENDING, BatchStatus.PROCESSING);
+
+    private final TransferBatchRepository batchRepository;
+    private final BatchTransferOrchestrator orchestrator;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration staleAfter;
+    private final int maxPerRun;
+
+    public BatchTransferRecovery(TransferBatchRepository batchRepository,
+                                 BatchTransferOrchestrator orchestrator,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${transaction.batch.stale-after:15m}") Duration staleAfter,
+                                 @Value("${transaction.batch.recovery-batch-size:10}") int maxPerRun) {
+        this.batchRepository = batchRepository;
+        this.orchestrator = orchestrator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staleAfter = staleAfter;
+        this.maxPerRun = maxPerRun;
+    }
+
+    @Scheduled(initialDelayString = "${transaction.batch.recovery-interval-ms:60000}",
+               fixedDelayString = "${transaction.batch.recovery-interval-ms:60000}")
+    public void recoverStaleBatches() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        List<UUID> stale = batchRepository.findStale(OPEN, staleBefore, PageRequest.of(0, maxPerRun));
+        for (UUID batchId : stale) {
+            Integer claimed = transactionTemplate.execute(status ->
+                    batchRepository.claimStale(batchId, OPEN, staleBefore, LocalDateTime.now()));
+            if (claimed == null || claimed == 0) {
+                continue;
+            }
+            log.warn("Transfer batch {} has not moved since before {}, resuming it", batchId, staleBefore);
+            try {
+                orchestrator.resume(batchId);
+            } catch (TaskRejectedException e) {
+                // The claim moved updatedAt forward, so the batch comes round again once stale
+                log.warn("No batch executor free to resume batch {}: {}", batchId, e.getMessage());
+                return;
+            }
+        }
+    }
+}
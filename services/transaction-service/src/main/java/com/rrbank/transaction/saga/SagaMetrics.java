@@ -0,0 +1,160 @@
+package com.rrbank.transaction.saga;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Saga instrumentation:
+ * <ul>
+ *   <li>transaction.saga.step - timer per (type, step, outcome), published as a percentile histogram</li>
+ *   <li>transaction.saga.duration - end-to-end saga timer per (type, outcome)</li>
+ *   <li>transaction.saga.in_flight - gauge of sagas currently running per type</li>
+ *   <li>transaction.saga.compensations - counter per (type, outcome)</li>
+ * </ul>
+ */
+@Component
+public class SagaMetrics {
+
+    static final String SUCCESS = "success";
+    static final String FAILURE = "failure";
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public SagaMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts tracing one saga run. Steps are marked on the returned trace as the saga advances.
+     */
+    public SagaTrace begin(String type) {
+        inFlightFor(type).incrementAndGet();
+        return new SagaTrace(type);
+    }
+
+    /**
+     * Times a step that runs outside a {@link SagaTrace}; the outcome is failure if it throws.
+     */
+    public <T> T timeStep(String type, String step, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = FAILURE;
+        try {
+            T result = action.get();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            recordStep(type, step, outcome, System.nanoTime() - start);
+        }
+    }
+
+    public void timeStep(String type, String step, Runnable action) {
+        timeStep(type, step, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public void recordCompensation(String type, boolean succeeded) {
+        String outcome = succeeded ? SUCCESS : FAILURE;
+        counters.computeIfAbsent(type + '|' + outcome, key -> Counter.builder("transaction.saga.compensations")
+                .description("Saga compensations attempted")
+                .tags("type", type, "outcome", outcome)
+                .register(registry))
+                .increment();
+    }
+
+    void recordStep(String type, String step, String outcome, long nanos) {
+        timers.computeIfAbsent("step|" + type + '|' + step + '|' + outcome, key -> Timer.builder("transaction.saga.step")
+                .description("Latency of one saga step")
+                .tags("type", type, "step", step, "outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordSaga(String type, String outcome, long nanos) {
+        inFlightFor(type).decrementAndGet();
+        timers.computeIfAbsent("saga|" + type + '|' + outcome, key -> Timer.builder("transaction.saga.duration")
+                .description("End-to-end saga latency")
+                .tags("type", type, "outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private AtomicInteger inFlightFor(String type) {
+        return inFlight.computeIfAbsent(type, key -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder("transaction.saga.in_flight", value, AtomicInteger::get)
+                    .description("Sagas currently running")
+                    .tag("type", type)
+                    .register(registry);
+            return value;
+        });
+    }
+
+    /**
+     * One saga run. {@link #step(String)} closes the open step as successful and opens the next,
+     * {@link #failStep()} closes it as failed, and {@link #end(boolean)} records the whole saga.
+     */
+    public final class SagaTrace {
+        private final String type;
+        private final long sagaStart = System.nanoTime();
+        private String step;
+        private long stepStart;
+        private boolean ended;
+
+        private SagaTrace(String type) {
+            this.type = type;
+        }
+
+        public void step(String name) {
+            closeStep(SUCCESS);
+            step = name;
+            stepStart = System.nanoTime();
+        }
+
+        public void endStep() {
+            closeStep(SUCCESS);
+        }
+
+        public void failStep() {
+            closeStep(FAILURE);
+        }
+
+        public void end(boolean completed) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            closeStep(SUCCESS);
+            recordSaga(type, completed ? "completed" : "failed", System.nanoTime() - sagaStart);
+        }
+
+        private void closeStep(String outcome) {
+            if (step != null) {
+                recordStep(type, step, outcome, System.nanoTime() - stepStart);
+                step = null;
+            }
+        }
+    }
+}
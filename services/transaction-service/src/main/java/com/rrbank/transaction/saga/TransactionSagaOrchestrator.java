@@ -6,6 +6,7 @@ import com.rrbank.transaction.event.TransactionEventProducer;
 import com.rrbank.transaction.repository.TransactionRepository;
 import com.rrbank.transaction.service.FraudServiceClient;
 import com.rrbank.transaction.service.LedgerServiceClient;
+import com.rrbank.transaction.service.TransactionStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -22,18 +23,24 @@ public class TransactionSagaOrchestrator {
     private final LedgerServiceClient ledgerClient;
     private final FraudServiceClient fraudClient;
     private final TransactionEventProducer eventProducer;
+    private final TransactionStatsService statsService;
+    private final SagaMetrics sagaMetrics;
 
     @Transactional
     public Transaction executeDeposit(Transaction transaction, UUID userId) {
         log.info("=== Starting DEPOSIT SAGA for transaction: {} ===", transaction.getId());
         log.info("Deposit details: accountId={}, amount={}, userId={}", 
                 transaction.getToAccountId(), transaction.getAmount(), userId);
+        SagaMetrics.SagaTrace trace = sagaMetrics.begin(transaction.getTransactionType().name());
         
         try {
             // Step 1: Mark as processing
             log.info("Step 1: Marking transaction as PROCESSING");
+            trace.step("mark_processing");
             transaction.markProcessing();
             transactionRepository.save(transaction);
+            statsService.recordInitiated(transaction);
+            trace.endStep();
             
             try {
                 eventProducer.publishTransactionInitiated(transaction);
@@ -43,6 +50,7 @@ public class TransactionSagaOrchestrator {
 
             // Step 2: Fraud check
             log.info("Step 2: Performing fraud check");
+            trace.step("fraud_check");
             FraudCheckResponse fraudResponse = fraudClient.checkTransaction(
                     FraudCheckRequest.builder()
                             .accountId(transaction.getToAccountId())
@@ -51,6 +59,7 @@ public class TransactionSagaOrchestrator {
                             .amount(transaction.getAmount())
                             .build()
             );
+            trace.endStep();
             log.info("Fraud check response: decision={}, reason={}", 
                     fraudResponse.getDecision(), fraudResponse.getReason());
 
@@ -60,6 +69,7 @@ public class TransactionSagaOrchestrator {
 
             // Step 3: Credit ledger
             log.info("Step 3: Crediting ledger for account {}", transaction.getToAccountId());
+            trace.step("ledger_credit");
             ledgerClient.credit(
                     transaction.getToAccountId(),
                     transaction.getId(),
@@ -70,8 +80,11 @@ public class TransactionSagaOrchestrator {
 
             // Step 4: Mark completed
             log.info("Step 4: Marking transaction as COMPLETED");
+            trace.step("mark_completed");
             transaction.markCompleted();
             transaction = transactionRepository.save(transaction);
+            statsService.recordOutcome(transaction);
+            trace.end(true);
             
             try {
                 eventProducer.publishTransactionCompleted(transaction);
@@ -85,7 +98,8 @@ public class TransactionSagaOrchestrator {
         } catch (Exception e) {
             log.error("=== DEPOSIT SAGA FAILED for: {} ===", transaction.getId());
             log.error("Error details: {}", e.getMessage(), e);
-            return handleSagaFailure(transaction, e.getMessage());
+            trace.failStep();
+            return handleSagaFailure(transaction, e.getMessage(), trace);
         }
     }
 
@@ -94,12 +108,16 @@ public class TransactionSagaOrchestrator {
         log.info("=== Starting WITHDRAWAL SAGA for transaction: {} ===", transaction.getId());
         log.info("Withdrawal details: accountId={}, amount={}, userId={}", 
                 transaction.getFromAccountId(), transaction.getAmount(), userId);
+        SagaMetrics.SagaTrace trace = sagaMetrics.begin(transaction.getTransactionType().name());
 
         try {
             // Step 1: Mark as processing
             log.info("Step 1: Marking transaction as PROCESSING");
+            trace.step("mark_processing");
             transaction.markProcessing();
             transactionRepository.save(transaction);
+            statsService.recordInitiated(transaction);
+            trace.endStep();
             
             try {
                 eventProducer.publishTransactionInitiated(transaction);
@@ -109,6 +127,7 @@ public class TransactionSagaOrchestrator {
 
             // Step 2: Fraud check
             log.info("Step 2: Performing fraud check");
+            trace.step("fraud_check");
             FraudCheckResponse fraudResponse = fraudClient.checkTransaction(
                     FraudCheckRequest.builder()
                             .accountId(transaction.getFromAccountId())
@@ -117,6 +136,7 @@ public class TransactionSagaOrchestrator {
                             .amount(transaction.getAmount())
                             .build()
             );
+            trace.endStep();
             log.info("Fraud check response: decision={}, reason={}", 
                     fraudResponse.getDecision(), fraudResponse.getReason());
 
@@ -126,6 +146,7 @@ public class TransactionSagaOrchestrator {
 
             // Step 3: Debit ledger
             log.info("Step 3: Debiting ledger for account {}", transaction.getFromAccountId());
+            trace.step("ledger_debit");
             ledgerClient.debit(
                     transaction.getFromAccountId(),
                     transaction.getId(),
@@ -136,8 +157,11 @@ public class TransactionSagaOrchestrator {
 
             // Step 4: Mark completed
             log.info("Step 4: Marking transaction as COMPLETED");
+            trace.step("mark_completed");
             transaction.markCompleted();
             transaction = transactionRepository.save(transaction);
+            statsService.recordOutcome(transaction);
+            trace.end(true);
             
             try {
                 eventProducer.publishTransactionCompleted(transaction);
@@ -151,7 +175,8 @@ public class TransactionSagaOrchestrator {
         } catch (Exception e) {
             log.error("=== WITHDRAWAL SAGA FAILED for: {} ===", transaction.getId());
             log.error("Error details: {}", e.getMessage(), e);
-            return handleSagaFailure(transaction, e.getMessage());
+            trace.failStep();
+            return handleSagaFailure(transaction, e.getMessage(), trace);
         }
     }
 
@@ -162,13 +187,17 @@ public class TransactionSagaOrchestrator {
                 transaction.getFromAccountId(), transaction.getToAccountId(), 
                 transaction.getAmount(), userId);
         
+        SagaMetrics.SagaTrace trace = sagaMetrics.begin(transaction.getTransactionType().name());
         boolean debitCompleted = false;
 
         try {
             // Step 1: Mark as processing
             log.info("Step 1: Marking transaction as PROCESSING");
+            trace.step("mark_processing");
             transaction.markProcessing();
             transactionRepository.save(transaction);
+            statsService.recordInitiated(transaction);
+            trace.endStep();
             
             try {
                 eventProducer.publishTransactionInitiated(transaction);
@@ -178,14 +207,17 @@ public class TransactionSagaOrchestrator {
 
             // Step 2: Fraud check
             log.info("Step 2: Performing fraud check");
+            trace.step("fraud_check");
             FraudCheckResponse fraudResponse = fraudClient.checkTransaction(
                     FraudCheckRequest.builder()
                             .accountId(transaction.getFromAccountId())
                             .userId(userId)
+                            .counterpartyAccountId(transaction.getToAccountId())
                             .transactionType("TRANSFER")
                             .amount(transaction.getAmount())
                             .build()
             );
+            trace.endStep();
             log.info("Fraud check response: decision={}, reason={}", 
                     fraudResponse.getDecision(), fraudResponse.getReason());
 
@@ -195,6 +227,7 @@ public class TransactionSagaOrchestrator {
 
             // Step 3: Debit source account
             log.info("Step 3: Debiting source account {}", transaction.getFromAccountId());
+            trace.step("ledger_debit");
             ledgerClient.debit(
                     transaction.getFromAccountId(),
                     transaction.getId(),
@@ -206,6 +239,7 @@ public class TransactionSagaOrchestrator {
 
             // Step 4: Credit destination account
             log.info("Step 4: Crediting destination account {}", transaction.getToAccountId());
+            trace.step("ledger_credit");
             ledgerClient.credit(
                     transaction.getToAccountId(),
                     transaction.getId(),
@@ -216,8 +250,11 @@ public class TransactionSagaOrchestrator {
 
             // Step 5: Mark completed
             log.info("Step 5: Marking transaction as COMPLETED");
+            trace.step("mark_completed");
             transaction.markCompleted();
             transaction = transactionRepository.save(transaction);
+            statsService.recordOutcome(transaction);
+            trace.end(true);
             
             try {
                 eventProducer.publishTransactionCompleted(transaction);
@@ -231,10 +268,12 @@ public class TransactionSagaOrchestrator {
         } catch (Exception e) {
             log.error("=== TRANSFER SAGA FAILED for: {} ===", transaction.getId());
             log.error("Error details: {}", e.getMessage(), e);
+            trace.failStep();
             
             // Compensation: Reverse debit if it was completed
             if (debitCompleted) {
                 log.info("SAGA Compensation: Reversing debit for failed transfer");
+                trace.step("compensation");
                 try {
                     ledgerClient.credit(
                             transaction.getFromAccountId(),
@@ -243,19 +282,28 @@ public class TransactionSagaOrchestrator {
                             "Reversal: Transfer failed - " + e.getMessage()
                     );
                     log.info("SAGA Compensation completed successfully");
+                    sagaMetrics.recordCompensation(transaction.getTransactionType().name(), true);
                 } catch (Exception ce) {
                     log.error("SAGA Compensation FAILED - Manual intervention required: {}", ce.getMessage());
+                    trace.failStep();
+                    sagaMetrics.recordCompensation(transaction.getTransactionType().name(), false);
                 }
             }
             
-            return handleSagaFailure(transaction, e.getMessage());
+            return handleSagaFailure(transaction, e.getMessage(), trace);
         }
     }
 
-    private Transaction handleSagaFailure(Transaction transaction, String reason) {
+    private Transaction handleSagaFailure(Transaction transaction, String reason, SagaMetrics.SagaTrace trace) {
         log.info("Handling saga failure: {}", reason);
-        transaction.markFailed(reason);
-        transaction = transactionRepository.save(transaction);
+        trace.step("mark_failed");
+        try {
+            transaction.markFailed(reason);
+            transaction = transactionRepository.save(transaction);
+            statsService.recordOutcome(transaction);
+        } finally {
+            trace.end(false);
+        }
         
         try {
             eventProducer.publishTransactionFailed(transaction);
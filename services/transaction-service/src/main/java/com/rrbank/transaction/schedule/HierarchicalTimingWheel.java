@@ -0,0 +1,113 @@
+package com.rrbank.transaction.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Three-level timing wheel with one-second resolution: 60 second slots, 60 minute slots and
+ * 25 hour slots, so anything due up to the end of the hour 24 hours from now can be held.
+ * Slots are aligned to absolute time (a deadline always lands in second/minute/hour slot
+ * {@code deadline % size}), and the coarser slots are cascaded down as each minute and hour begins.
+ * Insert and expiry are O(1) per timer; advancing costs one step per elapsed second.
+ *
+ * Deadlines are epoch seconds. Not thread-safe on its own; all access goes through synchronized methods.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SECONDS = 60;
+    private static final int MINUTES = 60;
+    private static final int HOURS = 25;
+
+    private final List<List<Timer<T>>> secondSlots = slots(SECONDS);
+    private final List<List<Timer<T>>> minuteSlots = slots(MINUTES);
+    private final List<List<Timer<T>>> hourSlots = slots(HOURS);
+
+    // Last second whose slot has been expired
+    private long currentSecond;
+    private int size;
+
+    public HierarchicalTimingWheel(long startSecond) {
+        this.currentSecond = startSecond;
+    }
+
+    /**
+     * Adds a timer. Returns false if the deadline has already passed (the caller should run it now)
+     * or lies beyond the wheel's range (it will be loaded again when the window moves forward).
+     */
+    public synchronized boolean add(T payload, long deadlineSecond) {
+        if (deadlineSecond <= currentSecond || !covers(deadlineSecond)) {
+            return false;
+        }
+        place(new Timer<>(payload, deadlineSecond));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowSecond}, handing every timer that came due to {@code expired}.
+     */
+    public synchronized void advanceTo(long nowSecond, Consumer<T> expired) {
+        while (currentSecond < nowSecond) {
+            currentSecond++;
+            if (currentSecond % 3600 == 0) {
+                cascade(hourSlots.get((int) ((currentSecond / 3600) % HOURS)));
+            }
+            if (currentSecond % 60 == 0) {
+                cascade(minuteSlots.get((int) ((currentSecond / 60) % MINUTES)));
+            }
+            List<Timer<T>> slot = secondSlots.get((int) (currentSecond % SECONDS));
+            if (!slot.isEmpty()) {
+                size -= slot.size();
+                for (Timer<T> timer : slot) {
+                    expired.accept(timer.payload());
+                }
+                slot.clear();
+            }
+        }
+    }
+
+    /**
+     * True if a timer due at {@code deadlineSecond} could be held right now.
+     */
+    public synchronized boolean covers(long deadlineSecond) {
+        return deadlineSecond / 3600 - currentSecond / 3600 < HOURS;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Timer<T> timer) {
+        long deadline = timer.deadline();
+        if (deadline / 60 == currentSecond / 60) {
+            secondSlots.get((int) (deadline % SECONDS)).add(timer);
+        } else if (deadline / 3600 == currentSecond / 3600) {
+            minuteSlots.get((int) ((deadline / 60) % MINUTES)).add(timer);
+        } else {
+            hourSlots.get((int) ((deadline / 3600) % HOURS)).add(timer);
+        }
+    }
+
+    private void cascade(List<Timer<T>> slot) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer<T>> timers = new ArrayList<>(slot);
+        slot.clear();
+        for (Timer<T> timer : timers) {
+            place(timer);
+        }
+    }
+
+    private static <T> List<List<Timer<T>>> slots(int count) {
+        List<List<Timer<T>>> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(new ArrayList<>());
+        }
+        return slots;
+    }
+
+    private record Timer<T>(T payload, long deadline) {
+    }
+}
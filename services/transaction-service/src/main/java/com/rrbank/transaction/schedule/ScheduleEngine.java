@@ -0,0 +1,342 @@
+package com.rrbank.transaction.schedule;
+
+import com.rrbank.transaction.dto.TransactionDTOs.TransactionResponse;
+import com.rrbank.transaction.dto.TransactionDTOs.TransferRequest;
+import com.rrbank.transaction.entity.ScheduledTransaction;
+import com.rrbank.transaction.entity.ScheduledTransaction.ScheduleStatus;
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.repository.ScheduledTransactionRepository;
+import com.rrbank.transaction.service.TransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fires scheduled transfers. For the partitions this node owns, every schedule due within the
+ * next window (24h by default) is loaded once into a {@link HierarchicalTimingWheel}; a one-second
+ * ticker expires due timers into a ready queue, which is drained onto scheduleExecutor with at most
+ * {@code concurrency} runs in flight. The database is only read when partitions are gained, when the
+ * window moves forward, and by a short delta poll for schedules created or changed elsewhere, so a
+ * month-end spike costs no extra polling.
+ *
+ * Each run goes through {@link TransactionService#transfer} with the idempotency key
+ * {@code schedule:<id>:<runAt>}, so a run repeated after a crash or a lease handover returns the
+ * original transaction instead of paying twice.
+ */
+@Component
+@Slf4j
+public class ScheduleEngine {
+
+    private static final LocalDateTime LOAD_FROM = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID MIN_ID = new UUID(0, 0);
+    private static final Duration DELTA_OVERLAP = Duration.ofSeconds(5);
+
+    private final ScheduledTransactionRepository scheduleRepository;
+    private final SchedulePartitionCoordinator coordinator;
+    private final TransactionService transactionService;
+    private final ThreadPoolTaskExecutor scheduleExecutor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration window;
+    private final int loadPageSize;
+    private final Semaphore permits;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final HierarchicalTimingWheel<Slot> wheel;
+    // Authoritative run time per loaded schedule; wheel timers that no longer match it are ignored
+    private final ConcurrentHashMap<UUID, Slot> loaded = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Slot> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readySize = new AtomicInteger();
+    private final Timer lagTimer;
+    // One counter per outcome tag, keyed by the run's transaction status
+    private final ConcurrentHashMap<String, Counter> outcomes = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime horizon;
+    private volatile LocalDateTime lastDeltaPoll;
+
+    public ScheduleEngine(ScheduledTransactionRepository scheduleRepository,
+                          SchedulePartitionCoordinator coordinator,
+                          TransactionService transactionService,
+                          @Qualifier("scheduleExecutor") ThreadPoolTaskExecutor scheduleExecutor,
+                          MeterRegistry meterRegistry,
+                          @Value("${transaction.schedule.enabled:true}") boolean enabled,
+                          @Value("${transaction.schedule.window-hours:24}") int windowHours,
+                          @Value("${transaction.schedule.concurrency:16}") int concurrency,
+                          @Value("${transaction.schedule.load-page-size:5000}") int loadPageSize) {
+        this.scheduleRepository = scheduleRepository;
+        this.coordinator = coordinator;
+        this.transactionService = transactionService;
+        this.scheduleExecutor = scheduleExecutor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.window = Duration.ofHours(windowHours);
+        this.loadPageSize = loadPageSize;
+        this.permits = new Semaphore(concurrency);
+
+        LocalDateTime now = LocalDateTime.now();
+        this.wheel = new HierarchicalTimingWheel<>(now.atZone(zone).toEpochSecond());
+        this.horizon = now.plus(window);
+        this.lastDeltaPoll = now;
+
+        this.lagTimer = Timer.builder("transaction.schedule.lag")
+                .description("Delay between a schedule's due time and the start of its run")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("transaction.schedule.wheel.size", wheel, HierarchicalTimingWheel::size)
+                .description("Timers waiting in the timing wheel")
+                .register(meterRegistry);
+        Gauge.builder("transaction.schedule.ready", readySize, AtomicInteger::get)
+                .description("Due schedules waiting for an execution slot")
+                .register(meterRegistry);
+        Gauge.builder("transaction.schedule.partitions.owned", coordinator, c -> c.ownedPartitions().size())
+                .description("Schedule partitions leased by this node")
+                .register(meterRegistry);
+        for (Transaction.TransactionStatus status : Transaction.TransactionStatus.values()) {
+            outcome(status.name());
+        }
+    }
+
+    /**
+     * Starts tracking a schedule created or changed on this node, if this node owns its partition.
+     */
+    public void track(ScheduledTransaction schedule) {
+        if (schedule.getStatus() != ScheduleStatus.ACTIVE || schedule.getNextRunAt() == null) {
+            untrack(schedule.getId());
+        } else if (coordinator.owns(schedule.getPartitionNo())) {
+            schedule(schedule.getId(), schedule.getPartitionNo(), schedule.getNextRunAt());
+            dispatch();
+        }
+    }
+
+    public void untrack(UUID scheduleId) {
+        loaded.remove(scheduleId);
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        wheel.advanceTo(Instant.now().getEpochSecond(), this::enqueue);
+        dispatch();
+    }
+
+    @Scheduled(initialDelay = 2000, fixedDelayString = "${transaction.schedule.heartbeat-interval-ms:10000}")
+    public void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            SchedulePartitionCoordinator.Assignment assignment = coordinator.rebalance();
+            if (!assignment.lost().isEmpty()) {
+                loaded.values().removeIf(slot -> assignment.lost().contains(slot.partitionNo()));
+            }
+            if (!assignment.gained().isEmpty()) {
+                load(assignment.gained(), LOAD_FROM, horizon);
+                dispatch();
+            }
+        } catch (Exception e) {
+            log.error("Schedule partition rebalance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the loaded window forward, adding schedules that became due within it.
+     */
+    @Scheduled(fixedDelayString = "${transaction.schedule.horizon-extend-interval-ms:300000}")
+    public void extendHorizon() {
+        Set<Integer> partitions = coordinator.ownedPartitions();
+        LocalDateTime from = horizon;
+        LocalDateTime to = LocalDateTime.now().plus(window);
+        if (partitions.isEmpty() || !to.isAfter(from)) {
+            horizon = to.isAfter(from) ? to : from;
+            return;
+        }
+        try {
+            load(partitions, from, to);
+            horizon = to;
+        } catch (Exception e) {
+            log.error("Failed to extend schedule window to {}: {}", to, e.getMessage());
+        }
+    }
+
+    /**
+     * Picks up schedules created, paused, resumed or cancelled on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${transaction.schedule.delta-poll-interval-ms:5000}")
+    public void pollChanges() {
+        Set<Integer> partitions = coordinator.ownedPartitions();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        LocalDateTime pollStarted = LocalDateTime.now();
+        try {
+            List<Object[]> rows = scheduleRepository.findChangedSince(partitions, lastDeltaPoll.minus(DELTA_OVERLAP));
+            for (Object[] row : rows) {
+                UUID id = (UUID) row[0];
+                LocalDateTime runAt = (LocalDateTime) row[1];
+                int partitionNo = (Integer) row[2];
+                ScheduleStatus status = (ScheduleStatus) row[3];
+                if (status != ScheduleStatus.ACTIVE || runAt == null) {
+                    loaded.remove(id);
+                } else if (runAt.isBefore(horizon)) {
+                    Slot current = loaded.get(id);
+                    if (current == null || !current.runAt().equals(runAt)) {
+                        schedule(id, partitionNo, runAt);
+                    }
+                }
+            }
+            lastDeltaPoll = pollStarted;
+            dispatch();
+        } catch (Exception e) {
+            log.error("Schedule delta poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void load(Set<Integer> partitions, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime afterRunAt = LOAD_FROM;
+        UUID afterId = MIN_ID;
+        int count = 0;
+        List<Object[]> page;
+        do {
+            page = scheduleRepository.findDueSlots(partitions, from, to, afterRunAt, afterId,
+                    PageRequest.of(0, loadPageSize));
+            for (Object[] row : page) {
+                afterId = (UUID) row[0];
+                afterRunAt = (LocalDateTime) row[1];
+                schedule(afterId, (Integer) row[2], afterRunAt);
+            }
+            count += page.size();
+        } while (page.size() == loadPageSize);
+        log.info("Loaded {} schedules due before {} for {} partitions", count, to, partitions.size());
+    }
+
+    private void schedule(UUID id, int partitionNo, LocalDateTime runAt) {
+        Slot slot = new Slot(id, partitionNo, runAt);
+        loaded.put(id, slot);
+        long deadline = runAt.atZone(zone).toEpochSecond() + (runAt.getNano() > 0 ? 1 : 0);
+        if (!wheel.add(slot, deadline)) {
+            if (wheel.covers(deadline)) {
+                enqueue(slot);
+            } else {
+                // Beyond the wheel; the next window extension loads it again
+                loaded.remove(id, slot);
+            }
+        }
+    }
+
+    private void enqueue(Slot slot) {
+        ready.add(slot);
+        readySize.incrementAndGet();
+    }
+
+    private void dispatch() {
+        while (permits.tryAcquire()) {
+            Slot slot = ready.poll();
+            if (slot == null) {
+                permits.release();
+                return;
+            }
+            readySize.decrementAndGet();
+            try {
+                scheduleExecutor.execute(() -> {
+                    try {
+                        run(slot);
+                    } finally {
+                        permits.release();
+                        dispatch();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                enqueue(slot);
+                log.warn("Schedule executor rejected run of {}: {}", slot.scheduleId(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void run(Slot slot) {
+        UUID id = slot.scheduleId();
+        if (!slot.equals(loaded.get(id)) || !coordinator.owns(slot.partitionNo())) {
+            return;
+        }
+        ScheduledTransaction schedule = scheduleRepository.findById(id).orElse(null);
+        if (schedule == null || schedule.getStatus() != ScheduleStatus.ACTIVE
+                || !slot.runAt().equals(schedule.getNextRunAt())) {
+            loaded.remove(id, slot);
+            return;
+        }
+        lagTimer.record(Duration.between(slot.runAt(), LocalDateTime.now()));
+
+        UUID transactionId = null;
+        String runStatus;
+        String failureReason = null;
+        try {
+            TransactionResponse response = transactionService.transfer(TransferRequest.builder()
+                    .fromAccountId(schedule.getFromAccountId())
+                    .toAccountId(schedule.getToAccountId())
+                    .amount(schedule.getAmount())
+                    .description(schedule.getDescription() != null ? schedule.getDescription() : "Scheduled transfer")
+                    .idempotencyKey("schedule:" + id + ":" + slot.runAt())
+                    .build(), schedule.getInitiatedBy());
+            transactionId = UUID.fromString(response.getId());
+            runStatus = response.getStatus();
+            failureReason = response.getFailureReason();
+        } catch (Exception e) {
+            log.warn("Scheduled transfer {} due {} failed: {}", id, slot.runAt(), e.getMessage());
+            runStatus = "FAILED";
+            failureReason = e.getMessage();
+        }
+        outcome(runStatus).increment();
+
+        schedule.recordRun(slot.runAt(), transactionId, runStatus, failureReason);
+        try {
+            schedule = scheduleRepository.save(schedule);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // Paused, cancelled or edited while running; the delta poll reloads the current state
+            log.info("Schedule {} changed during its run; reloading", id);
+            loaded.remove(id, slot);
+            return;
+        }
+        loaded.remove(id, slot);
+        if (schedule.getStatus() == ScheduleStatus.ACTIVE && schedule.getNextRunAt() != null
+                && schedule.getNextRunAt().isBefore(horizon)) {
+            schedule(id, schedule.getPartitionNo(), schedule.getNextRunAt());
+        }
+        log.info("=== Scheduled transfer {} run {} finished: status={}, nextRunAt={} ===",
+                id, schedule.getRunCount(), runStatus, schedule.getNextRunAt());
+    }
+
+    private Counter outcome(String runStatus) {
+        return outcomes.computeIfAbsent(runStatus, status -> Counter.builder("transaction.schedule.runs")
+                .description("Scheduled transfer runs by outcome")
+                .tag("outcome", status.toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+    }
+
+    private record Slot(UUID scheduleId, int partitionNo, LocalDateTime runAt) {
+    }
+}
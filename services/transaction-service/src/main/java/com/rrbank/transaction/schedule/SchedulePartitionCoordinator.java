@@ -0,0 +1,143 @@
+package com.rrbank.transaction.schedule;
+
+import com.rrbank.transaction.repository.ScheduleNodeRepository;
+import com.rrbank.transaction.repository.SchedulePartitionLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits schedules over running nodes. Every schedule belongs to one of a fixed number of
+ * partitions, and a node only fires schedules of partitions it holds a lease on. Each rebalance
+ * heartbeats this node, renews its leases, and acquires or releases partitions until it holds
+ * its fair share (partitions / live nodes, rounded up). Leases of a crashed node expire after the
+ * TTL and are picked up by the others.
+ */
+@Component
+@Slf4j
+public class SchedulePartitionCoordinator {
+
+    private final SchedulePartitionLeaseRepository leaseRepository;
+    private final ScheduleNodeRepository nodeRepository;
+    private final int partitions;
+    private final int leaseTtlSeconds;
+    private final String nodeId;
+    private final Set<Integer> owned = ConcurrentHashMap.newKeySet();
+
+    // Local deadline after which owned leases can no longer be trusted if renewals keep failing
+    private volatile long leaseValidUntilNanos;
+
+    public SchedulePartitionCoordinator(SchedulePartitionLeaseRepository leaseRepository,
+                                        ScheduleNodeRepository nodeRepository,
+                                        @Value("${transaction.schedule.partitions:64}") int partitions,
+                                        @Value("${transaction.schedule.lease-ttl-seconds:30}") int leaseTtlSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.partitions = partitions;
+        this.leaseTtlSeconds = leaseTtlSeconds;
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Schedules are partitioned by paying account, so one account's standing orders share an owner.
+     */
+    public int partitionFor(UUID fromAccountId) {
+        return Math.floorMod(fromAccountId.hashCode(), partitions);
+    }
+
+    public boolean owns(int partitionNo) {
+        return System.nanoTime() < leaseValidUntilNanos && owned.contains(partitionNo);
+    }
+
+    public Set<Integer> ownedPartitions() {
+        return Set.copyOf(owned);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Runs one heartbeat/rebalance round and reports which partitions were gained and lost.
+     */
+    public Assignment rebalance() {
+        long started = System.nanoTime();
+        nodeRepository.heartbeat(nodeId);
+        nodeRepository.deleteStale(leaseTtlSeconds * 4);
+        leaseRepository.renewAll(nodeId, leaseTtlSeconds);
+
+        Set<Integer> held = new HashSet<>(leaseRepository.findHeldPartitions(nodeId));
+        long liveNodes = Math.max(1, nodeRepository.countLive(leaseTtlSeconds));
+        int fairShare = (int) ((partitions + liveNodes - 1) / liveNodes);
+
+        if (held.size() > fairShare) {
+            List<Integer> extra = held.stream().sorted(Comparator.reverseOrder())
+                    .limit(held.size() - fairShare).toList();
+            leaseRepository.release(nodeId, extra);
+            extra.forEach(held::remove);
+        } else if (held.size() < fairShare) {
+            Set<Integer> leased = new HashSet<>(leaseRepository.findLeasedPartitions());
+            List<Integer> free = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                if (!leased.contains(p)) {
+                    free.add(p);
+                }
+            }
+            // Random order keeps nodes that start together from racing for the same partitions
+            Collections.shuffle(free);
+            for (Integer p : free) {
+                if (held.size() >= fairShare) {
+                    break;
+                }
+                if (leaseRepository.tryAcquire(p, nodeId, leaseTtlSeconds) > 0) {
+                    held.add(p);
+                }
+            }
+        }
+
+        Set<Integer> gained = new HashSet<>(held);
+        gained.removeAll(owned);
+        Set<Integer> lost = new HashSet<>(owned);
+        lost.removeAll(held);
+        owned.removeAll(lost);
+        owned.addAll(gained);
+        // Leases were renewed at the start of this round; stop trusting them a little before they lapse
+        leaseValidUntilNanos = started + (leaseTtlSeconds * 1_000_000_000L) * 3 / 4;
+
+        if (!gained.isEmpty() || !lost.isEmpty()) {
+            log.info("=== Schedule partitions rebalanced on {}: gained={}, lost={}, owned={}/{}, liveNodes={} ===",
+                    nodeId, gained.size(), lost.size(), owned.size(), partitions, liveNodes);
+        }
+        return new Assignment(gained, lost);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            if (!owned.isEmpty()) {
+                leaseRepository.release(nodeId, owned);
+            }
+            nodeRepository.deleteById(nodeId);
+            owned.clear();
+            log.info("Released schedule partitions of node {}", nodeId);
+        } catch (Exception e) {
+            log.warn("Could not release schedule partitions of node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+
+    public record Assignment(Set<Integer> gained, Set<Integer> lost) {
+    }
+}
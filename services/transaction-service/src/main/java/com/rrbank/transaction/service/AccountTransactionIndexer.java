@@ -0,0 +1,37 @@
+package com.rrbank.transaction.service;
+
+import com.rrbank.transaction.entity.AccountTransaction;
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.repository.AccountTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Writes the account_transactions projection in the same database transaction
+ * as the transaction row itself.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountTransactionIndexer {
+
+    private final AccountTransactionRepository accountTransactionRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void index(Transaction tx) {
+        if (tx.getFromAccountId() != null) {
+            insert(tx, tx.getFromAccountId(), AccountTransaction.Direction.DEBIT);
+        }
+        if (tx.getToAccountId() != null) {
+            insert(tx, tx.getToAccountId(), AccountTransaction.Direction.CREDIT);
+        }
+    }
+
+    private void insert(Transaction tx, UUID accountId, AccountTransaction.Direction direction) {
+        accountTransactionRepository.insert(accountId, tx.getCreatedAt(), tx.getId(),
+                tx.getTransactionType().name(), direction.name(), tx.getAmount());
+    }
+}
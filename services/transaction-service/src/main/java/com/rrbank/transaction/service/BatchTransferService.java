@@ -0,0 +1,143 @@
+package com.rrbank.transaction.service;
+
+import com.rrbank.transaction.dto.TransactionDTOs.*;
+import com.rrbank.transaction.entity.TransferBatch;
+import com.rrbank.transaction.entity.TransferBatchItem;
+import com.rrbank.transaction.repository.TransferBatchItemRepository;
+import com.rrbank.transaction.repository.TransferBatchRepository;
+import com.rrbank.transaction.saga.BatchTransferOrchestrator;
+import com.rrbank.transaction.saga.SagaMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Accepts bulk transfers (e.g. payroll). The payer passes KYC once, the batch and its
+ * items are stored, and execution continues asynchronously in {@link BatchTransferOrchestrator}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferService {
+
+    private final TransferBatchRepository batchRepository;
+    private final TransferBatchItemRepository itemRepository;
+    private final TransactionService transactionService;
+    private final BatchTransferOrchestrator batchOrchestrator;
+    private final SagaMetrics sagaMetrics;
+
+    @Transactional
+    public BatchTransferResponse submit(BatchTransferRequest request, UUID userId) {
+        log.info("Processing batch transfer request from {} with {} items", 
+                request.getFromAccountId(), request.getItems().size());
+
+        // KYC Verification Guard - once for the whole batch
+        sagaMetrics.timeStep(BatchTransferOrchestrator.SAGA_TYPE, "kyc", () -> transactionService.verifyKycApproved(userId));
+
+        if (request.getIdempotencyKey() != null) {
+            Optional<TransferBatch> existing = batchRepository.findByIdempotencyKey(request.getIdempotencyKey());
+            if (existing.isPresent()) {
+                log.info("Returning existing batch for idempotency key: {}", request.getIdempotencyKey());
+                return toResponse(existing.get());
+            }
+        }
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (BatchTransferItem item : request.getItems()) {
+            if (request.getFromAccountId().equals(item.getToAccountId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch item cannot transfer to the paying account: " + item.getToAccountId());
+            }
+            totalAmount = totalAmount.add(item.getAmount());
+        }
+
+        TransferBatch batch = TransferBatch.builder()
+                .fromAccountId(request.getFromAccountId())
+                .initiatedBy(userId)
+                .totalItems(request.getItems().size())
+                .totalAmount(totalAmount)
+                .description(request.getDescription())
+                .idempotencyKey(request.getIdempotencyKey())
+                .build();
+        batch = batchRepository.save(batch);
+
+        List<TransferBatchItem> items = new ArrayList<>(request.getItems().size());
+        int sequenceNo = 0;
+        for (BatchTransferItem item : request.getItems()) {
+            items.add(TransferBatchItem.builder()
+                    .batchId(batch.getId())
+                    .sequenceNo(++sequenceNo)
+                    .toAccountId(item.getToAccountId())
+                    .amount(item.getAmount())
+                    .description(item.getDescription())
+                    .build());
+        }
+        itemRepository.saveAll(items);
+
+        // Execution reads the batch from its own transactions, so start it only once this one is visible
+        UUID batchId = batch.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                batchOrchestrator.execute(batchId);
+            }
+        });
+
+        log.info("Batch transfer {} accepted: items={}, total={}", batchId, items.size(), totalAmount);
+        return toResponse(batch);
+    }
+
+    @Transactional(readOnly = true)
+    public BatchTransferResponse getBatch(UUID batchId) {
+        return toResponse(findBatch(batchId));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<BatchTransferItemResponse> getBatchItems(UUID batchId, Pageable pageable) {
+        findBatch(batchId);
+        return itemRepository.findByBatchIdOrderBySequenceNo(batchId, pageable).map(this::toItemResponse);
+    }
+
+    private TransferBatch findBatch(UUID batchId) {
+        return batchRepository.findById(batchId)
+                .orElseThrow(() -> new RuntimeException("Transfer batch not found: " + batchId));
+    }
+
+    private BatchTransferResponse toResponse(TransferBatch batch) {
+        return BatchTransferResponse.builder()
+                .batchId(batch.getId().toString())
+                .fromAccountId(batch.getFromAccountId().toString())
+                .status(batch.getStatus().name())
+                .totalItems(batch.getTotalItems())
+                .completedItems(batch.getCompletedItems())
+                .failedItems(batch.getFailedItems())
+                .totalAmount(batch.getTotalAmount())
+                .failureReason(batch.getFailureReason())
+                .createdAt(batch.getCreatedAt())
+                .completedAt(batch.getCompletedAt())
+                .build();
+    }
+
+    private BatchTransferItemResponse toItemResponse(TransferBatchItem item) {
+        return BatchTransferItemResponse.builder()
+                .sequenceNo(item.getSequenceNo())
+                .toAccountId(item.getToAccountId().toString())
+                .amount(item.getAmount())
+                .status(item.getStatus().name())
+                .transactionId(item.getTransactionId() != null ? item.getTransactionId().toString() : null)
+                .failureReason(item.getFailureReason())
+                .build();
+    }
+}
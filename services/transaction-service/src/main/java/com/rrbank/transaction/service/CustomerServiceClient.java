@@ -1,11 +1,17 @@
 package com.rrbank.transaction.service;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.Map;
@@ -16,14 +22,16 @@ import java.util.UUID;
 public class CustomerServiceClient {
 
     private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
     private static final Duration TIMEOUT = Duration.ofSeconds(10);
 
-    public CustomerServiceClient(@Value("${services.customer-url:http://localhost:8082}") String customerUrl) {
-        log.info("Initializing CustomerServiceClient with URL: {}", customerUrl);
-        this.webClient = WebClient.builder()
-                .baseUrl(customerUrl)
-                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    public CustomerServiceClient(@Qualifier("customerWebClient") WebClient webClient,
+                                 CircuitBreakerRegistry circuitBreakerRegistry,
+                                 BulkheadRegistry bulkheadRegistry) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("customer");
+        this.bulkhead = bulkheadRegistry.bulkhead("customer");
     }
 
     /**
@@ -36,11 +44,10 @@ public class CustomerServiceClient {
         log.info("Checking KYC status for user: {}", userId);
         
         try {
-            Map<String, String> response = webClient.get()
+            Map<String, String> response = guarded(webClient.get()
                     .uri("/api/customers/user/{userId}/kyc-status", userId)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
+                    .bodyToMono(Map.class))
                     .block();
             
             if (response != null) {
@@ -74,6 +81,12 @@ public class CustomerServiceClient {
         return "APPROVED".equals(status.kycStatus());
     }
 
+    private <T> Mono<T> guarded(Mono<T> call) {
+        return call.timeout(TIMEOUT)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
     /**
      * KYC Status Response record
      */
@@ -1,12 +1,21 @@
 package com.rrbank.transaction.service;
 
 import com.rrbank.transaction.dto.TransactionDTOs.*;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 
@@ -15,14 +24,16 @@ import java.time.Duration;
 public class FraudServiceClient {
 
     private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
     private static final Duration TIMEOUT = Duration.ofSeconds(10);
 
-    public FraudServiceClient(@Value("${services.fraud-url:http://localhost:8087}") String fraudUrl) {
-        log.info("Initializing FraudServiceClient with URL: {}", fraudUrl);
-        this.webClient = WebClient.builder()
-                .baseUrl(fraudUrl)
-                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    public FraudServiceClient(@Qualifier("fraudWebClient") WebClient webClient,
+                              CircuitBreakerRegistry circuitBreakerRegistry,
+                              BulkheadRegistry bulkheadRegistry) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("fraud");
+        this.bulkhead = bulkheadRegistry.bulkhead("fraud");
     }
 
     public FraudCheckResponse checkTransaction(FraudCheckRequest request) {
@@ -30,19 +41,35 @@ public class FraudServiceClient {
                 request.getAccountId(), request.getTransactionType(), request.getAmount());
         
         try {
-            FraudCheckResponse response = webClient.post()
+            FraudCheckResponse response = guarded(webClient.post()
                     .uri("/api/fraud/check")
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(request)
                     .retrieve()
-                    .bodyToMono(FraudCheckResponse.class)
-                    .timeout(TIMEOUT)
+                    .bodyToMono(FraudCheckResponse.class))
                     .block();
             
             log.info("Fraud check completed: decision={}, reason={}", 
                     response != null ? response.getDecision() : "null",
                     response != null ? response.getReason() : "null");
             return response;
+        } catch (BulkheadFullException | CallNotPermittedException e) {
+            // Shed before reaching the fraud service: under load or an open circuit, money must not leave unchecked
+            if (!"DEPOSIT".equals(request.getTransactionType())) {
+                log.warn("Fraud check not performed ({}), rejecting {} of {}",
+                        e.getMessage(), request.getTransactionType(), request.getAmount());
+                return FraudCheckResponse.builder()
+                        .decision("REJECT")
+                        .reason("Fraud check unavailable, please try again shortly")
+                        .riskScore(100)
+                        .build();
+            }
+            log.warn("Fraud check not performed ({}), approving deposit", e.getMessage());
+            return FraudCheckResponse.builder()
+                    .decision("APPROVE")
+                    .reason("Fraud check unavailable - deposit approved")
+                    .riskScore(0)
+                    .build();
         } catch (WebClientResponseException e) {
             log.error("Fraud service error - Status: {}, Body: {}", e.getStatusCode(), e.getResponseBodyAsString());
             // Default to approve if fraud service is unavailable (fail-open for deposits)
@@ -61,4 +88,10 @@ public class FraudServiceClient {
                     .build();
         }
     }
+
+    private <T> Mono<T> guarded(Mono<T> call) {
+        return call.timeout(TIMEOUT)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
 }
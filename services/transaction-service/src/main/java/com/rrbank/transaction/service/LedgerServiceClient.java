@@ -1,7 +1,18 @@
 package com.rrbank.transaction.service;
 
+import com.rrbank.transaction.exception.LedgerRejectedException;
+import com.rrbank.transaction.rpc.LedgerRpcClient;
+import com.rrbank.transaction.rpc.LedgerRpcRejectedException;
+import com.rrbank.transaction.rpc.LedgerRpcUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -10,38 +21,59 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 public class LedgerServiceClient {
 
     private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    // Null unless ledger.rpc.enabled; postings then go over the binary channel and HTTP is the fallback
+    private final LedgerRpcClient rpcClient;
     private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration MULTI_LEG_TIMEOUT = Duration.ofSeconds(30);
 
-    public LedgerServiceClient(@Value("${services.ledger-url:http://localhost:8085}") String ledgerUrl) {
-        log.info("Initializing LedgerServiceClient with URL: {}", ledgerUrl);
-        this.webClient = WebClient.builder()
-                .baseUrl(ledgerUrl)
-                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    public LedgerServiceClient(@Qualifier("ledgerWebClient") WebClient webClient,
+                               CircuitBreakerRegistry circuitBreakerRegistry,
+                               BulkheadRegistry bulkheadRegistry,
+                               ObjectProvider<LedgerRpcClient> rpcClientProvider) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("ledger");
+        this.bulkhead = bulkheadRegistry.bulkhead("ledger");
+        this.rpcClient = rpcClientProvider.getIfAvailable();
     }
 
     public void credit(UUID accountId, UUID transactionId, BigDecimal amount, String description) {
         log.info("Calling Ledger Service: credit {} to account {}", amount, accountId);
         
+        if (rpcClient != null) {
+            try {
+                BigDecimal balance = guardedRpc(() -> rpcClient.credit(accountId, transactionId, amount, description));
+                log.info("Ledger credit completed over RPC for account: {}, running balance: {}", accountId, balance);
+                return;
+            } catch (LedgerRpcUnavailableException e) {
+                log.warn("Ledger RPC unavailable, sending credit over HTTP: {}", e.getMessage());
+            } catch (Exception e) {
+                log.error("Ledger credit failed: {}", e.getMessage(), e);
+                throw new RuntimeException("Ledger credit failed: " + e.getMessage(), e);
+            }
+        }
+        
         // Create properly typed request object
         LedgerRequest request = new LedgerRequest(accountId, transactionId, "CREDIT", amount, description);
         
         try {
-            Map response = webClient.post()
+            Map response = guarded(webClient.post()
                     .uri("/api/ledger/credit")
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(request)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
+                    .bodyToMono(Map.class), TIMEOUT)
                     .block();
             
             log.info("Ledger credit completed for account: {}, response: {}", accountId, response);
@@ -57,17 +89,29 @@ public class LedgerServiceClient {
     public void debit(UUID accountId, UUID transactionId, BigDecimal amount, String description) {
         log.info("Calling Ledger Service: debit {} from account {}", amount, accountId);
         
+        if (rpcClient != null) {
+            try {
+                BigDecimal balance = guardedRpc(() -> rpcClient.debit(accountId, transactionId, amount, description));
+                log.info("Ledger debit completed over RPC for account: {}, running balance: {}", accountId, balance);
+                return;
+            } catch (LedgerRpcUnavailableException e) {
+                log.warn("Ledger RPC unavailable, sending debit over HTTP: {}", e.getMessage());
+            } catch (Exception e) {
+                log.error("Ledger debit failed: {}", e.getMessage(), e);
+                throw new RuntimeException("Ledger debit failed: " + e.getMessage(), e);
+            }
+        }
+        
         // Create properly typed request object
         LedgerRequest request = new LedgerRequest(accountId, transactionId, "DEBIT", amount, description);
         
         try {
-            Map response = webClient.post()
+            Map response = guarded(webClient.post()
                     .uri("/api/ledger/debit")
                     .contentType(MediaType.APPLICATION_JSON)
                     .bodyValue(request)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
+                    .bodyToMono(Map.class), TIMEOUT)
                     .block();
             
             log.info("Ledger debit completed for account: {}, response: {}", accountId, response);
@@ -80,15 +124,74 @@ public class LedgerServiceClient {
         }
     }
 
+    /**
+     * Posts one debit against many credits atomically. Either every leg is posted or none is.
+     * Throws {@link LedgerRejectedException} when the ledger refused the posting; after any
+     * other failure the legs may or may not be posted, and posting them again is safe since
+     * the ledger books each transaction at most once.
+     */
+    public void postMultiLeg(UUID debitAccountId, List<PostingLeg> legs) {
+        log.info("Calling Ledger Service: multi-leg posting of {} legs from account {}", legs.size(), debitAccountId);
+        
+        if (rpcClient != null) {
+            try {
+                int posted = guardedRpc(() -> rpcClient.postMultiLeg(debitAccountId, legs, MULTI_LEG_TIMEOUT));
+                log.info("Ledger multi-leg posting completed over RPC for account: {}, legs posted: {}", debitAccountId, posted);
+                return;
+            } catch (LedgerRpcUnavailableException e) {
+                log.warn("Ledger RPC unavailable, sending multi-leg posting over HTTP: {}", e.getMessage());
+            } catch (LedgerRpcRejectedException e) {
+                log.error("Ledger multi-leg posting rejected: {}", e.getMessage());
+                throw new LedgerRejectedException("Ledger multi-leg posting rejected: " + e.getMessage(), e);
+            } catch (Exception e) {
+                log.error("Ledger multi-leg posting failed: {}", e.getMessage(), e);
+                throw new RuntimeException("Ledger multi-leg posting failed: " + e.getMessage(), e);
+            }
+        }
+        
+        MultiLegRequest request = new MultiLegRequest(debitAccountId, legs);
+        
+        try {
+            Map response = guarded(webClient.post()
+                    .uri("/api/ledger/postings/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(Map.class), MULTI_LEG_TIMEOUT)
+                    .block();
+            
+            log.info("Ledger multi-leg posting completed for account: {}, response: {}", debitAccountId, response);
+        } catch (WebClientResponseException e) {
+            log.error("Ledger multi-leg posting failed - Status: {}, Body: {}", e.getStatusCode(), e.getResponseBodyAsString());
+            if (answeredByLedger(e)) {
+                throw new LedgerRejectedException("Ledger multi-leg posting rejected: " + e.getMessage(), e);
+            }
+            throw new RuntimeException("Ledger multi-leg posting failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("Ledger multi-leg posting failed: {}", e.getMessage(), e);
+            throw new RuntimeException("Ledger multi-leg posting failed: " + e.getMessage(), e);
+        }
+    }
+
     public BigDecimal getBalance(UUID accountId) {
         log.info("Calling Ledger Service: get balance for account {}", accountId);
         
+        if (rpcClient != null) {
+            try {
+                BigDecimal balance = guardedRpc(() -> rpcClient.getBalance(accountId));
+                log.info("Got balance for account {}: {}", accountId, balance);
+                return balance;
+            } catch (Exception e) {
+                // Reads are safe to repeat, so any RPC failure falls back to HTTP
+                log.warn("Ledger RPC balance read failed, retrying over HTTP: {}", e.getMessage());
+            }
+        }
+        
         try {
-            Map response = webClient.get()
+            Map response = guarded(webClient.get()
                     .uri("/api/ledger/balance/{accountId}", accountId)
                     .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(TIMEOUT)
+                    .bodyToMono(Map.class), TIMEOUT)
                     .block();
             
             if (response != null && response.containsKey("balance")) {
@@ -103,6 +206,24 @@ public class LedgerServiceClient {
         }
     }
     
+    // The ledger rolls a posting back before it answers with an error; a 502-504 may come from a
+    // proxy while the ledger is still working on the request
+    private static boolean answeredByLedger(WebClientResponseException e) {
+        return e.getStatusCode().is4xxClientError() || e.getStatusCode().value() == 500;
+    }
+
+    // Bulkhead caps concurrent calls to this downstream; the circuit breaker fails fast while it is unhealthy
+    private <T> Mono<T> guarded(Mono<T> call, Duration timeout) {
+        return call.timeout(timeout)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    // Same bulkhead and circuit breaker as the HTTP path, so both transports share one budget
+    private <T> T guardedRpc(Supplier<T> call) {
+        return CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, call)).get();
+    }
+
     // Inner class for proper JSON serialization with UUID fields
     private static class LedgerRequest {
         public UUID accountId;
@@ -119,4 +240,28 @@ public class LedgerServiceClient {
             this.description = description;
         }
     }
+    
+    private static class MultiLegRequest {
+        public UUID debitAccountId;
+        public List<PostingLeg> legs;
+        
+        public MultiLegRequest(UUID debitAccountId, List<PostingLeg> legs) {
+            this.debitAccountId = debitAccountId;
+            this.legs = legs;
+        }
+    }
+    
+    public static class PostingLeg {
+        public UUID transactionId;
+        public UUID creditAccountId;
+        public BigDecimal amount;
+        public String description;
+        
+        public PostingLeg(UUID transactionId, UUID creditAccountId, BigDecimal amount, String description) {
+            this.transactionId = transactionId;
+            this.creditAccountId = creditAccountId;
+            this.amount = amount;
+            this.description = description;
+        }
+    }
 }
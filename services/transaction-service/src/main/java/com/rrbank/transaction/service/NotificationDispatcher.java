@@ -0,0 +1,255 @@
+package com.rrbank.transaction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rrbank.transaction.config.NotificationDispatchProperties;
+import com.rrbank.transaction.config.NotificationDispatchProperties.OverflowPolicy;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers notifications in the background. Callers only enqueue into a bounded queue; a few
+ * worker threads drain it and post whatever has accumulated as one call to notification-service's
+ * batch endpoint. Notifications therefore never hold a request thread or more than
+ * {@code workers} notification connections, however bursty the traffic.
+ *
+ * When the queue is full, or a batch cannot be delivered, notifications are spilled to a local
+ * file and re-queued once notification-service is reachable and the queue has room, or dropped
+ * if the overflow policy is DROP.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final ObjectMapper objectMapper;
+    private final NotificationDispatchProperties properties;
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final NotificationSpillFile spillFile;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final Timer batchTimer;
+    private final Counter sent;
+    private final Counter spilled;
+    private final Counter dropped;
+    private final Counter rejected;
+    private final Counter replayed;
+
+    public NotificationDispatcher(@Qualifier("notificationWebClient") WebClient webClient,
+                                  CircuitBreakerRegistry circuitBreakerRegistry,
+                                  BulkheadRegistry bulkheadRegistry,
+                                  ObjectMapper objectMapper,
+                                  NotificationDispatchProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("notification");
+        this.bulkhead = bulkheadRegistry.bulkhead("notification");
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.spillFile = new NotificationSpillFile(Path.of(properties.getSpillDir()), properties.getMaxSpillBytes());
+
+        Gauge.builder("transaction.notifications.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("transaction.notifications.queue.capacity", queue, q -> q.size() + q.remainingCapacity())
+                .register(meterRegistry);
+        Gauge.builder("transaction.notifications.spill.bytes", spillFile, NotificationSpillFile::size)
+                .description("Size of the notification spill file")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("transaction.notifications.batch")
+                .description("Time to deliver one batch to notification-service")
+                .register(meterRegistry);
+        this.sent = outcome(meterRegistry, "sent");
+        this.spilled = outcome(meterRegistry, "spilled");
+        this.dropped = outcome(meterRegistry, "dropped");
+        this.rejected = outcome(meterRegistry, "rejected");
+        this.replayed = outcome(meterRegistry, "replayed");
+    }
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            Thread worker = new Thread(this::drain, "NotificationDispatch-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("=== Notification dispatcher started: capacity={}, workers={}, batchSize={}, overflow={} ===",
+                properties.getQueueCapacity(), properties.getWorkers(), properties.getBatchSize(), properties.getOverflow());
+    }
+
+    /**
+     * Queues one notification for delivery. Never blocks. The item gets an idempotency key
+     * that stays with it through spilling and replay, so notification-service can recognise a
+     * batch it already processed when a delivery is retried.
+     *
+     * @param item batch item as notification-service expects it: {@code type} plus one payload field
+     */
+    public void enqueue(Map<String, Object> item) {
+        Map<String, Object> keyed = new HashMap<>(item);
+        keyed.putIfAbsent("idempotencyKey", UUID.randomUUID().toString());
+        if (!queue.offer(keyed)) {
+            overflow(List.of(keyed), "queue full");
+        }
+    }
+
+    private void drain() {
+        List<Map<String, Object>> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                Map<String, Object> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Notification dispatch worker error: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Map<String, Object>> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            webClient.post()
+                    .uri("/api/notifications/batch")
+                    .bodyValue(Map.of("notifications", batch))
+                    .retrieve()
+                    .bodyToMono(Void.class)
+                    .timeout(properties.getSendTimeout())
+                    .transformDeferred(BulkheadOperator.of(bulkhead))
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                    .block();
+            sent.increment(batch.size());
+            log.debug("Sent {} notifications", batch.size());
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().is4xxClientError()) {
+                // Re-sending the same payload would fail the same way
+                rejected.increment(batch.size());
+                log.error("notification-service rejected a batch of {}: {} {}",
+                        batch.size(), e.getStatusCode(), e.getResponseBodyAsString());
+            } else {
+                overflow(batch, e.getMessage());
+            }
+        } catch (Exception e) {
+            overflow(batch, e.getMessage());
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+
+    private void overflow(List<Map<String, Object>> items, String reason) {
+        int written = 0;
+        if (properties.getOverflow() == OverflowPolicy.SPILL) {
+            List<String> lines = new ArrayList<>(items.size());
+            for (Map<String, Object> item : items) {
+                try {
+                    lines.add(objectMapper.writeValueAsString(item));
+                } catch (JsonProcessingException e) {
+                    log.error("Unserializable notification dropped: {}", e.getMessage());
+                }
+            }
+            written = spillFile.append(lines);
+            spilled.increment(written);
+        }
+        if (written < items.size()) {
+            dropped.increment(items.size() - written);
+            log.warn("Dropped {} notifications ({})", items.size() - written, reason);
+        } else {
+            log.debug("Spilled {} notifications ({})", written, reason);
+        }
+    }
+
+    /**
+     * Moves spilled notifications back into the queue while notification-service is reachable
+     * and the queue is at most half full, so replay never crowds out fresh notifications.
+     */
+    @Scheduled(fixedDelayString = "${transaction.notifications.replay-interval-ms:10000}")
+    public void replaySpilled() {
+        if (spillFile.size() == 0 || circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+            return;
+        }
+        int room = queue.remainingCapacity() - properties.getQueueCapacity() / 2;
+        if (room <= 0) {
+            return;
+        }
+        List<String> lines = spillFile.take(room);
+        List<String> leftover = new ArrayList<>();
+        for (String line : lines) {
+            try {
+                Map<String, Object> item = objectMapper.readValue(line, new TypeReference<>() {});
+                if (queue.offer(item)) {
+                    replayed.increment();
+                } else {
+                    leftover.add(line);
+                }
+            } catch (JsonProcessingException e) {
+                log.error("Discarding corrupt spilled notification: {}", e.getMessage());
+            }
+        }
+        if (!leftover.isEmpty()) {
+            spillFile.append(leftover);
+        }
+        if (!lines.isEmpty()) {
+            log.info("Re-queued {} spilled notifications, {} bytes still spilled", lines.size() - leftover.size(), spillFile.size());
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(properties.getSendTimeout().toMillis());
+        }
+        List<Map<String, Object>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            overflow(remaining, "shutdown");
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("transaction.notifications")
+                .description("Notifications by delivery outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -2,23 +2,22 @@ package com.rrbank.transaction.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Fire-and-forget notifications. Each call only queues the notification on the
+ * {@link NotificationDispatcher}, which delivers them in batches off the request thread.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationServiceClient {
 
-    private final WebClient.Builder webClientBuilder;
-
-    @Value("${services.notification-url:http://localhost:8086}")
-    private String notificationServiceUrl;
+    private final NotificationDispatcher dispatcher;
 
     public void sendTransactionNotification(String userId, String email, String firstName,
                                             String transactionType, BigDecimal amount,
@@ -36,18 +35,9 @@ public class NotificationServiceClient {
             request.put("newBalance", newBalance);
             request.put("transactionRef", transactionRef);
 
-            webClientBuilder.baseUrl(notificationServiceUrl).build()
-                    .post()
-                    .uri("/api/notifications/email/transaction")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .subscribe(
-                        result -> log.info("Transaction notification sent for: {}", transactionRef),
-                        error -> log.error("Failed to send transaction notification: {}", error.getMessage())
-                    );
+            dispatcher.enqueue(Map.of("type", "TRANSACTION", "transaction", request));
         } catch (Exception e) {
-            log.error("Error sending transaction notification: {}", e.getMessage());
+            log.error("Error queueing transaction notification: {}", e.getMessage());
         }
     }
 
@@ -66,18 +56,9 @@ public class NotificationServiceClient {
             request.put("newBalance", newBalance);
             request.put("transactionRef", transactionRef);
 
-            webClientBuilder.baseUrl(notificationServiceUrl).build()
-                    .post()
-                    .uri("/api/notifications/email/transfer-received")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .subscribe(
-                        result -> log.info("Transfer received notification sent for: {}", transactionRef),
-                        error -> log.error("Failed to send transfer received notification: {}", error.getMessage())
-                    );
+            dispatcher.enqueue(Map.of("type", "TRANSFER_RECEIVED", "transferReceived", request));
         } catch (Exception e) {
-            log.error("Error sending transfer received notification: {}", e.getMessage());
+            log.error("Error queueing transfer received notification: {}", e.getMessage());
         }
     }
 
@@ -94,18 +75,9 @@ public class NotificationServiceClient {
             request.put("ipAddress", ipAddress);
             request.put("location", location);
 
-            webClientBuilder.baseUrl(notificationServiceUrl).build()
-                    .post()
-                    .uri("/api/notifications/email/security-alert")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .subscribe(
-                        result -> log.info("Security alert sent for user: {}", userId),
-                        error -> log.error("Failed to send security alert: {}", error.getMessage())
-                    );
+            dispatcher.enqueue(Map.of("type", "SECURITY_ALERT", "securityAlert", request));
         } catch (Exception e) {
-            log.error("Error sending security alert: {}", e.getMessage());
+            log.error("Error queueing security alert: {}", e.getMessage());
         }
     }
 }
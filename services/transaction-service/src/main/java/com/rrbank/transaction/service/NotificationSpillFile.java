@@ -0,0 +1,216 @@
+package com.rrbank.transaction.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Notifications the dispatch queue could not take, one JSON document per line, in
+ * append-only segment files. Appends go to the newest segment, which rolls over once it
+ * reaches a sixteenth of the size bound. Replay reads the oldest segment from a byte offset
+ * kept in a small side file, and deletes the segment once it has been read to the end, so
+ * neither side ever rewrites spilled data. Bounded by the total size on disk; lines past the
+ * bound are refused.
+ */
+@Slf4j
+class NotificationSpillFile {
+
+    private static final String SEGMENT_PREFIX = "notifications-";
+    private static final String SEGMENT_SUFFIX = ".spill";
+    // Single file written before spilling was split into segments
+    private static final String LEGACY_FILE = "notifications.spill";
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final Path offsetFile;
+    private final long maxBytes;
+    private final long segmentBytes;
+    private final boolean usable;
+    // Segment number to its size in bytes, oldest first
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+    private long nextSegment;
+    // Bytes of the oldest segment already taken
+    private long readOffset;
+    private long totalBytes;
+
+    NotificationSpillFile(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.offsetFile = directory.resolve("notifications.offset");
+        this.maxBytes = maxBytes;
+        this.segmentBytes = Math.max(READ_BUFFER_BYTES, maxBytes / 16);
+        boolean ok;
+        try {
+            Files.createDirectories(directory);
+            load();
+            ok = true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Notification spill directory {} unusable, overflow will be dropped: {}", directory, e.getMessage());
+            ok = false;
+        }
+        this.usable = ok;
+        if (size() > 0) {
+            log.info("Found {} bytes of spilled notifications in {} segments under {}", size(), segments.size(), directory);
+        }
+    }
+
+    /**
+     * Returns how many of the lines were written; the rest did not fit.
+     */
+    synchronized int append(List<String> lines) {
+        if (!usable) {
+            return 0;
+        }
+        StringBuilder chunk = new StringBuilder();
+        int accepted = 0;
+        long chunkBytes = 0;
+        for (String line : lines) {
+            long bytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (totalBytes + chunkBytes + bytes > maxBytes) {
+                break;
+            }
+            chunk.append(line).append('\n');
+            chunkBytes += bytes;
+            accepted++;
+        }
+        if (accepted == 0) {
+            return 0;
+        }
+        Map.Entry<Long, Long> newest = segments.lastEntry();
+        long segment = newest == null || newest.getValue() >= segmentBytes ? nextSegment++ : newest.getKey();
+        try {
+            Files.writeString(segmentPath(segment), chunk, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+            segments.merge(segment, chunkBytes, Long::sum);
+            totalBytes += chunkBytes;
+            return accepted;
+        } catch (IOException e) {
+            log.error("Failed to spill notifications to {}: {}", segmentPath(segment), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Removes and returns up to {@code max} lines from the head of the spill, reading only
+     * those lines.
+     */
+    synchronized List<String> take(int max) {
+        List<String> taken = new ArrayList<>();
+        if (!usable) {
+            return taken;
+        }
+        try {
+            while (taken.size() < max && !segments.isEmpty()) {
+                Map.Entry<Long, Long> oldest = segments.firstEntry();
+                if (readOffset < oldest.getValue()) {
+                    long offset = readLines(segmentPath(oldest.getKey()), readOffset, max - taken.size(), taken);
+                    if (offset == readOffset) {
+                        // No complete line left: a write torn by a crash, which can never be finished
+                        log.warn("Discarding {} bytes of incomplete spilled notification in {}",
+                                oldest.getValue() - readOffset, segmentPath(oldest.getKey()));
+                        offset = oldest.getValue();
+                    }
+                    readOffset = offset;
+                    continue;
+                }
+                Files.deleteIfExists(segmentPath(oldest.getKey()));
+                segments.pollFirstEntry();
+                totalBytes -= oldest.getValue();
+                readOffset = 0;
+            }
+        } catch (IOException e) {
+            log.error("Failed to read spilled notifications from {}: {}", directory, e.getMessage());
+        }
+        saveOffset();
+        return taken;
+    }
+
+    /**
+     * Spilled bytes not taken yet.
+     */
+    synchronized long size() {
+        return totalBytes - readOffset;
+    }
+
+    // Reads whole lines from offset and returns the offset just past the last one read
+    private static long readLines(Path path, long offset, int max, List<String> into) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            file.seek(offset);
+            byte[] buffer = new byte[READ_BUFFER_BYTES];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = offset;
+            long consumed = offset;
+            int read;
+            int taken = 0;
+            while (taken < max && (read = file.read(buffer)) > 0) {
+                for (int i = 0; i < read && taken < max; i++) {
+                    position++;
+                    if (buffer[i] == '\n') {
+                        into.add(line.toString(StandardCharsets.UTF_8));
+                        line.reset();
+                        consumed = position;
+                        taken++;
+                    } else {
+                        line.write(buffer[i]);
+                    }
+                }
+            }
+            return consumed;
+        }
+    }
+
+    private void load() throws IOException {
+        Path legacy = directory.resolve(LEGACY_FILE);
+        if (Files.exists(legacy)) {
+            Files.move(legacy, segmentPath(0), StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(offsetFile);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long segment = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                long bytes = Files.size(file);
+                segments.put(segment, bytes);
+                totalBytes += bytes;
+            }
+        }
+        nextSegment = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        if (!segments.isEmpty() && Files.exists(offsetFile)) {
+            String[] saved = Files.readString(offsetFile, StandardCharsets.UTF_8).trim().split(":");
+            // An offset saved for a segment that is gone no longer applies
+            if (saved.length == 2 && Long.parseLong(saved[0]) == segments.firstKey()) {
+                readOffset = Math.min(Long.parseLong(saved[1]), segments.firstEntry().getValue());
+            }
+        }
+    }
+
+    private void saveOffset() {
+        try {
+            if (segments.isEmpty()) {
+                Files.deleteIfExists(offsetFile);
+                return;
+            }
+            Path temp = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+            Files.writeString(temp, segments.firstKey() + ":" + readOffset, StandardCharsets.UTF_8);
+            Files.move(temp, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Lines taken since the last saved offset would be replayed again after a restart
+            log.error("Failed to save notification spill offset {}: {}", offsetFile, e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,134 @@
+package com.rrbank.transaction.service;
+
+import com.rrbank.transaction.entity.TransactionReferenceGenerator;
+import com.rrbank.transaction.repository.ReferenceNodeLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Gives this instance its transaction reference node id. An id set with
+ * transaction.reference.node-id (TRANSACTION_NODE_ID) is used as is; otherwise a free id is
+ * leased from the reference_node_leases table at startup, and the application does not start
+ * when none is free or the table cannot be reached. The lease is renewed on a heartbeat. If
+ * renewals stop succeeding, the generator stops issuing references a little before the lease
+ * lapses, and the next heartbeat leases an id again.
+ */
+@Component
+@Slf4j
+public class ReferenceNodeIdLease {
+
+    private final ReferenceNodeLeaseRepository leaseRepository;
+    private final String configuredNodeId;
+    private final int leaseTtlSeconds;
+    private final String ownerId;
+
+    // -1 while this instance holds no lease, or uses a configured node id
+    private volatile int leasedNodeId = -1;
+
+    public ReferenceNodeIdLease(ReferenceNodeLeaseRepository leaseRepository,
+                                @Value("${transaction.reference.node-id:}") String configuredNodeId,
+                                @Value("${transaction.reference.lease-ttl-seconds:60}") int leaseTtlSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.configuredNodeId = configuredNodeId;
+        this.leaseTtlSeconds = leaseTtlSeconds;
+        this.ownerId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!configuredNodeId.isBlank()) {
+            int nodeId;
+            try {
+                nodeId = Integer.parseInt(configuredNodeId.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("transaction.reference.node-id is not a number: " + configuredNodeId);
+            }
+            TransactionReferenceGenerator.assignNodeId(nodeId);
+            log.info("=== Transaction reference node id {} (configured) ===", nodeId);
+            return;
+        }
+        if (!acquire()) {
+            throw new IllegalStateException("All " + (TransactionReferenceGenerator.MAX_NODE_ID + 1)
+                    + " transaction reference node ids are leased; set transaction.reference.node-id explicitly");
+        }
+        log.info("=== Transaction reference node id {} (leased by {}) ===", leasedNodeId, ownerId);
+    }
+
+    @Scheduled(initialDelayString = "${transaction.reference.heartbeat-interval-ms:15000}",
+               fixedDelayString = "${transaction.reference.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (!configuredNodeId.isBlank()) {
+            return;
+        }
+        try {
+            int nodeId = leasedNodeId;
+            long started = System.nanoTime();
+            if (nodeId >= 0 && leaseRepository.renew(nodeId, ownerId, leaseTtlSeconds) > 0) {
+                TransactionReferenceGenerator.leaseNodeId(nodeId, validUntil(started));
+                return;
+            }
+            log.warn("Transaction reference node id lease {} lapsed, leasing again", nodeId);
+            TransactionReferenceGenerator.releaseNodeId();
+            leasedNodeId = -1;
+            if (acquire()) {
+                log.info("Leased transaction reference node id {}", leasedNodeId);
+            } else {
+                log.error("No transaction reference node id is free; transactions cannot be created on this instance");
+            }
+        } catch (Exception e) {
+            // The generator keeps using the lease until its local deadline passes
+            log.error("Failed to renew transaction reference node id lease: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int nodeId = leasedNodeId;
+        if (nodeId < 0) {
+            return;
+        }
+        try {
+            leaseRepository.release(nodeId, ownerId);
+            log.info("Released transaction reference node id {}", nodeId);
+        } catch (Exception e) {
+            log.warn("Could not release transaction reference node id {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private boolean acquire() {
+        int ids = TransactionReferenceGenerator.MAX_NODE_ID + 1;
+        // A random starting point keeps instances that start together from racing for the same ids
+        int start = ThreadLocalRandom.current().nextInt(ids);
+        for (int i = 0; i < ids; i++) {
+            int nodeId = (start + i) % ids;
+            long started = System.nanoTime();
+            if (leaseRepository.tryAcquire(nodeId, ownerId, leaseTtlSeconds) > 0) {
+                leasedNodeId = nodeId;
+                TransactionReferenceGenerator.leaseNodeId(nodeId, validUntil(started));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stop trusting the lease a little before it lapses in the database
+    private long validUntil(long startedNanos) {
+        return startedNanos + (leaseTtlSeconds * 1_000_000_000L) * 3 / 4;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
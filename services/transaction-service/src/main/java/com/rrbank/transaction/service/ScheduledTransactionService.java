@@ -0,0 +1,180 @@
+package com.rrbank.transaction.service;
+
+import com.rrbank.transaction.dto.TransactionDTOs.*;
+import com.rrbank.transaction.entity.ScheduledTransaction;
+import com.rrbank.transaction.entity.ScheduledTransaction.Frequency;
+import com.rrbank.transaction.entity.ScheduledTransaction.ScheduleStatus;
+import com.rrbank.transaction.repository.ScheduledTransactionRepository;
+import com.rrbank.transaction.schedule.ScheduleEngine;
+import com.rrbank.transaction.schedule.SchedulePartitionCoordinator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Manages standing orders. Runs are fired by {@link ScheduleEngine}; this service only stores
+ * schedules and tells the local engine about changes once they are committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledTransactionService {
+
+    private final ScheduledTransactionRepository scheduleRepository;
+    private final TransactionService transactionService;
+    private final SchedulePartitionCoordinator coordinator;
+    private final ScheduleEngine scheduleEngine;
+
+    @Transactional
+    public ScheduledTransactionResponse create(ScheduledTransferRequest request, UUID userId) {
+        log.info("Creating {} scheduled transfer from {} to {}",
+                request.getFrequency(), request.getFromAccountId(), request.getToAccountId());
+
+        // KYC Verification Guard - checked again on every run
+        transactionService.verifyKycApproved(userId);
+
+        if (request.getFromAccountId().equals(request.getToAccountId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot schedule a transfer to the same account");
+        }
+        Frequency frequency = parseFrequency(request.getFrequency());
+        if (request.getEndDate() != null && request.getEndDate().isBefore(request.getFirstRunAt().toLocalDate())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "End date is before the first run");
+        }
+
+        ScheduledTransaction schedule = ScheduledTransaction.builder()
+                .fromAccountId(request.getFromAccountId())
+                .toAccountId(request.getToAccountId())
+                .amount(request.getAmount())
+                .description(request.getDescription())
+                .initiatedBy(userId)
+                .frequency(frequency)
+                .anchorDay(frequency == Frequency.MONTHLY ? request.getFirstRunAt().getDayOfMonth() : null)
+                .nextRunAt(request.getFirstRunAt())
+                .endDate(request.getEndDate())
+                .partitionNo(coordinator.partitionFor(request.getFromAccountId()))
+                .build();
+        schedule = scheduleRepository.save(schedule);
+
+        trackAfterCommit(schedule);
+        log.info("Scheduled transfer {} created, first run at {}", schedule.getId(), schedule.getNextRunAt());
+        return toResponse(schedule);
+    }
+
+    @Transactional(readOnly = true)
+    public ScheduledTransactionResponse getSchedule(UUID scheduleId) {
+        return toResponse(findSchedule(scheduleId));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ScheduledTransactionResponse> getSchedulesByAccount(UUID accountId, Pageable pageable) {
+        return scheduleRepository.findByFromAccountIdOrderByCreatedAtDesc(accountId, pageable).map(this::toResponse);
+    }
+
+    @Transactional
+    public ScheduledTransactionResponse pause(UUID scheduleId) {
+        ScheduledTransaction schedule = findSchedule(scheduleId);
+        requireStatus(schedule, ScheduleStatus.ACTIVE);
+        schedule.setStatus(ScheduleStatus.PAUSED);
+        return saveAndTrack(schedule);
+    }
+
+    /**
+     * Resumes a paused schedule. Occurrences missed while paused are skipped, not caught up.
+     */
+    @Transactional
+    public ScheduledTransactionResponse resume(UUID scheduleId) {
+        ScheduledTransaction schedule = findSchedule(scheduleId);
+        requireStatus(schedule, ScheduleStatus.PAUSED);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = schedule.getNextRunAt();
+        while (next != null && next.isBefore(now) && schedule.getFrequency() != Frequency.ONCE) {
+            next = schedule.nextOccurrenceAfter(next);
+        }
+        if (next != null && schedule.getEndDate() != null && next.toLocalDate().isAfter(schedule.getEndDate())) {
+            schedule.setNextRunAt(null);
+            schedule.setStatus(ScheduleStatus.COMPLETED);
+        } else {
+            schedule.setNextRunAt(next);
+            schedule.setStatus(ScheduleStatus.ACTIVE);
+        }
+        return saveAndTrack(schedule);
+    }
+
+    @Transactional
+    public ScheduledTransactionResponse cancel(UUID scheduleId) {
+        ScheduledTransaction schedule = findSchedule(scheduleId);
+        if (schedule.getStatus() == ScheduleStatus.COMPLETED || schedule.getStatus() == ScheduleStatus.CANCELLED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Scheduled transfer is already " + schedule.getStatus());
+        }
+        schedule.setStatus(ScheduleStatus.CANCELLED);
+        schedule.setNextRunAt(null);
+        return saveAndTrack(schedule);
+    }
+
+    private ScheduledTransactionResponse saveAndTrack(ScheduledTransaction schedule) {
+        schedule = scheduleRepository.save(schedule);
+        trackAfterCommit(schedule);
+        log.info("Scheduled transfer {} is now {}", schedule.getId(), schedule.getStatus());
+        return toResponse(schedule);
+    }
+
+    private void trackAfterCommit(ScheduledTransaction schedule) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                scheduleEngine.track(schedule);
+            }
+        });
+    }
+
+    private ScheduledTransaction findSchedule(UUID scheduleId) {
+        return scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new RuntimeException("Scheduled transfer not found: " + scheduleId));
+    }
+
+    private void requireStatus(ScheduledTransaction schedule, ScheduleStatus expected) {
+        if (schedule.getStatus() != expected) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Scheduled transfer is " + schedule.getStatus() + ", expected " + expected);
+        }
+    }
+
+    private Frequency parseFrequency(String frequency) {
+        try {
+            return Frequency.valueOf(frequency.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported frequency: " + frequency);
+        }
+    }
+
+    private ScheduledTransactionResponse toResponse(ScheduledTransaction schedule) {
+        return ScheduledTransactionResponse.builder()
+                .scheduleId(schedule.getId().toString())
+                .fromAccountId(schedule.getFromAccountId().toString())
+                .toAccountId(schedule.getToAccountId().toString())
+                .amount(schedule.getAmount())
+                .description(schedule.getDescription())
+                .frequency(schedule.getFrequency().name())
+                .status(schedule.getStatus().name())
+                .nextRunAt(schedule.getNextRunAt())
+                .endDate(schedule.getEndDate())
+                .runCount(schedule.getRunCount())
+                .lastRunAt(schedule.getLastRunAt())
+                .lastRunStatus(schedule.getLastRunStatus())
+                .lastTransactionId(schedule.getLastTransactionId() != null ? schedule.getLastTransactionId().toString() : null)
+                .lastFailureReason(schedule.getLastFailureReason())
+                .createdAt(schedule.getCreatedAt())
+                .build();
+    }
+}
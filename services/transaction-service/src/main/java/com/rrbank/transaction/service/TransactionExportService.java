@@ -0,0 +1,116 @@
+package com.rrbank.transaction.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams account transaction exports as CSV.
+ *
+ * Rows are read through a server-side JDBC cursor with a bounded fetch size and written
+ * straight to the response stream, so memory use stays flat regardless of export size.
+ */
+@Service
+@Slf4j
+public class TransactionExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 8192;
+    private static final LocalDateTime EARLIEST_EXPORT = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CSV_HEADER = "Date,Type,Description,Amount,Status,Reference\n";
+
+    private static final String EXPORT_SQL =
+            "SELECT t.created_at, t.transaction_type, t.description, t.amount, t.status, t.transaction_reference " +
+            "FROM account_transactions a JOIN transactions t ON t.id = a.transaction_id AND t.created_at = a.created_at " +
+            // Repeating the range on t lets the planner skip partitions outside it
+            "WHERE a.account_id = ? AND a.created_at >= ? AND a.created_at <= ? " +
+            "AND t.created_at >= ? AND t.created_at <= ? " +
+            "ORDER BY a.created_at DESC, a.transaction_id DESC";
+
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TransactionExportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the CSV export for an account to the given stream.
+     * The header is flushed before the query runs so the first byte goes out immediately.
+     */
+    public void writeCsv(UUID accountId, LocalDate startDate, LocalDate endDate,
+                         boolean gzip, OutputStream out) throws IOException {
+        LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : EARLIEST_EXPORT;
+        LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : LocalDateTime.now();
+
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzipStream != null ? gzipStream : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        writer.write(CSV_HEADER);
+        writer.flush();
+
+        AtomicLong rows = new AtomicLong();
+        try {
+            // PostgreSQL only honours the fetch size (cursor mode) inside a transaction
+            readOnlyTransaction.executeWithoutResult(status ->
+                    cursorJdbcTemplate.query(EXPORT_SQL, rs -> {
+                        try {
+                            Timestamp createdAt = rs.getTimestamp(1);
+                            writer.write(createdAt != null ? createdAt.toLocalDateTime().format(DATE_FORMATTER) : "");
+                            writer.write(',');
+                            writer.write(rs.getString(2));
+                            writer.write(",\"");
+                            String description = rs.getString(3);
+                            writer.write(description != null ? description.replace("\"", "\"\"") : "");
+                            writer.write("\",");
+                            BigDecimal amount = rs.getBigDecimal(4);
+                            writer.write(String.valueOf(amount));
+                            writer.write(',');
+                            writer.write(rs.getString(5));
+                            writer.write(',');
+                            String reference = rs.getString(6);
+                            writer.write(reference != null ? reference : "");
+                            writer.write('\n');
+                            rows.incrementAndGet();
+                        } catch (IOException e) {
+                            // Client went away - abort the query instead of reading the rest of the cursor
+                            throw new UncheckedIOException(e);
+                        }
+                    }, accountId, Timestamp.valueOf(startDateTime), Timestamp.valueOf(endDateTime),
+                            Timestamp.valueOf(startDateTime), Timestamp.valueOf(endDateTime)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        log.info("Exported {} transactions for account: {}", rows.get(), accountId);
+    }
+}
@@ -0,0 +1,175 @@
+package com.rrbank.transaction.service;
+
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.repository.TransactionIdempotencyKeyRepository;
+import com.rrbank.transaction.repository.TransactionReferenceRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly range partitions of the transactions table in shape. Partitions are
+ * created a few months ahead, so an insert never finds its month missing, and partitions
+ * that fall out of the retention period are detached and moved to an archive schema, where
+ * they can be dumped or dropped without touching the live table.
+ */
+@Service
+@Slf4j
+public class TransactionPartitionManager {
+
+    public static final String TABLE = "transactions";
+    private static final long MAINTENANCE_LOCK_ID = 0x7278626B70617274L;
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionReferenceRepository referenceRepository;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final String archiveSchema;
+    private final AtomicInteger monthsAhead = new AtomicInteger(-1);
+
+    public TransactionPartitionManager(JdbcTemplate jdbcTemplate,
+                                       TransactionIdempotencyKeyRepository idempotencyKeyRepository,
+                                       TransactionReferenceRepository referenceRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${transaction.partitions.premake-months:3}") int premakeMonths,
+                                       @Value("${transaction.partitions.retention-months:84}") int retentionMonths,
+                                       @Value("${transaction.partitions.archive-schema:transactions_archive}") String archiveSchema) {
+        if (!IDENTIFIER.matcher(archiveSchema).matches()) {
+            throw new IllegalStateException("transaction.partitions.archive-schema must be a lower-case SQL identifier: " + archiveSchema);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.referenceRepository = referenceRepository;
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.retentionMonths = retentionMonths;
+        this.archiveSchema = archiveSchema;
+
+        Gauge.builder("transaction.partitions.months.ahead", monthsAhead, AtomicInteger::get)
+                .description("Future months that already have a transactions partition")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${transaction.partitions.maintenance-cron:0 30 2 * * *}")
+    @Transactional
+    public void maintain() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_ID))) {
+            log.debug("Another instance is maintaining transaction partitions");
+            return;
+        }
+        if (!isPartitioned()) {
+            log.warn("Transactions table is not partitioned yet, skipping partition maintenance");
+            return;
+        }
+        createMissingIndexes();
+        createUpcomingPartitions();
+        if (retentionMonths > 0) {
+            archiveExpiredPartitions();
+        }
+    }
+
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('" + TABLE + "')", String.class);
+        return kinds.contains("p");
+    }
+
+    /**
+     * Creates indexes declared on the entity after the table was partitioned. They are created
+     * on the parent, so every partition, including ones created later, gets them.
+     */
+    private void createMissingIndexes() {
+        for (Index index : Transaction.class.getAnnotation(Table.class).indexes()) {
+            jdbcTemplate.execute("CREATE " + (index.unique() ? "UNIQUE " : "") + "INDEX IF NOT EXISTS "
+                    + index.name() + " ON " + TABLE + " (" + index.columnList() + ")");
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        LocalDateTime covered = partitions().stream()
+                .map(Partition::upperBound)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (covered != null && !end.isAfter(covered)) {
+                continue;
+            }
+            if (covered != null && covered.isAfter(start)) {
+                // The previous partition ends mid-month; start this one where it stops
+                start = covered;
+            }
+            String name = TABLE + "_p" + month.format(PARTITION_SUFFIX);
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE
+                    + " FOR VALUES FROM ('" + start.format(BOUND_FORMAT) + "') TO ('" + end.format(BOUND_FORMAT) + "')");
+            covered = end;
+            log.info("Created transactions partition {} for [{}, {})", name, start, end);
+        }
+
+        monthsAhead.set(covered != null ? (int) ChronoUnit.MONTHS.between(current.plusMonths(1), YearMonth.from(covered)) : 0);
+    }
+
+    private void archiveExpiredPartitions() {
+        LocalDateTime cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        for (Partition partition : partitions()) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name());
+            jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA " + archiveSchema);
+            int keys = idempotencyKeyRepository.deleteOlderThan(partition.upperBound());
+            // Only time-ordered references are issued now, so an archived month's can never come back
+            int references = referenceRepository.deleteOlderThan(partition.upperBound());
+            log.info("Archived transactions partition {} (before {}) to schema {}, released {} idempotency keys and {} references",
+                    partition.name(), partition.upperBound(), archiveSchema, keys, references);
+        }
+    }
+
+    private List<Partition> partitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = '" + TABLE + "'::regclass",
+                (rs, rowNum) -> new Partition(rs.getString(1), upperBound(rs.getString(2))));
+    }
+
+    // Null for a DEFAULT partition or an open-ended (MAXVALUE) bound
+    private static LocalDateTime upperBound(String boundExpression) {
+        Matcher matcher = UPPER_BOUND.matcher(boundExpression);
+        if (!matcher.find()) {
+            return null;
+        }
+        return LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+    }
+
+    private record Partition(String name, LocalDateTime upperBound) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.rrbank.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.exception.InvalidCursorException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Admin search over all transactions. Pages are keyset-based: the cursor carries the sort value
+ * and id of the last row, so each page is one range scan of a (filter..., sort column, id) index
+ * however deep the client has paged. Totals come from the planner's row estimate and are only
+ * counted exactly when the estimate is small.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionSearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+    // Estimates up to this are replaced by an exact (capped) count
+    private static final long EXACT_COUNT_LIMIT = 10_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Columns a search may be ordered by. For every combination of the status and type
+     * filters there is an index of those columns followed by (column, id). A date range
+     * needs no index of its own: the table is partitioned by month on created_at, so the
+     * range prunes partitions and each remaining one is scanned in (column, id) order.
+     */
+    public enum SortField {
+        CREATED_AT("createdAt", "created_at"),
+        AMOUNT("amount", "amount");
+
+        private final String property;
+        private final String column;
+
+        SortField(String property, String column) {
+            this.property = property;
+            this.column = column;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public static SortField fromProperty(String property) {
+            return Arrays.stream(values())
+                    .filter(field -> field.property.equals(property))
+                    .findFirst()
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort by '" + property
+                            + "'. Sortable fields: " + Arrays.stream(values()).map(SortField::getProperty).toList()));
+        }
+    }
+
+    public record Criteria(Transaction.TransactionStatus status,
+                           Transaction.TransactionType type,
+                           LocalDate startDate,
+                           LocalDate endDate) {
+    }
+
+    /**
+     * @param totalEstimate only computed for the first page (no cursor); null on later pages
+     */
+    public record Result(List<Transaction> rows, String nextCursor, boolean hasMore,
+                         Long totalEstimate, boolean totalExact) {
+    }
+
+    @Transactional(readOnly = true)
+    public Result search(Criteria criteria, SortField sort, boolean ascending, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String filter = filterClause(criteria, params);
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM transactions t").append(filter);
+        if (cursor != null && !cursor.isEmpty()) {
+            Cursor position = Cursor.decode(cursor, sort, ascending);
+            sql.append(filter.isEmpty() ? " WHERE " : " AND ")
+                    .append("(t.").append(sort.column).append(", t.id) ")
+                    .append(ascending ? ">" : "<")
+                    .append(" (:cursorValue, :cursorId)");
+            params.addValue("cursorValue", position.value());
+            params.addValue("cursorId", position.id());
+        }
+        String direction = ascending ? "ASC" : "DESC";
+        sql.append(" ORDER BY t.").append(sort.column).append(' ').append(direction)
+                .append(", t.id ").append(direction)
+                .append(" LIMIT :limit");
+        // One extra row tells whether another page exists
+        params.addValue("limit", limit + 1);
+
+        List<Transaction> rows = jdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        String nextCursor = hasMore ? Cursor.encode(sort, ascending, rows.get(rows.size() - 1)) : null;
+
+        Long total = null;
+        boolean exact = false;
+        if (cursor == null || cursor.isEmpty()) {
+            if (!hasMore) {
+                // The whole result fits on this page
+                total = (long) rows.size();
+                exact = true;
+            } else {
+                total = estimateCount(filter, params);
+                if (total <= EXACT_COUNT_LIMIT) {
+                    long counted = cappedCount(filter, params);
+                    exact = counted <= EXACT_COUNT_LIMIT;
+                    total = counted;
+                }
+            }
+        }
+        return new Result(rows, nextCursor, hasMore, total, exact);
+    }
+
+    // Enum filters are bound as their stored names, so the indexed columns are compared directly
+    private String filterClause(Criteria criteria, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder();
+        if (criteria.status() != null) {
+            where.append(" AND t.status = :status");
+            params.addValue("status", criteria.status().name());
+        }
+        if (criteria.type() != null) {
+            where.append(" AND t.transaction_type = :type");
+            params.addValue("type", criteria.type().name());
+        }
+        if (criteria.startDate() != null) {
+            where.append(" AND t.created_at >= :startTime");
+            params.addValue("startTime", criteria.startDate().atStartOfDay());
+        }
+        if (criteria.endDate() != null) {
+            where.append(" AND t.created_at < :endTime");
+            params.addValue("endTime", criteria.endDate().plusDays(1).atStartOfDay());
+        }
+        return where.isEmpty() ? "" : " WHERE" + where.substring(4);
+    }
+
+    private long estimateCount(String filter, MapSqlParameterSource params) {
+        try {
+            if (filter.isEmpty()) {
+                // A partitioned table has no statistics of its own, so its partitions' are summed
+                Long reltuples = jdbcTemplate.queryForObject(
+                        "SELECT (CASE WHEN p.relkind = 'p' THEN (SELECT sum(greatest(c.reltuples, 0)) " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = p.oid) " +
+                        "ELSE p.reltuples END)::bigint FROM pg_class p WHERE p.oid = 'transactions'::regclass",
+                        params, Long.class);
+                // -1 (or no partitions) until the table has been analyzed once
+                if (reltuples != null && reltuples >= 0) {
+                    return reltuples;
+                }
+            }
+            String plan = jdbcTemplate.queryForObject(
+                    "EXPLAIN (FORMAT JSON) SELECT 1 FROM transactions t" + filter, params, String.class);
+            JsonNode root = objectMapper.readTree(plan);
+            return root.get(0).get("Plan").get("Plan Rows").asLong();
+        } catch (Exception e) {
+            log.warn("Transaction count estimate failed, counting instead: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private long cappedCount(String filter, MapSqlParameterSource params) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM (SELECT 1 FROM transactions t" + filter + " LIMIT "
+                        + (EXACT_COUNT_LIMIT + 1) + ") c",
+                params, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> Transaction.builder()
+            .id(rs.getObject("id", UUID.class))
+            .transactionReference(rs.getString("transaction_reference"))
+            .fromAccountId(rs.getObject("from_account_id", UUID.class))
+            .toAccountId(rs.getObject("to_account_id", UUID.class))
+            .transactionType(Transaction.TransactionType.valueOf(rs.getString("transaction_type")))
+            .amount(rs.getBigDecimal("amount"))
+            .currency(rs.getString("currency"))
+            .status(Transaction.TransactionStatus.valueOf(rs.getString("status")))
+            .description(rs.getString("description"))
+            .idempotencyKey(rs.getString("idempotency_key"))
+            .failureReason(rs.getString("failure_reason"))
+            .initiatedBy(rs.getObject("initiated_by", UUID.class))
+            .createdAt(rs.getObject("created_at", LocalDateTime.class))
+            .completedAt(rs.getObject("completed_at", LocalDateTime.class))
+            .updatedAt(rs.getObject("updated_at", LocalDateTime.class))
+            .build();
+
+    /**
+     * Opaque position in a sorted result: sort field, direction, last sort value and last id.
+     */
+    private record Cursor(Object value, UUID id) {
+
+        static String encode(SortField sort, boolean ascending, Transaction last) {
+            Object value = sort == SortField.AMOUNT ? last.getAmount().toPlainString() : last.getCreatedAt();
+            String raw = sort.property + "|" + (ascending ? "asc" : "desc") + "|" + value + "|" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, SortField sort, boolean ascending) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("Invalid search cursor: " + cursor, e);
+            }
+            if (parts.length != 4) {
+                throw new InvalidCursorException("Invalid search cursor: " + cursor);
+            }
+            if (!parts[0].equals(sort.property) || !parts[1].equals(ascending ? "asc" : "desc")) {
+                throw new InvalidCursorException("Cursor was issued for a different sort order; start again without it");
+            }
+            try {
+                Object value = sort == SortField.AMOUNT ? new BigDecimal(parts[2]) : LocalDateTime.parse(parts[2]);
+                return new Cursor(value, UUID.fromString(parts[3]));
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException("Invalid search cursor: " + cursor, e);
+            }
+        }
+    }
+}
@@ -1,23 +1,36 @@
 package com.rrbank.transaction.service;
 
 import com.rrbank.transaction.dto.TransactionDTOs.*;
+import com.rrbank.transaction.entity.AccountTransaction;
 import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.exception.InvalidCursorException;
 import com.rrbank.transaction.exception.KycNotApprovedException;
+import com.rrbank.transaction.repository.AccountTransactionRepository;
+import com.rrbank.transaction.repository.TransactionIdempotencyKeyRepository;
+import com.rrbank.transaction.repository.TransactionReferenceRepository;
 import com.rrbank.transaction.repository.TransactionRepository;
+import com.rrbank.transaction.saga.SagaMetrics;
 import com.rrbank.transaction.saga.TransactionSagaOrchestrator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,16 +38,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransactionService {
 
+    private static final LocalDateTime EARLIEST_HISTORY = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
+    private final AccountTransactionRepository accountTransactionRepository;
+    private final TransactionIdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionReferenceRepository referenceRepository;
+    private final AccountTransactionIndexer accountTransactionIndexer;
     private final TransactionSagaOrchestrator sagaOrchestrator;
     private final CustomerServiceClient customerServiceClient;
+    private final SagaMetrics sagaMetrics;
 
     @Transactional
     public TransactionResponse deposit(DepositRequest request, UUID userId) {
         log.info("Processing deposit request for account: {}", request.getAccountId());
 
         // KYC Verification Guard
-        verifyKycApproved(userId);
+        sagaMetrics.timeStep("DEPOSIT", "kyc", () -> verifyKycApproved(userId));
 
         if (request.getIdempotencyKey() != null) {
             Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(request.getIdempotencyKey());
@@ -44,7 +65,7 @@ public class TransactionService {
             }
         }
 
-        Transaction transaction = Transaction.builder()
+        Transaction pending = Transaction.builder()
                 .toAccountId(request.getAccountId())
                 .transactionType(Transaction.TransactionType.DEPOSIT)
                 .amount(request.getAmount())
@@ -52,7 +73,7 @@ public class TransactionService {
                 .idempotencyKey(request.getIdempotencyKey())
                 .initiatedBy(userId)
                 .build();
-        transaction = transactionRepository.save(transaction);
+        Transaction transaction = sagaMetrics.timeStep("DEPOSIT", "create", () -> create(pending));
 
         transaction = sagaOrchestrator.executeDeposit(transaction, userId);
         
@@ -64,7 +85,7 @@ public class TransactionService {
         log.info("Processing withdrawal request for account: {}", request.getAccountId());
 
         // KYC Verification Guard
-        verifyKycApproved(userId);
+        sagaMetrics.timeStep("WITHDRAWAL", "kyc", () -> verifyKycApproved(userId));
 
         if (request.getIdempotencyKey() != null) {
             Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(request.getIdempotencyKey());
@@ -74,7 +95,7 @@ public class TransactionService {
             }
         }
 
-        Transaction transaction = Transaction.builder()
+        Transaction pending = Transaction.builder()
                 .fromAccountId(request.getAccountId())
                 .transactionType(Transaction.TransactionType.WITHDRAWAL)
                 .amount(request.getAmount())
@@ -82,7 +103,7 @@ public class TransactionService {
                 .idempotencyKey(request.getIdempotencyKey())
                 .initiatedBy(userId)
                 .build();
-        transaction = transactionRepository.save(transaction);
+        Transaction transaction = sagaMetrics.timeStep("WITHDRAWAL", "create", () -> create(pending));
 
         transaction = sagaOrchestrator.executeWithdrawal(transaction, userId);
         
@@ -95,7 +116,7 @@ public class TransactionService {
                 request.getFromAccountId(), request.getToAccountId());
 
         // KYC Verification Guard
-        verifyKycApproved(userId);
+        sagaMetrics.timeStep("TRANSFER", "kyc", () -> verifyKycApproved(userId));
 
         if (request.getIdempotencyKey() != null) {
             Optional<Transaction> existing = transactionRepository.findByIdempotencyKey(request.getIdempotencyKey());
@@ -105,7 +126,7 @@ public class TransactionService {
             }
         }
 
-        Transaction transaction = Transaction.builder()
+        Transaction pending = Transaction.builder()
                 .fromAccountId(request.getFromAccountId())
                 .toAccountId(request.getToAccountId())
                 .transactionType(Transaction.TransactionType.TRANSFER)
@@ -114,7 +135,7 @@ public class TransactionService {
                 .idempotencyKey(request.getIdempotencyKey())
                 .initiatedBy(userId)
                 .build();
-        transaction = transactionRepository.save(transaction);
+        Transaction transaction = sagaMetrics.timeStep("TRANSFER", "create", () -> create(pending));
 
         transaction = sagaOrchestrator.executeTransfer(transaction, userId);
         
@@ -123,7 +144,7 @@ public class TransactionService {
 
     @Transactional(readOnly = true)
     public TransactionResponse getTransaction(UUID transactionId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
+        Transaction transaction = transactionRepository.findByIdPruned(transactionId)
                 .orElseThrow(() -> new RuntimeException("Transaction not found: " + transactionId));
         return toResponse(transaction);
     }
@@ -137,9 +158,7 @@ public class TransactionService {
 
     @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsByAccount(UUID accountId, Pageable pageable) {
-        return transactionRepository.findByFromAccountIdOrToAccountIdOrderByCreatedAtDesc(
-                accountId, accountId, pageable
-        ).map(this::toResponse);
+        return getTransactionsByAccountAndDateRange(accountId, null, null, null, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -150,46 +169,143 @@ public class TransactionService {
             String type,
             Pageable pageable) {
         
-        LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : LocalDateTime.of(2000, 1, 1, 0, 0);
+        LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : EARLIEST_HISTORY;
         LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : LocalDateTime.now();
+        // Ordering is fixed by the projection key, so only the page window is taken from the request
+        Pageable window = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
         
-        if (type != null && !type.isEmpty()) {
-            try {
-                Transaction.TransactionType transactionType = Transaction.TransactionType.valueOf(type.toUpperCase());
-                return transactionRepository.findByAccountIdAndDateRangeAndType(
-                        accountId, startDateTime, endDateTime, transactionType, pageable
-                ).map(this::toResponse);
-            } catch (IllegalArgumentException e) {
-                log.warn("Invalid transaction type: {}", type);
-            }
-        }
+        Transaction.TransactionType transactionType = parseType(type);
+        Page<AccountTransaction> rows = transactionType != null
+                ? accountTransactionRepository.findByAccountIdAndDateRangeAndType(
+                        accountId, startDateTime, endDateTime, transactionType, window)
+                : accountTransactionRepository.findByAccountIdAndDateRange(
+                        accountId, startDateTime, endDateTime, window);
         
-        return transactionRepository.findByAccountIdAndDateRange(
-                accountId, startDateTime, endDateTime, pageable
-        ).map(this::toResponse);
+        return new PageImpl<>(loadInOrder(rows.getContent()), rows.getPageable(), rows.getTotalElements());
     }
 
+    /**
+     * Keyset-paginated account history. The cursor is opaque to clients and encodes the
+     * (created_at, id) of the last row returned, so every page is a single index range scan.
+     */
     @Transactional(readOnly = true)
-    public List<TransactionResponse> exportTransactions(
-            UUID accountId, 
-            LocalDate startDate, 
-            LocalDate endDate) {
+    public TransactionHistoryPage getTransactionHistory(
+            UUID accountId,
+            LocalDate startDate,
+            LocalDate endDate,
+            String type,
+            String cursor,
+            int size) {
         
-        LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : LocalDateTime.of(2000, 1, 1, 0, 0);
-        LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : LocalDateTime.now();
+        int limit = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        LocalDateTime startDateTime = startDate != null ? startDate.atStartOfDay() : EARLIEST_HISTORY;
+        
+        LocalDateTime cursorTime;
+        UUID cursorId;
+        if (cursor != null && !cursor.isEmpty()) {
+            HistoryCursor position = decodeCursor(cursor);
+            cursorTime = position.createdAt();
+            cursorId = position.id();
+        } else {
+            // Strictly after the end of the range, so the first page includes rows at endDateTime
+            LocalDateTime endDateTime = endDate != null ? endDate.atTime(LocalTime.MAX) : LocalDateTime.now();
+            cursorTime = endDateTime.plusNanos(1000);
+            cursorId = new UUID(0L, 0L);
+        }
         
-        return transactionRepository.findAllByAccountIdAndDateRange(accountId, startDateTime, endDateTime)
-                .stream()
+        Transaction.TransactionType transactionType = parseType(type);
+        // Fetch one extra row to know whether another page exists
+        List<AccountTransaction> rows = transactionType != null
+                ? accountTransactionRepository.findPageBeforeByType(
+                        accountId, transactionType.name(), startDateTime, cursorTime, cursorId, limit + 1)
+                : accountTransactionRepository.findPageBefore(
+                        accountId, startDateTime, cursorTime, cursorId, limit + 1);
+        
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            AccountTransaction.Key last = rows.get(rows.size() - 1).getKey();
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getTransactionId());
+        }
+        
+        return TransactionHistoryPage.builder()
+                .items(loadInOrder(rows))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private Transaction create(Transaction transaction) {
+        Transaction saved = transactionRepository.save(transaction);
+        referenceRepository.claim(saved.getTransactionReference(), saved.getId(), saved.getCreatedAt());
+        if (saved.getIdempotencyKey() != null) {
+            idempotencyKeyRepository.claim(saved.getIdempotencyKey(), saved.getId(), saved.getCreatedAt());
+        }
+        accountTransactionIndexer.index(saved);
+        return saved;
+    }
+
+    private List<TransactionResponse> loadInOrder(List<AccountTransaction> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> ids = rows.stream().map(row -> row.getKey().getTransactionId()).toList();
+        // Projection rows share the transaction's created_at; its range limits the partitions read
+        LocalDateTime oldest = rows.stream().map(row -> row.getKey().getCreatedAt()).min(Comparator.naturalOrder()).get();
+        LocalDateTime newest = rows.stream().map(row -> row.getKey().getCreatedAt()).max(Comparator.naturalOrder()).get();
+        Map<UUID, Transaction> byId = transactionRepository.findByIdInAndCreatedAtBetween(ids, oldest, newest).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(tx -> tx != null)
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
 
+    private Transaction.TransactionType parseType(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
+        }
+        try {
+            return Transaction.TransactionType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid transaction type: {}", type);
+            return null;
+        }
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Any malformed cursor is the client's error, whichever part fails to parse
+    private static HistoryCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return new HistoryCursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid history cursor: " + cursor, e);
+        }
+    }
+
+    private record HistoryCursor(LocalDateTime createdAt, UUID id) {
+    }
+
     /**
      * Verifies that the user's KYC is approved before allowing transactions.
      * @param userId The user ID to verify
      * @throws KycNotApprovedException if KYC is not approved
      */
-    private void verifyKycApproved(UUID userId) {
+    void verifyKycApproved(UUID userId) {
         if (userId == null) {
             log.warn("No user ID provided for KYC verification, skipping check");
             return;
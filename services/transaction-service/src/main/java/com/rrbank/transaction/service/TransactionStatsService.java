@@ -0,0 +1,255 @@
+package com.rrbank.transaction.service;
+
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.entity.Transaction.TransactionStatus;
+import com.rrbank.transaction.entity.Transaction.TransactionType;
+import com.rrbank.transaction.entity.TransactionStatsRollup;
+import com.rrbank.transaction.entity.TransactionStatsRollup.BucketKey;
+import com.rrbank.transaction.entity.TransactionStatsRollup.Granularity;
+import com.rrbank.transaction.repository.TransactionStatsRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains transaction statistics incrementally.
+ *
+ * Saga starts and outcomes are accumulated as in-memory deltas per (granularity, bucket, type,
+ * status), flushed to the transaction_stats_rollup table with additive upserts, and the stats
+ * snapshot served by {@link #getStats()} is rebuilt from the bounded set of rollup rows. Reads
+ * never touch the transactions table, so their cost does not grow with it.
+ *
+ * A transaction counts in the time buckets of its creation from the moment it starts, as
+ * PENDING until its outcome moves it, so the today/week/month counts include in-flight
+ * transactions; volumes count completed ones only.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionStatsService {
+
+    private static final Granularity[] WINDOW_GRANULARITIES = {Granularity.MINUTE, Granularity.HOUR, Granularity.DAY};
+
+    private final TransactionStatsRollupRepository rollupRepository;
+
+    private final ConcurrentHashMap<BucketKey, Delta> pendingDeltas = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Object> snapshot = Collections.emptyMap();
+
+    /**
+     * Counts a transaction as in flight once the transaction that starts its saga commits.
+     * A synchronous saga that commits its outcome in the same transaction registers both
+     * changes, which then apply in order on commit.
+     */
+    public void recordInitiated(Transaction tx) {
+        TransactionType type = tx.getTransactionType();
+        LocalDateTime createdAt = tx.getCreatedAt() != null ? tx.getCreatedAt() : LocalDateTime.now();
+
+        afterCommit(() -> {
+            addDelta(Granularity.TOTAL, null, type, TransactionStatus.PENDING, 1, BigDecimal.ZERO);
+            for (Granularity granularity : WINDOW_GRANULARITIES) {
+                addDelta(granularity, createdAt, type, TransactionStatus.PENDING, 1, BigDecimal.ZERO);
+            }
+        });
+    }
+
+    /**
+     * Moves a transaction from in flight to its terminal status, in the totals and in the
+     * time buckets of its creation.
+     */
+    public void recordOutcome(Transaction tx) {
+        TransactionType type = tx.getTransactionType();
+        TransactionStatus status = tx.getStatus();
+        BigDecimal amount = tx.getAmount() != null ? tx.getAmount() : BigDecimal.ZERO;
+        LocalDateTime createdAt = tx.getCreatedAt() != null ? tx.getCreatedAt() : LocalDateTime.now();
+
+        afterCommit(() -> {
+            addDelta(Granularity.TOTAL, null, type, TransactionStatus.PENDING, -1, BigDecimal.ZERO);
+            addDelta(Granularity.TOTAL, null, type, status, 1, amount);
+            for (Granularity granularity : WINDOW_GRANULARITIES) {
+                addDelta(granularity, createdAt, type, TransactionStatus.PENDING, -1, BigDecimal.ZERO);
+                addDelta(granularity, createdAt, type, status, 1, amount);
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            refreshSnapshot();
+        } catch (Exception e) {
+            log.warn("Failed to load initial transaction stats snapshot: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.stats.refresh-interval-ms:5000}")
+    public void flushAndRefresh() {
+        try {
+            flushDeltas();
+            refreshSnapshot();
+        } catch (Exception e) {
+            log.warn("Failed to flush transaction stats (will retry): {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${transaction.stats.retention-cron:0 15 3 * * *}")
+    public void purgeExpiredBuckets() {
+        LocalDateTime now = LocalDateTime.now();
+        int minutes = rollupRepository.deleteOlderThan(Granularity.MINUTE, now.minusDays(2));
+        int hours = rollupRepository.deleteOlderThan(Granularity.HOUR, now.minusDays(35));
+        log.info("Purged expired stats buckets: minute={}, hour={}", minutes, hours);
+    }
+
+    void flushDeltas() {
+        for (BucketKey key : new ArrayList<>(pendingDeltas.keySet())) {
+            Delta delta = pendingDeltas.remove(key);
+            if (delta == null || (delta.count == 0 && delta.volume.signum() == 0)) {
+                continue;
+            }
+            try {
+                rollupRepository.addDelta(key.getGranularity().name(), key.getBucketStart(),
+                        key.getTransactionType().name(), key.getStatus().name(), delta.count, delta.volume);
+            } catch (Exception e) {
+                // Put the delta back so it is retried on the next flush
+                pendingDeltas.merge(key, delta, Delta::combine);
+                throw e;
+            }
+        }
+    }
+
+    void refreshSnapshot() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfDay = Granularity.DAY.bucketStart(now);
+        LocalDateTime weekAgo = Granularity.HOUR.bucketStart(now.minusDays(7));
+        LocalDateTime monthAgo = Granularity.HOUR.bucketStart(now.minusDays(30));
+        // Whole days come from DAY rows; only the part of the first day inside a window from HOUR rows
+        LocalDateTime weekDays = Granularity.DAY.bucketStart(weekAgo).plusDays(1);
+        LocalDateTime monthDays = Granularity.DAY.bucketStart(monthAgo).plusDays(1);
+        LocalDateTime hourAgo = Granularity.MINUTE.bucketStart(now.minusHours(1));
+
+        Map<TransactionStatus, Long> byStatus = new EnumMap<>(TransactionStatus.class);
+        Map<TransactionType, Long> byType = new EnumMap<>(TransactionType.class);
+        long total = 0;
+        for (TransactionStatsRollup row : rollupRepository.findBuckets(Granularity.TOTAL, Granularity.TOTAL.bucketStart(now))) {
+            byStatus.merge(row.getKey().getStatus(), row.getTxCount(), Long::sum);
+            byType.merge(row.getKey().getTransactionType(), row.getTxCount(), Long::sum);
+            total += row.getTxCount();
+        }
+
+        Window today = new Window();
+        Window week = new Window();
+        Window month = new Window();
+        for (TransactionStatsRollup row : rollupRepository.findBuckets(Granularity.DAY, monthDays)) {
+            LocalDateTime bucket = row.getKey().getBucketStart();
+            month.add(row);
+            if (!bucket.isBefore(weekDays)) {
+                week.add(row);
+            }
+            if (!bucket.isBefore(startOfDay)) {
+                today.add(row);
+            }
+        }
+        for (TransactionStatsRollup row : rollupRepository.findBucketsBetween(Granularity.HOUR, monthAgo, monthDays)) {
+            month.add(row);
+        }
+        for (TransactionStatsRollup row : rollupRepository.findBucketsBetween(Granularity.HOUR, weekAgo, weekDays)) {
+            week.add(row);
+        }
+
+        Window lastHour = new Window();
+        for (TransactionStatsRollup row : rollupRepository.findBuckets(Granularity.MINUTE, hourAgo)) {
+            lastHour.add(row);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalTransactions", total);
+        stats.put("completedTransactions", byStatus.getOrDefault(TransactionStatus.COMPLETED, 0L));
+        stats.put("pendingTransactions", Math.max(0L, byStatus.getOrDefault(TransactionStatus.PENDING, 0L)));
+        stats.put("failedTransactions", byStatus.getOrDefault(TransactionStatus.FAILED, 0L));
+        stats.put("transactionsLastHour", lastHour.count);
+        stats.put("transactionsToday", today.count);
+        stats.put("transactionsThisWeek", week.count);
+        stats.put("transactionsThisMonth", month.count);
+        stats.put("volumeLastHour", lastHour.volume);
+        stats.put("volumeToday", today.volume);
+        stats.put("volumeThisWeek", week.volume);
+        stats.put("volumeThisMonth", month.volume);
+
+        Map<String, Long> typeBreakdown = new HashMap<>();
+        for (TransactionType type : TransactionType.values()) {
+            typeBreakdown.put(type.name(), byType.getOrDefault(type, 0L));
+        }
+        stats.put("byType", typeBreakdown);
+        stats.put("asOf", now.toString());
+
+        snapshot = Collections.unmodifiableMap(stats);
+    }
+
+    private void addDelta(Granularity granularity, LocalDateTime time, TransactionType type,
+                          TransactionStatus status, long count, BigDecimal volume) {
+        BucketKey key = new BucketKey(granularity, granularity.bucketStart(time != null ? time : LocalDateTime.now()),
+                type, status);
+        // compute() runs under the bin lock, so a delta is never mutated after flushDeltas() removed it
+        pendingDeltas.compute(key, (k, existing) -> {
+            Delta delta = existing != null ? existing : new Delta();
+            delta.count += count;
+            delta.volume = delta.volume.add(volume);
+            return delta;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Delta {
+        private long count;
+        private BigDecimal volume = BigDecimal.ZERO;
+
+        private static Delta combine(Delta a, Delta b) {
+            Delta merged = new Delta();
+            merged.count = a.count + b.count;
+            merged.volume = a.volume.add(b.volume);
+            return merged;
+        }
+    }
+
+    private static final class Window {
+        private long count;
+        private BigDecimal volume = BigDecimal.ZERO;
+
+        private void add(TransactionStatsRollup row) {
+            count += row.getTxCount();
+            if (row.getKey().getStatus() == TransactionStatus.COMPLETED) {
+                volume = volume.add(row.getVolume());
+            }
+        }
+    }
+}
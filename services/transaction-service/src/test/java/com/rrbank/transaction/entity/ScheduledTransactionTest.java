@@ -0,0 +1,88 @@
+package com.rrbank.transaction.entity;
+
+import com.rrbank.transaction.entity.ScheduledTransaction.Frequency;
+import com.rrbank.transaction.entity.ScheduledTransaction.ScheduleStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduledTransactionTest {
+
+    @Test
+    void monthlyOnThe31stClampsToShortMonthsAndReturnsToTheAnchor() {
+        ScheduledTransaction schedule = monthly(31);
+
+        LocalDateTime run = LocalDateTime.of(2027, 1, 31, 9, 30);
+        run = schedule.nextOccurrenceAfter(run);
+        assertThat(run).isEqualTo(LocalDateTime.of(2027, 2, 28, 9, 30));
+        run = schedule.nextOccurrenceAfter(run);
+        assertThat(run).isEqualTo(LocalDateTime.of(2027, 3, 31, 9, 30));
+        run = schedule.nextOccurrenceAfter(run);
+        assertThat(run).isEqualTo(LocalDateTime.of(2027, 4, 30, 9, 30));
+        run = schedule.nextOccurrenceAfter(run);
+        assertThat(run).isEqualTo(LocalDateTime.of(2027, 5, 31, 9, 30));
+    }
+
+    @Test
+    void monthlyClampsToThe29thOfFebruaryInLeapYears() {
+        assertThat(monthly(31).nextOccurrenceAfter(LocalDateTime.of(2028, 1, 31, 0, 0)))
+                .isEqualTo(LocalDateTime.of(2028, 2, 29, 0, 0));
+        assertThat(monthly(30).nextOccurrenceAfter(LocalDateTime.of(2028, 2, 29, 0, 0)))
+                .isEqualTo(LocalDateTime.of(2028, 3, 30, 0, 0));
+    }
+
+    @Test
+    void monthlyCrossesTheYearEnd() {
+        assertThat(monthly(31).nextOccurrenceAfter(LocalDateTime.of(2027, 12, 31, 23, 59, 59)))
+                .isEqualTo(LocalDateTime.of(2028, 1, 31, 23, 59, 59));
+    }
+
+    @Test
+    void monthlyWithoutAnchorKeepsTheDayOfTheLastRun() {
+        assertThat(monthly(null).nextOccurrenceAfter(LocalDateTime.of(2027, 4, 30, 12, 0)))
+                .isEqualTo(LocalDateTime.of(2027, 5, 30, 12, 0));
+    }
+
+    @Test
+    void recordRunCompletesTheScheduleWhenTheNextRunIsAfterTheEndDate() {
+        ScheduledTransaction schedule = monthly(31);
+        schedule.setEndDate(LocalDate.of(2027, 2, 27));
+        UUID transactionId = UUID.randomUUID();
+
+        schedule.recordRun(LocalDateTime.of(2027, 1, 31, 9, 30), transactionId, "COMPLETED", null);
+
+        assertThat(schedule.getStatus()).isEqualTo(ScheduleStatus.COMPLETED);
+        assertThat(schedule.getNextRunAt()).isNull();
+        assertThat(schedule.getRunCount()).isEqualTo(1);
+        assertThat(schedule.getLastTransactionId()).isEqualTo(transactionId);
+    }
+
+    @Test
+    void recordRunKeepsAClampedRunOnTheEndDate() {
+        ScheduledTransaction schedule = monthly(31);
+        schedule.setEndDate(LocalDate.of(2027, 2, 28));
+
+        schedule.recordRun(LocalDateTime.of(2027, 1, 31, 9, 30), UUID.randomUUID(), "COMPLETED", null);
+
+        assertThat(schedule.getStatus()).isEqualTo(ScheduleStatus.ACTIVE);
+        assertThat(schedule.getNextRunAt()).isEqualTo(LocalDateTime.of(2027, 2, 28, 9, 30));
+    }
+
+    @Test
+    void onceHasNoNextOccurrence() {
+        ScheduledTransaction schedule = ScheduledTransaction.builder().frequency(Frequency.ONCE).build();
+
+        assertThat(schedule.nextOccurrenceAfter(LocalDateTime.of(2027, 1, 31, 9, 30))).isNull();
+    }
+
+    private static ScheduledTransaction monthly(Integer anchorDay) {
+        return ScheduledTransaction.builder()
+                .frequency(Frequency.MONTHLY)
+                .anchorDay(anchorDay)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.rrbank.transaction.entity;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionReferenceGeneratorTest {
+
+    @AfterEach
+    void releaseNodeId() {
+        TransactionReferenceGenerator.releaseNodeId();
+    }
+
+    @Test
+    void referencesCarryTheirCreationTimeForPartitionPruning() {
+        TransactionReferenceGenerator.assignNodeId(TransactionReferenceGenerator.MAX_NODE_ID);
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        String reference = TransactionReferenceGenerator.next();
+
+        assertThat(reference).startsWith("TXN").hasSize(16);
+        assertThat(TransactionReferenceGenerator.timestampOf(reference)).hasValueSatisfying(at ->
+                assertThat(at).isBetween(before, Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void referencesSortInIssueOrder() {
+        TransactionReferenceGenerator.assignNodeId(1);
+        List<String> references = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            references.add(TransactionReferenceGenerator.next());
+        }
+
+        assertThat(references).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void understandsLegacyReferences() {
+        assertThat(TransactionReferenceGenerator.timestampOf("TXN1704067200000ABCDEFGH"))
+                .contains(Instant.parse("2024-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void hasNoTimestampForForeignReferences() {
+        assertThat(TransactionReferenceGenerator.timestampOf(null)).isEmpty();
+        assertThat(TransactionReferenceGenerator.timestampOf("PAY0000000000000")).isEmpty();
+        // I, L, O and U are not in the Crockford alphabet
+        assertThat(TransactionReferenceGenerator.timestampOf("TXNIIIIIIIIIIIII")).isEmpty();
+        assertThat(TransactionReferenceGenerator.timestampOf("TXN12345")).isEmpty();
+    }
+
+    @Test
+    void refusesToIssueWithoutANodeId() {
+        assertThatThrownBy(TransactionReferenceGenerator::next).isInstanceOf(IllegalStateException.class);
+    }
+}
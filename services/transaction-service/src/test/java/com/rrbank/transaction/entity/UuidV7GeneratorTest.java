@@ -0,0 +1,29 @@
+package com.rrbank.transaction.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void idsCarryTheirCreationTimeForPartitionPruning() {
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        UUID id = UuidV7Generator.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(UuidV7Generator.timestampOf(id)).hasValueSatisfying(at ->
+                assertThat(at).isBetween(before, Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void hasNoTimestampForOtherUuidVersions() {
+        assertThat(UuidV7Generator.timestampOf(UUID.randomUUID())).isEmpty();
+        assertThat(UuidV7Generator.timestampOf(null)).isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package com.rrbank.transaction.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LedgerRpcProtocolTest {
+
+    private static final Path LEDGER_DEFINITION =
+            Path.of("../ledger-service/src/main/java/com/rrbank/ledger/rpc/LedgerRpcProtocol.java");
+    private static final Path LOCAL_COPY =
+            Path.of("src/main/java/com/rrbank/transaction/rpc/LedgerRpcProtocol.java");
+
+    @Test
+    void copyMatchesLedgerServiceDefinition() throws IOException {
+        // Only the whole repository has both files; a build from this directory alone skips the check
+        assumeTrue(Files.exists(LEDGER_DEFINITION), "ledger-service sources not available");
+
+        assertThat(codeOf(LOCAL_COPY))
+                .as("transaction-service's LedgerRpcProtocol has drifted from ledger-service's")
+                .isEqualTo(codeOf(LEDGER_DEFINITION));
+    }
+
+    @Test
+    void roundTripsEveryFieldType() throws IOException {
+        UUID id = UUID.randomUUID();
+        BigDecimal amount = new BigDecimal("-123456789012345.6789");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        LedgerRpcProtocol.writeUuid(out, id);
+        LedgerRpcProtocol.writeDecimal(out, amount);
+        LedgerRpcProtocol.writeDecimal(out, BigDecimal.ZERO);
+        LedgerRpcProtocol.writeString(out, "Salary \u20ac");
+        LedgerRpcProtocol.writeString(out, null);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThat(LedgerRpcProtocol.readUuid(in)).isEqualTo(id);
+        assertThat(LedgerRpcProtocol.readDecimal(in)).isEqualTo(amount);
+        assertThat(LedgerRpcProtocol.readDecimal(in)).isEqualTo(BigDecimal.ZERO);
+        assertThat(LedgerRpcProtocol.readString(in)).isEqualTo("Salary \u20ac");
+        assertThat(LedgerRpcProtocol.readString(in)).isNull();
+        assertThat(in.available()).isZero();
+    }
+
+    // Everything after the package line; the class doc differs, so it is dropped too
+    private static String codeOf(Path file) throws IOException {
+        String source = Files.readString(file, StandardCharsets.UTF_8);
+        String afterPackage = source.substring(source.indexOf(';') + 1);
+        int docStart = afterPackage.indexOf("/**");
+        int docEnd = afterPackage.indexOf("*/", docStart) + 2;
+        return afterPackage.substring(0, docStart) + afterPackage.substring(docEnd);
+    }
+}
@@ -0,0 +1,308 @@
+package com.rrbank.transaction.saga;
+
+import com.rrbank.transaction.dto.TransactionDTOs.FraudCheckResponse;
+import com.rrbank.transaction.entity.Transaction;
+import com.rrbank.transaction.entity.TransferBatch;
+import com.rrbank.transaction.entity.TransferBatchItem;
+import com.rrbank.transaction.entity.TransferBatchItem.ItemStatus;
+import com.rrbank.transaction.event.TransactionEventProducer;
+import com.rrbank.transaction.exception.LedgerRejectedException;
+import com.rrbank.transaction.repository.TransactionIdempotencyKeyRepository;
+import com.rrbank.transaction.repository.TransactionReferenceRepository;
+import com.rrbank.transaction.repository.TransactionRepository;
+import com.rrbank.transaction.repository.TransferBatchItemRepository;
+import com.rrbank.transaction.repository.TransferBatchRepository;
+import com.rrbank.transaction.service.AccountTransactionIndexer;
+import com.rrbank.transaction.service.FraudServiceClient;
+import com.rrbank.transaction.service.LedgerServiceClient;
+import com.rrbank.transaction.service.LedgerServiceClient.PostingLeg;
+import com.rrbank.transaction.service.TransactionStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the orchestrator against in-memory batch, item and transaction state, with chunks of two
+ * items and a ledger whose answer each test decides per chunk.
+ */
+class BatchTransferOrchestratorTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    private final UUID batchId = UUID.randomUUID();
+    private final UUID payerAccountId = UUID.randomUUID();
+    private final List<TransferBatchItem> items = new ArrayList<>();
+    private final Map<UUID, Transaction> transactions = new HashMap<>();
+    // First sequence number of every chunk sent to the ledger, and the transaction ids it carried
+    private final List<Integer> postedChunks = new ArrayList<>();
+    private final Map<Integer, List<UUID>> postedTransactionIds = new HashMap<>();
+
+    private TransferBatch batch;
+    private TransferBatchItemRepository itemRepository;
+    private FraudServiceClient fraudClient;
+    private Function<Integer, RuntimeException> ledgerAnswer;
+    private BatchTransferOrchestrator orchestrator;
+
+    @BeforeEach
+    void setUp() {
+        batch = TransferBatch.builder()
+                .id(batchId)
+                .fromAccountId(payerAccountId)
+                .initiatedBy(UUID.randomUUID())
+                .totalItems(7)
+                .totalAmount(new BigDecimal("70.00"))
+                .build();
+        for (int sequence = 1; sequence <= 7; sequence++) {
+            items.add(TransferBatchItem.builder()
+                    .id(UUID.randomUUID())
+                    .batchId(batchId)
+                    .sequenceNo(sequence)
+                    .toAccountId(UUID.randomUUID())
+                    .amount(new BigDecimal("10.00"))
+                    .build());
+        }
+        ledgerAnswer = firstSequence -> null;
+
+        TransferBatchRepository batchRepository = mock(TransferBatchRepository.class);
+        when(batchRepository.findById(batchId)).thenAnswer(invocation -> Optional.of(batch));
+        when(batchRepository.save(any(TransferBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(batchRepository.addProgress(eq(batchId), anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            batch.setCompletedItems(batch.getCompletedItems() + invocation.<Integer>getArgument(1));
+            batch.setFailedItems(batch.getFailedItems() + invocation.<Integer>getArgument(2));
+            return 1;
+        });
+
+        itemRepository = mock(TransferBatchItemRepository.class);
+        when(itemRepository.findPendingChunk(eq(batchId), anyInt(), any(Pageable.class))).thenAnswer(invocation -> {
+            int afterSequence = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(2);
+            return items.stream()
+                    .filter(item -> item.getStatus() == ItemStatus.PENDING && item.getSequenceNo() > afterSequence)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        when(itemRepository.findInFlight(batchId)).thenAnswer(invocation ->
+                items.stream().filter(item -> item.getStatus() == ItemStatus.PROCESSING).toList());
+        when(itemRepository.existsByBatchIdAndStatusNot(batchId, ItemStatus.PENDING)).thenAnswer(invocation ->
+                items.stream().anyMatch(item -> item.getStatus() != ItemStatus.PENDING));
+        when(itemRepository.findMaxAmount(batchId)).thenReturn(new BigDecimal("10.00"));
+        when(itemRepository.settleChunk(eq(batchId), anyInt(), anyInt(), any(), any(), any())).thenAnswer(invocation -> {
+            int from = invocation.getArgument(1);
+            int to = invocation.getArgument(2);
+            int settled = 0;
+            for (TransferBatchItem item : items) {
+                if (item.getSequenceNo() >= from && item.getSequenceNo() <= to && item.getStatus() == ItemStatus.PROCESSING) {
+                    item.setStatus(invocation.getArgument(3));
+                    item.setFailureReason(invocation.getArgument(4));
+                    settled++;
+                }
+            }
+            return settled;
+        });
+        when(itemRepository.failPending(eq(batchId), any(), any())).thenAnswer(invocation -> {
+            int failed = 0;
+            for (TransferBatchItem item : items) {
+                if (item.getStatus() == ItemStatus.PENDING) {
+                    item.setStatus(ItemStatus.FAILED);
+                    item.setFailureReason(invocation.getArgument(1));
+                    failed++;
+                }
+            }
+            return failed;
+        });
+
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> saved = invocation.getArgument(0);
+            for (Transaction transaction : saved) {
+                transaction.setId(UUID.randomUUID());
+                transaction.setCreatedAt(LocalDateTime.now());
+                transactions.put(transaction.getId(), transaction);
+            }
+            return saved;
+        });
+        when(transactionRepository.findAllByIdPruned(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream().map(transactions::get).toList();
+        });
+
+        LedgerServiceClient ledgerClient = mock(LedgerServiceClient.class);
+        doAnswer(invocation -> {
+            List<PostingLeg> legs = invocation.getArgument(1);
+            int firstSequence = sequenceOf(legs.get(0).transactionId);
+            postedChunks.add(firstSequence);
+            postedTransactionIds.put(firstSequence, legs.stream().map(leg -> leg.transactionId).toList());
+            RuntimeException failure = ledgerAnswer.apply(firstSequence);
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }).when(ledgerClient).postMultiLeg(eq(payerAccountId), anyList());
+
+        fraudClient = mock(FraudServiceClient.class);
+        when(fraudClient.checkTransaction(any())).thenReturn(
+                FraudCheckResponse.builder().decision("APPROVE").reason("ok").riskScore(0).build());
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        orchestrator = new BatchTransferOrchestrator(
+                batchRepository,
+                itemRepository,
+                transactionRepository,
+                mock(TransactionIdempotencyKeyRepository.class),
+                mock(TransactionReferenceRepository.class),
+                mock(AccountTransactionIndexer.class),
+                ledgerClient,
+                fraudClient,
+                mock(TransactionEventProducer.class),
+                mock(TransactionStatsService.class),
+                new SagaMetrics(new SimpleMeterRegistry()),
+                transactionManager,
+                Runnable::run,
+                CHUNK_SIZE);
+    }
+
+    @Test
+    void postsEveryChunkAndCompletesTheBatch() {
+        orchestrator.execute(batchId);
+
+        assertThat(postedChunks).containsExactly(1, 3, 5, 7);
+        assertThat(statuses()).containsOnly(ItemStatus.COMPLETED);
+        assertThat(transactionStatuses()).containsOnly(Transaction.TransactionStatus.COMPLETED);
+        assertThat(batch.getStatus()).isEqualTo(TransferBatch.BatchStatus.COMPLETED);
+        assertThat(batch.getCompletedItems()).isEqualTo(7);
+    }
+
+    @Test
+    void rejectedChunkFailsTheRestWithoutSubmittingIt() {
+        ledgerAnswer = firstSequence -> firstSequence == 3
+                ? new LedgerRejectedException("Insufficient balance", null) : null;
+
+        orchestrator.execute(batchId);
+
+        assertThat(postedChunks).containsExactly(1, 3);
+        assertThat(statuses()).containsExactly(
+                ItemStatus.COMPLETED, ItemStatus.COMPLETED,
+                ItemStatus.FAILED, ItemStatus.FAILED,
+                // Already written while 3-4 was at the ledger, never submitted
+                ItemStatus.FAILED, ItemStatus.FAILED,
+                ItemStatus.FAILED);
+        assertThat(batch.getStatus()).isEqualTo(TransferBatch.BatchStatus.PARTIALLY_COMPLETED);
+        assertThat(batch.getCompletedItems()).isEqualTo(2);
+        assertThat(batch.getFailedItems()).isEqualTo(5);
+        assertThat(batch.getFailureReason()).startsWith("Ledger rejected items 3-4, later items were not submitted");
+    }
+
+    @Test
+    void unknownOutcomeLeavesItemsInFlightAndTheBatchOpen() {
+        ledgerAnswer = firstSequence -> firstSequence == 3 ? new RuntimeException("Read timed out") : null;
+
+        orchestrator.execute(batchId);
+
+        assertThat(postedChunks).containsExactly(1, 3);
+        assertThat(statuses()).containsExactly(
+                ItemStatus.COMPLETED, ItemStatus.COMPLETED,
+                ItemStatus.PROCESSING, ItemStatus.PROCESSING,
+                ItemStatus.PROCESSING, ItemStatus.PROCESSING,
+                ItemStatus.PENDING);
+        assertThat(transactions.values().stream().filter(t -> t.getStatus() == Transaction.TransactionStatus.FAILED))
+                .isEmpty();
+        assertThat(batch.getStatus()).isEqualTo(TransferBatch.BatchStatus.PROCESSING);
+        assertThat(batch.getFailedItems()).isZero();
+    }
+
+    @Test
+    void recoveryPostsInFlightItemsAgainWithTheirTransactionsAndFinishes() {
+        ledgerAnswer = firstSequence -> firstSequence == 3 ? new RuntimeException("Read timed out") : null;
+        orchestrator.execute(batchId);
+        List<UUID> firstAttempt = postedTransactionIds.get(3);
+        postedChunks.clear();
+        ledgerAnswer = firstSequence -> null;
+
+        orchestrator.resume(batchId);
+
+        // The fraud check ran once, before the first run posted anything
+        verify(fraudClient).checkTransaction(any());
+        assertThat(postedChunks).containsExactly(3, 5, 7);
+        assertThat(postedTransactionIds.get(3)).isEqualTo(firstAttempt);
+        assertThat(statuses()).containsOnly(ItemStatus.COMPLETED);
+        assertThat(batch.getStatus()).isEqualTo(TransferBatch.BatchStatus.COMPLETED);
+        assertThat(batch.getCompletedItems()).isEqualTo(7);
+    }
+
+    @Test
+    void recoveryRejectionStillRedrivesLaterInFlightItemsButFailsPendingOnes() {
+        ledgerAnswer = firstSequence -> firstSequence == 3 ? new RuntimeException("Read timed out") : null;
+        orchestrator.execute(batchId);
+        postedChunks.clear();
+        ledgerAnswer = firstSequence -> firstSequence == 3
+                ? new LedgerRejectedException("Insufficient balance", null) : null;
+
+        orchestrator.resume(batchId);
+
+        // 5-6 may have reached the ledger before, so it is settled; 7 is never submitted
+        assertThat(postedChunks).containsExactly(3, 5);
+        assertThat(statuses()).containsExactly(
+                ItemStatus.COMPLETED, ItemStatus.COMPLETED,
+                ItemStatus.FAILED, ItemStatus.FAILED,
+                ItemStatus.COMPLETED, ItemStatus.COMPLETED,
+                ItemStatus.FAILED);
+        assertThat(batch.getStatus()).isEqualTo(TransferBatch.BatchStatus.PARTIALLY_COMPLETED);
+        assertThat(batch.getCompletedItems()).isEqualTo(4);
+        assertThat(batch.getFailedItems()).isEqualTo(3);
+    }
+
+    @Test
+    void resumeIgnoresBatchesThatAreNoLongerOpen() {
+        orchestrator.execute(batchId);
+        postedChunks.clear();
+
+        orchestrator.resume(batchId);
+
+        assertThat(postedChunks).isEmpty();
+        verify(itemRepository, never()).findInFlight(batchId);
+    }
+
+    private int sequenceOf(UUID transactionId) {
+        return items.stream()
+                .filter(item -> transactionId.equals(item.getTransactionId()))
+                .findFirst()
+                .orElseThrow()
+                .getSequenceNo();
+    }
+
+    private List<ItemStatus> statuses() {
+        return items.stream().map(TransferBatchItem::getStatus).toList();
+    }
+
+    private List<Transaction.TransactionStatus> transactionStatuses() {
+        return transactions.values().stream().map(Transaction::getStatus).toList();
+    }
+}
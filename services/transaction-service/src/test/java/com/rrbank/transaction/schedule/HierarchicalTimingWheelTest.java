@@ -0,0 +1,96 @@
+package com.rrbank.transaction.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    // An hour boundary in epoch seconds, and a start 20m34s into that hour
+    private static final long HOUR = 1_700_002_800L;
+    private static final long START = HOUR + 1234;
+
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(START);
+
+    @Test
+    void firesTimersFromEveryLevelAtTheirDeadline() {
+        Map<String, Long> deadlines = Map.of(
+                "same minute", START + 5,
+                "later minute", START + 130,
+                "next hour boundary", HOUR + 3600,
+                "minute boundary of next hour", HOUR + 3600 + 60,
+                "inside next hour", HOUR + 3600 + 61,
+                "last second two hours on", HOUR + 3 * 3600 - 1);
+        deadlines.forEach((name, deadline) -> assertThat(wheel.add(name, deadline)).as(name).isTrue());
+
+        Map<String, Long> fired = advanceSecondBySecond(HOUR + 3 * 3600);
+
+        assertThat(fired).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void holdsTimersUntilTheEndOfTheHour24HoursAhead() {
+        long lastCovered = HOUR + 25 * 3600 - 1;
+
+        assertThat(wheel.covers(lastCovered)).isTrue();
+        assertThat(wheel.add("last", lastCovered)).isTrue();
+        assertThat(wheel.covers(lastCovered + 1)).isFalse();
+        assertThat(wheel.add("beyond", lastCovered + 1)).isFalse();
+
+        Map<String, Long> fired = advanceSecondBySecond(lastCovered);
+
+        assertThat(fired).containsOnly(Map.entry("last", lastCovered));
+        assertThat(wheel.covers(lastCovered + 1)).isTrue();
+    }
+
+    @Test
+    void keepsTheHour24HoursAheadApartFromTheCurrentOne() {
+        // Same hour of day as START, one day later; it must not cascade when this hour's slot does
+        assertThat(wheel.add("tomorrow", START + 24 * 3600)).isTrue();
+        assertThat(wheel.add("next hour", HOUR + 3600 + 10)).isTrue();
+
+        Map<String, Long> fired = advanceSecondBySecond(HOUR + 2 * 3600);
+
+        assertThat(fired).containsOnlyKeys("next hour");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        fired = advanceSecondBySecond(START + 24 * 3600);
+
+        assertThat(fired).containsOnly(Map.entry("tomorrow", START + 24 * 3600));
+    }
+
+    @Test
+    void expiresEverythingDueInOneLargeAdvanceInDeadlineOrder() {
+        wheel.add("c", HOUR + 5 * 3600 + 7);
+        wheel.add("a", START + 1);
+        wheel.add("b", HOUR + 3600 + 59);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(HOUR + 6 * 3600, fired::add);
+
+        assertThat(fired).containsExactly("a", "b", "c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void refusesDeadlinesThatHavePassed() {
+        assertThat(wheel.add("now", START)).isFalse();
+        assertThat(wheel.add("past", START - 60)).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    private Map<String, Long> advanceSecondBySecond(long to) {
+        Map<String, Long> fired = new HashMap<>();
+        for (long second = START; second <= to; second++) {
+            long now = second;
+            wheel.advanceTo(now, name -> fired.put(name, now));
+        }
+        return fired;
+    }
+}